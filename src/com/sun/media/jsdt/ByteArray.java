@@ -28,7 +28,7 @@ import java.io.StreamCorruptedException;
  * The Byte Array interface. A ByteArray contains an array of bytes that
  * is shared between all Clients that are currently joined to it.
  *
- * @version     2.3 - 25th October 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  * @since        JSDT 1.0
  */
@@ -87,6 +87,20 @@ ByteArray extends Manageable {
     getValueAsString() throws NoSuchByteArrayException;
 
 
+/**
+ * <A NAME="SD_GETVERSION"></A>
+ * get the version of the current value for this shared ByteArray. The
+ * version goes up by one each time the value is changed.
+ *
+ * @return the version of the current value of this ByteArray object.
+ *
+ * @exception NoSuchByteArrayException if this shared ByteArray doesn't exist.
+ */
+
+    long
+    getVersion() throws NoSuchByteArrayException;
+
+
 /**
  * <A NAME="SD_SETVALUE"></A>
  * sets a new value for this shared ByteArray using the given byte array value.
@@ -150,6 +164,84 @@ ByteArray extends Manageable {
                TimedOutException;
 
 
+/**
+ * <A NAME="SD_UPDATEVALUE"></A>
+ * changes part of the value of this shared ByteArray. The given bytes
+ * replace the bytes of the shared value starting at the given position,
+ * and the value grows if they run past its end. Only the changed bytes are
+ * sent to all other instances of this shared ByteArray. All ByteArray
+ * listeners will have their <CODE>byteArrayValueChanged</CODE> method
+ * invoked.
+ *
+ * @param client the Client wishing to change the value of this ByteArray.
+ * @param position the position in the shared value to change from.
+ * @param value the byte array that is the source of the changed bytes.
+ * @param offset the initial offset within the byte array.
+ * @param length the number of bytes to use.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchByteArrayException if this shared ByteArray doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have
+ * permission to perform this operation, or the position is past the end of
+ * the shared value.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    void
+    updateValue(Client client, int position,
+                byte[] value, int offset, int length)
+        throws ConnectionException, InvalidClientException,
+               NoSuchByteArrayException, NoSuchClientException,
+               NoSuchSessionException, PermissionDeniedException,
+               TimedOutException;
+
+
+/**
+ * <A NAME="SD_COMPAREANDSET"></A>
+ * sets a new value for this shared ByteArray, but only if the shared value
+ * is still at the given version. This lets Clients make optimistic changes
+ * without holding a Token: read the version (with <CODE>getVersion</CODE>)
+ * before reading the value, work out the new value, and then try to set it.
+ * If another Client has changed the value in the meantime, nothing is
+ * changed and false is returned straight away. The new current version and
+ * value can then be read, and the change tried again.
+ *
+ * <P>If the value is set, it is sent to all other instances of this shared
+ * ByteArray, and all ByteArray listeners will have their
+ * <CODE>byteArrayValueChanged</CODE> method invoked.
+ *
+ * @param client the Client wishing to set the value of this ByteArray.
+ * @param expectedVersion the version the shared value must be at.
+ * @param value the new value for this shared ByteArray.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchByteArrayException if this shared ByteArray doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have
+ * permission to perform this operation.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return true if the value was set, false if the shared value was no
+ * longer at the expected version.
+ */
+
+    boolean
+    compareAndSet(Client client, long expectedVersion, byte[] value)
+        throws ConnectionException, InvalidClientException,
+               NoSuchByteArrayException, NoSuchClientException,
+               NoSuchSessionException, PermissionDeniedException,
+               TimedOutException;
+
+
 /**
  * <A NAME="SD_SETVALUEFROMSTRING"></A>
  * sets a new value for this shared ByteArray using the given String.
@@ -22,11 +22,12 @@
 package com.sun.media.jsdt;
 
 import com.sun.media.jsdt.event.ChannelListener;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * JSDT Channel interface.
  *
- * @version     2.3 - 25th September 2004
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  * @since       JSDT 1.0
  */
@@ -427,4 +428,251 @@ Channel extends Manageable {
                NoSuchChannelException, NoSuchClientException,
                NoSuchConsumerException, NoSuchSessionException,
                PermissionDeniedException, TimedOutException;
+
+
+/**
+ * <A NAME="SD_SENDTOALL"></A>
+ * is used to send a batch of Data to all Clients consuming this Channel.
+ * If the sender is a consumer of this Channel, then it too will receive the
+ * Data.
+ *
+ * <P>The whole batch is sent to the server in a single message (and for a
+ * reliable Channel, acknowledged with a single reply), and is passed on to
+ * each receiver as a batch. Data in the batch sent at the same priority
+ * arrives at each receiver in the order it appears in the array.
+ *
+ * @param sendingClient the Client sending the Data.
+ * @param data the batch of Data being sent over this Channel.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if this Channel doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client doesn't have
+ * permission for this operation.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @since       JSDT 2.3
+ */
+
+    void
+    sendToAll(Client sendingClient, Data[] data)
+        throws ConnectionException, InvalidClientException,
+               NoSuchChannelException, NoSuchClientException,
+               NoSuchSessionException, PermissionDeniedException,
+               TimedOutException;
+
+
+/**
+ * <A NAME="SD_SENDTOOTHERS"></A>
+ * is used to send a batch of Data to other Clients consuming this Channel.
+ * The sender (irrespective of whether it's a consumer of this channel) will
+ * not receive the Data.
+ *
+ * <P>The whole batch is sent to the server in a single message (and for a
+ * reliable Channel, acknowledged with a single reply), and is passed on to
+ * each receiver as a batch. Data in the batch sent at the same priority
+ * arrives at each receiver in the order it appears in the array.
+ *
+ * @param sendingClient the Client sending the Data.
+ * @param data the batch of Data being sent over this Channel.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if this Channel doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client doesn't have
+ * permission for this operation.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @since       JSDT 2.3
+ */
+
+    void
+    sendToOthers(Client sendingClient, Data[] data)
+        throws ConnectionException, InvalidClientException,
+               NoSuchChannelException, NoSuchClientException,
+               NoSuchSessionException, PermissionDeniedException,
+               TimedOutException;
+
+
+/**
+ * <A NAME="SD_SENDTOCLIENT"></A>
+ * is used to send a batch of Data to a single Client consuming this
+ * Channel. The whole batch is sent to the server in a single message (and
+ * for a reliable Channel, acknowledged with a single reply). Data in the
+ * batch sent at the same priority arrives in the order it appears in the
+ * array.
+ *
+ * @param sendingClient the Client sending the Data.
+ * @param receivingClientName the name of the Client receiving the Data.
+ * @param data the batch of Data being sent over this Channel.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if this Channel doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchConsumerException if this Client doesn't have a
+ * ChannelConsumer associated with it.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client doesn't have
+ * permission for this operation.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @since       JSDT 2.3
+ */
+
+    void
+    sendToClient(Client sendingClient, String receivingClientName,
+                 Data[] data)
+        throws ConnectionException, InvalidClientException,
+               NoSuchChannelException, NoSuchClientException,
+               NoSuchConsumerException, NoSuchSessionException,
+               PermissionDeniedException, TimedOutException;
+
+
+/**
+ * <A NAME="SD_SENDTOALLASYNC"></A>
+ * is used to send Data to all Clients consuming this Channel, without
+ * waiting for the server to handle it. If the sender is a consumer of this
+ * Channel, then it too will receive the Data.
+ *
+ * <P>The Data is sent asynchronously. This method returns as soon as the
+ * Data has been written, and the returned future is completed when the
+ * server has handled it. If the server couldn't handle it, the future is
+ * completed exceptionally with the JSDTException that the synchronous
+ * method would have thrown. On a reliable Channel, a limited number of
+ * asynchronous sends (the "sendWindowSize" property) can be waiting to be
+ * acknowledged on each connection. The server acknowledges them
+ * cumulatively, so a burst of sends isn't held up by a round trip to the
+ * server for each one. On an unreliable Channel, the returned future is
+ * already complete.
+ *
+ * <P>Data sent asynchronously is received in the same order as Data sent
+ * synchronously by the same sender, at the same priority.
+ *
+ * @param sendingClient the Client sending the Data.
+ * @param data the Data being sent over this Channel.
+ *
+ * @return a future that is completed when the server has handled the Data.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if this Channel doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client doesn't have
+ * permission for this operation.
+ * @exception TimedOutException if there was no room for another
+ * asynchronous send in the timeout period.
+ *
+ * @since       JSDT 2.3
+ */
+
+    CompletableFuture<Void>
+    sendToAllAsync(Client sendingClient, Data data)
+        throws ConnectionException, InvalidClientException,
+               NoSuchChannelException, NoSuchClientException,
+               NoSuchSessionException, PermissionDeniedException,
+               TimedOutException;
+
+
+/**
+ * <A NAME="SD_SENDTOOTHERSASYNC"></A>
+ * is used to send Data to other Clients consuming this Channel, without
+ * waiting for the server to handle it. The sender (irrespective of whether
+ * it's a consumer of this channel) will not receive the Data.
+ *
+ * <P>The Data is sent asynchronously. This method returns as soon as the
+ * Data has been written, and the returned future is completed when the
+ * server has handled it. If the server couldn't handle it, the future is
+ * completed exceptionally with the JSDTException that the synchronous
+ * method would have thrown. On a reliable Channel, a limited number of
+ * asynchronous sends (the "sendWindowSize" property) can be waiting to be
+ * acknowledged on each connection. The server acknowledges them
+ * cumulatively, so a burst of sends isn't held up by a round trip to the
+ * server for each one. On an unreliable Channel, the returned future is
+ * already complete.
+ *
+ * @param sendingClient the Client sending the Data.
+ * @param data the Data being sent over this Channel.
+ *
+ * @return a future that is completed when the server has handled the Data.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if this Channel doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client doesn't have
+ * permission for this operation.
+ * @exception TimedOutException if there was no room for another
+ * asynchronous send in the timeout period.
+ *
+ * @since       JSDT 2.3
+ */
+
+    CompletableFuture<Void>
+    sendToOthersAsync(Client sendingClient, Data data)
+        throws ConnectionException, InvalidClientException,
+               NoSuchChannelException, NoSuchClientException,
+               NoSuchSessionException, PermissionDeniedException,
+               TimedOutException;
+
+
+/**
+ * <A NAME="SD_SENDTOCLIENTASYNC"></A>
+ * is used to send Data to a single Client consuming this Channel, without
+ * waiting for the server to handle it.
+ *
+ * <P>The Data is sent asynchronously. This method returns as soon as the
+ * Data has been written, and the returned future is completed when the
+ * server has handled it. If the server couldn't handle it, the future is
+ * completed exceptionally with the JSDTException that the synchronous
+ * method would have thrown. On a reliable Channel, a limited number of
+ * asynchronous sends (the "sendWindowSize" property) can be waiting to be
+ * acknowledged on each connection. The server acknowledges them
+ * cumulatively, so a burst of sends isn't held up by a round trip to the
+ * server for each one. On an unreliable Channel, the returned future is
+ * already complete.
+ *
+ * @param sendingClient the Client sending the Data.
+ * @param receivingClientName the name of the Client receiving the Data.
+ * @param data the Data being sent over this Channel.
+ *
+ * @return a future that is completed when the server has handled the Data.
+ * If the receiving Client doesn't have a ChannelConsumer associated with
+ * it, the future is completed exceptionally with a NoSuchConsumerException.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if this Channel doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client doesn't have
+ * permission for this operation.
+ * @exception TimedOutException if there was no room for another
+ * asynchronous send in the timeout period.
+ *
+ * @since       JSDT 2.3
+ */
+
+    CompletableFuture<Void>
+    sendToClientAsync(Client sendingClient, String receivingClientName,
+                      Data data)
+        throws ConnectionException, InvalidClientException,
+               NoSuchChannelException, NoSuchClientException,
+               NoSuchSessionException, PermissionDeniedException,
+               TimedOutException;
 }
@@ -310,6 +310,232 @@ SessionFactory extends JSDTObject {
     }
 
 
+/**
+ * <A NAME="SD_CREATESESSIONNODE"></A>
+ * <EM>createSessionNode</EM> is a class method that will start a server for
+ * part of a Session in this process, and register it with the Registry as a
+ * Node of that Session. The ByteArrays, Channels and Tokens of the Session
+ * are spread across the server named in the Session URL and all its Nodes,
+ * by name, so that one busy Session can be served by more than one machine.
+ * Clients notice when a Node is created or goes away, but the objects that
+ * move to a new Node are not copied there, so the Nodes of a Session should
+ * be created before clients start to use it.
+ * A managed Session is not spread across its Nodes; all of its objects are
+ * kept on the server named in the Session URL, where its SessionManager
+ * can authenticate every request.
+ *
+ * @param client a client that will be used for authentication purposes if
+ * the Registry running on the server machine where this Node URL will be
+ * stored, is managed.
+ * @param urlString the URLString for this Node. The object name is the
+ * name of the Session that this Node is part of.
+ *
+ * @exception AlreadyBoundException if a Node with this URL already exists.
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception InvalidURLException if the url string given is invalid.
+ * @exception NoRegistryException if no Registry process running.
+ * @exception NoSuchHostException if the host name in the url string doesn't
+ * exist.
+ * @exception NoSuchSessionException if a Node of this type could not be
+ * created.
+ * @exception PermissionDeniedException if this Client doesn't have
+ * permission for this operation.
+ * @exception PortInUseException if this port is being used by another
+ * application.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @since       JSDT 2.3
+ */
+
+    public static void
+    createSessionNode(Client client, URLString urlString)
+        throws AlreadyBoundException, ConnectionException,
+               InvalidClientException, InvalidURLException,
+               NoRegistryException, NoSuchHostException,
+               NoSuchSessionException, PermissionDeniedException,
+               PortInUseException, TimedOutException {
+        String connectType = urlString.getConnectionType();
+        String className   = "com.sun.media.jsdt." + connectType +
+                                   "." + connectType + "Node";
+        Object node;
+
+        if (SessionFactory_Debug) {
+            Debug("SessionFactory: createSessionNode:" +
+                  " client: " + client +
+                  " url: "    + urlString);
+        }
+
+        if (!Util.isNode(urlString)) {
+            throw new InvalidURLException();
+        }
+
+        try {
+            Class<?> c = Util.getClassForName(className);
+
+            node = c.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new NoSuchSessionException();
+        }
+
+        Naming.bind(urlString, node, client);
+    }
+
+
+/**
+ * <A NAME="SD_DESTROYSESSIONNODE"></A>
+ * <EM>destroySessionNode</EM> is a class method that will remove a Node
+ * created in this process from the Registry, and stop its server once the
+ * parts of Sessions it is holding have been destroyed.
+ *
+ * @param client a client that will be used for authentication purposes if
+ * the Registry running on the server machine where this Node URL is stored,
+ * is managed.
+ * @param urlString the URLString for this Node.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception InvalidURLException if the url string given is invalid.
+ * @exception NoRegistryException if no Registry process running.
+ * @exception NoSuchHostException if the host name in the url string doesn't
+ * exist.
+ * @exception NotBoundException if this Node isn't bound in the Registry.
+ * @exception PermissionDeniedException if this Client doesn't have
+ * permission for this operation.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @since       JSDT 2.3
+ */
+
+    public static void
+    destroySessionNode(Client client, URLString urlString)
+        throws ConnectionException, InvalidClientException,
+               InvalidURLException, NoRegistryException,
+               NoSuchHostException, NotBoundException,
+               PermissionDeniedException, TimedOutException {
+        if (SessionFactory_Debug) {
+            Debug("SessionFactory: destroySessionNode:" +
+                  " client: " + client +
+                  " url: "    + urlString);
+        }
+
+        if (!Util.isNode(urlString)) {
+            throw new InvalidURLException();
+        }
+
+        Naming.unbind(urlString, null, client);
+    }
+
+
+/**
+ * <A NAME="SD_CREATECHANNELRELAY"></A>
+ * <EM>createChannelRelay</EM> is a class method that will start relaying a
+ * Channel from an upstream Session to a relay Session, usually served by
+ * this process. The relay joins the upstream Channel once as a consumer, and
+ * sends every piece of Data it receives on to the Channel with the same name
+ * in the relay Session, at the same priority and in the same order. Clients
+ * then use the relay URL as they would the upstream one, so the upstream
+ * server only sends each piece of Data once per relay. A relay URL can be
+ * used as the upstream URL of other relays, to build a tree of servers for
+ * a very large audience.
+ *
+ * <P>Data received through a relay has the relay Client as its sender.
+ *
+ * @param client the Client the relay joins both Sessions and Channels as.
+ * This client will also be used for authentication purposes if either
+ * Session is managed.
+ * @param upstreamURL the URLString of the Session to relay from.
+ * @param relayURL the URLString of the Session to relay to. It's created if
+ * it doesn't already exist.
+ * @param channelName the name of the Channel to relay.
+ * @param reliable whether the Channel is reliable.
+ * @param ordered whether Data sent over the Channel is ordered.
+ *
+ * @exception AlreadyBoundException if this Channel is already being relayed
+ * to this relay URL by this process.
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception InvalidURLException if a url string given is invalid.
+ * @exception NoRegistryException if no Registry process running.
+ * @exception NoSuchChannelException if a Channel couldn't be created.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchConsumerException if the relay couldn't consume the
+ * upstream Channel.
+ * @exception NoSuchHostException if a host name in a url string doesn't
+ * exist.
+ * @exception NoSuchSessionException if a Session couldn't be returned.
+ * @exception PermissionDeniedException if this Client doesn't have
+ * permission for this operation.
+ * @exception PortInUseException if the relay port is being used by another
+ * application.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @since       JSDT 2.3
+ */
+
+    public static void
+    createChannelRelay(Client client, URLString upstreamURL,
+                       URLString relayURL, String channelName,
+                       boolean reliable, boolean ordered)
+        throws AlreadyBoundException, ConnectionException,
+               InvalidClientException, InvalidURLException,
+               NoRegistryException, NoSuchChannelException,
+               NoSuchClientException, NoSuchConsumerException,
+               NoSuchHostException, NoSuchSessionException,
+               PermissionDeniedException, PortInUseException,
+               TimedOutException {
+        if (SessionFactory_Debug) {
+            Debug("SessionFactory: createChannelRelay:" +
+                  " client: "       + client +
+                  " upstream url: " + upstreamURL +
+                  " relay url: "    + relayURL +
+                  " channel name: " + channelName);
+        }
+
+        if (!Util.isSession(upstreamURL) || !Util.isSession(relayURL) ||
+            upstreamURL.toString().equals(relayURL.toString())) {
+            throw new InvalidURLException();
+        }
+
+        ChannelRelay.createRelay(client, upstreamURL, relayURL,
+                                 channelName, reliable, ordered);
+    }
+
+
+/**
+ * <A NAME="SD_DESTROYCHANNELRELAY"></A>
+ * <EM>destroyChannelRelay</EM> is a class method that will stop relaying a
+ * Channel to a relay Session. The relay Session and Channel are left for the
+ * Clients using them.
+ *
+ * @param relayURL the URLString of the Session being relayed to.
+ * @param channelName the name of the Channel being relayed.
+ *
+ * @exception NoSuchChannelException if this Channel isn't being relayed to
+ * this relay URL by this process.
+ *
+ * @since       JSDT 2.3
+ */
+
+    public static void
+    destroyChannelRelay(URLString relayURL, String channelName)
+        throws NoSuchChannelException {
+        if (SessionFactory_Debug) {
+            Debug("SessionFactory: destroyChannelRelay:" +
+                  " relay url: "    + relayURL +
+                  " channel name: " + channelName);
+        }
+
+        ChannelRelay.destroyRelay(relayURL, channelName);
+    }
+
+
 /**
  * <A NAME="SD_SESSIONEXISTS"></A>
  * <EM>sessionExists</EM> is a class method that checks if a Session with
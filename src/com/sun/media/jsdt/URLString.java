@@ -227,6 +227,41 @@ URLString extends JSDTObject {
     }
 
 
+/**
+ * <A NAME="SD_CREATENODEURL"></A>
+ * <EM>createNodeURL</EM> is a class method that will create a JSDT Node
+ * URL given it's component parts. This URL can then be used in conjunction
+ * with the <CODE>createSessionNode</CODE> method in the SessionFactory class,
+ * to host some of the ByteArrays, Channels and Tokens of a Session on
+ * another server.
+ *
+ * @param hostName the host name for the server for this Node.
+ * @param port the port number the Node is running on. This is a port on
+ * the local machine; not the port number of the Session.
+ * @param connectionType the connection (implementation) type of this Node.
+ * @param sessionName the name of the Session this Node is part of.
+ *
+ * @since       JSDT 2.3
+ */
+
+    public static URLString
+    createNodeURL(String hostName, int port,
+                  String connectionType, String sessionName) {
+        String url = "jsdt://" + hostName + ":" + port + "/" +
+                     connectionType + "/Node/" + sessionName;
+
+        if (URLString_Debug) {
+            Debug("URLString: createNodeURL:" +
+                  " host name: "       + hostName +
+                  " port number: "     + port +
+                  " connection type: " + connectionType +
+                  " session name: "    + sessionName);
+        }
+
+        return(new URLString(url));
+    }
+
+
 /**
  * <A NAME="SD_GETHOSTADDRESS"></A>
  * <EM>getHostAddress</EM> get the host IP address for the server for
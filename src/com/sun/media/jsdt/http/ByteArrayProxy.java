@@ -30,7 +30,7 @@ import java.util.*;
 /**
  * JSDT Byte Array client-side proxy class.
  *
- * @version     2.3 - 16th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -172,6 +172,289 @@ ByteArrayProxy extends ManageableProxy implements AbstractByteArrayProxy {
     }
 
 
+/**
+ * <A NAME="SD_UPDATEVALUE"></A>
+ * <EM>updateValue</EM> send a message to the session server to change part
+ * of a shared byte array with the given name for this session. The session
+ * server sends a change notification to all the listeners of this shared
+ * byte array.
+ *
+ * @param client a client successfully joined to this session.
+ * @param position the position in the shared value to change from.
+ * @param value the byte array that is the source of the changed bytes.
+ * @param offset the offset into the byte array.
+ * @param length the number of bytes to use.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchByteArrayException if this byte array does exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have permission
+ * to change the value of this ByteArray.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    public void
+    updateValue(Client client, int position,
+                byte[] value, int offset, int length)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchByteArrayException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException {
+        DataInputStream  in;
+        Message          message;
+        int              retval;
+        int              id         = sp.proxyThread.getId();
+        short            sessionNo  = sp.getSessionNo();
+        String           clientName = Util.getClientName(client);
+        char             type       = ByteArrayImpl.M_ByteArray;
+
+        if (ByteArrayProxy_Debug) {
+            debug("ByteArrayProxy: updateValue:" +
+                  " position: " + position +
+                  " value: "    + value +
+                  " offset: "   + offset +
+                  " length: "   + length);
+        }
+
+        if (session == null) {
+            throw new NoSuchSessionException();
+        }
+
+        if (clients.get(clientName) == null) {
+            throw new NoSuchClientException();
+        }
+
+        try {
+            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+                              sessionNo, id, type, T_UpdateValue, true, true);
+            sp.proxyThread.dataOut.writeUTF(name);
+            sp.proxyThread.dataOut.writeUTF(clientName);
+            sp.proxyThread.dataOut.writeInt(position);
+            sp.proxyThread.dataOut.writeInt(length);
+            sp.proxyThread.dataOut.write(value, offset, length);
+            sp.proxyThread.flush();
+            message = sp.proxyThread.waitForReply();
+
+            in     = message.thread.dataIn;
+            retval = in.readInt();
+            message.thread.finishReply();
+
+            if (retval != 0) {
+                switch (retval) {
+                    case JSDTException.NO_SUCH_BYTEARRAY:
+                        throw new NoSuchByteArrayException();
+                    case JSDTException.NO_SUCH_CLIENT:
+                        throw new NoSuchClientException();
+                    case JSDTException.NO_SUCH_SESSION:
+                        session = null;
+                        throw new NoSuchSessionException();
+                    case JSDTException.PERMISSION_DENIED:
+                        throw new PermissionDeniedException();
+                    default:
+                        error("ByteArrayProxy: updateValue: ",
+                              "impl.unknown.exception.type", retval);
+                }
+            }
+        } catch (IOException e) {
+            sp.proxyThread.finishReply();
+            throw new ConnectionException();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_COMPAREANDSET"></A>
+ * <EM>compareAndSet</EM> send a message to the session server to update a
+ * shared byte array with the given name for this session, but only if its
+ * value is still at the expected version. If it is, the session server
+ * sends a change notification to all the listeners of this shared byte
+ * array. If it isn't, the local value is marked as stale, so that the
+ * current value is fetched the next time it is read.
+ *
+ * @param client a client successfully joined to this session.
+ * @param expectedVersion the version the shared value must be at.
+ * @param value the new value of the byte array.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchByteArrayException if this byte array does exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have permission
+ * to change the value of this ByteArray.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return true if the value was set, false if the shared value was no
+ * longer at the expected version.
+ */
+
+    public boolean
+    compareAndSet(Client client, long expectedVersion, byte[] value)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchByteArrayException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException {
+        DataInputStream  in;
+        Message          message;
+        int              retval;
+        boolean          swapped    = false;
+        long             version;
+        int              id         = sp.proxyThread.getId();
+        short            sessionNo  = sp.getSessionNo();
+        String           clientName = Util.getClientName(client);
+        char             type       = ByteArrayImpl.M_ByteArray;
+
+        if (ByteArrayProxy_Debug) {
+            debug("ByteArrayProxy: compareAndSet:" +
+                  " expected version: " + expectedVersion +
+                  " value: "            + value);
+        }
+
+        if (session == null) {
+            throw new NoSuchSessionException();
+        }
+
+        if (clients.get(clientName) == null) {
+            throw new NoSuchClientException();
+        }
+
+        try {
+            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+                            sessionNo, id, type, T_CompareAndSet, true, true);
+            sp.proxyThread.dataOut.writeUTF(name);
+            sp.proxyThread.dataOut.writeUTF(clientName);
+            sp.proxyThread.dataOut.writeLong(expectedVersion);
+            sp.proxyThread.dataOut.writeInt(value.length);
+            sp.proxyThread.dataOut.write(value, 0, value.length);
+            sp.proxyThread.flush();
+            message = sp.proxyThread.waitForReply();
+
+/* A reply saying that the byte array or session doesn't exist has just the
+ * return value in it.
+ */
+
+            in      = message.thread.dataIn;
+            retval  = in.readInt();
+            if (retval == 0) {
+                swapped = in.readBoolean();
+                version = in.readLong();
+            } else {
+                version = 0;
+            }
+            message.thread.finishReply();
+
+            if (retval != 0) {
+                switch (retval) {
+                    case JSDTException.NO_SUCH_BYTEARRAY:
+                        throw new NoSuchByteArrayException();
+                    case JSDTException.NO_SUCH_CLIENT:
+                        throw new NoSuchClientException();
+                    case JSDTException.NO_SUCH_SESSION:
+                        session = null;
+                        throw new NoSuchSessionException();
+                    case JSDTException.PERMISSION_DENIED:
+                        throw new PermissionDeniedException();
+                    default:
+                        error("ByteArrayProxy: compareAndSet: ",
+                              "impl.unknown.exception.type", retval);
+                }
+            } else if (swapped) {
+                byteArray.setLocalValue(value.clone(), version);
+            } else {
+                byteArray.setLatestVersion(version);
+            }
+        } catch (IOException e) {
+            sp.proxyThread.finishReply();
+            throw new ConnectionException();
+        }
+
+        return(swapped);
+    }
+
+
+/**
+ * <A NAME="SD_FETCHVALUE"></A>
+ * <EM>fetchValue</EM> send a message to the session server to get a new
+ * copy of the current value and version of a shared byte array with the
+ * given name for this session, and make it the local value.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoSuchByteArrayException if this byte array does exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    public void
+    fetchValue()
+                throws ConnectionException, NoSuchByteArrayException,
+                       NoSuchSessionException, TimedOutException {
+        DataInputStream  in;
+        Message          message;
+        int              retval;
+        long             version;
+        byte[]           value;
+        int              id         = sp.proxyThread.getId();
+        short            sessionNo  = sp.getSessionNo();
+        char             type       = ByteArrayImpl.M_ByteArray;
+
+        if (ByteArrayProxy_Debug) {
+            debug("ByteArrayProxy: fetchValue.");
+        }
+
+        if (session == null) {
+            throw new NoSuchSessionException();
+        }
+
+        try {
+            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+                                 sessionNo, id, type, T_GetValue, true, true);
+            sp.proxyThread.dataOut.writeUTF(name);
+            sp.proxyThread.flush();
+            message = sp.proxyThread.waitForReply();
+
+/* A reply saying that the byte array or session doesn't exist has just the
+ * return value in it.
+ */
+
+            in      = message.thread.dataIn;
+            retval  = in.readInt();
+            if (retval == 0) {
+                version = in.readLong();
+                value   = message.thread.getData(in.readInt());
+            } else {
+                version = 0;
+                value   = null;
+            }
+            message.thread.finishReply();
+
+            if (retval != 0) {
+                switch (retval) {
+                    case JSDTException.NO_SUCH_BYTEARRAY:
+                        throw new NoSuchByteArrayException();
+                    case JSDTException.NO_SUCH_SESSION:
+                        session = null;
+                        throw new NoSuchSessionException();
+                    default:
+                        error("ByteArrayProxy: fetchValue: ",
+                              "impl.unknown.exception.type", retval);
+                }
+            } else {
+                byteArray.setLocalValue(value, version);
+            }
+        } catch (IOException e) {
+            sp.proxyThread.finishReply();
+            throw new ConnectionException();
+        }
+    }
+
+
 /**
  * <A NAME="SD_VALUECHANGED"></A>
  * <EM>valueChanged</EM> the value of a shared byte array in the server for
@@ -186,6 +469,7 @@ ByteArrayProxy extends ManageableProxy implements AbstractByteArrayProxy {
         DataInputStream in         = message.thread.dataIn;
         String          clientName = null;
         byte[]          data       = null;
+        long            version    = 0;
         int             type       = ByteArrayEvent.VALUE_CHANGED;
         ManageableProxy mp         = (ManageableProxy) byteArray.mpo.getProxy();
 
@@ -199,12 +483,13 @@ ByteArrayProxy extends ManageableProxy implements AbstractByteArrayProxy {
             in.readUTF();                         // byte array name.
             length        = in.readInt();
             data          = message.thread.getData(length);
+            version       = in.readLong();
         } catch (IOException e) {
             error("ByteArrayProxy: valueChanged: ", e);
         }
 
         synchronized (this) {
-            byteArray.setLocalValue(data);
+            byteArray.setLocalValue(data, version);
 
             if (mp.listeners != null) {
                 synchronized (mp.listeners) {
@@ -222,8 +507,8 @@ ByteArrayProxy extends ManageableProxy implements AbstractByteArrayProxy {
                                             byteArray.getName(), clientName,
                                             byteArray, type);
 
-                            Util.startThread(lm, "ListenerMessageThread:" +
-                                                 byteArray.getName(), true);
+                            Util.getEventDispatcher().dispatch(listener, lm,
+                                                               byteArray);
                         }
                     }
                 }
@@ -24,6 +24,7 @@ package com.sun.media.jsdt.http;
 import com.sun.media.jsdt.JSDTException;
 import com.sun.media.jsdt.impl.*;
 import com.sun.media.jsdt.ByteArray;
+import com.sun.media.jsdt.NoSuchByteArrayException;
 import com.sun.media.jsdt.event.ByteArrayEvent;
 import java.io.*;
 import java.util.*;
@@ -31,7 +32,11 @@ import java.util.*;
 /**
  * JSDT Byte Array Server-side class.
  *
- * @version     2.3 - 16th November 2017
+ * Each change moves the value on to its next version. A change made with
+ * <CODE>updateValue</CODE> is applied here, and the listeners are sent the
+ * whole of the new value.
+ *
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -127,18 +132,21 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
  * @param clientName name of the client associated with this session.
  * @param byteArrayName the name of the shared byte array to update.
  * @param value the new value of the byte array.
+ * @param version the version of the new value.
  */
 
     private void
     informByteArrayListeners(JSDTThread thread, ByteArrayImpl sba,
-                     String clientName, String byteArrayName, byte[] value) {
+                     String clientName, String byteArrayName, byte[] value,
+                     long version) {
         if (ByteArrayServer_Debug) {
             debug("ByteArrayServer: informByteArrayListeners:" +
                   " thread: "            + thread +
                   " server byte array: " + sba +
                   " client name: "       + clientName +
                   " byte array name: "   + byteArrayName +
-                  " value: "             + value);
+                  " value: "             + value +
+                  " version: "           + version);
         }
 
         for (Enumeration k = listenerIds.keys(); k.hasMoreElements();) {
@@ -153,6 +161,7 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
                 thread.dataOut.writeUTF(byteArrayName);
                 thread.dataOut.writeInt(value.length);
                 thread.dataOut.write(value, 0, value.length);
+                thread.dataOut.writeLong(version);
                 thread.flush();
                 thread.finishMessage();
             } catch (IOException oe) {
@@ -309,6 +318,7 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
         int              length;
         byte[]           value      = null;
         int              retval     = 0;
+        long             version    = 0;
         int              clientId;
         ClientImpl       client;
         ByteArrayImpl    byteArray  = null;
@@ -337,7 +347,7 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
 
         if (retval == 0) {
             if ((byteArray = ss.getByteArrayByName(name)) != null) {
-                byteArray.setLocalValue(value);
+                version = byteArray.changeValue(value);
             } else {
                 retval = JSDTException.NO_SUCH_BYTEARRAY;
             }
@@ -356,7 +366,220 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
 
         if (retval == 0) {
             informByteArrayListeners(message.thread, byteArray, clientName,
-                                     name, value);
+                                     name, value, version);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_UPDATEVALUE"></A>
+ * <EM>updateValue</EM> changes part of a shared byte array in the server
+ * for this session. A message is returned to the calling proxy, to indicate
+ * the success or failure of this operation. The server sends a change
+ * notification to all the listeners of this shared byte array.
+ *
+ * @param message the current message being processed.
+ */
+
+    void
+    updateValue(Message message) {
+        DataInputStream  in         = message.thread.dataIn;
+        String           clientName = null;
+        int              position   = 0;
+        int              length;
+        byte[]           data       = null;
+        byte[]           value      = null;
+        int              retval     = 0;
+        long             version    = 0;
+        ClientImpl       client;
+        ByteArrayImpl    byteArray  = null;
+
+        if (ByteArrayServer_Debug) {
+            debug("ByteArrayServer: updateValue:" +
+                  " message: " + message);
+        }
+
+        try {
+            clientName = in.readUTF();
+            position   = in.readInt();
+            length     = in.readInt();
+            data       = message.thread.getData(length);
+        } catch (IOException e) {
+            error("ByteArrayServer: updateValue: ", e);
+        }
+
+        if ((client = getClientByName(clientName)) == null) {
+            retval = JSDTException.NO_SUCH_CLIENT;
+        } else if ((Integer) client.getCheck() != message.id ||
+                   position < 0) {
+            retval = JSDTException.PERMISSION_DENIED;
+        }
+
+        if (retval == 0) {
+            if ((byteArray = ss.getByteArrayByName(name)) != null) {
+                try {
+                    synchronized (byteArray) {
+                        version = byteArray.changeValue(position, data);
+                        value   = byteArray.getValueAsBytes();
+                    }
+                    if (version < 0) {
+                        retval = JSDTException.PERMISSION_DENIED;
+                    }
+                } catch (NoSuchByteArrayException nsbe) {
+                    retval = JSDTException.NO_SUCH_BYTEARRAY;
+                }
+            } else {
+                retval = JSDTException.NO_SUCH_BYTEARRAY;
+            }
+        }
+
+        try {
+            message.thread.writeMessageHeader(message.thread.dataOut,
+                                message.sessionNo, message.id,
+                                message.type, message.action, false, true);
+            message.thread.dataOut.writeInt(retval);
+            message.thread.flush();
+            message.thread.finishMessage();
+        } catch (IOException e) {
+            error("ByteArrayServer: updateValue: ", e);
+        }
+
+        if (retval == 0) {
+            informByteArrayListeners(message.thread, byteArray, clientName,
+                                     name, value, version);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETVALUE"></A>
+ * <EM>getValue</EM> return the current value of a shared byte array in the
+ * server for this session, together with its version, to the calling
+ * proxy.
+ *
+ * @param message the current message being processed.
+ */
+
+    void
+    getValue(Message message) {
+        int           retval    = 0;
+        long          version   = 0;
+        byte[]        value     = new byte[0];
+        ByteArrayImpl byteArray;
+
+        if (ByteArrayServer_Debug) {
+            debug("ByteArrayServer: getValue:" +
+                  " message: " + message);
+        }
+
+        if ((byteArray = ss.getByteArrayByName(name)) != null) {
+            try {
+                synchronized (byteArray) {
+                    value   = byteArray.getValueAsBytes();
+                    version = byteArray.getVersion();
+                }
+            } catch (NoSuchByteArrayException nsbe) {
+                retval = JSDTException.NO_SUCH_BYTEARRAY;
+            }
+        } else {
+            retval = JSDTException.NO_SUCH_BYTEARRAY;
+        }
+
+        try {
+            message.thread.writeMessageHeader(message.thread.dataOut,
+                                message.sessionNo, message.id,
+                                message.type, message.action, false, true);
+            message.thread.dataOut.writeInt(retval);
+            message.thread.dataOut.writeLong(version);
+            message.thread.dataOut.writeInt(value.length);
+            message.thread.dataOut.write(value, 0, value.length);
+            message.thread.flush();
+            message.thread.finishMessage();
+        } catch (IOException e) {
+            error("ByteArrayServer: getValue: ", e);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_COMPAREANDSET"></A>
+ * <EM>compareAndSet</EM> sets a new value for a shared byte array in the
+ * server for this session, but only if its value is still at the version
+ * the calling proxy expects. A message is returned to the calling proxy,
+ * with the success or failure of this operation, whether the value was
+ * set, and the version of the value. If it was set, the server sends a
+ * change notification to all the listeners of this shared byte array.
+ *
+ * @param message the current message being processed.
+ */
+
+    void
+    compareAndSet(Message message) {
+        DataInputStream  in         = message.thread.dataIn;
+        String           clientName = null;
+        long             expected   = 0;
+        int              length;
+        byte[]           value      = null;
+        int              retval     = 0;
+        boolean          swapped    = false;
+        long             version    = 0;
+        ClientImpl       client;
+        ByteArrayImpl    byteArray  = null;
+
+        if (ByteArrayServer_Debug) {
+            debug("ByteArrayServer: compareAndSet:" +
+                  " message: " + message);
+        }
+
+        try {
+            clientName = in.readUTF();
+            expected   = in.readLong();
+            length     = in.readInt();
+            value      = message.thread.getData(length);
+        } catch (IOException e) {
+            error("ByteArrayServer: compareAndSet: ", e);
+        }
+
+        if ((client = getClientByName(clientName)) == null) {
+            retval = JSDTException.NO_SUCH_CLIENT;
+        } else if ((Integer) client.getCheck() != message.id) {
+            retval = JSDTException.PERMISSION_DENIED;
+        }
+
+        if (retval == 0) {
+            if ((byteArray = ss.getByteArrayByName(name)) != null) {
+                try {
+                    synchronized (byteArray) {
+                        version = byteArray.getVersion();
+                        if (version == expected) {
+                            version = byteArray.changeValue(value);
+                            swapped = true;
+                        }
+                    }
+                } catch (NoSuchByteArrayException nsbe) {
+                    retval = JSDTException.NO_SUCH_BYTEARRAY;
+                }
+            } else {
+                retval = JSDTException.NO_SUCH_BYTEARRAY;
+            }
+        }
+
+        try {
+            message.thread.writeMessageHeader(message.thread.dataOut,
+                                message.sessionNo, message.id,
+                                message.type, message.action, false, true);
+            message.thread.dataOut.writeInt(retval);
+            message.thread.dataOut.writeBoolean(swapped);
+            message.thread.dataOut.writeLong(version);
+            message.thread.flush();
+            message.thread.finishMessage();
+        } catch (IOException e) {
+            error("ByteArrayServer: compareAndSet: ", e);
+        }
+
+        if (swapped) {
+            informByteArrayListeners(message.thread, byteArray, clientName,
+                                     name, value, version);
         }
     }
 }
@@ -27,7 +27,7 @@ import com.sun.media.jsdt.impl.*;
 /**
  * JSDT Check token status class.
  *
- * @version     2.3 - 21st November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -67,26 +67,19 @@ CheckToken extends JSDTObject implements Runnable, httpDebugFlags {
 
 /**
  * <A NAME="SD_RUN"></A>
- * <EM>run</EM> wait for a certain period of time. If the token's status is
- * still giving, then the client didn't accept the token, so reset the status
- * back to it's previous value.
+ * <EM>run</EM> called by the timer once the give period has passed. If the
+ * token's status is still giving, then the client didn't accept the token,
+ * so reset the status back to it's previous value.
  */
 
     public void
     run() {
         TokenServer ts = (TokenServer) token.so.getServer();
-        long givePeriod = Util.getLongProperty("giveTime", giveTime);
 
         if (CheckToken_Debug) {
             debug("CheckToken: run.");
         }
 
-        try {
-            Thread.sleep(givePeriod);
-        } catch (Exception e) {
-            error("CheckToken: run: ", e);
-        }
-
         if (ts.getTokenStatus() == Token.GIVING) {
             ts.setTokenStatus(previousStatus);
         }
@@ -27,7 +27,7 @@ import java.util.*;
 /**
  * JSDT cleanup connections thread class.
  *
- * @version     2.3 - 21st November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -40,13 +40,17 @@ CleanupConnections extends JSDTObject implements Runnable, httpDebugFlags {
     // The ids currently pinging, and their last ping times.
     private final Hashtable pingIds;
 
+    // The next check on the timer (or null if the checks are stopped).
+    private JSDTTimeout check = null;
+
 
 /**
  * <A NAME="SD_CLEANUPCONNECTIONS"></A>
  * <EM>CleanupConnections</EM> is a constructor for the CleanupConnections
- * class. This thread will continually check to see if we haven't heard from
- * any of the ids in the given cleanup period. If we haven't, then we need
- * to cleanup all resources associated with that id.
+ * class. Once started, this will periodically check to see if we haven't
+ * heard from any of the ids in the given cleanup period. If we haven't, then
+ * we need to cleanup all resources associated with that id. The checks are
+ * scheduled on the timer, rather than run on a thread of their own.
  *
  * @param sessionServer the session server that started this ping thread.
  * @param pingIds the ids currently pinging, and their last ping times.
@@ -99,22 +103,63 @@ CleanupConnections extends JSDTObject implements Runnable, httpDebugFlags {
 
 /**
  * <A NAME="SD_RUN"></A>
- * <EM>run</EM>
+ * <EM>run</EM> called by the timer every keep alive period to check the
+ * connections, until the checks are stopped.
  */
 
     public void
     run() {
+        long alivePeriod = Util.getLongProperty("keepAlivePeriod",
+                                                keepAlivePeriod);
+
         if (CleanupConnections_Debug) {
             debug("CleanupConnections: run.");
         }
 
-        while (true) {
-            checkConnections();
+        checkConnections();
 
-            try {
-                Thread.sleep(keepAlivePeriod);
-            } catch (InterruptedException ie) {
+        synchronized (this) {
+            if (check != null) {
+                check = Util.getTimer().schedule(this, alivePeriod);
             }
         }
     }
+
+
+/**
+ * <A NAME="SD_START"></A>
+ * <EM>start</EM> start checking the connections every keep alive period.
+ */
+
+    synchronized void
+    start() {
+        long alivePeriod = Util.getLongProperty("keepAlivePeriod",
+                                                keepAlivePeriod);
+
+        if (CleanupConnections_Debug) {
+            debug("CleanupConnections: start.");
+        }
+
+        if (check == null) {
+            check = Util.getTimer().schedule(this, alivePeriod);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_STOP"></A>
+ * <EM>stop</EM> stop checking the connections.
+ */
+
+    synchronized void
+    stop() {
+        if (CleanupConnections_Debug) {
+            debug("CleanupConnections: stop.");
+        }
+
+        if (check != null) {
+            check.cancel();
+            check = null;
+        }
+    }
 }
@@ -26,9 +26,10 @@ import com.sun.media.jsdt.impl.*;
 import com.sun.media.jsdt.event.*;
 
 /**
- * JSDT client message thread class.
+ * JSDT client message class. These are delivered to the client by the
+ * event dispatcher, after any earlier client messages for it.
  *
- * @version     2.3 - 21st November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -72,7 +73,8 @@ ClientMessage extends JSDTMessage implements Runnable {
         }
 
         this.session    = session;
-        this.message    = message;
+        this.message    = new Message();
+        this.message.setMessageHeader(message);
         this.client     = client;
         this.objectType = objectType;
         this.objectName = objectName;
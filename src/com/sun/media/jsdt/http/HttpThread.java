@@ -847,8 +847,7 @@ HttpThread extends JSDTThread implements Runnable, httpDebugFlags {
             } catch (UnknownHostException uhe) {
             }
 
-            Util.startThread(pingThread,
-                             "PingThread: " + session.getName(), true);
+            ((PingThread) pingThread).start();
         }
 
         pingThread.addEntry(getId(), session, this);
@@ -231,8 +231,7 @@ JSDTMessage extends JSDTObject implements httpDebugFlags {
                             new ListenerMessage(listener, session,
                                         resourceName, clientName, m, type);
 
-                        Util.startThread(lm, "ListenerMessageThread: " +
-                                         clientName + ":" + resourceName, true);
+                        Util.getEventDispatcher().dispatch(listener, lm);
                     }
                 }
             }
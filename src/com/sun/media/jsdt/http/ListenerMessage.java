@@ -27,9 +27,10 @@ import com.sun.media.jsdt.event.*;
 import java.util.EventListener;
 
 /**
- * JSDT observer message thread class.
+ * JSDT observer message class. These are delivered to the listener by the
+ * event dispatcher, after any earlier events for it.
  *
- * @version     2.3 - 21st November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -43,9 +43,6 @@ NamingProxyThread extends HttpThread {
      */ 
     private RegistryPingThread registryPingThread = null;
 
-    /** The actual thread. */
-    private Thread thread = null;
-
 
 /**
  * <A NAME="SD_NAMINGPROXYTHREAD"></A>
@@ -104,8 +101,7 @@ NamingProxyThread extends HttpThread {
             } catch (UnknownHostException uhe) {
             }
 
-            thread = Util.startThread(registryPingThread,
-                                      "RegistryPingThread: " + address, true);
+            registryPingThread.start();
         }
 
         registryPingThread.addEntry(listener);
@@ -121,7 +117,7 @@ NamingProxyThread extends HttpThread {
 
         registryPingThread.removeEntry(listener);
         if (!registryPingThread.hasListeners()) {
-            thread.stop();
+            registryPingThread.stop();
             registryPingThread = null;
         }
     }
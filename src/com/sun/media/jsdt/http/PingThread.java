@@ -27,9 +27,10 @@ import java.net.UnknownHostException;
 import java.util.*;
 
 /**
- * JSDT Session Proxy "ping for message" thread class.
+ * JSDT Session Proxy "ping for message" thread class. The pings are
+ * scheduled on the timer, rather than run on a thread of their own.
  *
- * @version     2.3 - 16th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -62,7 +63,8 @@ PingThread extends HttpThread {
 
 /**
  * <A NAME="SD_RUN"></A>
- * <EM>run</EM>
+ * <EM>run</EM> called by the timer every ping period, to ping the server
+ * for messages for each of the sessions.
  */
 
     public void
@@ -74,27 +76,42 @@ PingThread extends HttpThread {
         }
 
         try {
-            while (true) {
-                Thread.sleep(period);
-
-                synchronized (sessionsById) {
-                    for (Enumeration k = sessionsById.keys();
-                                     k.hasMoreElements();) {
-                        Integer     id      = (Integer)     k.nextElement();
-                        SessionImpl session = (SessionImpl) sessionsById.get(id);
-                        HttpThread  thread  = threadsById.get(id);
-
-                        try {
-                            pingForMessage(session, thread, id);
-                        } catch (ConnectionException ce) {
-                            sessionsById.remove(id);
-                                threadsById.remove(id);
-                        }
+            synchronized (sessionsById) {
+                for (Enumeration k = sessionsById.keys();
+                                 k.hasMoreElements();) {
+                    Integer     id      = (Integer)     k.nextElement();
+                    SessionImpl session = (SessionImpl) sessionsById.get(id);
+                    HttpThread  thread  = threadsById.get(id);
+
+                    try {
+                        pingForMessage(session, thread, id);
+                    } catch (ConnectionException ce) {
+                        sessionsById.remove(id);
+                        threadsById.remove(id);
                     }
                 }
             }
         } catch (Exception e) {
             error("PingThread: run: ", e);
         }
+
+        Util.getTimer().schedule(this, period);
+    }
+
+
+/**
+ * <A NAME="SD_START"></A>
+ * <EM>start</EM> start pinging the server for messages every ping period.
+ */
+
+    void
+    start() {
+        long period = Util.getLongProperty("pingPeriod", pingPeriod);
+
+        if (PingThread_Debug) {
+            debug("PingThread: start.");
+        }
+
+        Util.getTimer().schedule(this, period);
     }
 }
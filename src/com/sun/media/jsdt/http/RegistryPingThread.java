@@ -29,9 +29,10 @@ import java.net.UnknownHostException;
 import java.util.*;
 
 /**
- * JSDT Naming Proxy "ping registry for messages" thread class.
+ * JSDT Naming Proxy "ping registry for messages" thread class. The pings
+ * are scheduled on the timer, rather than run on a thread of their own.
  *
- * @version     2.3 - 7th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -44,6 +45,9 @@ RegistryPingThread extends HttpThread {
     // The NamingProxyThread that started this registry ping thread.
     NamingProxyThread thread;
 
+    // The next ping on the timer (or null if the pings are stopped).
+    private JSDTTimeout ping = null;
+
 
 /**
  * <A NAME="SD_REGISTRYPINGTHREAD"></A>
@@ -175,7 +179,8 @@ RegistryPingThread extends HttpThread {
 
 /**
  * <A NAME="SD_RUN"></A>
- * <EM>run</EM>
+ * <EM>run</EM> called by the timer every registry ping period, to ping the
+ * registry for messages, until the pings are stopped.
  */
 
     public void
@@ -188,13 +193,54 @@ RegistryPingThread extends HttpThread {
         }
 
         try {
-            while (true) {
-                Thread.sleep(period);
-
-                pingForMessage();
-            }
+            pingForMessage();
         } catch (Exception e) {
             error("RegistryPingThread: run: ", e);
         }
+
+        synchronized (this) {
+            if (ping != null) {
+                ping = Util.getTimer().schedule(this, period);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_START"></A>
+ * <EM>start</EM> start pinging the registry for messages every registry
+ * ping period.
+ */
+
+    synchronized void
+    start() {
+        long period = Util.getLongProperty("registryPingPeriod",
+                                           registryPingPeriod);
+
+        if (RegistryPingThread_Debug) {
+            debug("RegistryPingThread: start.");
+        }
+
+        if (ping == null) {
+            ping = Util.getTimer().schedule(this, period);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_STOP"></A>
+ * <EM>stop</EM> stop pinging the registry for messages.
+ */
+
+    synchronized void
+    stop() {
+        if (RegistryPingThread_Debug) {
+            debug("RegistryPingThread: stop.");
+        }
+
+        if (ping != null) {
+            ping.cancel();
+            ping = null;
+        }
     }
 }
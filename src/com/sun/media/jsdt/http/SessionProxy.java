@@ -254,6 +254,7 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
         int                id       = proxyThread.getId();
         char               type     = SessionImpl.M_Session;
         byte[]             newValue = null;
+        long               newVersion = 0;
 
         if (SessionProxy_Debug) {
             debug("SessionProxy: createByteArray:" +
@@ -304,6 +305,7 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
             if (retval == 0) {
                 newLength = in.readInt();
                 newValue  = message.thread.getData(newLength);
+                newVersion = in.readLong();
             }
 
             message.thread.finishReply();
@@ -330,6 +332,7 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
         if ((byteArray = getByteArrayByName(byteArrayName)) == null) {
             byteArray = new ByteArrayImpl(false, byteArrayName, session,
                                           newValue);
+            byteArray.setLocalValue(newValue, newVersion);
             addByteArray(byteArray);
             try {
                 byteArray.addByteArrayListener(byteArray);
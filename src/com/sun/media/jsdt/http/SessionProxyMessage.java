@@ -196,8 +196,7 @@ SessionProxyMessage extends JSDTMessage {
                 ClientMessage cm = new ClientMessage(session, message, client,
                                                 TokenImpl.M_Token, tokenName);
 
-                Util.startThread(cm, "ClientMessageThread:" + client.getName() +
-                                     ":" + tokenName, true);
+                Util.getEventDispatcher().dispatch(client, cm);
             }
         } else {                                       /* INVITE and EXPEL. */
             String          clientName;
@@ -219,8 +218,7 @@ SessionProxyMessage extends JSDTMessage {
                 ClientMessage cm = new ClientMessage(session, message,
                                             client, objectType, objectName);
 
-                Util.startThread(cm, "ClientMessageThread:" + client.getName() +
-                                     ":" + objectName, true);
+                Util.getEventDispatcher().dispatch(client, cm);
             }
         }
     }
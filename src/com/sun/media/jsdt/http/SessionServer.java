@@ -67,8 +67,8 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
     // The ids for all the proxies who are pinging the server.
     private Hashtable<Integer, Long> pingIds = null;
 
-    // The thread cleaning up connections that are no longer pinging.
-    private Thread cleanupThread = null;
+    // Object that is cleaning up connections that are no longer pinging.
+    private CleanupConnections cleanup = null;
 
 
 /**
@@ -403,6 +403,7 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
         String          clientName    = null;
         int             valueLength   = 0;
         byte[]          value         = null;
+        long            version       = 0;
         boolean         created       = false;
 
         if (SessionServer_Debug) {
@@ -426,7 +427,10 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
         }
 
         try {
-            value       = byteArray.getValueAsBytes();
+            synchronized (byteArray) {
+                value   = byteArray.getValueAsBytes();
+                version = byteArray.getVersion();
+            }
             valueLength = value.length;
         } catch (NoSuchByteArrayException nsbe) {
             error("SessionServer: createByteArray: ", nsbe);
@@ -439,6 +443,7 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
             message.thread.dataOut.writeInt(0);       // return value.
             message.thread.dataOut.writeInt(valueLength);
             message.thread.dataOut.write(value, 0, valueLength);
+            message.thread.dataOut.writeLong(version);
             message.thread.flush();
             message.thread.finishMessage();
         } catch (IOException e) {
@@ -1040,20 +1045,14 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
             debug("SessionServer: checkCleanupStatus.");
         }
 
-        if (cleanupPings) {
-            if (cleanupThread == null && pingIds.size() > 0) {
-                CleanupConnections cc = new CleanupConnections(this, pingIds);
-
-                cleanupThread = Util.startThread(cc, "CleanupThread", true);
-            } else if (pingIds.size() == 0) {
-                cleanupThread.stop();
-                cleanupThread = null;
-            }
-        } else {
-            if (cleanupThread != null) {
-                cleanupThread.stop();
-                cleanupThread = null;
+        if (cleanupPings && pingIds.size() > 0) {
+            if (cleanup == null) {
+                cleanup = new CleanupConnections(this, pingIds);
+                cleanup.start();
             }
+        } else if (cleanup != null) {
+            cleanup.stop();
+            cleanup = null;
         }
     }
 
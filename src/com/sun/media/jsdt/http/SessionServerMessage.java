@@ -189,6 +189,15 @@ SessionServerMessage extends JSDTMessage {
                     case T_SetValue:                      // SETVALUE.
                         bas.setValue(message);
                         break;
+                    case T_UpdateValue:                   // UPDATEVALUE.
+                        bas.updateValue(message);
+                        break;
+                    case T_GetValue:                      // GETVALUE.
+                        bas.getValue(message);
+                        break;
+                    case T_CompareAndSet:                 // COMPAREANDSET.
+                        bas.compareAndSet(message);
+                        break;
                     case T__Manager:                      // _MANAGER.
                         bas.attachManager(message);
                         break;
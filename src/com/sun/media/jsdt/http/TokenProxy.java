@@ -203,6 +203,72 @@ TokenProxy extends ManageableProxy implements AbstractTokenProxy {
     }
 
 
+/**
+ * <A NAME="SD_GRAB"></A>
+ * used by a Client to take exclusive (grab) or non-exclusive (inhibit)
+ * control of a specific Token, waiting for it if it can't be had straight
+ * away. The HTTP session server has no grab queue, so the grab is tried
+ * again, backing off between tries, until it succeeds or the timeout
+ * period has passed.
+ *
+ * @param client the Client grabbing/inhibiting this Token.
+ * @param exclusive indicates whether the grab should be exclusive.
+ * @param timeout the maximum time to wait for the Token, in milliseconds.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchTokenException if this Token doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have
+ * permission to perform this operation, or is already waiting for this
+ * Token.
+ * @exception TimedOutException if the grab didn't succeed in the given
+ * timeout period.
+ *
+ * @return the status of the token.
+ */
+
+    public int
+    grab(Client client, boolean exclusive, long timeout)
+        throws ConnectionException, InvalidClientException,
+               NoSuchTokenException, NoSuchClientException,
+               NoSuchSessionException, PermissionDeniedException,
+               TimedOutException {
+        long endTime = System.currentTimeMillis() + timeout;
+        long delay   = 10;
+        long remaining;
+
+        if (TokenProxy_Debug) {
+            debug("TokenProxy: grab:" +
+                  " client: "    + client  +
+                  " exclusive: " + exclusive +
+                  " timeout: "   + timeout);
+        }
+
+        while (true) {
+            try {
+                return(grab(client, exclusive));
+            } catch (PermissionDeniedException pde) {
+                if (timeout <= 0) {
+                    throw pde;
+                }
+            }
+
+            if ((remaining = endTime - System.currentTimeMillis()) <= 0) {
+                throw new TimedOutException();
+            }
+
+            try {
+                Thread.sleep(Math.min(delay, remaining));
+            } catch (InterruptedException ie) {
+            }
+            delay = Math.min(delay * 2, 1000);
+        }
+    }
+
+
 /**
  * <A NAME="SD_LISTHOLDERNAMES"></A>
  * list the names of the Clients who are currently holding (grabbing or
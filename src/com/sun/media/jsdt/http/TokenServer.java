@@ -279,8 +279,8 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
             if (retval == 0) {
                 CheckToken ct = new CheckToken(token, getTokenStatus());
 
-                Util.startThread(ct,
-                                 "CheckTokenThread:" + token.getName(), false);
+                Util.getTimer().schedule(ct,
+                            Util.getLongProperty("giveTime", giveTime));
 
                 message.thread.writeMessageHeader(message.thread.dataOut,
                               message.sessionNo, receivingId,
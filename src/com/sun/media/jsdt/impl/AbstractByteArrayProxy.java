@@ -26,7 +26,7 @@ import com.sun.media.jsdt.*;
 /**
  * JSDT abstract client-side ByteArray proxy interface.
  *
- * @version     2.3 - 6th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -85,4 +85,90 @@ AbstractByteArrayProxy extends AbstractManageableProxy {
                        NoSuchByteArrayException, NoSuchClientException,
                        NoSuchSessionException, PermissionDeniedException,
                        TimedOutException;
+
+
+/**
+ * <A NAME="SD_UPDATEVALUE"></A>
+ * <EM>updateValue</EM> change part of a shared byte array with the given
+ * name for this session. Send the changed bytes to all the listeners of
+ * this shared byte array.
+ *
+ * @param client a client successfully joined to this session.
+ * @param position the position in the shared value to change from.
+ * @param value the byte array that is the source of the changed bytes.
+ * @param offset the offset into the byte array.
+ * @param length the number of bytes to use.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchByteArrayException if this byte array does exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have permission
+ * to change the value of this ByteArray.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    void
+    updateValue(Client client, int position,
+                byte[] value, int offset, int length)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchByteArrayException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException;
+
+
+/**
+ * <A NAME="SD_COMPAREANDSET"></A>
+ * <EM>compareAndSet</EM> update a shared byte array with the given name
+ * for this session, but only if its value is still at the expected
+ * version. If it is, send a change notification to all the listeners of
+ * this shared byte array.
+ *
+ * @param client a client successfully joined to this session.
+ * @param expectedVersion the version the shared value must be at.
+ * @param value the new value of the byte array.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchByteArrayException if this byte array does exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have permission
+ * to change the value of this ByteArray.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return true if the value was set, false if the shared value was no
+ * longer at the expected version.
+ */
+
+    boolean
+    compareAndSet(Client client, long expectedVersion, byte[] value)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchByteArrayException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException;
+
+
+/**
+ * <A NAME="SD_FETCHVALUE"></A>
+ * <EM>fetchValue</EM> get a new copy of the current value and version of
+ * a shared byte array with the given name for this session, and make it
+ * the local value.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoSuchByteArrayException if this byte array does exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    void
+    fetchValue()
+                throws ConnectionException, NoSuchByteArrayException,
+                       NoSuchSessionException, TimedOutException;
 }
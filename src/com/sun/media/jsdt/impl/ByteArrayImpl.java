@@ -29,7 +29,7 @@ import java.io.*;
 /**
  * JSDT Byte Array (implementation) class.
  *
- * @version     2.3 - 6th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -46,6 +46,19 @@ ByteArrayImpl extends ManageableImpl
      */
     private byte[] value;
 
+    /** The version of the value of this shared byte array.
+     *
+     *  @serial
+     */
+    private long version = 0;
+
+    /** Set if a change to the value of this shared byte array has been
+     *  missed, and a new copy of it needs to be fetched from the server.
+     *
+     *  @serial
+     */
+    private boolean stale = false;
+
     /** Handle to client-side proxy.
      *
      *  @serial
@@ -128,7 +141,7 @@ ByteArrayImpl extends ManageableImpl
             debug("ByteArrayImpl: getValue.");
         }
 
-        return(value);
+        return(currentValue());
     }
 
 
@@ -147,7 +160,7 @@ ByteArrayImpl extends ManageableImpl
             debug("ByteArrayImpl: getValueAsBytes.");
         }
 
-        return(value);
+        return(currentValue());
     }
 
 
@@ -168,7 +181,8 @@ ByteArrayImpl extends ManageableImpl
     getValueAsObject()
                 throws ClassNotFoundException, NoSuchByteArrayException,
                        StreamCorruptedException {
-        ByteArrayInputStream bis    = new ByteArrayInputStream(value);
+        ByteArrayInputStream bis    =
+                                new ByteArrayInputStream(currentValue());
         ObjectInputStream    ois;
         Object               object = null;
 
@@ -204,7 +218,69 @@ ByteArrayImpl extends ManageableImpl
             debug("ByteArrayImpl: getValueAsString.");
         }
 
-        return(new String(value));
+        return(new String(currentValue()));
+    }
+
+
+/**
+ * <A NAME="SD_GETVERSION"></A>
+ * get the version of the current value for this shared ByteArray. The
+ * version goes up by one each time the value is changed.
+ *
+ * @return the version of the current value of this ByteArray object.
+ *
+ * @exception NoSuchByteArrayException if this shared ByteArray doesn't exist.
+ */
+
+    public long
+    getVersion() throws NoSuchByteArrayException {
+        if (ByteArrayImpl_Debug) {
+            debug("ByteArrayImpl: getVersion.");
+        }
+
+        currentValue();
+        synchronized (this) {
+            return(version);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_CURRENTVALUE"></A>
+ * <EM>currentValue</EM> get the local value for this shared ByteArray. If
+ * a change to the value has been missed, a new copy of the value is
+ * fetched from the server first.
+ *
+ * @return the local value for this shared byte array.
+ *
+ * @exception NoSuchByteArrayException if this shared ByteArray doesn't exist.
+ */
+
+    private byte[]
+    currentValue() throws NoSuchByteArrayException {
+        boolean fetch;
+
+        if (ByteArrayImpl_Debug) {
+            debug("ByteArrayImpl: currentValue.");
+        }
+
+        synchronized (this) {
+            fetch = stale && po != null;
+        }
+
+        if (fetch) {
+            try {
+                po.fetchValue();
+            } catch (NoSuchByteArrayException nsbe) {
+                throw nsbe;
+            } catch (JSDTException e) {
+                error("ByteArrayImpl: currentValue: ", e);
+            }
+        }
+
+        synchronized (this) {
+            return(value);
+        }
     }
 
 
@@ -215,7 +291,7 @@ ByteArrayImpl extends ManageableImpl
  * @param value the new local value for this shared ByteArray.
  */
 
-    public void
+    public synchronized void
     setLocalValue(byte[] value) {
         if (ByteArrayImpl_Debug) {
             debug("ByteArrayImpl: setLocalValue:" +
@@ -226,6 +302,193 @@ ByteArrayImpl extends ManageableImpl
     }
 
 
+/**
+ * <A NAME="SD_SETLOCALVALUEVERSION"></A>
+ * set the local value for this shared ByteArray to the given version of
+ * it from the server. A version older than the one already held is ignored.
+ *
+ * @param value the new local value for this shared ByteArray.
+ * @param version the version of the new local value.
+ */
+
+    public synchronized void
+    setLocalValue(byte[] value, long version) {
+        if (ByteArrayImpl_Debug) {
+            debug("ByteArrayImpl: setLocalValue:" +
+                  " value: "   + value +
+                  " version: " + version);
+        }
+
+        if (version >= this.version) {
+            this.value   = value;
+            this.version = version;
+            stale        = false;
+        }
+    }
+
+
+/**
+ * <A NAME="SD_UPDATELOCALVALUE"></A>
+ * change part of the local value for this shared ByteArray, as given by
+ * the server. The change is only made if it follows on from the version
+ * already held. If one or more changes have been missed, the local value
+ * is marked as stale, and a new copy will be fetched from the server the
+ * next time it is needed.
+ *
+ * @param version the version of the value after this change.
+ * @param position the position in the value that the change starts at.
+ * @param data the changed bytes.
+ */
+
+    public synchronized void
+    updateLocalValue(long version, int position, byte[] data) {
+        if (ByteArrayImpl_Debug) {
+            debug("ByteArrayImpl: updateLocalValue:" +
+                  " version: "  + version +
+                  " position: " + position +
+                  " data: "     + data);
+        }
+
+        if (version <= this.version) {
+            return;
+        }
+
+        if (stale || version != this.version + 1 ||
+            !canPatchValue(value, position, data)) {
+            stale = true;
+        } else {
+            value = patchValue(value, position, data);
+        }
+        this.version = version;
+    }
+
+
+/**
+ * <A NAME="SD_SETLATESTVERSION"></A>
+ * note that the server holds a newer version of the value for this shared
+ * ByteArray than the one held locally. The local value is marked as stale,
+ * and a new copy will be fetched from the server the next time it is
+ * needed.
+ *
+ * @param version the version of the value held by the server.
+ */
+
+    public synchronized void
+    setLatestVersion(long version) {
+        if (ByteArrayImpl_Debug) {
+            debug("ByteArrayImpl: setLatestVersion:" +
+                  " version: " + version);
+        }
+
+        if (version > this.version) {
+            this.version = version;
+            stale        = true;
+        }
+    }
+
+
+/**
+ * <A NAME="SD_CHANGEVALUE"></A>
+ * set the value of this server-side shared ByteArray, and move it on to
+ * the next version.
+ *
+ * @param value the new value for this shared ByteArray.
+ *
+ * @return the version of the new value.
+ */
+
+    public synchronized long
+    changeValue(byte[] value) {
+        if (ByteArrayImpl_Debug) {
+            debug("ByteArrayImpl: changeValue:" +
+                  " value: " + value);
+        }
+
+        this.value = value;
+        return(++version);
+    }
+
+
+/**
+ * <A NAME="SD_CHANGEVALUERANGE"></A>
+ * change part of the value of this server-side shared ByteArray, and move
+ * it on to the next version.
+ *
+ * @param position the position in the value that the change starts at.
+ * @param data the changed bytes.
+ *
+ * @return the version of the new value, or -1 if the change doesn't fit
+ * the value (it starts past the end of it, or would make it too long).
+ */
+
+    public synchronized long
+    changeValue(int position, byte[] data) {
+        if (ByteArrayImpl_Debug) {
+            debug("ByteArrayImpl: changeValue:" +
+                  " position: " + position +
+                  " data: "     + data);
+        }
+
+        if (!canPatchValue(value, position, data)) {
+            return(-1);
+        }
+
+        value = patchValue(value, position, data);
+        return(++version);
+    }
+
+
+/**
+ * <A NAME="SD_CANPATCHVALUE"></A>
+ * <EM>canPatchValue</EM> check that some bytes can replace part of a
+ * value. They must start within the value or just at its end, and the
+ * value they make mustn't be longer than an array can be.
+ *
+ * @param value the value to check.
+ * @param position the position in the value that the new bytes start at.
+ * @param data the new bytes.
+ *
+ * @return true if the value can be changed; false if it can't.
+ */
+
+    private static boolean
+    canPatchValue(byte[] value, int position, byte[] data) {
+        return(position >= 0 && position <= value.length &&
+               position + data.length >= 0);
+    }
+
+
+/**
+ * <A NAME="SD_PATCHVALUE"></A>
+ * <EM>patchValue</EM> make a copy of a value with some of its bytes
+ * replaced. The copy is made longer if the new bytes run past its end.
+ * The old value isn't changed, as it may still be in use by a reader.
+ *
+ * @param value the value to copy.
+ * @param position the position in the value that the new bytes start at.
+ * @param data the new bytes.
+ *
+ * @return the changed copy of the value.
+ */
+
+    private byte[]
+    patchValue(byte[] value, int position, byte[] data) {
+        int    length   = Math.max(value.length, position + data.length);
+        byte[] newValue = new byte[length];
+
+        if (ByteArrayImpl_Debug) {
+            debug("ByteArrayImpl: patchValue:" +
+                  " value: "    + value +
+                  " position: " + position +
+                  " data: "     + data);
+        }
+
+        System.arraycopy(value, 0, newValue, 0, value.length);
+        System.arraycopy(data, 0, newValue, position, data.length);
+        return(newValue);
+    }
+
+
 /**
  * <A NAME="SD_SETVALUE"></A>
  * sets a new value for this shared ByteArray. The new value is sent to all
@@ -306,6 +569,108 @@ ByteArrayImpl extends ManageableImpl
     }
 
 
+/**
+ * <A NAME="SD_UPDATEVALUE"></A>
+ * changes part of the value of this shared ByteArray. The given bytes
+ * replace the bytes of the shared value starting at the given position,
+ * and the value grows if they run past its end. Only the changed bytes are
+ * sent to all other instances of this shared ByteArray. All ByteArray
+ * listeners will have their <CODE>byteArrayValueChanged</CODE> method
+ * invoked.
+ *
+ * @param client the Client wishing to change the value of this ByteArray.
+ * @param position the position in the shared value to change from.
+ * @param value the byte array that is the source of the changed bytes.
+ * @param offset the initial offset within the byte array.
+ * @param length the number of bytes to use.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchByteArrayException if this shared ByteArray doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have
+ * permission to perform this operation, or the position is past the end of
+ * the shared value.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    public void
+    updateValue(Client client, int position,
+                byte[] value, int offset, int length)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchByteArrayException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException {
+        if (ByteArrayImpl_Debug) {
+            debug("ByteArrayImpl: updateValue:" +
+                  " client: "   + client +
+                  " position: " + position +
+                  " value: "    + value +
+                  " offset: "   + offset +
+                  " length: "   + length);
+        }
+
+        if (position < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        po.updateValue(client, position, value, offset, length);
+    }
+
+
+/**
+ * <A NAME="SD_COMPAREANDSET"></A>
+ * sets a new value for this shared ByteArray, but only if the shared value
+ * is still at the given version. This lets Clients make optimistic changes
+ * without holding a Token: read the version (with <CODE>getVersion</CODE>)
+ * before reading the value, work out the new value, and then try to set it.
+ * If another Client has changed the value in the meantime, nothing is
+ * changed and false is returned straight away. The new current version and
+ * value can then be read, and the change tried again.
+ *
+ * <P>If the value is set, it is sent to all other instances of this shared
+ * ByteArray, and all ByteArray listeners will have their
+ * <CODE>byteArrayValueChanged</CODE> method invoked.
+ *
+ * @param client the Client wishing to set the value of this ByteArray.
+ * @param expectedVersion the version the shared value must be at.
+ * @param value the new value for this shared ByteArray.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchByteArrayException if this shared ByteArray doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have
+ * permission to perform this operation.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return true if the value was set, false if the shared value was no
+ * longer at the expected version.
+ */
+
+    public boolean
+    compareAndSet(Client client, long expectedVersion, byte[] value)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchByteArrayException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException {
+        if (ByteArrayImpl_Debug) {
+            debug("ByteArrayImpl: compareAndSet:" +
+                  " client: "           + client +
+                  " expected version: " + expectedVersion +
+                  " value: "            + value);
+        }
+
+        return(po.compareAndSet(client, expectedVersion, value));
+    }
+
+
 /**
  * <A NAME="SD_SETVALUEFROMSTRING"></A>
  * sets a new value for this shared ByteArray using the given String.
@@ -23,11 +23,12 @@ package com.sun.media.jsdt.impl;
 
 import com.sun.media.jsdt.*;
 import com.sun.media.jsdt.event.ChannelListener;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * JSDT Channel (implementation) class.
  *
- * @version     2.3 - 20th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -689,4 +690,267 @@ ChannelImpl extends ManageableImpl implements Channel {
 
         po.send(sendingClient, D_Client, receivingClientName, data, false);
     }
+
+
+/**
+ * <A NAME="SD_SENDTOALL"></A>
+ * <EM>sendToAll</EM> is used to send a batch of data to all clients joined
+ * to this channel. If the sender is listening on this channel, then it will
+ * receive the data.
+ *
+ * The batch is sent to the server as a single message. Data in the batch
+ * sent at the same priority arrives at each receiver in the order it
+ * appears in the array.
+ *
+ * @param sendingClient the client sending the data.
+ * @param data the batch of data being sent over this channel.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if the channel given does not exist.
+ * @exception NoSuchClientException if the client given does not exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if you do not have permission for
+ * this operation.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    public void
+    sendToAll(Client sendingClient, Data[] data)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchChannelException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException {
+        if (ChannelImpl_Debug) {
+            debug("ChannelImpl: sendToAll:" +
+                  " sending client: "       + sendingClient +
+                  " receiving clients: all" +
+                  " data items:           " + data.length);
+        }
+
+        if (data.length != 0) {
+            try {
+                po.send(sendingClient, D_All, null, data, false);
+            } catch (NoSuchConsumerException nsce) {
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_SENDTOOTHERS"></A>
+ * <EM>sendToOthers</EM> is used to send a batch of data to other clients
+ * joined to this channel. The sender (irrespective of whether it's
+ * listening on this channel) will not receive the data.
+ *
+ * The batch is sent to the server as a single message. Data in the batch
+ * sent at the same priority arrives at each receiver in the order it
+ * appears in the array.
+ *
+ * @param sendingClient the client sending the data.
+ * @param data the batch of data being sent over this channel.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if the channel given does not exist.
+ * @exception NoSuchClientException if the client given does not exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if you do not have permission for
+ * this operation.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    public void
+    sendToOthers(Client sendingClient, Data[] data)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchChannelException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException {
+        if (ChannelImpl_Debug) {
+            debug("ChannelImpl: sendToOthers:" +
+                  " sending client: "       + sendingClient +
+                  " receiving clients: all" +
+                  " data items:           " + data.length);
+        }
+
+        if (data.length != 0) {
+            try {
+                po.send(sendingClient, D_Others, null, data, false);
+            } catch (NoSuchConsumerException nsce) {
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_SENDTOCLIENT"></A>
+ * <EM>sendToClient</EM> is used to send a batch of data to a single client
+ * joined to this channel. The batch is sent to the server as a single
+ * message. Data in the batch sent at the same priority arrives in the order
+ * it appears in the array.
+ *
+ * @param sendingClient the client sending the data.
+ * @param receivingClientName the name of the client receiving the data.
+ * @param data the batch of data being sent over this channel.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if the channel given does not exist.
+ * @exception NoSuchClientException if the client given does not exist.
+ * @exception NoSuchConsumerException if this Client doesn't have a
+ * ChannelConsumer associated with it.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if you do not have permission for
+ * this operation.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    public void
+    sendToClient(Client sendingClient, String receivingClientName,
+                 Data[] data)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchChannelException, NoSuchClientException,
+                       NoSuchConsumerException, NoSuchSessionException,
+                       PermissionDeniedException, TimedOutException {
+        if (ChannelImpl_Debug) {
+            debug("ChannelImpl: sendToClient:" +
+                  " sending client: "        + sendingClient +
+                  " receiving client name: " + receivingClientName +
+                  " data items: "            + data.length);
+        }
+
+        if (data.length != 0) {
+            po.send(sendingClient, D_Client, receivingClientName, data,
+                    false);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_SENDTOALLASYNC"></A>
+ * <EM>sendToAllAsync</EM> is used to send data to all clients joined to
+ * this channel, without waiting for the server to handle it. If the sender
+ * is listening on this channel, then it will receive the data.
+ *
+ * @param sendingClient the client sending the data.
+ * @param data the data being sent over this channel.
+ *
+ * @return a future that is completed when the server has handled the data.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if the channel given does not exist.
+ * @exception NoSuchClientException if the client given does not exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if you do not have permission for
+ * this operation.
+ * @exception TimedOutException if there was no room for another
+ * asynchronous send in the timeout period.
+ */
+
+    public CompletableFuture<Void>
+    sendToAllAsync(Client sendingClient, Data data)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchChannelException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException {
+        if (ChannelImpl_Debug) {
+            debug("ChannelImpl: sendToAllAsync:" +
+                  " sending client: "       + sendingClient +
+                  " receiving clients: all" +
+                  " data:                 " + data);
+        }
+
+        return(po.sendAsync(sendingClient, D_All, null, data, false));
+    }
+
+
+/**
+ * <A NAME="SD_SENDTOOTHERSASYNC"></A>
+ * <EM>sendToOthersAsync</EM> is used to send data to other clients joined
+ * to this channel, without waiting for the server to handle it. The sender
+ * (irrespective of whether it's listening on this channel) will not receive
+ * the data.
+ *
+ * @param sendingClient the client sending the data.
+ * @param data the data being sent over this channel.
+ *
+ * @return a future that is completed when the server has handled the data.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if the channel given does not exist.
+ * @exception NoSuchClientException if the client given does not exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if you do not have permission for
+ * this operation.
+ * @exception TimedOutException if there was no room for another
+ * asynchronous send in the timeout period.
+ */
+
+    public CompletableFuture<Void>
+    sendToOthersAsync(Client sendingClient, Data data)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchChannelException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException {
+        if (ChannelImpl_Debug) {
+            debug("ChannelImpl: sendToOthersAsync:" +
+                  " sending client: "       + sendingClient +
+                  " receiving clients: all" +
+                  " data:                 " + data);
+        }
+
+        return(po.sendAsync(sendingClient, D_Others, null, data, false));
+    }
+
+
+/**
+ * <A NAME="SD_SENDTOCLIENTASYNC"></A>
+ * <EM>sendToClientAsync</EM> is used to send data to a single client
+ * joined to this channel, without waiting for the server to handle it.
+ *
+ * @param sendingClient the client sending the data.
+ * @param receivingClientName the name of the client receiving the data.
+ * @param data the data being sent over this channel.
+ *
+ * @return a future that is completed when the server has handled the data.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if the channel given does not exist.
+ * @exception NoSuchClientException if the client given does not exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if you do not have permission for
+ * this operation.
+ * @exception TimedOutException if there was no room for another
+ * asynchronous send in the timeout period.
+ */
+
+    public CompletableFuture<Void>
+    sendToClientAsync(Client sendingClient, String receivingClientName,
+                      Data data)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchChannelException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException {
+        if (ChannelImpl_Debug) {
+            debug("ChannelImpl: sendToClientAsync:" +
+                  " sending client: "        + sendingClient +
+                  " receiving client name: " + receivingClientName +
+                  " data: "                  + data);
+        }
+
+        return(po.sendAsync(sendingClient, D_Client, receivingClientName,
+                            data, false));
+    }
 }
@@ -0,0 +1,711 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+import com.sun.media.jsdt.*;
+import com.sun.media.jsdt.event.*;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.function.Function;
+
+/**
+ * JSDT channel relay class. A relay joins a Channel in an upstream Session
+ * as a consumer, and sends each piece of Data it receives on to the Channel
+ * with the same name in a downstream Session, usually served by another
+ * process. Clients then consume the Channel at the downstream (relay) URL,
+ * so the upstream server only sends each piece of Data once per relay. The
+ * upstream URL can itself be a relay, so a large audience can be spread
+ * across a tree of servers.
+ *
+ * <P>Data is sent on one piece at a time, in the order the relay receives
+ * it, and at the priority it was sent at. Each relay has its own key on the
+ * relay thread pool, so a slow relay doesn't hold up the others.
+ *
+ * <P>Relayed Data is sent downstream by the relay client, so downstream
+ * consumers get the relay client's name from <CODE>getSenderName</CODE>,
+ * rather than the name of the client that sent it upstream.
+ *
+ * <P>If the connection to the upstream or downstream server fails, or Data
+ * can no longer be sent downstream, the relay is stopped, and it has to be
+ * created again once the servers are back.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+public final class
+ChannelRelay extends JSDTObject
+    implements ChannelConsumer, ConnectionListener, JSDTDebugFlags {
+
+    // The relays running in this process, keyed by relay URL and channel.
+    private static final Hashtable<String, ChannelRelay> relays =
+                                                       new Hashtable<>();
+
+    // The pool of threads used to send Data on to the downstream channels.
+    private static JSDTThreadPool relayPool = null;
+
+    // The key of this relay in the relays table.
+    private final String key;
+
+    // The client the relay joins and sends as.
+    private final Client client;
+
+    // The URLString of the session Data is relayed from.
+    private final URLString upstreamURL;
+
+    // The URLString of the session Data is relayed to.
+    private final URLString relayURL;
+
+    // The name of the channel being relayed.
+    private final String channelName;
+
+    // The upstream session and channel that Data is received from.
+    private Session upstreamSession = null;
+    private Channel upstream        = null;
+
+    // The downstream session and channel that Data is sent on to.
+    private Session downstreamSession = null;
+    private Channel downstream        = null;
+
+
+/**
+ * <A NAME="SD_CHANNELRELAY"></A>
+ * <EM>ChannelRelay</EM> is a constructor for the ChannelRelay class.
+ *
+ * @param key the key of this relay in the relays table.
+ * @param client the client the relay joins and sends as.
+ * @param upstreamURL the URLString of the session to relay from.
+ * @param relayURL the URLString of the session to relay to.
+ * @param channelName the name of the channel to relay.
+ */
+
+    private
+    ChannelRelay(String key, Client client, URLString upstreamURL,
+                 URLString relayURL, String channelName) {
+        if (ChannelRelay_Debug) {
+            debug("ChannelRelay: constructor:" +
+                  " key: "          + key +
+                  " client: "       + client +
+                  " upstream url: " + upstreamURL +
+                  " relay url: "    + relayURL +
+                  " channel name: " + channelName);
+        }
+
+        this.key         = key;
+        this.client      = client;
+        this.upstreamURL = upstreamURL;
+        this.relayURL    = relayURL;
+        this.channelName = channelName;
+    }
+
+
+/**
+ * <A NAME="SD_CREATERELAY"></A>
+ * <EM>createRelay</EM> start relaying a channel from an upstream session to
+ * a downstream session. The downstream session and channel are created if
+ * they don't already exist. If the relay can't be started, whatever the
+ * relay client had joined for it is left again.
+ *
+ * <P>Relayed Data is sent downstream by the given client, so downstream
+ * consumers get that client's name from <CODE>getSenderName</CODE>, not the
+ * name of the client that originally sent the Data.
+ *
+ * @param client the client the relay joins and sends as.
+ * @param upstreamURL the URLString of the session to relay from.
+ * @param relayURL the URLString of the session to relay to.
+ * @param channelName the name of the channel to relay.
+ * @param reliable whether the channels are reliable.
+ * @param ordered whether Data sent over the channels is ordered.
+ *
+ * @exception AlreadyBoundException if this channel is already being relayed
+ * to this URL by this process.
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception InvalidURLException if a url string given is invalid.
+ * @exception NoRegistryException if no Registry process running.
+ * @exception NoSuchChannelException if a channel doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchConsumerException if the consumer couldn't be added.
+ * @exception NoSuchHostException if a host name in a url string doesn't
+ * exist.
+ * @exception NoSuchSessionException if a session doesn't exist.
+ * @exception PermissionDeniedException if this Client doesn't have
+ * permission for this operation.
+ * @exception PortInUseException if the relay port is being used by another
+ * application.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    public static void
+    createRelay(Client client, URLString upstreamURL, URLString relayURL,
+                String channelName, boolean reliable, boolean ordered)
+        throws AlreadyBoundException, ConnectionException,
+               InvalidClientException, InvalidURLException,
+               NoRegistryException, NoSuchChannelException,
+               NoSuchClientException, NoSuchConsumerException,
+               NoSuchHostException, NoSuchSessionException,
+               PermissionDeniedException, PortInUseException,
+               TimedOutException {
+        String       key   = relayURL + "/" + channelName;
+        ChannelRelay relay = new ChannelRelay(key, client, upstreamURL,
+                                              relayURL, channelName);
+
+        if (ChannelRelay_Debug) {
+            Debug("ChannelRelay: createRelay:" +
+                  " client: "       + client +
+                  " upstream url: " + upstreamURL +
+                  " relay url: "    + relayURL +
+                  " channel name: " + channelName +
+                  " reliable? "     + reliable +
+                  " ordered? "      + ordered);
+        }
+
+        synchronized (relays) {
+            if (relays.get(key) != null) {
+                throw new AlreadyBoundException();
+            }
+
+/* The downstream channel is joined first, so that no Data is received from
+ * upstream before there is somewhere to send it.
+ */
+
+            try {
+                relay.downstreamSession = relay.joinSession(relayURL);
+                relay.downstream        = relay.joinChannel(
+                                            relay.downstreamSession,
+                                            reliable, ordered);
+                relay.upstreamSession   = relay.joinSession(upstreamURL);
+                relay.upstream          = relay.joinChannel(
+                                            relay.upstreamSession,
+                                            reliable, ordered);
+                relay.upstream.addConsumer(client, relay);
+            } catch (JSDTException e) {
+                relay.leave();
+                throw e;
+            }
+            relays.put(key, relay);
+        }
+
+        relay.addConnectionListener(upstreamURL);
+        relay.addConnectionListener(relayURL);
+    }
+
+
+/**
+ * <A NAME="SD_DESTROYRELAY"></A>
+ * <EM>destroyRelay</EM> stop relaying a channel to a downstream session.
+ * The downstream session and channel are left for their consumers.
+ *
+ * @param relayURL the URLString of the session being relayed to.
+ * @param channelName the name of the channel being relayed.
+ *
+ * @exception NoSuchChannelException if this channel isn't being relayed to
+ * this URL by this process.
+ */
+
+    public static void
+    destroyRelay(URLString relayURL, String channelName)
+        throws NoSuchChannelException {
+        ChannelRelay relay;
+
+        if (ChannelRelay_Debug) {
+            Debug("ChannelRelay: destroyRelay:" +
+                  " relay url: "    + relayURL +
+                  " channel name: " + channelName);
+        }
+
+        if ((relay = relays.remove(relayURL + "/" + channelName)) == null) {
+            throw new NoSuchChannelException();
+        }
+
+        relay.leave();
+    }
+
+
+/**
+ * <A NAME="SD_STOP"></A>
+ * <EM>stop</EM> stop this relay because its upstream or downstream server
+ * has been lost, if it hasn't already been stopped.
+ */
+
+    private void
+    stop() {
+        if (ChannelRelay_Debug) {
+            debug("ChannelRelay: stop.");
+        }
+
+        if (!relays.remove(key, this)) {
+            return;
+        }
+
+        error("ChannelRelay: stop: ", "impl.relay.stopped", key);
+        leave();
+    }
+
+
+/**
+ * <A NAME="SD_LEAVE"></A>
+ * <EM>leave</EM> stop receiving Data from the upstream channel, and leave
+ * whatever channels and sessions the relay client joined, unless another
+ * relay run by the same client still uses them. This relay must already
+ * be out of the relays table. The upstream or downstream server may have
+ * gone, so each step is tried on its own.
+ *
+ * <P>It's done inside the lock on the relays table, so that a relay being
+ * created doesn't join a channel or session just as it's being left.
+ */
+
+    private void
+    leave() {
+        if (ChannelRelay_Debug) {
+            debug("ChannelRelay: leave.");
+        }
+
+        synchronized (relays) {
+            if (upstream != null) {
+                try {
+                    upstream.removeConsumer(client, this);
+                } catch (JSDTException e) {
+                    if (ChannelRelay_Debug) {
+                        debug("ChannelRelay: leave: " + e);
+                    }
+                }
+            }
+
+            leave(upstream, upstreamURL);
+            leave(downstream, relayURL);
+            leave(upstreamSession, upstreamURL);
+            leave(downstreamSession, relayURL);
+        }
+
+        removeConnectionListener(upstreamURL);
+        removeConnectionListener(relayURL);
+    }
+
+
+/**
+ * <A NAME="SD_LEAVE"></A>
+ * <EM>leave</EM> leave the relay client from the given channel or session,
+ * if it was joined and no other relay run by the same client uses it. The
+ * caller must hold the lock on the relays table.
+ *
+ * @param manageable the channel or session to leave (or null).
+ * @param urlString the URLString of the session.
+ */
+
+    private void
+    leave(Manageable manageable, URLString urlString) {
+        if (ChannelRelay_Debug) {
+            debug("ChannelRelay: leave:" +
+                  " manageable: " + manageable +
+                  " url: "        + urlString);
+        }
+
+        if (manageable == null ||
+            isJoined(urlString, (manageable instanceof Channel))) {
+            return;
+        }
+
+        try {
+            manageable.leave(client);
+        } catch (JSDTException e) {
+            if (ChannelRelay_Debug) {
+                debug("ChannelRelay: leave: " + e);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ISJOINED"></A>
+ * <EM>isJoined</EM> check whether another relay run by the same client is
+ * joined to the session with the given URL, or to the relayed channel in
+ * it. The caller must hold the lock on the relays table.
+ *
+ * @param urlString the URLString of the session.
+ * @param isChannel whether to check for the relayed channel, rather than
+ * just the session.
+ *
+ * @return true if another relay still uses the session or channel.
+ */
+
+    private boolean
+    isJoined(URLString urlString, boolean isChannel) {
+        String url = urlString.toString();
+
+        for (Enumeration<ChannelRelay> e = relays.elements();
+             e.hasMoreElements();) {
+            ChannelRelay relay = e.nextElement();
+
+            if (relay != this &&
+                relay.client.getName().equals(client.getName()) &&
+                (relay.upstreamURL.toString().equals(url) ||
+                 relay.relayURL.toString().equals(url)) &&
+                (!isChannel || relay.channelName.equals(channelName))) {
+                return(true);
+            }
+        }
+
+        return(false);
+    }
+
+
+/**
+ * <A NAME="SD_ADDCONNECTIONLISTENER"></A>
+ * <EM>addConnectionListener</EM> listen for connection failures reported
+ * by the Registry on the host of the given session.
+ *
+ * @param urlString the URLString of the session.
+ */
+
+    private void
+    addConnectionListener(URLString urlString) {
+        if (ChannelRelay_Debug) {
+            debug("ChannelRelay: addConnectionListener:" +
+                  " url: " + urlString);
+        }
+
+        try {
+            Connection.addConnectionListener(urlString.getHostName(),
+                                        urlString.getConnectionType(), this);
+        } catch (NoRegistryException | NoSuchHostException e) {
+            error("ChannelRelay: addConnectionListener: ", e);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_REMOVECONNECTIONLISTENER"></A>
+ * <EM>removeConnectionListener</EM> stop listening for connection failures
+ * reported by the Registry on the host of the given session. The listener
+ * will already have gone if it reported a failure.
+ *
+ * @param urlString the URLString of the session.
+ */
+
+    private void
+    removeConnectionListener(URLString urlString) {
+        if (ChannelRelay_Debug) {
+            debug("ChannelRelay: removeConnectionListener:" +
+                  " url: " + urlString);
+        }
+
+        try {
+            Connection.removeConnectionListener(urlString.getHostName(),
+                                        urlString.getConnectionType(), this);
+        } catch (NoRegistryException | NoSuchHostException |
+                 NoSuchListenerException e) {
+            if (ChannelRelay_Debug) {
+                debug("ChannelRelay: removeConnectionListener: " + e);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ISSERVER"></A>
+ * <EM>isServer</EM> check whether a connection event is for the server of
+ * the given session.
+ *
+ * @param urlString the URLString of the session.
+ * @param event the Connection event.
+ *
+ * @return true if the event is for the server of that session.
+ */
+
+    private static boolean
+    isServer(URLString urlString, ConnectionEvent event) {
+        return(urlString.getHostName().equals(event.getAddress()) &&
+               urlString.getPort() == event.getPort());
+    }
+
+
+/**
+ * <A NAME="SD_JOINSESSION"></A>
+ * <EM>joinSession</EM> join the relay client to the session with the given
+ * URL, creating it if needed. The client may already be joined if it's used
+ * for more than one relay.
+ *
+ * @param urlString the URLString of the session.
+ *
+ * @return the joined session.
+ */
+
+    private Session
+    joinSession(URLString urlString)
+        throws ConnectionException, InvalidClientException,
+               InvalidURLException, NoRegistryException,
+               NoSuchClientException, NoSuchHostException,
+               NoSuchSessionException, PermissionDeniedException,
+               PortInUseException, TimedOutException {
+        Session session;
+
+        if (ChannelRelay_Debug) {
+            debug("ChannelRelay: joinSession:" +
+                  " url: " + urlString);
+        }
+
+/* The session and channel aren't auto-joined when they're created, so the
+ * create calls don't throw NameInUseException. From join, it just means the
+ * relay client is already joined, because it's used by another relay.
+ */
+
+        try {
+            session = SessionFactory.createSession(client, urlString, false);
+        } catch (NameInUseException niue) {
+            throw new NoSuchSessionException();
+        }
+
+        try {
+            session.join(client);
+        } catch (NameInUseException | NoSuchByteArrayException |
+                 NoSuchChannelException | NoSuchTokenException e) {
+        }
+
+        return(session);
+    }
+
+
+/**
+ * <A NAME="SD_JOINCHANNEL"></A>
+ * <EM>joinChannel</EM> join the relay client to the relayed channel in the
+ * given session, creating it if needed.
+ *
+ * @param session the session the channel is in.
+ * @param reliable whether the channel is reliable.
+ * @param ordered whether Data sent over the channel is ordered.
+ *
+ * @return the joined channel.
+ */
+
+    private Channel
+    joinChannel(Session session, boolean reliable, boolean ordered)
+        throws ConnectionException, InvalidClientException,
+               NoSuchChannelException, NoSuchClientException,
+               NoSuchHostException, NoSuchSessionException,
+               PermissionDeniedException, TimedOutException {
+        Channel channel;
+
+        if (ChannelRelay_Debug) {
+            debug("ChannelRelay: joinChannel:" +
+                  " session: " + session);
+        }
+
+        try {
+            channel = session.createChannel(client, channelName,
+                                            reliable, ordered, false);
+        } catch (NameInUseException niue) {
+            throw new NoSuchChannelException();
+        }
+
+        try {
+            channel.join(client);
+        } catch (NameInUseException | NoSuchByteArrayException |
+                 NoSuchTokenException e) {
+        }
+
+        return(channel);
+    }
+
+
+/**
+ * <A NAME="SD_GETRELAYPOOL"></A>
+ * <EM>getRelayPool</EM> get the pool of threads used to send Data on to the
+ * downstream channels. It is created the first time it's needed, using the
+ * "relayThreads" property.
+ *
+ * @return the relay thread pool.
+ */
+
+    private static synchronized JSDTThreadPool
+    getRelayPool() {
+        if (relayPool == null) {
+            relayPool = new JSDTThreadPool("ChannelRelayThread",
+                            Util.getIntProperty("relayThreads", relayThreads));
+        }
+
+        return(relayPool);
+    }
+
+
+/**
+ * <A NAME="SD_DATARECEIVED"></A>
+ * <EM>dataReceived</EM> pass Data received from the upstream channel to the
+ * relay thread pool, to be sent on to the downstream channel. It's queued
+ * under this relay's key, so each piece is sent in the order it arrived.
+ *
+ * @param data the Data received from the upstream channel.
+ */
+
+    public void
+    dataReceived(Data data) {
+        if (ChannelRelay_Debug) {
+            debug("ChannelRelay: dataReceived:" +
+                  " data: " + data);
+        }
+
+        getRelayPool().execute(this, new RelaySend(data));
+    }
+
+
+/**
+ * <A NAME="SD_SEND"></A>
+ * <EM>send</EM> send a piece of Data on to the downstream channel, at the
+ * priority it was sent at. It's sent asynchronously, so the next piece of
+ * Data can be sent while this one is on its way.
+ *
+ * @param data the Data to send on.
+ */
+
+    private void
+    send(Data data) {
+        if (ChannelRelay_Debug) {
+            debug("ChannelRelay: send:" +
+                  " data: " + data);
+        }
+
+        try {
+            downstream.sendToAllAsync(client, data).exceptionally(
+                                                        new SendFailed());
+        } catch (JSDTException e) {
+            sendFailed(e);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_SENDFAILED"></A>
+ * <EM>sendFailed</EM> report a send to the downstream channel that failed.
+ * If the downstream connection, session or channel has gone, the relay is
+ * stopped on a thread of its own, so that the thread that completed the
+ * send isn't held up.
+ *
+ * @param t the reason the send failed.
+ */
+
+    private void
+    sendFailed(Throwable t) {
+        if (ChannelRelay_Debug) {
+            debug("ChannelRelay: sendFailed:" +
+                  " throwable: " + t);
+        }
+
+        if (t instanceof Exception) {
+            error("ChannelRelay: sendFailed: ", (Exception) t);
+        }
+
+        if (t instanceof ConnectionException ||
+            t instanceof NoSuchChannelException ||
+            t instanceof NoSuchSessionException) {
+            Util.startThread(new RelayStop(), "ChannelRelayThread:" + key,
+                             true);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_CONNECTIONFAILED"></A>
+ * <EM>connectionFailed</EM> stop this relay if the connection to its
+ * upstream or downstream server has failed. The listener is removed after
+ * any failure the Registry reports, so if it was for another session on
+ * the same host, it's added again.
+ *
+ * @param event the Connection event containing more information.
+ */
+
+    public void
+    connectionFailed(ConnectionEvent event) {
+        if (ChannelRelay_Debug) {
+            debug("ChannelRelay: connectionFailed:" +
+                  " event: " + event);
+        }
+
+        if (isServer(upstreamURL, event) || isServer(relayURL, event)) {
+            stop();
+        } else if (relays.get(key) == this) {
+            if (upstreamURL.getHostName().equals(event.getAddress())) {
+                addConnectionListener(upstreamURL);
+            }
+            if (relayURL.getHostName().equals(event.getAddress())) {
+                addConnectionListener(relayURL);
+            }
+        }
+    }
+
+
+/**
+ * JSDT channel relay send class. Sends one piece of Data on to the
+ * downstream channel, from the relay thread pool.
+ */
+
+    private final class
+    RelaySend implements Runnable {
+
+        // The Data to send on.
+        private final Data data;
+
+
+        RelaySend(Data data) {
+            this.data = data;
+        }
+
+
+        public void
+        run() {
+            send(data);
+        }
+    }
+
+
+/**
+ * JSDT channel relay send failure class. Reports an asynchronous send to
+ * the downstream channel that completed with an exception.
+ */
+
+    private final class
+    SendFailed implements Function<Throwable, Void> {
+
+        public Void
+        apply(Throwable t) {
+            sendFailed(t);
+
+            return(null);
+        }
+    }
+
+
+/**
+ * JSDT channel relay stop class. Stops the relay on a thread of its own,
+ * after a send to the downstream channel found that it has gone.
+ */
+
+    private final class
+    RelayStop implements Runnable {
+
+        public void
+        run() {
+            stop();
+        }
+    }
+}
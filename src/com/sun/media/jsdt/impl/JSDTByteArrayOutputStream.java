@@ -0,0 +1,66 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * JSDT Byte Array Output Stream class. This gives access to the bytes
+ * written so far without copying them.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+public final class
+JSDTByteArrayOutputStream extends ByteArrayOutputStream
+                          implements JSDTDebugFlags {
+
+    public
+    JSDTByteArrayOutputStream(int size) {
+        super(size);
+
+        if (JSDTByteArrayOutputStream_Debug) {
+            JSDTObject.Debug("JSDTByteArrayOutputStream: constructor:" +
+                             " size: " + size);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETBYTEARRAY"></A>
+ * <EM>getByteArray</EM> gets the internal buffer of this stream. Only the
+ * first <CODE>size()</CODE> bytes are valid, and the buffer may be reused
+ * by later writes after a <CODE>reset()</CODE>.
+ *
+ * @return the internal buffer of this stream.
+ */
+
+    public synchronized byte[]
+    getByteArray() {
+        if (JSDTByteArrayOutputStream_Debug) {
+            JSDTObject.Debug("JSDTByteArrayOutputStream: getByteArray.");
+        }
+
+        return(buf);
+    }
+}
@@ -34,17 +34,29 @@ public interface JSDTDebugFlags {
     boolean ByteArrayImpl_Debug              = false;
     boolean ChannelImpl_Debug                = false;
     boolean ChannelConsumerImpl_Debug        = false;
+    boolean ChannelRelay_Debug               = false;
     boolean ClientImpl_Debug                 = false;
     boolean ClientFactory_Debug              = false;
     boolean Connection_Debug                 = false;
     boolean Data_Debug                       = false;
     boolean JSDTByteArrayInputStream_Debug   = false;
+    boolean JSDTByteArrayOutputStream_Debug  = false;
+    boolean JSDTEvent_Debug                  = false;
+    boolean JSDTEventDispatcher_Debug        = false;
+    boolean JSDTEventQueue_Debug             = false;
     boolean JSDTI18N_Debug                   = false;
     boolean JSDTListenerImpl_Debug           = false;
+    boolean JSDTLookupCache_Debug            = false;
+    boolean JSDTLookupEntry_Debug            = false;
     boolean JSDTManagerImpl_Debug            = false;
+    boolean JSDTMonitor_Debug                = false;
     boolean JSDTObject_Debug                 = false;
     boolean JSDTSecurity_Debug               = false;
+    boolean JSDTSerialTask_Debug             = false;
     boolean JSDTThread_Debug                 = false;
+    boolean JSDTThreadPool_Debug             = false;
+    boolean JSDTTimeout_Debug                = false;
+    boolean JSDTTimer_Debug                  = false;
     boolean ManageableImpl_Debug             = false;
     boolean Message_Debug                    = false;
     boolean Naming_Debug                     = false;
@@ -52,9 +64,11 @@ public interface JSDTDebugFlags {
     boolean SessionImpl_Debug                = false;
     boolean SessionFactory_Debug             = false;
     boolean TargetableThread_Debug           = false;
+    boolean TargetableThreadFactory_Debug    = false;
     boolean TokenImpl_Debug                  = false;
     boolean URLString_Debug                  = false;
     boolean Util_Debug                       = false;
+    boolean VirtualThreadFactory_Debug       = false;
 
     boolean ByteArrayEvent_Debug             = false;
     boolean ChannelEvent_Debug               = false;
@@ -0,0 +1,138 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+/**
+ * JSDT event class. This holds one listener event that is waiting in a
+ * JSDTEventQueue to be delivered.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+JSDTEvent extends JSDTObject implements JSDTDebugFlags {
+
+    // The task that delivers this event.
+    private Runnable task;
+
+    // The key used to coalesce this event with later ones (or null).
+    private final Object key;
+
+    // The time (in milliseconds) that this event was queued.
+    private final long queuedTime;
+
+
+/**
+ * <A NAME="SD_JSDTEVENT"></A>
+ * <EM>JSDTEvent</EM> is the constructor for the JSDTEvent class.
+ *
+ * @param task the task that delivers this event.
+ * @param key the key used to coalesce this event with later ones, or null
+ * if it should never be coalesced.
+ */
+
+    JSDTEvent(Runnable task, Object key) {
+        if (JSDTEvent_Debug) {
+            debug("JSDTEvent: constructor:" +
+                  " task: " + task +
+                  " key: "  + key);
+        }
+
+        this.task  = task;
+        this.key   = key;
+        queuedTime = System.currentTimeMillis();
+    }
+
+
+/**
+ * <A NAME="SD_GETTASK"></A>
+ * <EM>getTask</EM>
+ *
+ * @return the task that delivers this event.
+ */
+
+    Runnable
+    getTask() {
+        return(task);
+    }
+
+
+/**
+ * <A NAME="SD_GETKEY"></A>
+ * <EM>getKey</EM>
+ *
+ * @return the key used to coalesce this event, or null if there isn't one.
+ */
+
+    Object
+    getKey() {
+        return(key);
+    }
+
+
+/**
+ * <A NAME="SD_GETQUEUEDTIME"></A>
+ * <EM>getQueuedTime</EM>
+ *
+ * @return the time (in milliseconds) that this event was queued.
+ */
+
+    long
+    getQueuedTime() {
+        return(queuedTime);
+    }
+
+
+/**
+ * <A NAME="SD_SETTASK"></A>
+ * <EM>setTask</EM> replace the task that delivers this event with the task
+ * for a later event that it has been coalesced with.
+ *
+ * @param task the task that delivers the later event.
+ */
+
+    void
+    setTask(Runnable task) {
+        if (JSDTEvent_Debug) {
+            debug("JSDTEvent: setTask:" +
+                  " task: " + task);
+        }
+
+        this.task = task;
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this JSDTEvent.
+ *
+ * @return a String containing a description of this JSDTEvent.
+ */
+
+    public String
+    toString() {
+        return("JSDTEvent:" +
+                " task: "   + task +
+                " key: "    + key +
+                " queued: " + queuedTime + "\n");
+    }
+}
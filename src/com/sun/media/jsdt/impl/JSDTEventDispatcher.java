@@ -0,0 +1,456 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+
+/**
+ * JSDT event dispatcher class. Listener events (and client events) are
+ * delivered by a bounded pool of worker threads, rather than by starting a
+ * new thread for each one.
+ *
+ * Each listener has its own queue of events, and its events are delivered
+ * one at a time, in the order they were queued, so (for example) a
+ * listener always sees a client join a channel before it sees it leave.
+ * Listeners that are slow don't hold up the others, as long as there are
+ * worker threads to spare.
+ *
+ * An event can be given a coalescing key. If an event with the same key is
+ * still waiting to be delivered to a listener, the new event replaces it
+ * rather than being queued as well. This is used for byte array value
+ * changed events, as the listener reads the current value anyway.
+ *
+ * Once "maxListenerEvents" events are waiting for a listener, the thread
+ * queuing a new event for it waits (for up to "listenerEventWait"
+ * milliseconds) for the listener to catch up. As that is normally the
+ * thread reading from the connection, this pushes back on the server.
+ * The event is queued anyway if the wait runs out, so no events are lost.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+public final class
+JSDTEventDispatcher extends JSDTObject implements JSDTDebugFlags {
+
+    // The pool of worker threads that deliver the events.
+    private final JSDTThreadPool pool;
+
+    // The monitor guarding the state of this dispatcher and its queues.
+    private final JSDTMonitor monitor = new JSDTMonitor();
+
+    // The queues of events waiting for each listener.
+    private final Hashtable<Object, JSDTEventQueue> queues = new Hashtable<>();
+
+    // The total number of events waiting to be delivered.
+    private int size = 0;
+
+    // The largest number of events that have been waiting at once.
+    private int highWater = 0;
+
+    // The number of events that have been delivered.
+    private long delivered = 0;
+
+    // The number of events that were coalesced with a waiting event.
+    private long coalesced = 0;
+
+    // The number of times an event had to wait for a listener to catch up.
+    private long blocked = 0;
+
+    // The total time (in milliseconds) that delivered events waited.
+    private long totalLag = 0;
+
+    // The longest time (in milliseconds) that a delivered event waited.
+    private long maxLag = 0;
+
+
+/**
+ * <A NAME="SD_JSDTEVENTDISPATCHER"></A>
+ * <EM>JSDTEventDispatcher</EM> is the constructor for the
+ * JSDTEventDispatcher class.
+ *
+ * @param name the name used for the worker threads of this dispatcher.
+ * @param maxThreads the maximum number of worker threads.
+ */
+
+    public
+    JSDTEventDispatcher(String name, int maxThreads) {
+        if (JSDTEventDispatcher_Debug) {
+            debug("JSDTEventDispatcher: constructor:" +
+                  " name: "        + name +
+                  " max threads: " + maxThreads);
+        }
+
+        pool = new JSDTThreadPool(name, maxThreads);
+    }
+
+
+/**
+ * <A NAME="SD_DISPATCH"></A>
+ * <EM>dispatch</EM> queue an event to be delivered to the given listener,
+ * after any other events that are waiting for it.
+ *
+ * @param listener the listener the event is for.
+ * @param task the task that delivers the event.
+ */
+
+    public void
+    dispatch(Object listener, Runnable task) {
+        if (JSDTEventDispatcher_Debug) {
+            debug("JSDTEventDispatcher: dispatch:" +
+                  " listener: " + listener +
+                  " task: "     + task);
+        }
+
+        dispatch(listener, task, null);
+    }
+
+
+/**
+ * <A NAME="SD_DISPATCHCOALESCE"></A>
+ * <EM>dispatch</EM> queue an event to be delivered to the given listener,
+ * after any other events that are waiting for it. If an event with the
+ * same coalescing key is already waiting for this listener, the new event
+ * replaces it instead.
+ *
+ * @param listener the listener the event is for.
+ * @param task the task that delivers the event.
+ * @param key the key used to coalesce this event with a waiting one, or
+ * null if it should never be coalesced.
+ */
+
+    public void
+    dispatch(Object listener, Runnable task, Object key) {
+        int            maxEvents = Util.getIntProperty("maxListenerEvents",
+                                                       maxListenerEvents);
+        long           wait      = Util.getLongProperty("listenerEventWait",
+                                                        listenerEventWait);
+        JSDTEventQueue queue;
+        long           deadline;
+        boolean        start     = false;
+
+        if (JSDTEventDispatcher_Debug) {
+            debug("JSDTEventDispatcher: dispatch:" +
+                  " listener: " + listener +
+                  " task: "     + task +
+                  " key: "      + key);
+        }
+
+        monitor.enter();
+        try {
+            queue = getQueue(listener);
+            if (key != null && queue.coalesce(key, task)) {
+                coalesced++;
+                return;
+            }
+
+            if (queue.getSize() >= maxEvents &&
+                queue.runner != Thread.currentThread()) {
+                blocked++;
+                deadline = System.currentTimeMillis() + wait;
+                while (queue.getSize() >= maxEvents &&
+                       System.currentTimeMillis() < deadline) {
+                    try {
+                        monitor.await(deadline - System.currentTimeMillis());
+                    } catch (InterruptedException ie) {
+                        break;
+                    }
+                }
+                queue = getQueue(listener);
+            }
+
+            queue.addEvent(new JSDTEvent(task, key));
+            if (++size > highWater) {
+                highWater = size;
+            }
+
+            if (!queue.scheduled) {
+                queue.scheduled = true;
+                start           = true;
+            }
+        } finally {
+            monitor.exit();
+        }
+
+        if (start) {
+            pool.execute(queue);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETQUEUE"></A>
+ * <EM>getQueue</EM> get the queue of events for the given listener,
+ * creating it if there isn't one. The caller must be inside the monitor
+ * for this dispatcher.
+ *
+ * @param listener the listener the queue is for.
+ *
+ * @return the queue of events for this listener.
+ */
+
+    private JSDTEventQueue
+    getQueue(Object listener) {
+        JSDTEventQueue queue = queues.get(listener);
+
+        if (JSDTEventDispatcher_Debug) {
+            debug("JSDTEventDispatcher: getQueue:" +
+                  " listener: " + listener);
+        }
+
+        if (queue == null) {
+            queue = new JSDTEventQueue(this, listener);
+            queues.put(listener, queue);
+        }
+
+        return(queue);
+    }
+
+
+/**
+ * <A NAME="SD_NEXTEVENT"></A>
+ * <EM>nextEvent</EM> called by a worker thread running a queue, to get the
+ * next event to deliver from it. When the queue is empty, it is removed,
+ * and the worker thread goes on to other work.
+ *
+ * @param queue the queue being run.
+ *
+ * @return the next event to deliver, or null if there are none left.
+ */
+
+    JSDTEvent
+    nextEvent(JSDTEventQueue queue) {
+        JSDTEvent event;
+        long      lag;
+
+        if (JSDTEventDispatcher_Debug) {
+            debug("JSDTEventDispatcher: nextEvent:" +
+                  " queue: " + queue);
+        }
+
+        monitor.enter();
+        try {
+            if ((event = queue.removeEvent()) == null) {
+                queue.scheduled = false;
+                queue.runner    = null;
+                queues.remove(queue.getListener());
+                return(null);
+            }
+
+            size--;
+            queue.runner = Thread.currentThread();
+            lag          = System.currentTimeMillis() - event.getQueuedTime();
+            delivered++;
+            totalLag += lag;
+            if (lag > maxLag) {
+                maxLag = lag;
+            }
+            monitor.signalAll();
+        } finally {
+            monitor.exit();
+        }
+
+        return(event);
+    }
+
+
+/**
+ * <A NAME="SD_GETSIZE"></A>
+ * <EM>getSize</EM>
+ *
+ * @return the number of events currently waiting to be delivered.
+ */
+
+    public int
+    getSize() {
+        monitor.enter();
+        try {
+            return(size);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETHIGHWATER"></A>
+ * <EM>getHighWater</EM>
+ *
+ * @return the largest number of events that have been waiting at once.
+ */
+
+    public int
+    getHighWater() {
+        monitor.enter();
+        try {
+            return(highWater);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETDELIVERED"></A>
+ * <EM>getDelivered</EM>
+ *
+ * @return the number of events that have been delivered.
+ */
+
+    public long
+    getDelivered() {
+        monitor.enter();
+        try {
+            return(delivered);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETCOALESCED"></A>
+ * <EM>getCoalesced</EM>
+ *
+ * @return the number of events that were coalesced with an event that was
+ * already waiting.
+ */
+
+    public long
+    getCoalesced() {
+        monitor.enter();
+        try {
+            return(coalesced);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETBLOCKED"></A>
+ * <EM>getBlocked</EM>
+ *
+ * @return the number of times an event had to wait for a listener to
+ * catch up.
+ */
+
+    public long
+    getBlocked() {
+        monitor.enter();
+        try {
+            return(blocked);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETLAG"></A>
+ * <EM>getLag</EM>
+ *
+ * @return how long (in milliseconds) the oldest waiting event has been
+ * waiting, or zero if no events are waiting.
+ */
+
+    public long
+    getLag() {
+        long now    = System.currentTimeMillis();
+        long oldest = now;
+
+        monitor.enter();
+        try {
+            for (Enumeration<JSDTEventQueue> e = queues.elements();
+                 e.hasMoreElements();) {
+                long time = e.nextElement().getOldestTime();
+
+                if (time != 0 && time < oldest) {
+                    oldest = time;
+                }
+            }
+        } finally {
+            monitor.exit();
+        }
+
+        return(now - oldest);
+    }
+
+
+/**
+ * <A NAME="SD_GETMAXLAG"></A>
+ * <EM>getMaxLag</EM>
+ *
+ * @return the longest time (in milliseconds) that a delivered event had
+ * to wait.
+ */
+
+    public long
+    getMaxLag() {
+        monitor.enter();
+        try {
+            return(maxLag);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETAVERAGELAG"></A>
+ * <EM>getAverageLag</EM>
+ *
+ * @return the average time (in milliseconds) that delivered events had to
+ * wait.
+ */
+
+    public long
+    getAverageLag() {
+        monitor.enter();
+        try {
+            return((delivered == 0) ? 0 : totalLag / delivered);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this JSDTEventDispatcher.
+ *
+ * @return a String containing a description of this JSDTEventDispatcher.
+ */
+
+    public String
+    toString() {
+        return("JSDTEventDispatcher:" +
+                " waiting: "     + getSize() +
+                " high water: "  + getHighWater() +
+                " delivered: "   + getDelivered() +
+                " coalesced: "   + getCoalesced() +
+                " blocked: "     + getBlocked() +
+                " lag: "         + getLag() +
+                " max lag: "     + getMaxLag() +
+                " average lag: " + getAverageLag() + "\n");
+    }
+}
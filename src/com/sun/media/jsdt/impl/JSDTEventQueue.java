@@ -0,0 +1,235 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+import java.util.Vector;
+
+/**
+ * JSDT event queue class. This holds the events waiting to be delivered to
+ * one listener. When there are events waiting, the queue is run by one of
+ * the worker threads of its JSDTEventDispatcher, which delivers them one
+ * at a time, in the order they were queued.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+JSDTEventQueue extends JSDTObject implements Runnable, JSDTDebugFlags {
+
+    // The event dispatcher that this queue belongs to.
+    private final JSDTEventDispatcher dispatcher;
+
+    // The listener that the events in this queue are for.
+    private final Object listener;
+
+    // The events waiting to be delivered.
+    private final Vector<JSDTEvent> events = new Vector<>();
+
+    // Set if this queue has been handed to a worker thread to run.
+    boolean scheduled = false;
+
+    // The thread currently delivering events from this queue (or null).
+    Thread runner = null;
+
+
+/**
+ * <A NAME="SD_JSDTEVENTQUEUE"></A>
+ * <EM>JSDTEventQueue</EM> is the constructor for the JSDTEventQueue class.
+ *
+ * @param dispatcher the event dispatcher that this queue belongs to.
+ * @param listener the listener that the events in this queue are for.
+ */
+
+    JSDTEventQueue(JSDTEventDispatcher dispatcher, Object listener) {
+        if (JSDTEventQueue_Debug) {
+            debug("JSDTEventQueue: constructor:" +
+                  " dispatcher: " + dispatcher +
+                  " listener: "   + listener);
+        }
+
+        this.dispatcher = dispatcher;
+        this.listener   = listener;
+    }
+
+
+/**
+ * <A NAME="SD_ADDEVENT"></A>
+ * <EM>addEvent</EM> add an event to the end of this queue. The caller must
+ * be inside the monitor of the event dispatcher.
+ *
+ * @param event the event to add.
+ */
+
+    void
+    addEvent(JSDTEvent event) {
+        if (JSDTEventQueue_Debug) {
+            debug("JSDTEventQueue: addEvent:" +
+                  " event: " + event);
+        }
+
+        events.addElement(event);
+    }
+
+
+/**
+ * <A NAME="SD_COALESCE"></A>
+ * <EM>coalesce</EM> if there is already an event waiting in this queue
+ * with the given key, replace its task with the given one, so that the
+ * listener is only told once. The caller must be inside the monitor of the
+ * event dispatcher.
+ *
+ * @param key the key used to coalesce events.
+ * @param task the task for the new event.
+ *
+ * @return true if the new event was coalesced with a waiting one.
+ */
+
+    boolean
+    coalesce(Object key, Runnable task) {
+        if (JSDTEventQueue_Debug) {
+            debug("JSDTEventQueue: coalesce:" +
+                  " key: "  + key +
+                  " task: " + task);
+        }
+
+        for (int i = 0; i < events.size(); i++) {
+            JSDTEvent event = events.elementAt(i);
+
+            if (key.equals(event.getKey())) {
+                event.setTask(task);
+                return(true);
+            }
+        }
+
+        return(false);
+    }
+
+
+/**
+ * <A NAME="SD_REMOVEEVENT"></A>
+ * <EM>removeEvent</EM> take the first event off this queue. The caller
+ * must be inside the monitor of the event dispatcher.
+ *
+ * @return the first event, or null if the queue is empty.
+ */
+
+    JSDTEvent
+    removeEvent() {
+        JSDTEvent event;
+
+        if (JSDTEventQueue_Debug) {
+            debug("JSDTEventQueue: removeEvent.");
+        }
+
+        if (events.size() == 0) {
+            return(null);
+        }
+
+        event = events.firstElement();
+        events.removeElementAt(0);
+        return(event);
+    }
+
+
+/**
+ * <A NAME="SD_GETLISTENER"></A>
+ * <EM>getListener</EM>
+ *
+ * @return the listener that the events in this queue are for.
+ */
+
+    Object
+    getListener() {
+        return(listener);
+    }
+
+
+/**
+ * <A NAME="SD_GETOLDESTTIME"></A>
+ * <EM>getOldestTime</EM> The caller must be inside the monitor of the
+ * event dispatcher.
+ *
+ * @return the time (in milliseconds) that the oldest waiting event was
+ * queued, or zero if there are no events waiting.
+ */
+
+    long
+    getOldestTime() {
+        if (events.size() == 0) {
+            return(0);
+        }
+
+        return(events.firstElement().getQueuedTime());
+    }
+
+
+/**
+ * <A NAME="SD_GETSIZE"></A>
+ * <EM>getSize</EM> The caller must be inside the monitor of the event
+ * dispatcher.
+ *
+ * @return the number of events waiting in this queue.
+ */
+
+    int
+    getSize() {
+        return(events.size());
+    }
+
+
+/**
+ * <A NAME="SD_RUN"></A>
+ * <EM>run</EM> deliver the events in this queue until there are none left.
+ */
+
+    public void
+    run() {
+        JSDTEvent event;
+
+        if (JSDTEventQueue_Debug) {
+            debug("JSDTEventQueue: run.");
+        }
+
+        while ((event = dispatcher.nextEvent(this)) != null) {
+            try {
+                event.getTask().run();
+            } catch (Throwable th) {
+                error("JSDTEventQueue: run: ", "impl.thrown", th);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this JSDTEventQueue.
+ *
+ * @return a String containing a description of this JSDTEventQueue.
+ */
+
+    public String
+    toString() {
+        return("JSDTEventQueue:" +
+                " listener: "  + listener +
+                " scheduled: " + scheduled + "\n");
+    }
+}
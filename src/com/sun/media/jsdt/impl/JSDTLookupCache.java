@@ -0,0 +1,337 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+import java.util.*;
+
+/**
+ * JSDT lookup cache class. This remembers the results of recent lookups
+ * (keyed by name) for a limited time, so that they don't have to be asked
+ * for again. The least recently used entry is dropped once the cache is
+ * full, and an entry can be removed early if its value is known to have
+ * changed.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+public final class
+JSDTLookupCache extends JSDTObject implements JSDTDebugFlags {
+
+    // The name of this cache.
+    private final String name;
+
+    // The largest number of entries kept.
+    private final int maxSize;
+
+    // How long (in milliseconds) an entry is used for after it's added.
+    private final long ttl;
+
+    // The cached entries, with the least recently used first.
+    private final LinkedHashMap<String, JSDTLookupEntry> entries;
+
+    // The number of lookups answered from the cache.
+    private long hits = 0;
+
+    // The number of lookups that weren't in the cache (or had expired).
+    private long misses = 0;
+
+    // The number of entries dropped because the cache was full.
+    private long evictions = 0;
+
+    // The number of entries removed because their value had changed.
+    private long invalidations = 0;
+
+    // The number of times that a value has been reported as changed.
+    private long changes = 0;
+
+
+/**
+ * <A NAME="SD_JSDTLOOKUPCACHE"></A>
+ * <EM>JSDTLookupCache</EM> is the constructor for the JSDTLookupCache class.
+ * A cache with a size or time to live of zero never holds anything.
+ *
+ * @param name the name of this cache.
+ * @param maxSize the largest number of entries kept.
+ * @param ttl how long (in milliseconds) an entry is used for after it's
+ * added.
+ */
+
+    public
+    JSDTLookupCache(String name, int maxSize, long ttl) {
+        if (JSDTLookupCache_Debug) {
+            debug("JSDTLookupCache: constructor:" +
+                  " name: "     + name +
+                  " max size: " + maxSize +
+                  " ttl: "      + ttl);
+        }
+
+        this.name    = name;
+        this.maxSize = maxSize;
+        this.ttl     = ttl;
+        entries      = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+
+/**
+ * <A NAME="SD_ISENABLED"></A>
+ * <EM>isEnabled</EM>
+ *
+ * @return true if this cache will hold entries.
+ */
+
+    public boolean
+    isEnabled() {
+        return(maxSize > 0 && ttl > 0);
+    }
+
+
+/**
+ * <A NAME="SD_GET"></A>
+ * <EM>get</EM> get the cached value for the given name. An entry that has
+ * expired is removed.
+ *
+ * @param key the name to look up.
+ *
+ * @return the cached value, or null if there isn't one.
+ */
+
+    public synchronized Object
+    get(String key) {
+        JSDTLookupEntry entry = entries.get(key);
+
+        if (JSDTLookupCache_Debug) {
+            debug("JSDTLookupCache: get:" +
+                  " key: "   + key +
+                  " entry: " + entry);
+        }
+
+        if (entry != null && entry.hasExpired(System.currentTimeMillis())) {
+            entries.remove(key);
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses++;
+            return(null);
+        }
+
+        hits++;
+        return(entry.getValue());
+    }
+
+
+/**
+ * <A NAME="SD_PUT"></A>
+ * <EM>put</EM> cache the value for the given name, dropping the least
+ * recently used entry if the cache is full.
+ *
+ * @param key the name that was looked up.
+ * @param value the value found for it.
+ */
+
+    public synchronized void
+    put(String key, Object value) {
+        Iterator<String> k;
+
+        if (JSDTLookupCache_Debug) {
+            debug("JSDTLookupCache: put:" +
+                  " key: "   + key +
+                  " value: " + value);
+        }
+
+        if (!isEnabled()) {
+            return;
+        }
+
+        entries.put(key,
+                new JSDTLookupEntry(value, System.currentTimeMillis() + ttl));
+
+        k = entries.keySet().iterator();
+        while (entries.size() > maxSize && k.hasNext()) {
+            k.next();
+            k.remove();
+            evictions++;
+        }
+    }
+
+
+/**
+ * <A NAME="SD_PUT"></A>
+ * <EM>put</EM> cache the value for the given name, unless a value has been
+ * reported as changed since the lookup it came from was started. This stops
+ * a lookup that crossed with a change from caching the old value.
+ *
+ * @param key the name that was looked up.
+ * @param value the value found for it.
+ * @param changes the result of getChanges() before the lookup was started.
+ */
+
+    public synchronized void
+    put(String key, Object value, long changes) {
+        if (JSDTLookupCache_Debug) {
+            debug("JSDTLookupCache: put:" +
+                  " key: "     + key +
+                  " value: "   + value +
+                  " changes: " + changes);
+        }
+
+        if (changes == this.changes) {
+            put(key, value);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_REMOVE"></A>
+ * <EM>remove</EM> remove the cached value for the given name, because it is
+ * known to have changed.
+ *
+ * @param key the name whose value has changed.
+ */
+
+    public synchronized void
+    remove(String key) {
+        if (JSDTLookupCache_Debug) {
+            debug("JSDTLookupCache: remove:" +
+                  " key: " + key);
+        }
+
+        changes++;
+        if (entries.remove(key) != null) {
+            invalidations++;
+        }
+    }
+
+
+/**
+ * <A NAME="SD_CLEAR"></A>
+ * <EM>clear</EM> remove every cached value.
+ */
+
+    public synchronized void
+    clear() {
+        if (JSDTLookupCache_Debug) {
+            debug("JSDTLookupCache: clear.");
+        }
+
+        changes++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+
+/**
+ * <A NAME="SD_GETCHANGES"></A>
+ * <EM>getChanges</EM>
+ *
+ * @return the number of times that a value has been reported as changed.
+ */
+
+    public synchronized long
+    getChanges() {
+        return(changes);
+    }
+
+
+/**
+ * <A NAME="SD_GETSIZE"></A>
+ * <EM>getSize</EM>
+ *
+ * @return the number of entries currently cached.
+ */
+
+    public synchronized int
+    getSize() {
+        return(entries.size());
+    }
+
+
+/**
+ * <A NAME="SD_GETHITS"></A>
+ * <EM>getHits</EM>
+ *
+ * @return the number of lookups answered from the cache.
+ */
+
+    public synchronized long
+    getHits() {
+        return(hits);
+    }
+
+
+/**
+ * <A NAME="SD_GETMISSES"></A>
+ * <EM>getMisses</EM>
+ *
+ * @return the number of lookups that weren't in the cache.
+ */
+
+    public synchronized long
+    getMisses() {
+        return(misses);
+    }
+
+
+/**
+ * <A NAME="SD_GETEVICTIONS"></A>
+ * <EM>getEvictions</EM>
+ *
+ * @return the number of entries dropped because the cache was full.
+ */
+
+    public synchronized long
+    getEvictions() {
+        return(evictions);
+    }
+
+
+/**
+ * <A NAME="SD_GETINVALIDATIONS"></A>
+ * <EM>getInvalidations</EM>
+ *
+ * @return the number of entries removed because their value had changed.
+ */
+
+    public synchronized long
+    getInvalidations() {
+        return(invalidations);
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this JSDTLookupCache.
+ *
+ * @return a String containing a description of this JSDTLookupCache.
+ */
+
+    public String
+    toString() {
+        return("JSDTLookupCache:" +
+                " name: "          + name +
+                " size: "          + getSize() +
+                " hits: "          + getHits() +
+                " misses: "        + getMisses() +
+                " evictions: "     + getEvictions() +
+                " invalidations: " + getInvalidations() + "\n");
+    }
+}
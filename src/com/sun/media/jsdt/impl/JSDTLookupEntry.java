@@ -0,0 +1,103 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+/**
+ * JSDT lookup entry class. This holds one value in a JSDTLookupCache,
+ * together with the time that it expires.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+JSDTLookupEntry extends JSDTObject implements JSDTDebugFlags {
+
+    // The cached value.
+    private final Object value;
+
+    // The time (in milliseconds) after which this value is no longer used.
+    private final long expiryTime;
+
+
+/**
+ * <A NAME="SD_JSDTLOOKUPENTRY"></A>
+ * <EM>JSDTLookupEntry</EM> is the constructor for the JSDTLookupEntry class.
+ *
+ * @param value the value to cache.
+ * @param expiryTime the time (in milliseconds) after which this value is
+ * no longer used.
+ */
+
+    JSDTLookupEntry(Object value, long expiryTime) {
+        if (JSDTLookupEntry_Debug) {
+            debug("JSDTLookupEntry: constructor:" +
+                  " value: "  + value +
+                  " expiry: " + expiryTime);
+        }
+
+        this.value      = value;
+        this.expiryTime = expiryTime;
+    }
+
+
+/**
+ * <A NAME="SD_GETVALUE"></A>
+ * <EM>getValue</EM>
+ *
+ * @return the cached value.
+ */
+
+    Object
+    getValue() {
+        return(value);
+    }
+
+
+/**
+ * <A NAME="SD_HASEXPIRED"></A>
+ * <EM>hasExpired</EM>
+ *
+ * @param now the current time (in milliseconds).
+ *
+ * @return true if this value should no longer be used.
+ */
+
+    boolean
+    hasExpired(long now) {
+        return(now >= expiryTime);
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this JSDTLookupEntry.
+ *
+ * @return a String containing a description of this JSDTLookupEntry.
+ */
+
+    public String
+    toString() {
+        return("JSDTLookupEntry:" +
+                " value: "  + value +
+                " expiry: " + expiryTime + "\n");
+    }
+}
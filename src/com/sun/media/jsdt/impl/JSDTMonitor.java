@@ -0,0 +1,142 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.*;
+
+/**
+ * JSDT monitor class. This is used instead of a <CODE>synchronized</CODE>
+ * block with <CODE>wait</CODE> and <CODE>notifyAll</CODE> on the paths that
+ * are taken for every message. A thread waiting in a Java monitor pins the
+ * carrier thread if it is a virtual thread, whereas a thread waiting here
+ * doesn't. It is used like this:
+ *
+ * <PRE>
+ *     monitor.enter();
+ *     try {
+ *         while (!condition) {
+ *             monitor.await(period);
+ *         }
+ *     } finally {
+ *         monitor.exit();
+ *     }
+ * </PRE>
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+public final class
+JSDTMonitor implements JSDTDebugFlags {
+
+    // The lock held by the thread inside this monitor.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // The condition waited on by threads inside this monitor.
+    private final Condition condition = lock.newCondition();
+
+
+/**
+ * <A NAME="SD_ENTER"></A>
+ * <EM>enter</EM> enter this monitor, waiting until no other thread is
+ * inside it.
+ */
+
+    public void
+    enter() {
+        if (JSDTMonitor_Debug) {
+            JSDTObject.Debug("JSDTMonitor: enter.");
+        }
+
+        lock.lock();
+    }
+
+
+/**
+ * <A NAME="SD_EXIT"></A>
+ * <EM>exit</EM> leave this monitor.
+ */
+
+    public void
+    exit() {
+        if (JSDTMonitor_Debug) {
+            JSDTObject.Debug("JSDTMonitor: exit.");
+        }
+
+        lock.unlock();
+    }
+
+
+/**
+ * <A NAME="SD_AWAIT"></A>
+ * <EM>await</EM> leave this monitor and wait until another thread signals
+ * it, then enter it again.
+ *
+ * @exception InterruptedException if this thread is interrupted.
+ */
+
+    public void
+    await() throws InterruptedException {
+        if (JSDTMonitor_Debug) {
+            JSDTObject.Debug("JSDTMonitor: await.");
+        }
+
+        condition.await();
+    }
+
+
+/**
+ * <A NAME="SD_AWAIT"></A>
+ * <EM>await</EM> leave this monitor and wait until another thread signals
+ * it, or until the given period has passed, then enter it again.
+ *
+ * @param period the maximum time to wait in milliseconds.
+ *
+ * @exception InterruptedException if this thread is interrupted.
+ */
+
+    public void
+    await(long period) throws InterruptedException {
+        if (JSDTMonitor_Debug) {
+            JSDTObject.Debug("JSDTMonitor: await:" +
+                             " period: " + period);
+        }
+
+        condition.await(period, TimeUnit.MILLISECONDS);
+    }
+
+
+/**
+ * <A NAME="SD_SIGNALALL"></A>
+ * <EM>signalAll</EM> wake up all the threads waiting in this monitor.
+ */
+
+    public void
+    signalAll() {
+        if (JSDTMonitor_Debug) {
+            JSDTObject.Debug("JSDTMonitor: signalAll.");
+        }
+
+        condition.signalAll();
+    }
+}
@@ -80,6 +80,12 @@ JSDTObject implements JSDTDebugFlags, Serializable {
     /** The time to wait (in milliseconds) for Token give() operations. */
     protected static long giveTime = 15000;
 
+    /** Indicates whether Clients waiting to grab a Token are served strictly
+     *  in the order they asked. If set, a waiting Client is never overtaken
+     *  by a later waiter, or by a Client calling grab() without waiting.
+     */
+    protected static boolean fairTokenGrabs = true;
+
     /** The number of milliseconds to wait before pinging the server to see
      *  if it's still alive.
      */
@@ -94,12 +100,123 @@ JSDTObject implements JSDTDebugFlags, Serializable {
     /** The maximum size of the message queue. */
     protected static int maxQueueSize = 15;
 
+    /** What to do when a channel's queue of received data messages is full.
+     *  This can be one of "bounded", "block", "dropOldest", "dropNewest" or
+     *  "unbounded". The default, "bounded", throws away the oldest messages
+     *  of an unreliable channel once maxQueueSize are waiting, and makes
+     *  the socket reader of a reliable channel wait once maxReliableQueueSize
+     *  are waiting. The other policies apply to every channel, at
+     *  maxQueueSize messages. "unbounded" lets the queue grow without limit,
+     *  and has to be asked for.
+     */
+    protected static String receiveQueuePolicy = "bounded";
+
+    /** The maximum size of a reliable channel's queue of received data
+     *  messages, with the "bounded" receive queue policy.
+     */
+    protected static int maxReliableQueueSize = 10000;
+
+    /** The maximum number of threads used to deliver data to the consumers
+     *  of unordered channels.
+     */
+    protected static int consumerThreads = 8;
+
+    /** The maximum number of threads used by channel relays to send data on
+     *  to their downstream channels.
+     */
+    protected static int relayThreads = 4;
+
+    /** Indicates whether data from unordered channels should be delivered
+     *  to each consumer one message at a time, in the order received.
+     */
+    protected static boolean serializeConsumers = false;
+
+    /** The factory class for creating all the threads started by JSDT.
+     *
+     *  To use virtual threads (on a JDK that supports them), this should
+     *  be set to:
+     *  "com.sun.media.jsdt.impl.VirtualThreadFactory"
+     */
+    protected static String threadFactoryClass =
+                        "com.sun.media.jsdt.impl.TargetableThreadFactory";
+
     /** The maximum thread pool size. */
     protected static int maxThreadPoolSize = 5;
 
+    /** The length (in milliseconds) of one tick of the timer wheel that
+     *  JSDT timeouts are scheduled on. A timeout can fire up to one tick
+     *  late.
+     */
+    protected static long timerTick = 100;
+
+    /** The number of slots in the timer wheel. A timeout further away than
+     *  one turn of the wheel stays in its slot for the extra turns.
+     */
+    protected static int timerWheelSize = 512;
+
+    /** The maximum number of threads used to run expired timeouts. */
+    protected static int timerThreads = 4;
+
+    /** The maximum number of threads used to run the expired timeouts that
+     *  wait for a reply from over the network.
+     */
+    protected static int blockingThreads = 16;
+
+    /** The maximum number of threads used to deliver listener events. */
+    protected static int listenerThreads = 8;
+
+    /** The number of events that can be waiting for one listener before
+     *  the thread queuing another event for it has to wait.
+     */
+    protected static int maxListenerEvents = 1000;
+
+    /** The longest time (in milliseconds) to wait for a listener to catch
+     *  up before queuing another event for it anyway.
+     */
+    protected static long listenerEventWait = 5000;
+
+    /** The largest number of Registry lookups remembered by a naming proxy
+     *  (zero means lookups are never cached).
+     */
+    protected static int lookupCacheSize = 256;
+
+    /** How long (in milliseconds) a remembered Registry lookup is used for,
+     *  unless the Registry reports a change to it first.
+     */
+    protected static long lookupCacheTTL = 30000;
+
+    /** The largest number of host name to IP address resolutions
+     *  remembered.
+     */
+    protected static int hostAddressCacheSize = 64;
+
+    /** How long (in milliseconds) a remembered host name to IP address
+     *  resolution is used for.
+     */
+    protected static long hostAddressTTL = 60000;
+
     /** The port number the Registry should run on. */
     protected static int registryPort = 4561;
 
+    /** The Registries (as a comma separated list of host:port) that
+     *  together hold one replicated set of bindings. A Registry started
+     *  with this set copies the bindings made at the others, and a naming
+     *  proxy spreads its lookups over them and moves to another one if
+     *  its Registry goes away. If null, there is just the one Registry.
+     */
+    protected static String registryPeers = null;
+
+    /** The number of milliseconds between each Registry asking the other
+     *  Registries in its set for the bindings it hasn't seen yet.
+     */
+    protected static long registrySyncPeriod = 1000;
+
+    /** The number of milliseconds that a Registry in a replicated set
+     *  remembers that a name was unbound, so that the unbinding can be
+     *  copied to the other Registries in the set.
+     */
+    protected static long registryUnboundPeriod = 60000;
+
     /** The debug print stream. */
     private static PrintStream debugStream = System.err;
 
@@ -124,6 +241,10 @@ JSDTObject implements JSDTDebugFlags, Serializable {
      *
      *  For SSL sockets, this should be set to:
      *  "com.sun.media.jsdt.socket.SSLSocketFactory"
+     *
+     *  For servers that multiplex all their connections over a few
+     *  selector threads, this should be set to:
+     *  "com.sun.media.jsdt.socket.SelectorSocketFactory"
      */
     protected static String socketFactoryClass =
                                 "com.sun.media.jsdt.socket.TCPSocketFactory";
@@ -131,6 +252,122 @@ JSDTObject implements JSDTDebugFlags, Serializable {
     /** The location of the SSL keystore file. */
     protected static String SSLKeyStore = "keystore";
 
+    /** Indicates whether requests on a socket connection should carry a
+     *  per-connection request id, so that many requests can be outstanding
+     *  on that connection at once. The server must understand the correlated
+     *  message header for this to be enabled.
+     */
+    protected static boolean multiplexRequests = false;
+
+    /** Indicates whether a new socket connection should ask the other end to
+     *  switch to length-prefixed message frames, with a compact header. The
+     *  server must understand the framing request for this to be enabled.
+     *  If it doesn't agree within the negotiation timeout, the connection
+     *  carries on with the original message format.
+     */
+    protected static boolean framedMessages = false;
+
+    /** The number of milliseconds to wait for the other end of a new socket
+     *  connection to agree to use message frames.
+     */
+    protected static long negotiationTimeout = 5000;
+
+    /** The maximum size (in bytes) of a message frame that will be read off
+     *  a socket connection.
+     */
+    protected static int maxFrameSize = 16777216;
+
+    /** The maximum number of client and shared object names that are given
+     *  numeric handles, in each direction, on a framed socket connection.
+     *  Other names are sent in full each time.
+     */
+    protected static int maxNameHandles = 4096;
+
+    /** The maximum number of asynchronous sends on reliable channels that
+     *  can be waiting for acknowledgement on each socket connection. A
+     *  sender blocks when the window is full.
+     */
+    protected static int sendWindowSize = 64;
+
+    /** The maximum number of channel messages that can be waiting to be
+     *  written to each consumer's connection on the server, with the
+     *  "block", "dropOldest" and "dropNewest" outbound queue policies.
+     */
+    protected static int outboundQueueSize = 100;
+
+    /** The maximum number of bytes of channel data that can be waiting to be
+     *  written to each consumer's connection on the server, with the
+     *  "disconnect" outbound queue policy. A single message is always
+     *  queued, however long it is.
+     */
+    protected static long outboundQueueBytes = 16777216;
+
+    /** What to do when a consumer's outbound queue is full. This can be one
+     *  of "block", "dropOldest", "dropNewest" or "disconnect". The default
+     *  closes the slow consumer's connection once outboundQueueBytes bytes
+     *  are waiting for it, so it never holds up the delivery to other
+     *  consumers and never silently loses reliable data.
+     *  "block" makes the sender wait for room, and has to be asked for.
+     */
+    protected static String outboundQueuePolicy = "disconnect";
+
+    /** Indicates whether messages written to a socket connection by the
+     *  outbound queue, or by the thread reading requests off it, should be
+     *  coalesced into fewer writes when more are waiting to go. When a
+     *  connection is idle, each message is still written out straight away.
+     */
+    protected static boolean coalesceWrites = true;
+
+    /** The number of milliseconds an outbound queue will wait for more
+     *  channel messages to write before flushing the ones it has written.
+     *  With the default of zero, it only coalesces messages that are already
+     *  waiting in the queue.
+     */
+    protected static long coalesceDelay = 0;
+
+    /** The number of bytes that can be written to a connection in one
+     *  coalesced batch, after which it is flushed even if more messages are
+     *  waiting to go.
+     */
+    protected static int coalesceBytes = 65536;
+
+    /** The relative number of channel messages written to a consumer's
+     *  connection from each priority lane (TOP, HIGH, MEDIUM and LOW) when
+     *  messages of several priorities are waiting.
+     */
+    protected static String priorityWeights = "8,4,2,1";
+
+    /** The number of selector threads used to read from and write to the
+     *  connections accepted by a server using the SelectorSocketFactory.
+     */
+    protected static int selectorThreads = 2;
+
+    /** The maximum number of worker threads used to handle the messages
+     *  read by the selector threads.
+     */
+    protected static int maxWorkerThreads = 16;
+
+    /** The maximum size (in bytes) of a datagram sent on an unreliable
+     *  channel. Larger messages are split into fragments of this size
+     *  (including the FRAGMENT_HDRSIZE byte fragment header).
+     */
+    protected static int udpFragmentSize = 1400;
+
+    /** The maximum number of partially received fragmented messages that
+     *  an unreliable channel connection will hold at any one time.
+     */
+    protected static int maxReassemblyBuffers = 16;
+
+    /** The maximum size (in bytes) of a fragmented message that will be
+     *  reassembled.
+     */
+    protected static int maxReassemblySize = 1048576;
+
+    /** The number of milliseconds to wait for the remaining fragments of
+     *  a partially received message before discarding it.
+     */
+    protected static long reassemblyTimeout = 5000;
+
 
 /** "http" implementation specific variables. */
 
@@ -215,6 +452,14 @@ JSDTObject implements JSDTDebugFlags, Serializable {
 
     protected static final char version = '\u0007';
 
+    /** The version number used for messages carrying a request id. */
+
+    protected static final char correlatedVersion = '\u0008';
+
+    /** The version number used to negotiate length-prefixed message frames. */
+
+    protected static final char framedVersion = '\u0009';
+
     /* Initial message tokens. */
 
     protected static final char T_Session_No         = '\u00A0';
@@ -256,6 +501,8 @@ JSDTObject implements JSDTDebugFlags, Serializable {
     protected static final char T_GetSessionNo       = '\u00D6';
     protected static final char T_Give               = '\u00B8';
     protected static final char T_Grab               = '\u00B9';
+    protected static final char T_GrabWait           = '\u00E1';
+    protected static final char T_TokenGranted       = '\u00E2';
     protected static final char T_InformListener     = '\u00BA';
     protected static final char T_Invite             = '\u00BB';
     protected static final char T_IsAlive            = '\u00D2';
@@ -269,13 +516,21 @@ JSDTObject implements JSDTDebugFlags, Serializable {
     protected static final char T_ListHolderNames    = '\u00CD';
     protected static final char T_ListTokenNames     = '\u00C1';
     protected static final char T_Permanent          = '\u00EF';
+    protected static final char T_Framed             = '\u00DE';
     protected static final char T_Release            = '\u00C2';
     protected static final char T_RemoveConnection   = '\u00D4';
     protected static final char T_RemoveConsumer     = '\u00B0';
     protected static final char T_RemoveListener     = '\u00B1';
     protected static final char T_Request            = '\u00C3';
     protected static final char T_Send               = '\u00C4';
+    protected static final char T_SendBatch          = '\u00DF';
+    protected static final char T_SendAsync          = '\u00D8';
+    protected static final char T_Acknowledge        = '\u00E0';
     protected static final char T_SetValue           = '\u00C5';
+    protected static final char T_UpdateValue        = '\u00E3';
+    protected static final char T_ValueUpdated       = '\u00E4';
+    protected static final char T_GetValue           = '\u00E5';
+    protected static final char T_CompareAndSet      = '\u00E6';
     protected static final char T_Test               = '\u00C6';
     protected static final char T_TokenExists        = '\u00C7';
     protected static final char T_TokenGiven         = '\u00CF';
@@ -291,6 +546,9 @@ JSDTObject implements JSDTDebugFlags, Serializable {
     protected static final char T_List               = '\u00DB';
     protected static final char T_Exists             = '\u00DC';
     protected static final char T_Stop               = '\u00DD';
+    protected static final char T_Sync               = '\u00E7';
+    protected static final char T_Placement          = '\u00E8';
+    protected static final char T_Owner              = '\u00E9';
 
 
     public final String
@@ -327,6 +585,8 @@ JSDTObject implements JSDTDebugFlags, Serializable {
             case T_GetSessionNo:       return("GetSessionNo");
             case T_Give:               return("Give");
             case T_Grab:               return("Grab");
+            case T_GrabWait:           return("GrabWait");
+            case T_TokenGranted:       return("TokenGranted");
             case T_InformListener:     return("InformListener");
             case T_Invite:             return("Invite");
             case T_IsAlive:            return("IsAlive");
@@ -340,13 +600,21 @@ JSDTObject implements JSDTDebugFlags, Serializable {
             case T_ListHolderNames:    return("ListHolderNames");
             case T_ListTokenNames:     return("ListTokenNames");
             case T_Permanent:          return("Permanent");
+            case T_Framed:             return("Framed");
             case T_Release:            return("Release");
             case T_RemoveConnection:   return("REmoveConnection");
             case T_RemoveConsumer:     return("RemoveConsumer");
             case T_RemoveListener:     return("RemoveListener");
             case T_Request:            return("Request");
             case T_Send:               return("Send");
+            case T_SendBatch:          return("SendBatch");
+            case T_SendAsync:          return("SendAsync");
+            case T_Acknowledge:        return("Acknowledge");
             case T_SetValue:           return("SetValue");
+            case T_UpdateValue:        return("UpdateValue");
+            case T_ValueUpdated:       return("ValueUpdated");
+            case T_GetValue:           return("GetValue");
+            case T_CompareAndSet:      return("CompareAndSet");
             case T_Test:               return("Test");
             case T_TokenExists:        return("TokenExists");
             case T_TokenGiven:         return("TokenGiven");
@@ -360,6 +628,9 @@ JSDTObject implements JSDTDebugFlags, Serializable {
             case T_List:               return("List");
             case T_Exists:             return("Exists");
             case T_Stop:               return("Stop");
+            case T_Sync:               return("Sync");
+            case T_Placement:          return("Placement");
+            case T_Owner:              return("Owner");
         }
         if (displayMessage()) {
             debug("JSDTObject: actionToString:" +
@@ -558,6 +829,7 @@ JSDTObject implements JSDTDebugFlags, Serializable {
             case ClientImpl.M_Client:       return("Client");
             case T_Registry:                return("Registry");
             case T_Manager:                 return("Manager");
+            case T_Framed:                  return("Framed");
         }
         if (displayMessage()) {
             debug("JSDTObject: typeToString:" +
@@ -0,0 +1,83 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+/**
+ * JSDT serial task class. This runs, one at a time and in order, all the
+ * tasks waiting in a thread pool for a particular serialization key.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+JSDTSerialTask extends JSDTObject implements Runnable, JSDTDebugFlags {
+
+    // The thread pool holding the tasks for this key.
+    private final JSDTThreadPool pool;
+
+    // The serialization key.
+    private final Object key;
+
+
+/**
+ * <A NAME="SD_JSDTSERIALTASK"></A>
+ * <EM>JSDTSerialTask</EM> is a constructor for the JSDTSerialTask class.
+ *
+ * @param pool the thread pool holding the tasks for this key.
+ * @param key the serialization key.
+ */
+
+    JSDTSerialTask(JSDTThreadPool pool, Object key) {
+        if (JSDTSerialTask_Debug) {
+            debug("JSDTSerialTask: constructor:" +
+                  " pool: " + pool +
+                  " key: "  + key);
+        }
+
+        this.pool = pool;
+        this.key  = key;
+    }
+
+
+/**
+ * <A NAME="SD_RUN"></A>
+ * <EM>run</EM> run the tasks for this key until there are none left.
+ */
+
+    public void
+    run() {
+        Runnable task;
+
+        if (JSDTSerialTask_Debug) {
+            debug("JSDTSerialTask: run.");
+        }
+
+        while ((task = pool.getSerialTask(key)) != null) {
+            try {
+                task.run();
+            } catch (Throwable th) {
+                error("JSDTSerialTask: run: ", "impl.thrown", th);
+            }
+        }
+    }
+}
@@ -222,6 +222,48 @@ JSDTThread extends JSDTObject implements JSDTDebugFlags {
     }
 
 
+/**
+ * <A NAME="SD_READNAME"></A>
+ * <EM>readName</EM> reads the name of a client or shared object written by
+ * <CODE>writeName</CODE> at the other end of this connection.
+ *
+ * @return the name.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    public String
+    readName() throws IOException {
+        if (JSDTThread_Debug) {
+            debug("JSDTThread: readName.");
+        }
+
+        return(dataIn.readUTF());
+    }
+
+
+/**
+ * <A NAME="SD_WRITENAME"></A>
+ * <EM>writeName</EM> writes the name of a client or shared object that is
+ * part of a frequently sent message. Connections that can, replace names
+ * they have already sent with a numeric handle.
+ *
+ * @param name the name to write.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    public void
+    writeName(String name) throws IOException {
+        if (JSDTThread_Debug) {
+            debug("JSDTThread: writeName:" +
+                  " name: " + name);
+        }
+
+        dataOut.writeUTF(name);
+    }
+
+
 /**
  * <A NAME="SD_GETID"></A>
  * <EM>getId</EM>
@@ -0,0 +1,51 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+/**
+ * JSDT thread factory interface. All the threads that JSDT starts for
+ * itself are created by an implementation of this interface. The class used
+ * is given by the "threadFactoryClass" property.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+public interface
+JSDTThreadFactory {
+
+/**
+ * <A NAME="SD_NEWTHREAD"></A>
+ * <EM>newThread</EM> returns a new (unstarted) thread with the given name
+ * and runnable object.
+ *
+ * @param target the object whose <code>run</code> method is called.
+ * @param name the name of the new thread.
+ * @param isDaemon an indication of whether this should be a daemon thread.
+ * Implementations whose threads are always daemon threads may ignore this.
+ *
+ * @return the new thread.
+ */
+
+    Thread
+    newThread(Runnable target, String name, boolean isDaemon);
+}
@@ -0,0 +1,405 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * JSDT thread pool class. Runnable tasks are added to a queue and run by
+ * a bounded number of worker threads. Worker threads are started (with
+ * <CODE>Util.startThread</CODE>) as they are needed, and exit again after
+ * they have been idle for a while.
+ *
+ * Tasks can also be given a serialization key. Tasks with the same key are
+ * run one at a time, in the order they were added, while tasks with
+ * different keys can still run in parallel.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+public final class
+JSDTThreadPool extends JSDTObject implements Runnable, JSDTDebugFlags {
+
+    // The name used for the worker threads in this pool.
+    private final String name;
+
+    // The maximum number of worker threads in this pool.
+    private final int maxThreads;
+
+    // The monitor guarding the state of this pool.
+    private final JSDTMonitor monitor = new JSDTMonitor();
+
+    // The tasks waiting to be run.
+    private final Vector<Runnable> tasks = new Vector<>();
+
+    // The tasks waiting to be run for each serialization key.
+    private final Hashtable<Object, Vector<Runnable>> serialTasks =
+                                                        new Hashtable<>();
+
+    // The number of worker threads currently in this pool.
+    private int noThreads = 0;
+
+    // The number of worker threads currently waiting for a task.
+    private int idleThreads = 0;
+
+    // The largest number of tasks that have been waiting at once.
+    private int highWater = 0;
+
+    // The number of tasks that have been run.
+    private long completed = 0;
+
+    // The number of tasks that had to wait because all threads were busy.
+    private long saturated = 0;
+
+
+/**
+ * <A NAME="SD_JSDTTHREADPOOL"></A>
+ * <EM>JSDTThreadPool</EM> is a constructor for the JSDTThreadPool class.
+ *
+ * @param name the name used for the worker threads in this pool.
+ * @param maxThreads the maximum number of worker threads in this pool.
+ */
+
+    public
+    JSDTThreadPool(String name, int maxThreads) {
+        if (JSDTThreadPool_Debug) {
+            debug("JSDTThreadPool: constructor:" +
+                  " name: "        + name +
+                  " max threads: " + maxThreads);
+        }
+
+        this.name       = name;
+        this.maxThreads = (maxThreads > 0) ? maxThreads : 1;
+    }
+
+
+/**
+ * <A NAME="SD_EXECUTE"></A>
+ * <EM>execute</EM> add a task to be run by one of the worker threads in
+ * this pool.
+ *
+ * @param task the task to be run.
+ */
+
+    public void
+    execute(Runnable task) {
+        if (JSDTThreadPool_Debug) {
+            debug("JSDTThreadPool: execute:" +
+                  " task: " + task);
+        }
+
+        monitor.enter();
+        try {
+            tasks.addElement(task);
+            if (tasks.size() > highWater) {
+                highWater = tasks.size();
+            }
+
+            if (idleThreads == 0 && noThreads < maxThreads) {
+                noThreads++;
+                Util.startThread(this, name + ":" + noThreads, true);
+            } else {
+                if (idleThreads == 0) {
+                    saturated++;
+                }
+                monitor.signalAll();
+            }
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_EXECUTE"></A>
+ * <EM>execute</EM> add a task to be run by one of the worker threads in
+ * this pool, after any other tasks with the same serialization key.
+ *
+ * @param key the serialization key for this task.
+ * @param task the task to be run.
+ */
+
+    public void
+    execute(Object key, Runnable task) {
+        Vector<Runnable> queue;
+
+        if (JSDTThreadPool_Debug) {
+            debug("JSDTThreadPool: execute:" +
+                  " key: "  + key +
+                  " task: " + task);
+        }
+
+        monitor.enter();
+        try {
+            queue = serialTasks.get(key);
+            if (queue != null) {
+                queue.addElement(task);
+                return;
+            }
+
+            queue = new Vector<>();
+            queue.addElement(task);
+            serialTasks.put(key, queue);
+        } finally {
+            monitor.exit();
+        }
+
+        execute(new JSDTSerialTask(this, key));
+    }
+
+
+/**
+ * <A NAME="SD_GETSERIALTASK"></A>
+ * <EM>getSerialTask</EM> get the next task to run for the given
+ * serialization key.
+ *
+ * @param key the serialization key.
+ *
+ * @return the next task for this key, or null if there are none left.
+ */
+
+    Runnable
+    getSerialTask(Object key) {
+        Vector<Runnable> queue;
+        Runnable         task;
+
+        if (JSDTThreadPool_Debug) {
+            debug("JSDTThreadPool: getSerialTask:" +
+                  " key: " + key);
+        }
+
+        monitor.enter();
+        try {
+            queue = serialTasks.get(key);
+            if (queue == null || queue.size() == 0) {
+                serialTasks.remove(key);
+                return(null);
+            }
+
+            task = queue.firstElement();
+            queue.removeElementAt(0);
+        } finally {
+            monitor.exit();
+        }
+
+        return(task);
+    }
+
+
+/**
+ * <A NAME="SD_GETTASK"></A>
+ * <EM>getTask</EM> get the next task to run, waiting for one if needed.
+ *
+ * @return the next task, or null if this worker thread should exit.
+ */
+
+    private Runnable
+    getTask() {
+        long idlePeriod = Util.getLongProperty("keepAlivePeriod",
+                                               keepAlivePeriod);
+        Runnable task;
+
+        if (JSDTThreadPool_Debug) {
+            debug("JSDTThreadPool: getTask.");
+        }
+
+        monitor.enter();
+        try {
+            if (tasks.size() == 0) {
+                idleThreads++;
+                try {
+                    monitor.await(idlePeriod);
+                } catch (InterruptedException ie) {
+                }
+                idleThreads--;
+            }
+
+            if (tasks.size() == 0) {
+                noThreads--;
+                return(null);
+            }
+
+            task = tasks.firstElement();
+            tasks.removeElementAt(0);
+        } finally {
+            monitor.exit();
+        }
+
+        return(task);
+    }
+
+
+/**
+ * <A NAME="SD_GETQUEUESIZE"></A>
+ * <EM>getQueueSize</EM>
+ *
+ * @return the number of tasks currently waiting to be run.
+ */
+
+    public int
+    getQueueSize() {
+        return(tasks.size());
+    }
+
+
+/**
+ * <A NAME="SD_GETHIGHWATER"></A>
+ * <EM>getHighWater</EM>
+ *
+ * @return the largest number of tasks that have been waiting at once.
+ */
+
+    public int
+    getHighWater() {
+        monitor.enter();
+        try {
+            return(highWater);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETACTIVECOUNT"></A>
+ * <EM>getActiveCount</EM>
+ *
+ * @return the number of worker threads currently running a task.
+ */
+
+    public int
+    getActiveCount() {
+        monitor.enter();
+        try {
+            return(noThreads - idleThreads);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETPOOLSIZE"></A>
+ * <EM>getPoolSize</EM>
+ *
+ * @return the number of worker threads currently in this pool.
+ */
+
+    public int
+    getPoolSize() {
+        monitor.enter();
+        try {
+            return(noThreads);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETCOMPLETED"></A>
+ * <EM>getCompleted</EM>
+ *
+ * @return the number of tasks that have been run.
+ */
+
+    public long
+    getCompleted() {
+        monitor.enter();
+        try {
+            return(completed);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETSATURATED"></A>
+ * <EM>getSaturated</EM>
+ *
+ * @return the number of tasks that had to wait because all the worker
+ * threads in this pool were busy.
+ */
+
+    public long
+    getSaturated() {
+        monitor.enter();
+        try {
+            return(saturated);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_RUN"></A>
+ * <EM>run</EM> run tasks until there have been none to run for a while.
+ */
+
+    public void
+    run() {
+        Runnable task;
+
+        if (JSDTThreadPool_Debug) {
+            debug("JSDTThreadPool: run.");
+        }
+
+        while ((task = getTask()) != null) {
+            try {
+                task.run();
+            } catch (Throwable th) {
+                error("JSDTThreadPool: run: ", "impl.thrown", th);
+            }
+
+            monitor.enter();
+            try {
+                completed++;
+            } finally {
+                monitor.exit();
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this JSDTThreadPool.
+ *
+ * @return a String containing a description of this JSDTThreadPool.
+ */
+
+    public String
+    toString() {
+        return("JSDTThreadPool:" +
+                " name: "       + name +
+                " threads: "    + getPoolSize() +
+                " active: "     + getActiveCount() +
+                " queued: "     + getQueueSize() +
+                " high water: " + getHighWater() +
+                " completed: "  + getCompleted() +
+                " saturated: "  + getSaturated() + "\n");
+    }
+}
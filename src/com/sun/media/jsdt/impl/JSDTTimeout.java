@@ -0,0 +1,183 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+/**
+ * JSDT timeout class. One of these is returned for each task scheduled on
+ * a JSDTTimer. It can be used to cancel the task before it is run.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+public final class
+JSDTTimeout extends JSDTObject implements JSDTDebugFlags {
+
+    // States that this timeout can be in.
+    private static final int PENDING   = 1;
+    private static final int CANCELLED = 2;
+    private static final int EXPIRED   = 3;
+
+    // The task to run when this timeout expires.
+    private final Runnable task;
+
+    // The pool to run the task on (or null to use the timer's own pool).
+    private final JSDTThreadPool pool;
+
+    // The current state of this timeout.
+    private int state = PENDING;
+
+    // The number of extra turns of the timer wheel before this expires.
+    long rounds = 0;
+
+
+/**
+ * <A NAME="SD_JSDTTIMEOUT"></A>
+ * <EM>JSDTTimeout</EM> is the constructor for the JSDTTimeout class.
+ *
+ * @param task the task to run when this timeout expires.
+ * @param pool the pool to run the task on, or null to use the timer's own
+ * pool.
+ */
+
+    JSDTTimeout(Runnable task, JSDTThreadPool pool) {
+        if (JSDTTimeout_Debug) {
+            debug("JSDTTimeout: constructor:" +
+                  " task: " + task +
+                  " pool: " + pool);
+        }
+
+        this.task = task;
+        this.pool = pool;
+    }
+
+
+/**
+ * <A NAME="SD_CANCEL"></A>
+ * <EM>cancel</EM> stop this timeout from expiring. It is taken out of the
+ * timer wheel the next time its slot comes round.
+ *
+ * @return true if the timeout was cancelled; false if it had already
+ * expired (or been cancelled).
+ */
+
+    public synchronized boolean
+    cancel() {
+        if (JSDTTimeout_Debug) {
+            debug("JSDTTimeout: cancel:" +
+                  " state: " + state);
+        }
+
+        if (state != PENDING) {
+            return(false);
+        }
+
+        state = CANCELLED;
+        return(true);
+    }
+
+
+/**
+ * <A NAME="SD_EXPIRE"></A>
+ * <EM>expire</EM> called by the timer when this timeout's time has come.
+ *
+ * @return true if the task should be run; false if the timeout has been
+ * cancelled.
+ */
+
+    synchronized boolean
+    expire() {
+        if (JSDTTimeout_Debug) {
+            debug("JSDTTimeout: expire:" +
+                  " state: " + state);
+        }
+
+        if (state != PENDING) {
+            return(false);
+        }
+
+        state = EXPIRED;
+        return(true);
+    }
+
+
+/**
+ * <A NAME="SD_GETTASK"></A>
+ * <EM>getTask</EM>
+ *
+ * @return the task to run when this timeout expires.
+ */
+
+    Runnable
+    getTask() {
+        if (JSDTTimeout_Debug) {
+            debug("JSDTTimeout: getTask.");
+        }
+
+        return(task);
+    }
+
+
+/**
+ * <A NAME="SD_GETPOOL"></A>
+ * <EM>getPool</EM>
+ *
+ * @return the pool to run the task on, or null to use the timer's own pool.
+ */
+
+    JSDTThreadPool
+    getPool() {
+        return(pool);
+    }
+
+
+/**
+ * <A NAME="SD_ISCANCELLED"></A>
+ * <EM>isCancelled</EM>
+ *
+ * @return true if this timeout has been cancelled.
+ */
+
+    public synchronized boolean
+    isCancelled() {
+        if (JSDTTimeout_Debug) {
+            debug("JSDTTimeout: isCancelled.");
+        }
+
+        return(state == CANCELLED);
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this JSDTTimeout.
+ *
+ * @return a String containing a description of this JSDTTimeout.
+ */
+
+    public String
+    toString() {
+        return("JSDTTimeout:" +
+                " task: "   + task +
+                " state: "  + state +
+                " rounds: " + rounds + "\n");
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+import java.util.Iterator;
+import java.util.Vector;
+
+/**
+ * JSDT timer class. This is a hashed timer wheel that the timeouts used by
+ * JSDT are scheduled on, instead of each of them sleeping on a thread of
+ * its own.
+ *
+ * The wheel is an array of slots, one per tick. A timeout is added to the
+ * slot for the tick it is due on, with a count of the extra turns of the
+ * wheel it has to wait if it is due more than one turn away. Scheduling
+ * and cancelling a timeout are both done in constant time. A single thread
+ * moves round the wheel a tick at a time, and hands each timeout that has
+ * expired to a small thread pool to be run. When there are no timeouts in
+ * the wheel, that thread waits until one is scheduled.
+ *
+ * Tasks that wait for a reply from over the network are scheduled with
+ * scheduleBlocking, and are run on a separate pool, so that they can't
+ * hold up the other timeouts.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+public final class
+JSDTTimer extends JSDTObject implements Runnable, JSDTDebugFlags {
+
+    // The length of one tick, in milliseconds.
+    private final long tick;
+
+    // The slots of the wheel, each holding the timeouts for that tick.
+    private final Vector<Vector<JSDTTimeout>> wheel;
+
+    // The time that tick zero started.
+    private final long startTime = System.currentTimeMillis();
+
+    // The pool of threads used to run expired timeouts.
+    private final JSDTThreadPool workers;
+
+    // The monitor guarding the state of the wheel.
+    private final JSDTMonitor monitor = new JSDTMonitor();
+
+    // The next tick to be processed.
+    private long nextTick = 0;
+
+    // The number of timeouts in the wheel (including cancelled ones).
+    private int count = 0;
+
+    // The number of timeouts that have expired.
+    private long expired = 0;
+
+
+/**
+ * <A NAME="SD_JSDTTIMER"></A>
+ * <EM>JSDTTimer</EM> is the constructor for the JSDTTimer class.
+ *
+ * @param name the name used for the threads started by this timer.
+ * @param tick the length of one tick, in milliseconds.
+ * @param wheelSize the number of slots in the wheel.
+ * @param maxThreads the maximum number of threads used to run expired
+ * timeouts.
+ */
+
+    public
+    JSDTTimer(String name, long tick, int wheelSize, int maxThreads) {
+        if (JSDTTimer_Debug) {
+            debug("JSDTTimer: constructor:" +
+                  " name: "        + name +
+                  " tick: "        + tick +
+                  " wheel size: "  + wheelSize +
+                  " max threads: " + maxThreads);
+        }
+
+        this.tick = (tick > 0) ? tick : 1;
+        wheel     = new Vector<>();
+        for (int i = 0; i < ((wheelSize > 0) ? wheelSize : 1); i++) {
+            wheel.addElement(new Vector<JSDTTimeout>());
+        }
+        workers = new JSDTThreadPool(name, maxThreads);
+
+        Util.startThread(this, name + "Thread", true);
+    }
+
+
+/**
+ * <A NAME="SD_CURRENTTICK"></A>
+ * <EM>currentTick</EM>
+ *
+ * @return the tick that the current time falls in.
+ */
+
+    private long
+    currentTick() {
+        return((System.currentTimeMillis() - startTime) / tick);
+    }
+
+
+/**
+ * <A NAME="SD_SCHEDULE"></A>
+ * <EM>schedule</EM> run the given task once the given delay has passed.
+ * The task is run on the first tick that starts after the delay, so it
+ * can run up to one tick late, but never early. It is run on one of a
+ * small pool of threads, so it shouldn't block for long.
+ *
+ * @param task the task to run.
+ * @param delay the delay in milliseconds.
+ *
+ * @return a timeout that can be used to cancel the task.
+ */
+
+    public JSDTTimeout
+    schedule(Runnable task, long delay) {
+        if (JSDTTimer_Debug) {
+            debug("JSDTTimer: schedule:" +
+                  " task: "  + task +
+                  " delay: " + delay);
+        }
+
+        return(schedule(new JSDTTimeout(task, null), delay));
+    }
+
+
+/**
+ * <A NAME="SD_SCHEDULEBLOCKING"></A>
+ * <EM>scheduleBlocking</EM> run the given task once the given delay has
+ * passed, like schedule. The task is run on the pool given by
+ * Util.getBlockingPool instead of the timer's own pool, so it can block
+ * (for example, waiting for a reply from a server) without holding up the
+ * other timeouts.
+ *
+ * @param task the task to run.
+ * @param delay the delay in milliseconds.
+ *
+ * @return a timeout that can be used to cancel the task.
+ */
+
+    public JSDTTimeout
+    scheduleBlocking(Runnable task, long delay) {
+        if (JSDTTimer_Debug) {
+            debug("JSDTTimer: scheduleBlocking:" +
+                  " task: "  + task +
+                  " delay: " + delay);
+        }
+
+        return(schedule(new JSDTTimeout(task, Util.getBlockingPool()), delay));
+    }
+
+
+/**
+ * <A NAME="SD_SCHEDULETIMEOUT"></A>
+ * <EM>schedule</EM> add the given timeout to the slot for the tick it is
+ * due on.
+ *
+ * @param timeout the timeout to add.
+ * @param delay the delay in milliseconds.
+ *
+ * @return the timeout.
+ */
+
+    private JSDTTimeout
+    schedule(JSDTTimeout timeout, long delay) {
+        long due;
+
+        monitor.enter();
+        try {
+
+/* If the wheel is empty, the timer thread may have stopped moving round
+ * it, so there is nothing to catch up on.
+ */
+
+            if (count == 0) {
+                nextTick = currentTick();
+            }
+
+            due = (System.currentTimeMillis() - startTime +
+                   Math.max(delay, 0) + tick - 1) / tick;
+            if (due < nextTick) {
+                due = nextTick;
+            }
+
+            timeout.rounds = (due - nextTick) / wheel.size();
+            wheel.elementAt((int) (due % wheel.size())).addElement(timeout);
+            count++;
+            monitor.signalAll();
+        } finally {
+            monitor.exit();
+        }
+
+        return(timeout);
+    }
+
+
+/**
+ * <A NAME="SD_EXPIRESLOT"></A>
+ * <EM>expireSlot</EM> go through the slot for the given tick. Remove the
+ * timeouts that have been cancelled, and run the ones that are due. The
+ * caller must be inside the monitor.
+ *
+ * @param tickNo the tick being processed.
+ */
+
+    private void
+    expireSlot(long tickNo) {
+        Vector<JSDTTimeout> slot = wheel.elementAt((int)
+                                                   (tickNo % wheel.size()));
+
+        if (JSDTTimer_Debug) {
+            debug("JSDTTimer: expireSlot:" +
+                  " tick: " + tickNo);
+        }
+
+        for (Iterator<JSDTTimeout> i = slot.iterator(); i.hasNext();) {
+            JSDTTimeout timeout = i.next();
+
+            if (timeout.isCancelled()) {
+                i.remove();
+                count--;
+            } else if (timeout.rounds > 0) {
+                timeout.rounds--;
+            } else {
+                i.remove();
+                count--;
+                if (timeout.expire()) {
+                    expired++;
+                    if (timeout.getPool() != null) {
+                        timeout.getPool().execute(timeout.getTask());
+                    } else {
+                        workers.execute(timeout.getTask());
+                    }
+                }
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_RUN"></A>
+ * <EM>run</EM> move round the wheel a tick at a time, catching up on any
+ * ticks that were missed, and wait when the wheel is empty.
+ */
+
+    public void
+    run() {
+        long period;
+
+        if (JSDTTimer_Debug) {
+            debug("JSDTTimer: run.");
+        }
+
+        monitor.enter();
+        try {
+            while (true) {
+                try {
+                    while (count == 0) {
+                        monitor.await();
+                    }
+
+                    while (nextTick <= currentTick()) {
+                        expireSlot(nextTick++);
+                    }
+
+                    period = startTime + (nextTick * tick) -
+                             System.currentTimeMillis();
+                    if (count != 0 && period > 0) {
+                        monitor.await(period);
+                    }
+                } catch (InterruptedException ie) {
+                }
+            }
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this JSDTTimer.
+ *
+ * @return a String containing a description of this JSDTTimer.
+ */
+
+    public String
+    toString() {
+        monitor.enter();
+        try {
+            return("JSDTTimer:" +
+                    " tick: "       + tick +
+                    " wheel size: " + wheel.size() +
+                    " next tick: "  + nextTick +
+                    " timeouts: "   + count +
+                    " expired: "    + expired +
+                    " workers: "    + workers + "\n");
+        } finally {
+            monitor.exit();
+        }
+    }
+}
@@ -51,6 +51,9 @@ Message extends JSDTObject implements JSDTDebugFlags {
     /** The action of this message. */
     public char action = '\u0000';
 
+    /** The per-connection request id of this message (or 0 if none). */
+    public int requestId = 0;
+
 
 /**
  * <A NAME="SD_MESSAGE"></A>
@@ -69,7 +72,8 @@ Message extends JSDTObject implements JSDTDebugFlags {
  * <A NAME="SD_GETMESSAGEHEADER"></A>
  * <EM>getMessageHeader</EM> reads the header portion of the incoming message
  * off the socket, and the version number, session name, id, type and action
- * are extracted for later use. This method blocks if there is no message to
+ * are extracted for later use. If the message was sent with the correlated
+ * protocol version, then the request id that follows is also extracted. This method blocks if there is no message to
  * read on the socket.
  *
  * @param thread the thread the message is for.
@@ -91,6 +95,11 @@ Message extends JSDTObject implements JSDTDebugFlags {
             id        = thread.dataIn.readInt();
             type      = thread.dataIn.readChar();
             action    = thread.dataIn.readChar();
+            if (version == correlatedVersion) {
+                requestId = thread.dataIn.readInt();
+            } else {
+                requestId = 0;
+            }
         } catch (IOException ioe) {
             throw ioe;
         } catch (Exception e) {
@@ -99,6 +108,33 @@ Message extends JSDTObject implements JSDTDebugFlags {
     }
 
 
+/**
+ * <A NAME="SD_GETFRAMEDMESSAGEHEADER"></A>
+ * <EM>getFramedMessageHeader</EM> reads the compact header at the start of
+ * a message frame that has already been read off the socket. The session
+ * number, id and request id are variable length integers, and the type and
+ * action are single bytes.
+ *
+ * @param thread the thread the message is for.
+ */
+
+    public void
+    getFramedMessageHeader(JSDTThread thread) throws IOException {
+        if (Message_Debug) {
+            debug("Message: getFramedMessageHeader:" +
+                  " thread: " + thread);
+        }
+
+        this.thread = thread;
+        version   = framedVersion;
+        sessionNo = (short) Util.readVarInt(thread.dataIn);
+        id        = Util.readVarInt(thread.dataIn);
+        type      = (char) thread.dataIn.readUnsignedByte();
+        action    = (char) thread.dataIn.readUnsignedByte();
+        requestId = Util.readVarInt(thread.dataIn);
+    }
+
+
 /**
  * <A NAME="SD_SETMESSAGEHEADER"></A>
  * <EM>setMessageHeader</EM> set the variables in this message from the given
@@ -120,6 +156,7 @@ Message extends JSDTObject implements JSDTDebugFlags {
         id        = message.id;
         type      = message.type;
         action    = message.action;
+        requestId = message.requestId;
     }
 
 
@@ -136,7 +173,27 @@ Message extends JSDTObject implements JSDTDebugFlags {
                 " session #: " + sessionNo +
                 " id: "        + id +
                 " type: "      + typeToString(type) +
-                " action: "    + actionToString(action) + "\n");
+                " action: "    + actionToString(action) +
+                " request: "   + requestId + "\n");
+    }
+
+
+/**
+ * <A NAME="SD_ISFRAMINGREQUEST"></A>
+ * <EM>isFramingRequest</EM> checks to see if this message is a request
+ * (or the agreement to a request) to switch the connection over to
+ * length-prefixed message frames.
+ *
+ * @return true if this message is a framing request.
+ */
+
+    public boolean
+    isFramingRequest() {
+        if (Message_Debug) {
+            debug("Message: isFramingRequest.");
+        }
+
+        return(version == framedVersion && action == T_Framed);
     }
 
 
@@ -0,0 +1,74 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+/**
+ * JSDT default thread factory class. This creates a platform
+ * TargetableThread for each new thread.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+public class
+TargetableThreadFactory implements JSDTThreadFactory, JSDTDebugFlags {
+
+/**
+ * <A NAME="SD_TARGETABLETHREADFACTORY"></A>
+ * <EM>TargetableThreadFactory</EM> instantiates an instance of this class.
+ */
+
+    public
+    TargetableThreadFactory() {
+        if (TargetableThreadFactory_Debug) {
+            JSDTObject.Debug("TargetableThreadFactory: constructor.");
+        }
+    }
+
+
+/**
+ * <A NAME="SD_NEWTHREAD"></A>
+ * <EM>newThread</EM> returns a new (unstarted) TargetableThread with the
+ * given name and runnable object.
+ *
+ * @param target the object whose <code>run</code> method is called.
+ * @param name the name of the new thread.
+ * @param isDaemon an indication of whether this should be a daemon thread.
+ *
+ * @return the new thread.
+ */
+
+    public Thread
+    newThread(Runnable target, String name, boolean isDaemon) {
+        Thread thread = new TargetableThread(target, name);
+
+        if (TargetableThreadFactory_Debug) {
+            JSDTObject.Debug("TargetableThreadFactory: newThread:" +
+                             " target: "  + target +
+                             " name: "    + name +
+                             " daemon?: " + isDaemon);
+        }
+
+        thread.setDaemon(isDaemon);
+        return(thread);
+    }
+}
@@ -279,6 +279,56 @@ TokenImpl extends ManageableImpl implements Token {
     }
 
 
+/**
+ * <A NAME="SD_GRAB"></A>
+ * used by a Client to take exclusive (grab) or non-exclusive (inhibit)
+ * control of a specific Token, waiting for it if it can't be had straight
+ * away.
+ *
+ * <P>If the grab can't succeed immediately, the Client is queued on the
+ * server until the Token is released or given up by its current holder(s),
+ * and this method returns when the grab succeeds. Waiting Clients are
+ * served in the order they asked. If the grab hasn't succeeded within the
+ * timeout period, the Client is removed from the queue and a
+ * TimedOutException is thrown. A timeout of zero means don't wait, which
+ * is the same as <CODE>grab(client, exclusive)</CODE>.
+ *
+ * @param client the Client grabbing/inhibiting this Token.
+ * @param exclusive indicates whether the grab should be exclusive.
+ * @param timeout the maximum time to wait for the Token, in milliseconds.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchTokenException if this Token doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have
+ * permission to perform this operation, or is already waiting for this
+ * Token.
+ * @exception TimedOutException if the grab didn't succeed in the given
+ * timeout period.
+ *
+ * @return the status of the token.
+ */
+
+    public int
+    grab(Client client, boolean exclusive, long timeout)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchTokenException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException {
+        if (TokenImpl_Debug) {
+            debug("TokenImpl: grab:" +
+                  " client: "    + client +
+                  " exclusive: " + exclusive +
+                  " timeout: "   + timeout);
+        }
+
+        return(po.grab(client, exclusive, timeout));
+    }
+
+
 /**
  * <A NAME="SD_LISTHOLDERNAMES"></A>
  * list the names of the Clients who are currently holding (grabbing or
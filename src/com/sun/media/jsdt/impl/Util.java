@@ -24,6 +24,7 @@ package com.sun.media.jsdt.impl;
 import com.sun.media.jsdt.*;
 import java.io.*;
 import java.net.*;
+import java.util.StringTokenizer;
 import java.util.Vector;
 
 /**
@@ -36,6 +37,24 @@ import java.util.Vector;
 public class
 Util extends JSDTObject implements JSDTDebugFlags, Serializable {
 
+    // The factory used to create the threads started by JSDT.
+    private static JSDTThreadFactory threadFactory = null;
+
+    // The class name of the current thread factory.
+    private static String threadFactoryName = null;
+
+    // The timer that JSDT timeouts are scheduled on.
+    private static JSDTTimer timer = null;
+
+    // The pool that timeouts which wait for a reply are run on.
+    private static JSDTThreadPool blockingPool = null;
+
+    // The dispatcher that listener events are delivered by.
+    private static JSDTEventDispatcher eventDispatcher = null;
+
+    // The recent host name to IP address resolutions.
+    private static JSDTLookupCache hostAddressCache = null;
+
 /**
  * <A NAME="SD_ADJUSTURLString"></A>
  * <EM>adjustURLString</EM> replaces the host name portion of the given JSDT
@@ -214,6 +233,8 @@ Util extends JSDTObject implements JSDTDebugFlags, Serializable {
  * <EM>getIPAddress</EM> returns the IP address of the given hostname. A
  * check is also made to see if the hostname is "localhost" or "127.0.0.1".
  * If so, then this is replaced with the IP address of the local host.
+ * Recent results are remembered for "hostAddressTTL" milliseconds, so that
+ * the host name doesn't have to be resolved every time.
  *
  * @param hostName the host name to convert.
  *
@@ -224,13 +245,19 @@ Util extends JSDTObject implements JSDTDebugFlags, Serializable {
 
     public static String
     getIPAddress(String hostName) throws InvalidURLException {
-        InetAddress address;
+        InetAddress     address;
+        String          IPAddress;
+        JSDTLookupCache cache = getHostAddressCache();
 
         if (Util_Debug) {
             Debug("Util: getIPAddress:" +
                   " host name: " + hostName);
         }
 
+        if ((IPAddress = (String) cache.get(hostName)) != null) {
+            return(IPAddress);
+        }
+
         try {
             if (hostName.equals("localhost") ||
                 hostName.equals("127.0.0.1")) {
@@ -242,7 +269,68 @@ Util extends JSDTObject implements JSDTDebugFlags, Serializable {
             throw new InvalidURLException();
         }
 
-        return(address.getHostAddress());
+        IPAddress = address.getHostAddress();
+        cache.put(hostName, IPAddress);
+
+        return(IPAddress);
+    }
+
+
+/**
+ * <A NAME="SD_GETHOSTADDRESSCACHE"></A>
+ * <EM>getHostAddressCache</EM> get the cache of recent host name to IP
+ * address resolutions. It is created the first time it's needed, using the
+ * "hostAddressCacheSize" and "hostAddressTTL" properties.
+ *
+ * @return the host address cache.
+ */
+
+    public static synchronized JSDTLookupCache
+    getHostAddressCache() {
+        if (Util_Debug) {
+            Debug("Util: getHostAddressCache.");
+        }
+
+        if (hostAddressCache == null) {
+            hostAddressCache = new JSDTLookupCache("HostAddressCache",
+                    getIntProperty("hostAddressCacheSize",
+                                   hostAddressCacheSize),
+                    getLongProperty("hostAddressTTL", hostAddressTTL));
+        }
+
+        return(hostAddressCache);
+    }
+
+
+/**
+ * <A NAME="SD_GETREGISTRYPEERS"></A>
+ * <EM>getRegistryPeers</EM> returns the Registries in the replicated set
+ * given by the "registryPeers" property.
+ *
+ * @return an array of "host:port" strings, one for each Registry in the
+ * set, or a zero length array if the property isn't set.
+ */
+
+    public static String[]
+    getRegistryPeers() {
+        String          peers = getStringProperty("registryPeers",
+                                                  registryPeers);
+        Vector<String>  list  = new Vector<>();
+        StringTokenizer st;
+
+        if (Util_Debug) {
+            Debug("Util: getRegistryPeers:" +
+                  " peers: " + peers);
+        }
+
+        if (peers != null) {
+            st = new StringTokenizer(peers, ", ");
+            while (st.hasMoreTokens()) {
+                list.addElement(st.nextToken());
+            }
+        }
+
+        return(list.toArray(new String[list.size()]));
     }
 
 
@@ -269,6 +357,29 @@ Util extends JSDTObject implements JSDTDebugFlags, Serializable {
     }
 
 
+/**
+ * <A NAME="SD_ISNODE"></A>
+ * <EM>isNode</EM> returns an indication of whether the given JSDT URL is
+ * a valid Node URL.
+ *
+ * @param url the JSDT URL to test.
+ *
+ * @return true if this is a valid Node URL, false if not.
+ */
+
+    public static boolean
+    isNode(URLString url) {
+        char c = url.getObjectType().charAt(0);
+
+        if (Util_Debug) {
+            Debug("Util: isNode:" +
+                  " url: " + url);
+        }
+
+        return(url.isValid() && (c == 'n' || c == 'N'));
+    }
+
+
 /**
  * <A NAME="SD_ISSESSION"></A>
  * <EM>isSession</EM> returns an indication of whether the given JSDT URL is
@@ -344,7 +455,7 @@ Util extends JSDTObject implements JSDTDebugFlags, Serializable {
 
     public static Thread
     startThread(Runnable target, String name, boolean isDaemon) {
-        Thread thread = new TargetableThread(target, name);
+        Thread thread;
 
         if (Util_Debug) {
             Debug("Util: startThread:" +
@@ -353,11 +464,122 @@ Util extends JSDTObject implements JSDTDebugFlags, Serializable {
                   " daemon?: " + isDaemon);
         }
 
-        thread.setDaemon(isDaemon);
+        thread = getThreadFactory().newThread(target, name, isDaemon);
         thread.start();
         return(thread);
     }
 
+
+/**
+ * <A NAME="SD_GETTHREADFACTORY"></A>
+ * <EM>getThreadFactory</EM> get the factory used to create the threads
+ * started by JSDT. This is given by the "threadFactoryClass" property, and
+ * is recreated if that property changes.
+ *
+ * @return the thread factory.
+ */
+
+    private static synchronized JSDTThreadFactory
+    getThreadFactory() {
+        String factoryClass = getStringProperty("threadFactoryClass",
+                                                threadFactoryClass);
+
+        if (Util_Debug) {
+            Debug("Util: getThreadFactory:" +
+                  " factory class: " + factoryClass);
+        }
+
+        if (threadFactory == null ||
+            !factoryClass.equals(threadFactoryName)) {
+            try {
+                Class<?> c = getClassForName(factoryClass);
+
+                threadFactory = (JSDTThreadFactory)
+                        c.getDeclaredConstructor().newInstance();
+            } catch (Exception e) {
+                Error("Util: getThreadFactory: ", e);
+                threadFactory = new TargetableThreadFactory();
+            }
+            threadFactoryName = factoryClass;
+        }
+
+        return(threadFactory);
+    }
+
+/**
+ * <A NAME="SD_GETTIMER"></A>
+ * <EM>getTimer</EM> get the timer that JSDT timeouts are scheduled on. It
+ * is created the first time it's needed, using the "timerTick",
+ * "timerWheelSize" and "timerThreads" properties.
+ *
+ * @return the timer.
+ */
+
+    public static synchronized JSDTTimer
+    getTimer() {
+        if (Util_Debug) {
+            Debug("Util: getTimer.");
+        }
+
+        if (timer == null) {
+            timer = new JSDTTimer("JSDTTimer",
+                            getLongProperty("timerTick", timerTick),
+                            getIntProperty("timerWheelSize", timerWheelSize),
+                            getIntProperty("timerThreads", timerThreads));
+        }
+
+        return(timer);
+    }
+
+
+/**
+ * <A NAME="SD_GETBLOCKINGPOOL"></A>
+ * <EM>getBlockingPool</EM> get the pool that the timeouts scheduled with
+ * JSDTTimer.scheduleBlocking are run on. It is created the first time it's
+ * needed, using the "blockingThreads" property.
+ *
+ * @return the blocking thread pool.
+ */
+
+    public static synchronized JSDTThreadPool
+    getBlockingPool() {
+        if (Util_Debug) {
+            Debug("Util: getBlockingPool.");
+        }
+
+        if (blockingPool == null) {
+            blockingPool = new JSDTThreadPool("JSDTBlockingThread",
+                            getIntProperty("blockingThreads", blockingThreads));
+        }
+
+        return(blockingPool);
+    }
+
+
+/**
+ * <A NAME="SD_GETEVENTDISPATCHER"></A>
+ * <EM>getEventDispatcher</EM> get the dispatcher that listener events are
+ * delivered by. It is created the first time it's needed, using the
+ * "listenerThreads" property.
+ *
+ * @return the event dispatcher.
+ */
+
+    public static synchronized JSDTEventDispatcher
+    getEventDispatcher() {
+        if (Util_Debug) {
+            Debug("Util: getEventDispatcher.");
+        }
+
+        if (eventDispatcher == null) {
+            eventDispatcher = new JSDTEventDispatcher("JSDTEventDispatcher",
+                            getIntProperty("listenerThreads", listenerThreads));
+        }
+
+        return(eventDispatcher);
+    }
+
+
 /**
  * <A NAME="SD_GETINTPROPERTY"></A>
  * <EM>getIntProperty</EM> returns the requested integer property, or the
@@ -475,4 +697,64 @@ Util extends JSDTObject implements JSDTDebugFlags, Serializable {
 
         return(retval);
     }
+
+
+/**
+ * <A NAME="SD_WRITEVARINT"></A>
+ * <EM>writeVarInt</EM> writes an integer (treated as unsigned) using seven
+ * bits per byte, with the top bit set on every byte but the last. Small
+ * values take a single byte.
+ *
+ * @param out the stream to write the integer to.
+ * @param value the integer to write.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    public static void
+    writeVarInt(DataOutput out, int value) throws IOException {
+        if (Util_Debug) {
+            Debug("Util: writeVarInt:" +
+                  " value: " + value);
+        }
+
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+
+/**
+ * <A NAME="SD_READVARINT"></A>
+ * <EM>readVarInt</EM> reads an integer written by <CODE>writeVarInt</CODE>.
+ *
+ * @param in the stream to read the integer from.
+ *
+ * @return the integer read.
+ *
+ * @exception IOException if an IO exception has occured, or the integer is
+ * longer than five bytes.
+ */
+
+    public static int
+    readVarInt(DataInput in) throws IOException {
+        int value = 0;
+
+        if (Util_Debug) {
+            Debug("Util: readVarInt.");
+        }
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return(value);
+            }
+        }
+
+        throw new IOException("malformed variable length integer");
+    }
 }
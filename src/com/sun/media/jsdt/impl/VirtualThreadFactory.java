@@ -0,0 +1,121 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.impl;
+
+import java.lang.reflect.Method;
+
+/**
+ * JSDT virtual thread factory class. On a JDK that supports them, this
+ * creates a virtual thread for each new thread, so a JSDT server can have
+ * many more connections, consumers and listeners than it could have native
+ * threads. Virtual threads are always daemon threads.
+ *
+ * The virtual thread builder is found by reflection, so that JSDT can still
+ * be built and run on older JDKs. On those, a platform TargetableThread is
+ * created instead.
+ *
+ * To use this, the "threadFactoryClass" property should be set to:
+ * "com.sun.media.jsdt.impl.VirtualThreadFactory"
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+public class
+VirtualThreadFactory extends TargetableThreadFactory {
+
+    // The virtual thread builder (or null if not supported by this JDK).
+    private Object builder = null;
+
+    // The builder method to set the name of the next thread.
+    private Method nameMethod = null;
+
+    // The builder method to create a new unstarted thread.
+    private Method unstartedMethod = null;
+
+
+/**
+ * <A NAME="SD_VIRTUALTHREADFACTORY"></A>
+ * <EM>VirtualThreadFactory</EM> instantiates an instance of this class.
+ */
+
+    public
+    VirtualThreadFactory() {
+        if (VirtualThreadFactory_Debug) {
+            JSDTObject.Debug("VirtualThreadFactory: constructor.");
+        }
+
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = Class.forName(
+                                        "java.lang.Thread$Builder");
+
+            builder         = ofVirtual.invoke(null);
+            nameMethod      = builderClass.getMethod("name", String.class);
+            unstartedMethod = builderClass.getMethod("unstarted",
+                                                     Runnable.class);
+        } catch (Exception e) {
+            if (VirtualThreadFactory_Debug) {
+                JSDTObject.Debug("VirtualThreadFactory: constructor:" +
+                                 " virtual threads not supported: " + e);
+            }
+
+            builder = null;
+        }
+    }
+
+
+/**
+ * <A NAME="SD_NEWTHREAD"></A>
+ * <EM>newThread</EM> returns a new (unstarted) virtual thread with the
+ * given name and runnable object.
+ *
+ * @param target the object whose <code>run</code> method is called.
+ * @param name the name of the new thread.
+ * @param isDaemon ignored, because virtual threads are always daemon
+ * threads.
+ *
+ * @return the new thread.
+ */
+
+    public Thread
+    newThread(Runnable target, String name, boolean isDaemon) {
+        if (VirtualThreadFactory_Debug) {
+            JSDTObject.Debug("VirtualThreadFactory: newThread:" +
+                             " target: "  + target +
+                             " name: "    + name);
+        }
+
+        if (builder != null) {
+            try {
+                synchronized (builder) {
+                    nameMethod.invoke(builder, name);
+                    return((Thread) unstartedMethod.invoke(builder, target));
+                }
+            } catch (Exception e) {
+                JSDTObject.Error("VirtualThreadFactory: newThread: ", e);
+            }
+        }
+
+        return(super.newThread(target, name, isDaemon));
+    }
+}
@@ -74,6 +74,7 @@ JSDTProps extends ListResourceBundle {
         { "impl.read",                        " read: "                   },
         { "impl.expected",                    " expected: "               },
         { "impl.reason",                      " reason: "                 },
+        { "impl.relay.stopped",               " relay stopped: "          },
         };
 
 
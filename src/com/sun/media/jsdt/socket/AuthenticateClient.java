@@ -244,6 +244,7 @@ AuthenticateClient extends JSDTObject
         char               authType  = 0;
         boolean            admitted  = false;
         AuthenticationInfo info;
+        SocketThread       thread;
 
         if (AuthenticateClient_Debug) {
             debug("AuthenticateClient: run.");
@@ -290,15 +291,24 @@ AuthenticateClient extends JSDTObject
                   "impl.thrown", th + " by manager.");
         }
 
+/* The reply goes to the server holding the object, which may be one of the
+ * session's nodes rather than the session server.
+ */
+        if (objectType == SessionImpl.M_Session) {
+            thread = sp.proxyThread;
+        } else {
+            thread = sp.getObjectThread(objectName);
+        }
+
         try {
-            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+            thread.writeMessageHeader(thread.dataOut,
                                     sessionNo, 0, type, T_Join, false, true);
-            sp.proxyThread.dataOut.writeChar(objectType);
-            sp.proxyThread.dataOut.writeUTF(objectName);
-            sp.proxyThread.dataOut.writeUTF(name);
-            sp.proxyThread.dataOut.writeBoolean(admitted);
-            sp.proxyThread.flush();
-            sp.proxyThread.finishMessage();
+            thread.dataOut.writeChar(objectType);
+            thread.dataOut.writeUTF(objectName);
+            thread.dataOut.writeUTF(name);
+            thread.dataOut.writeBoolean(admitted);
+            thread.flush();
+            thread.finishMessage();
         } catch (IOException e) {
             error("AuthenticateClient: run: ", e);
         }
@@ -0,0 +1,128 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+
+/**
+ * JSDT batch histogram class. This counts how many messages were written
+ * to a connection with each flush. The counts are kept in buckets whose
+ * sizes go up in powers of two: 1, 2-3, 4-7, 8-15, 16-31, 32-63, 64-127
+ * and 128 or more messages.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+BatchHistogram extends JSDTObject implements socketDebugFlags {
+
+    // The number of buckets in the histogram.
+    static final int BUCKETS = 8;
+
+    // The number of batches in each bucket.
+    private final long[] counts = new long[BUCKETS];
+
+    // The total number of messages in all the batches.
+    private long messages = 0;
+
+
+/**
+ * <A NAME="SD_ADD"></A>
+ * <EM>add</EM> count a batch of messages that was written with one flush.
+ *
+ * @param size the number of messages in the batch.
+ */
+
+    synchronized void
+    add(int size) {
+        int bucket = 0;
+
+        if (BatchHistogram_Debug) {
+            debug("BatchHistogram: add:" +
+                  " size: " + size);
+        }
+
+        while ((size >> (bucket + 1)) != 0 && bucket < BUCKETS - 1) {
+            bucket++;
+        }
+
+        counts[bucket]++;
+        messages += size;
+    }
+
+
+/**
+ * <A NAME="SD_GETCOUNTS"></A>
+ * <EM>getCounts</EM>
+ *
+ * @return a copy of the number of batches in each bucket.
+ */
+
+    synchronized long[]
+    getCounts() {
+        return(counts.clone());
+    }
+
+
+/**
+ * <A NAME="SD_GETMEANSIZE"></A>
+ * <EM>getMeanSize</EM>
+ *
+ * @return the average number of messages in a batch (or 0 if there haven't
+ * been any batches).
+ */
+
+    synchronized double
+    getMeanSize() {
+        long batches = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            batches += counts[i];
+        }
+
+        return((batches == 0) ? 0 : (double) messages / batches);
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this BatchHistogram.
+ *
+ * @return a String containing a description of this BatchHistogram.
+ */
+
+    public synchronized String
+    toString() {
+        StringBuffer buffer = new StringBuffer("BatchHistogram:");
+
+        for (int i = 0; i < BUCKETS; i++) {
+            buffer.append(" ").append(1 << i);
+            if (i == BUCKETS - 1) {
+                buffer.append("+");
+            }
+            buffer.append(": ").append(counts[i]);
+        }
+
+        return(buffer.append(" mean: ").append(getMeanSize())
+                     .append("\n").toString());
+    }
+}
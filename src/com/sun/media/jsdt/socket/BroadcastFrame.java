@@ -0,0 +1,320 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+import java.io.*;
+
+/**
+ * JSDT broadcast frame class. A channel data message that is encoded just
+ * once, no matter how many consumers it is sent to. Everything apart from
+ * the name of the receiving client is the same for each recipient, so the
+ * frame is kept as an encoded prefix (the message header, channel name and
+ * sender name), followed by the per-recipient receiver name, an encoded
+ * suffix (priority and length) and the data itself, which is shared rather
+ * than copied.
+ *
+ * The frame is reference counted by the outbound messages that use it.
+ * When the last of them has been written (or thrown away), the encoded
+ * buffers and data are released.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+BroadcastFrame extends JSDTObject implements socketDebugFlags {
+
+    // The unique session number for this message.
+    private final short sessionNo;
+
+    // The name of the channel the data was sent over.
+    private final String channelName;
+
+    // The name of the client that sent the data.
+    private final String senderName;
+
+    // The message type.
+    private final char type;
+
+    // The priority of the data.
+    private final int priority;
+
+    // The encoded message header, channel name and sender name.
+    private byte[] prefix = null;
+
+    // The length of the message header at the start of the prefix.
+    private int headerLength = 0;
+
+    // The encoded data priority and length.
+    private byte[] suffix = null;
+
+    // The data itself (shared between all the recipients).
+    private byte[] data;
+
+    // The length of the data.
+    private final int length;
+
+    // The number of outbound messages still using this frame.
+    private int references = 0;
+
+
+/**
+ * <A NAME="SD_BROADCASTFRAME"></A>
+ * <EM>BroadcastFrame</EM> is a constructor for the BroadcastFrame class.
+ *
+ * @param sessionNo the unique session number for this message.
+ * @param type the message type.
+ * @param channelName the name of the channel the data was sent on.
+ * @param senderName the name of the client that sent the data.
+ * @param priority the priority of the data.
+ * @param data the data itself.
+ * @param length the length of the data.
+ */
+
+    BroadcastFrame(short sessionNo, char type, String channelName,
+                   String senderName, int priority, byte[] data, int length) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream      out   = new DataOutputStream(bytes);
+
+        if (BroadcastFrame_Debug) {
+            debug("BroadcastFrame: constructor:" +
+                  " session #: "    + sessionNo +
+                  " type: "         + typeToString(type) +
+                  " channel name: " + channelName +
+                  " sender name: "  + senderName +
+                  " priority: "     + priority +
+                  " length: "       + length);
+        }
+
+        this.sessionNo   = sessionNo;
+        this.channelName = channelName;
+        this.senderName  = senderName;
+        this.type      = type;
+        this.priority  = priority;
+        this.data      = data;
+        this.length    = length;
+
+        try {
+            SocketThread.writeHeaderFields(out, sessionNo, 0, type,
+                                           T_DataReceived, 0);
+            headerLength = out.size();
+            out.writeUTF(channelName);
+            out.writeUTF(senderName);
+            prefix = bytes.toByteArray();
+
+            bytes.reset();
+            out.writeInt(priority);
+            out.writeInt(length);
+            suffix = bytes.toByteArray();
+        } catch (IOException e) {
+            error("BroadcastFrame: constructor: ", e);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETSESSIONNO"></A>
+ * <EM>getSessionNo</EM>
+ *
+ * @return the unique session number for this message.
+ */
+
+    short
+    getSessionNo() {
+        return(sessionNo);
+    }
+
+
+/**
+ * <A NAME="SD_GETPRIORITY"></A>
+ * <EM>getPriority</EM>
+ *
+ * @return the priority of the data.
+ */
+
+    int
+    getPriority() {
+        return(priority);
+    }
+
+
+/**
+ * <A NAME="SD_GETLENGTH"></A>
+ * <EM>getLength</EM>
+ *
+ * @return the length of the data.
+ */
+
+    int
+    getLength() {
+        return(length);
+    }
+
+
+/**
+ * <A NAME="SD_GETTYPE"></A>
+ * <EM>getType</EM>
+ *
+ * @return the message type.
+ */
+
+    char
+    getType() {
+        return(type);
+    }
+
+
+/**
+ * <A NAME="SD_RETAIN"></A>
+ * <EM>retain</EM> another outbound message is using this frame.
+ */
+
+    synchronized void
+    retain() {
+        if (BroadcastFrame_Debug) {
+            debug("BroadcastFrame: retain:" +
+                  " references: " + references);
+        }
+
+        references++;
+    }
+
+
+/**
+ * <A NAME="SD_RELEASE"></A>
+ * <EM>release</EM> an outbound message has finished with this frame. If it
+ * was the last one, then the encoded buffers and data are released.
+ */
+
+    synchronized void
+    release() {
+        if (BroadcastFrame_Debug) {
+            debug("BroadcastFrame: release:" +
+                  " references: " + references);
+        }
+
+        if (--references == 0) {
+            prefix = null;
+            suffix = null;
+            data   = null;
+        }
+    }
+
+
+/**
+ * <A NAME="SD_WRITETO"></A>
+ * <EM>writeTo</EM> write this frame to the given stream, for the given
+ * recipient.
+ *
+ * @param out the stream to write this frame to.
+ * @param receiverName the name of the client receiving the data.
+ * @param withHeader if true, the encoded message header is written too.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    void
+    writeTo(DataOutputStream out, String receiverName, boolean withHeader)
+                throws IOException {
+        byte[] prefix, suffix, data;
+        int    offset = (withHeader) ? 0 : headerLength;
+
+        if (BroadcastFrame_Debug) {
+            debug("BroadcastFrame: writeTo:" +
+                  " receiver name: " + receiverName +
+                  " with header: "   + withHeader);
+        }
+
+        synchronized (this) {
+            prefix = this.prefix;
+            suffix = this.suffix;
+            data   = this.data;
+        }
+
+        if (prefix == null) {
+            throw new IOException();
+        }
+
+        out.write(prefix, offset, prefix.length - offset);
+        out.writeUTF(receiverName);
+        out.write(suffix, 0, suffix.length);
+        out.write(data, 0, length);
+    }
+
+
+/**
+ * <A NAME="SD_WRITENAMEDTO"></A>
+ * <EM>writeNamedTo</EM> write this frame, without its encoded header, to
+ * the given connection for the given recipient. The channel, sender and
+ * receiver names are written with <CODE>writeName</CODE>, so that the
+ * connection can send numeric handles for them rather than the names.
+ *
+ * @param thread the connection to write this frame to.
+ * @param receiverName the name of the client receiving the data.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    void
+    writeNamedTo(SocketThread thread, String receiverName)
+                throws IOException {
+        byte[] suffix, data;
+
+        if (BroadcastFrame_Debug) {
+            debug("BroadcastFrame: writeNamedTo:" +
+                  " thread: "        + thread +
+                  " receiver name: " + receiverName);
+        }
+
+        synchronized (this) {
+            suffix = this.suffix;
+            data   = this.data;
+        }
+
+        if (suffix == null) {
+            throw new IOException();
+        }
+
+        thread.writeName(channelName);
+        thread.writeName(senderName);
+        thread.writeName(receiverName);
+        thread.dataOut.write(suffix, 0, suffix.length);
+        thread.dataOut.write(data, 0, length);
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this BroadcastFrame.
+ *
+ * @return a String containing a description of this BroadcastFrame.
+ */
+
+    public String
+    toString() {
+        return("BroadcastFrame:" +
+                " session #: "  + sessionNo +
+                " length: "     + length +
+                " references: " + references + "\n");
+    }
+}
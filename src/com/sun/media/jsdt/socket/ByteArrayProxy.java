@@ -30,7 +30,7 @@ import java.util.*;
 /**
  * JSDT Byte Array client-side proxy class.
  *
- * @version     2.3 - 16th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -113,7 +113,7 @@ ByteArrayProxy extends ManageableProxy implements AbstractByteArrayProxy {
                        NoSuchSessionException, PermissionDeniedException,
                        TimedOutException {
         DataInputStream  in;
-        int              id         = sp.proxyThread.getId();
+        int              id         = proxyThread.getId();
         short            sessionNo  = sp.getSessionNo();
         String           clientName = Util.getClientName(client);
         char             type       = ByteArrayImpl.M_ByteArray;
@@ -136,14 +136,14 @@ ByteArrayProxy extends ManageableProxy implements AbstractByteArrayProxy {
         }
 
         try {
-            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+            proxyThread.writeMessageHeader(proxyThread.dataOut,
                                    sessionNo, id, type, T_SetValue, true, true);
-            sp.proxyThread.dataOut.writeUTF(name);
-            sp.proxyThread.dataOut.writeUTF(clientName);
-            sp.proxyThread.dataOut.writeInt(length);
-            sp.proxyThread.dataOut.write(value, offset, length);
-            sp.proxyThread.flush();
-            message = sp.proxyThread.waitForReply();
+            proxyThread.dataOut.writeUTF(name);
+            proxyThread.dataOut.writeUTF(clientName);
+            proxyThread.dataOut.writeInt(length);
+            proxyThread.dataOut.write(value, offset, length);
+            proxyThread.flush();
+            message = proxyThread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -166,7 +166,290 @@ ByteArrayProxy extends ManageableProxy implements AbstractByteArrayProxy {
                 }
             }
         } catch (IOException e) {
-            sp.proxyThread.finishReply();
+            proxyThread.finishReply();
+            throw new ConnectionException();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_UPDATEVALUE"></A>
+ * <EM>updateValue</EM> send a message to the session server to change part
+ * of a shared byte array with the given name for this session. The session
+ * server sends just the changed bytes to all the listeners of this shared
+ * byte array.
+ *
+ * @param client a client successfully joined to this session.
+ * @param position the position in the shared value to change from.
+ * @param value the byte array that is the source of the changed bytes.
+ * @param offset the offset into the byte array.
+ * @param length the number of bytes to use.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchByteArrayException if this byte array does exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have permission
+ * to change the value of this ByteArray.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    public void
+    updateValue(Client client, int position,
+                byte[] value, int offset, int length)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchByteArrayException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException {
+        DataInputStream  in;
+        int              id         = proxyThread.getId();
+        short            sessionNo  = sp.getSessionNo();
+        String           clientName = Util.getClientName(client);
+        char             type       = ByteArrayImpl.M_ByteArray;
+        Message          message;
+        int              retval;
+
+        if (ByteArrayProxy_Debug) {
+            debug("ByteArrayProxy: updateValue:" +
+                  " position: " + position +
+                  " value: "    + value +
+                  " offset: "   + offset +
+                  " length: "   + length);
+        }
+
+        if (session == null) {
+            throw new NoSuchSessionException();
+        }
+
+        if (clients.get(clientName) == null) {
+            throw new NoSuchClientException();
+        }
+
+        try {
+            proxyThread.writeMessageHeader(proxyThread.dataOut,
+                                sessionNo, id, type, T_UpdateValue, true, true);
+            proxyThread.dataOut.writeUTF(name);
+            proxyThread.dataOut.writeUTF(clientName);
+            proxyThread.dataOut.writeInt(position);
+            proxyThread.dataOut.writeInt(length);
+            proxyThread.dataOut.write(value, offset, length);
+            proxyThread.flush();
+            message = proxyThread.waitForReply();
+
+            in     = message.thread.dataIn;
+            retval = in.readInt();
+            message.thread.finishReply();
+
+            if (retval != 0) {
+                switch (retval) {
+                    case JSDTException.NO_SUCH_BYTEARRAY:
+                        throw new NoSuchByteArrayException();
+                    case JSDTException.NO_SUCH_CLIENT:
+                        throw new NoSuchClientException();
+                    case JSDTException.NO_SUCH_SESSION:
+                        session = null;
+                        throw new NoSuchSessionException();
+                    case JSDTException.PERMISSION_DENIED:
+                        throw new PermissionDeniedException();
+                    default:
+                        error("ByteArrayProxy: updateValue: ",
+                              "impl.unknown.exception.type", retval);
+                }
+            }
+        } catch (IOException e) {
+            proxyThread.finishReply();
+            throw new ConnectionException();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_COMPAREANDSET"></A>
+ * <EM>compareAndSet</EM> send a message to the session server to update a
+ * shared byte array with the given name for this session, but only if its
+ * value is still at the expected version. If it is, the session server
+ * sends a change notification to all the listeners of this shared byte
+ * array. If it isn't, the local value is marked as stale, so that the
+ * current value is fetched the next time it is read.
+ *
+ * @param client a client successfully joined to this session.
+ * @param expectedVersion the version the shared value must be at.
+ * @param value the new value of the byte array.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchByteArrayException if this byte array does exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have permission
+ * to change the value of this ByteArray.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return true if the value was set, false if the shared value was no
+ * longer at the expected version.
+ */
+
+    public boolean
+    compareAndSet(Client client, long expectedVersion, byte[] value)
+                throws ConnectionException, InvalidClientException,
+                       NoSuchByteArrayException, NoSuchClientException,
+                       NoSuchSessionException, PermissionDeniedException,
+                       TimedOutException {
+        DataInputStream  in;
+        int              id         = proxyThread.getId();
+        short            sessionNo  = sp.getSessionNo();
+        String           clientName = Util.getClientName(client);
+        char             type       = ByteArrayImpl.M_ByteArray;
+        Message          message;
+        int              retval;
+        boolean          swapped    = false;
+        long             version;
+
+        if (ByteArrayProxy_Debug) {
+            debug("ByteArrayProxy: compareAndSet:" +
+                  " expected version: " + expectedVersion +
+                  " value: "            + value);
+        }
+
+        if (session == null) {
+            throw new NoSuchSessionException();
+        }
+
+        if (clients.get(clientName) == null) {
+            throw new NoSuchClientException();
+        }
+
+        try {
+            proxyThread.writeMessageHeader(proxyThread.dataOut,
+                            sessionNo, id, type, T_CompareAndSet, true, true);
+            proxyThread.dataOut.writeUTF(name);
+            proxyThread.dataOut.writeUTF(clientName);
+            proxyThread.dataOut.writeLong(expectedVersion);
+            proxyThread.dataOut.writeInt(value.length);
+            proxyThread.dataOut.write(value, 0, value.length);
+            proxyThread.flush();
+            message = proxyThread.waitForReply();
+
+/* A reply saying that the byte array or session doesn't exist has just the
+ * return value in it.
+ */
+
+            in      = message.thread.dataIn;
+            retval  = in.readInt();
+            if (retval == 0) {
+                swapped = in.readBoolean();
+                version = in.readLong();
+            } else {
+                version = 0;
+            }
+            message.thread.finishReply();
+
+            if (retval != 0) {
+                switch (retval) {
+                    case JSDTException.NO_SUCH_BYTEARRAY:
+                        throw new NoSuchByteArrayException();
+                    case JSDTException.NO_SUCH_CLIENT:
+                        throw new NoSuchClientException();
+                    case JSDTException.NO_SUCH_SESSION:
+                        session = null;
+                        throw new NoSuchSessionException();
+                    case JSDTException.PERMISSION_DENIED:
+                        throw new PermissionDeniedException();
+                    default:
+                        error("ByteArrayProxy: compareAndSet: ",
+                              "impl.unknown.exception.type", retval);
+                }
+            } else if (swapped) {
+                byteArray.setLocalValue(value.clone(), version);
+            } else {
+                byteArray.setLatestVersion(version);
+            }
+        } catch (IOException e) {
+            proxyThread.finishReply();
+            throw new ConnectionException();
+        }
+
+        return(swapped);
+    }
+
+
+/**
+ * <A NAME="SD_FETCHVALUE"></A>
+ * <EM>fetchValue</EM> send a message to the session server to get a new
+ * copy of the current value and version of a shared byte array with the
+ * given name for this session, and make it the local value.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoSuchByteArrayException if this byte array does exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    public void
+    fetchValue()
+                throws ConnectionException, NoSuchByteArrayException,
+                       NoSuchSessionException, TimedOutException {
+        DataInputStream  in;
+        int              id         = proxyThread.getId();
+        short            sessionNo  = sp.getSessionNo();
+        char             type       = ByteArrayImpl.M_ByteArray;
+        Message          message;
+        int              retval;
+        long             version;
+        byte[]           value;
+
+        if (ByteArrayProxy_Debug) {
+            debug("ByteArrayProxy: fetchValue.");
+        }
+
+        if (session == null) {
+            throw new NoSuchSessionException();
+        }
+
+        try {
+            proxyThread.writeMessageHeader(proxyThread.dataOut,
+                                sessionNo, id, type, T_GetValue, true, true);
+            proxyThread.dataOut.writeUTF(name);
+            proxyThread.flush();
+            message = proxyThread.waitForReply();
+
+/* A reply saying that the byte array or session doesn't exist has just the
+ * return value in it.
+ */
+
+            in      = message.thread.dataIn;
+            retval  = in.readInt();
+            if (retval == 0) {
+                version = in.readLong();
+                value   = message.thread.getData(in.readInt());
+            } else {
+                version = 0;
+                value   = null;
+            }
+            message.thread.finishReply();
+
+            if (retval != 0) {
+                switch (retval) {
+                    case JSDTException.NO_SUCH_BYTEARRAY:
+                        throw new NoSuchByteArrayException();
+                    case JSDTException.NO_SUCH_SESSION:
+                        session = null;
+                        throw new NoSuchSessionException();
+                    default:
+                        error("ByteArrayProxy: fetchValue: ",
+                              "impl.unknown.exception.type", retval);
+                }
+            } else {
+                byteArray.setLocalValue(value, version);
+            }
+        } catch (IOException e) {
+            proxyThread.finishReply();
             throw new ConnectionException();
         }
     }
@@ -182,12 +465,11 @@ ByteArrayProxy extends ManageableProxy implements AbstractByteArrayProxy {
 
     void
     valueChanged(Message message) {
-        DataInputStream in = message.thread.dataIn;
+        DataInputStream in            = message.thread.dataIn;
         String          clientName    = null;
         int             length;
         byte[]          data          = null;
-        int             type          = ByteArrayEvent.VALUE_CHANGED;
-        ManageableProxy mp = (ManageableProxy) byteArray.mpo.getProxy();
+        long            version       = 0;
 
         if (ByteArrayProxy_Debug) {
             debug("ByteArrayProxy: valueChanged:" +
@@ -195,36 +477,96 @@ ByteArrayProxy extends ManageableProxy implements AbstractByteArrayProxy {
         }
 
         try {
-            clientName    = in.readUTF();
-                            in.readUTF();
+            clientName    = message.thread.readName();
+                            message.thread.readName();
             length        = in.readInt();
             data          = message.thread.getData(length);
+            version       = in.readLong();
         } catch (IOException e) {
             error("ByteArrayProxy: valueChanged: ", e);
         }
 
         synchronized (this) {
-            byteArray.setLocalValue(data);
-
-            if (mp.listeners != null) {
-                synchronized (mp.listeners) {
-                    Enumeration e, k;
-
-                    for (e = mp.listeners.elements(), k = mp.listeners.keys();
-                         e.hasMoreElements();) {
-                        EventListener listener =
-                                        (EventListener) k.nextElement();
-                        int mask = (Integer) e.nextElement();
-
-                        if ((mask & type) != 0) {
-                            ListenerMessage lm =
-                                new ListenerMessage(listener, session,
-                                            byteArray.getName(), clientName,
-                                            byteArray, type);
-
-                            Util.startThread(lm, "ListenerMessageThread:" +
-                                             byteArray.getName(), true);
-                        }
+            byteArray.setLocalValue(data, version);
+            informValueListeners(clientName);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_VALUEUPDATED"></A>
+ * <EM>valueUpdated</EM> part of the value of a shared byte array in the
+ * server for this session has changed. Apply the changed bytes to the
+ * local value and inform all the proxy listeners.
+ *
+ * @param message the current message being processed.
+ */
+
+    void
+    valueUpdated(Message message) {
+        DataInputStream in         = message.thread.dataIn;
+        String          clientName = null;
+        long            version    = 0;
+        int             position   = 0;
+        byte[]          data       = null;
+
+        if (ByteArrayProxy_Debug) {
+            debug("ByteArrayProxy: valueUpdated:" +
+                  " message: " + message);
+        }
+
+        try {
+            clientName = message.thread.readName();
+                         message.thread.readName();
+            version    = in.readLong();
+            position   = in.readInt();
+            data       = message.thread.getData(in.readInt());
+        } catch (IOException e) {
+            error("ByteArrayProxy: valueUpdated: ", e);
+        }
+
+        synchronized (this) {
+            byteArray.updateLocalValue(version, position, data);
+            informValueListeners(clientName);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_INFORMVALUELISTENERS"></A>
+ * <EM>informValueListeners</EM> tell all the proxy listeners that are
+ * interested, that the value of this shared byte array has changed.
+ *
+ * @param clientName the name of the client that changed the value.
+ */
+
+    private void
+    informValueListeners(String clientName) {
+        int             type = ByteArrayEvent.VALUE_CHANGED;
+        ManageableProxy mp   = (ManageableProxy) byteArray.mpo.getProxy();
+
+        if (ByteArrayProxy_Debug) {
+            debug("ByteArrayProxy: informValueListeners:" +
+                  " client name: " + clientName);
+        }
+
+        if (mp.listeners != null) {
+            synchronized (mp.listeners) {
+                Enumeration e, k;
+
+                for (e = mp.listeners.elements(), k = mp.listeners.keys();
+                     e.hasMoreElements();) {
+                    EventListener listener = (EventListener) k.nextElement();
+                    int           mask     = (Integer) e.nextElement();
+
+                    if ((mask & type) != 0) {
+                        ListenerMessage lm =
+                            new ListenerMessage(listener, session,
+                                        byteArray.getName(), clientName,
+                                        byteArray, type);
+
+                        Util.getEventDispatcher().dispatch(listener, lm,
+                                                           byteArray);
                     }
                 }
             }
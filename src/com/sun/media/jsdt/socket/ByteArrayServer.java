@@ -23,15 +23,27 @@ package com.sun.media.jsdt.socket;
 
 import com.sun.media.jsdt.JSDTException;
 import com.sun.media.jsdt.ByteArray;
+import com.sun.media.jsdt.NoSuchByteArrayException;
 import com.sun.media.jsdt.impl.*;
 import com.sun.media.jsdt.event.ByteArrayEvent;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JSDT Byte Array Server-side class.
  *
- * @version     2.3 - 30th October 2017
+ * The value of the byte array is only changed while holding the lock on
+ * this byte array server, and the listeners are told about each new value
+ * before the lock is let go, so they always see the changes in the order
+ * they were made.
+ *
+ * Each change moves the value on to its next version. A change made with
+ * <CODE>updateValue</CODE> is sent to the listeners as just the changed
+ * bytes and the new version, and a listener that finds it has missed a
+ * version asks for a new copy of the whole value.
+ *
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -68,7 +80,7 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
         this.name       = name;
         this.session    = session;
         this.byteArray  = (ByteArrayImpl) object;
-        clients         = new Hashtable<>();
+        clients         = new ConcurrentHashMap<>();
         ss              = (SessionServer) session.so.getServer();
         super.initServer(name, session, object);
     }
@@ -91,12 +103,12 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
 
 /**
  * <A NAME="SD_ADDJOINEDCLIENT"></A>
- * <EM>addJoinedClient</EM> add this client to the hashtable of clients
- * currently joined to this byte array. This byte array is also added to
+ * <EM>addJoinedClient</EM> this client has just been added to the hashtable
+ * of clients currently joined to this byte array. Add this byte array to
  * the vector of byte arrays that this client is joined to for this session,
  * to make any later cleanup easier.
  *
- * @param client the client to be added.
+ * @param client the client that was added.
  */
 
     private void
@@ -110,7 +122,6 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
                   " client: " + client);
         }
 
-        clients.put(client.getName(), client);
         clientByteArrays.addElement(byteArray);
     }
 
@@ -125,18 +136,21 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
  * @param clientName name of the client associated with this session.
  * @param byteArrayName the name of the shared byte array to update.
  * @param value the new value of the byte array.
+ * @param version the version of the new value.
  */
 
     private void
     informByteArrayListeners(int id, ByteArrayImpl sba, String clientName,
-                             String byteArrayName, byte[] value) {
+                             String byteArrayName, byte[] value,
+                             long version) {
         if (ByteArrayServer_Debug) {
             debug("ByteArrayServer: informByteArrayListeners:" +
                   " id: "                + id +
                   " server byte array: " + sba +
                   " client name: "       + clientName +
                   " byte array name: "   + byteArrayName +
-                  " value: "             + value);
+                  " value: "             + value +
+                  " version: "           + version);
         }
 
         for (Enumeration k = listenerThreads.keys(); k.hasMoreElements();) {
@@ -146,11 +160,12 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
                 thread.writeMessageHeader(thread.dataOut, ss.getSessionNo(),
                                            id, ByteArrayImpl.M_ByteArray,
                                           T_ValueChanged, false, true);
-                thread.dataOut.writeUTF(name);
-                thread.dataOut.writeUTF(clientName);
-                thread.dataOut.writeUTF(byteArrayName);
+                thread.writeName(name);
+                thread.writeName(clientName);
+                thread.writeName(byteArrayName);
                 thread.dataOut.writeInt(value.length);
                 thread.dataOut.write(value, 0, value.length);
+                thread.dataOut.writeLong(version);
                 thread.flush();
                 thread.finishMessage();
             } catch (IOException oe) {
@@ -160,6 +175,109 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
     }
 
 
+/**
+ * <A NAME="SD_INFORMBYTEARRAYUPDATE"></A>
+ * <EM>informByteArrayUpdate</EM> part of the value of a shared byte array
+ * in the server for this session has changed. Send just the changed bytes
+ * to all the byte array listeners.
+ *
+ * @param id the id to use for client/server messages.
+ * @param clientName name of the client associated with this session.
+ * @param byteArrayName the name of the shared byte array to update.
+ * @param version the version of the value after this change.
+ * @param position the position in the value that the change starts at.
+ * @param data the changed bytes.
+ */
+
+    private void
+    informByteArrayUpdate(int id, String clientName, String byteArrayName,
+                          long version, int position, byte[] data) {
+        if (ByteArrayServer_Debug) {
+            debug("ByteArrayServer: informByteArrayUpdate:" +
+                  " id: "              + id +
+                  " client name: "     + clientName +
+                  " byte array name: " + byteArrayName +
+                  " version: "         + version +
+                  " position: "        + position +
+                  " data: "            + data);
+        }
+
+        for (Enumeration<JSDTThread> k = listenerThreads.keys();
+             k.hasMoreElements();) {
+            SocketThread thread = (SocketThread) k.nextElement();
+
+            try {
+                thread.writeMessageHeader(thread.dataOut, ss.getSessionNo(),
+                                          id, ByteArrayImpl.M_ByteArray,
+                                          T_ValueUpdated, false, true);
+                thread.writeName(name);
+                thread.writeName(clientName);
+                thread.writeName(byteArrayName);
+                thread.dataOut.writeLong(version);
+                thread.dataOut.writeInt(position);
+                thread.dataOut.writeInt(data.length);
+                thread.dataOut.write(data, 0, data.length);
+                thread.flush();
+                thread.finishMessage();
+            } catch (IOException oe) {
+                error("ByteArrayServer: informByteArrayUpdate: ", oe);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETVALUE"></A>
+ * <EM>getValue</EM> return the current value of a shared byte array in the
+ * server for this session, together with its version, to the calling
+ * proxy.
+ *
+ * @param message the current message being processed.
+ */
+
+    void
+    getValue(Message message) {
+        int           retval    = 0;
+        long          version   = 0;
+        byte[]        value     = new byte[0];
+        ByteArrayImpl byteArray;
+
+        if (ByteArrayServer_Debug) {
+            debug("ByteArrayServer: getValue:" +
+                  " message: " + message);
+        }
+
+        synchronized (this) {
+            if ((byteArray = ss.getByteArrayByName(name)) != null) {
+                try {
+                    synchronized (byteArray) {
+                        value   = byteArray.getValueAsBytes();
+                        version = byteArray.getVersion();
+                    }
+                } catch (NoSuchByteArrayException nsbe) {
+                    retval = JSDTException.NO_SUCH_BYTEARRAY;
+                }
+            } else {
+                retval = JSDTException.NO_SUCH_BYTEARRAY;
+            }
+
+            try {
+                message.thread.writeMessageHeader(message.thread.dataOut,
+                                    message.sessionNo, message.id,
+                                    message.type, message.action, false, true);
+                message.thread.dataOut.writeInt(retval);
+                message.thread.dataOut.writeLong(version);
+                message.thread.dataOut.writeInt(value.length);
+                message.thread.dataOut.write(value, 0, value.length);
+                message.thread.flush();
+                message.thread.finishMessage();
+            } catch (IOException e) {
+                error("ByteArrayServer: getValue: ", e);
+            }
+        }
+    }
+
+
 /**
  * <A NAME="SD_JOIN"></A>
  * <EM>join</EM>
@@ -189,7 +307,7 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
         if (!((SessionServer) session.so).validClient(client)) {
             retval = JSDTException.NO_SUCH_CLIENT;
         } else {
-            if (clients.containsKey(clientName)) {
+            if (clients.putIfAbsent(clientName, client) != null) {
                 retval = JSDTException.NAME_IN_USE;
             } else {
                 addJoinedClient(client);
@@ -303,6 +421,7 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
         int              length;
         byte[]           value      = null;
         int              retval     = 0;
+        long             version    = 0;
         ClientImpl       client;
         ByteArrayImpl    byteArray  = null;
 
@@ -327,28 +446,186 @@ ByteArrayServer extends ManageableServer implements AbstractByteArrayServer {
             retval = JSDTException.PERMISSION_DENIED;
         }
 
-        if (retval == 0) {
-            if ((byteArray = ss.getByteArrayByName(name)) != null) {
-                byteArray.setLocalValue(value);
-            } else {
-                retval = JSDTException.NO_SUCH_BYTEARRAY;
+        synchronized (this) {
+            if (retval == 0) {
+                if ((byteArray = ss.getByteArrayByName(name)) != null) {
+                    version = byteArray.changeValue(value);
+                } else {
+                    retval = JSDTException.NO_SUCH_BYTEARRAY;
+                }
+            }
+
+            try {
+                message.thread.writeMessageHeader(message.thread.dataOut,
+                                    message.sessionNo, message.id,
+                                    message.type, message.action, false, true);
+                message.thread.dataOut.writeInt(retval);
+                message.thread.flush();
+                message.thread.finishMessage();
+            } catch (IOException e) {
+                error("ByteArrayServer: setValue: ", e);
+            }
+
+            if (retval == 0) {
+                informByteArrayListeners(message.id, byteArray, clientName,
+                                         name, value, version);
             }
         }
+    }
+
+
+/**
+ * <A NAME="SD_UPDATEVALUE"></A>
+ * <EM>updateValue</EM> changes part of a shared byte array in the server
+ * for this session. A message is returned to the calling proxy, to indicate
+ * the success or failure of this operation. The server sends just the
+ * changed bytes to all the listeners of this shared byte array.
+ *
+ * @param message the current message being processed.
+ */
+
+    void
+    updateValue(Message message) {
+        DataInputStream  in         = message.thread.dataIn;
+        String           clientName = null;
+        int              position   = 0;
+        int              length;
+        byte[]           data       = null;
+        int              retval     = 0;
+        long             version    = 0;
+        ClientImpl       client;
+        ByteArrayImpl    byteArray;
+
+        if (ByteArrayServer_Debug) {
+            debug("ByteArrayServer: updateValue:" +
+                  " message: " + message);
+        }
 
         try {
-            message.thread.writeMessageHeader(message.thread.dataOut,
-                                message.sessionNo, message.id,
-                                message.type, message.action, false, true);
-            message.thread.dataOut.writeInt(retval);
-            message.thread.flush();
-            message.thread.finishMessage();
+            clientName = in.readUTF();
+            position   = in.readInt();
+            length     = in.readInt();
+            data       = message.thread.getData(length);
         } catch (IOException e) {
-            error("ByteArrayServer: setValue: ", e);
+            error("ByteArrayServer: updateValue: ", e);
         }
 
-        if (retval == 0) {
-            informByteArrayListeners(message.id, byteArray, clientName,
-                                     name, value);
+        if ((client = getClientByName(clientName)) == null) {
+            retval = JSDTException.NO_SUCH_CLIENT;
+        } else if (client.getCheck() != message.thread || position < 0) {
+            retval = JSDTException.PERMISSION_DENIED;
+        }
+
+        synchronized (this) {
+            if (retval == 0) {
+                if ((byteArray = ss.getByteArrayByName(name)) == null) {
+                    retval = JSDTException.NO_SUCH_BYTEARRAY;
+                } else if ((version = byteArray.changeValue(position,
+                                                            data)) < 0) {
+                    retval = JSDTException.PERMISSION_DENIED;
+                }
+            }
+
+            try {
+                message.thread.writeMessageHeader(message.thread.dataOut,
+                                    message.sessionNo, message.id,
+                                    message.type, message.action, false, true);
+                message.thread.dataOut.writeInt(retval);
+                message.thread.flush();
+                message.thread.finishMessage();
+            } catch (IOException e) {
+                error("ByteArrayServer: updateValue: ", e);
+            }
+
+            if (retval == 0) {
+                informByteArrayUpdate(message.id, clientName, name,
+                                      version, position, data);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_COMPAREANDSET"></A>
+ * <EM>compareAndSet</EM> sets a new value for a shared byte array in the
+ * server for this session, but only if its value is still at the version
+ * the calling proxy expects. A message is returned to the calling proxy,
+ * with the success or failure of this operation, whether the value was
+ * set, and the version of the value. If it was set, the server sends a
+ * change notification to all the listeners of this shared byte array.
+ *
+ * @param message the current message being processed.
+ */
+
+    void
+    compareAndSet(Message message) {
+        DataInputStream  in         = message.thread.dataIn;
+        String           clientName = null;
+        long             expected   = 0;
+        int              length;
+        byte[]           value      = null;
+        int              retval     = 0;
+        boolean          swapped    = false;
+        long             version    = 0;
+        ClientImpl       client;
+        ByteArrayImpl    byteArray  = null;
+
+        if (ByteArrayServer_Debug) {
+            debug("ByteArrayServer: compareAndSet:" +
+                  " message: " + message);
+        }
+
+        try {
+            clientName = in.readUTF();
+            expected   = in.readLong();
+            length     = in.readInt();
+            value      = message.thread.getData(length);
+        } catch (IOException e) {
+            error("ByteArrayServer: compareAndSet: ", e);
+        }
+
+        if ((client = getClientByName(clientName)) == null) {
+            retval = JSDTException.NO_SUCH_CLIENT;
+        } else if (client.getCheck() != message.thread) {
+            retval = JSDTException.PERMISSION_DENIED;
+        }
+
+        synchronized (this) {
+            if (retval == 0) {
+                if ((byteArray = ss.getByteArrayByName(name)) != null) {
+                    try {
+                        synchronized (byteArray) {
+                            version = byteArray.getVersion();
+                            if (version == expected) {
+                                version = byteArray.changeValue(value);
+                                swapped = true;
+                            }
+                        }
+                    } catch (NoSuchByteArrayException nsbe) {
+                        retval = JSDTException.NO_SUCH_BYTEARRAY;
+                    }
+                } else {
+                    retval = JSDTException.NO_SUCH_BYTEARRAY;
+                }
+            }
+
+            try {
+                message.thread.writeMessageHeader(message.thread.dataOut,
+                                    message.sessionNo, message.id,
+                                    message.type, message.action, false, true);
+                message.thread.dataOut.writeInt(retval);
+                message.thread.dataOut.writeBoolean(swapped);
+                message.thread.dataOut.writeLong(version);
+                message.thread.flush();
+                message.thread.finishMessage();
+            } catch (IOException e) {
+                error("ByteArrayServer: compareAndSet: ", e);
+            }
+
+            if (swapped) {
+                informByteArrayListeners(message.id, byteArray, clientName,
+                                         name, value, version);
+            }
         }
     }
 }
@@ -25,11 +25,12 @@ import com.sun.media.jsdt.*;
 import com.sun.media.jsdt.impl.*;
 import java.io.*;
 import java.util.Hashtable;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * JSDT Session client-side proxy class.
  *
- * @version     2.3 - 16th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  * @author      Andrea Colpo
  */
@@ -55,10 +56,10 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
     private SocketThread[] channelThreads;
 
     // Queue of incoming data messages received from the channel server.
-    static DataReceivedQueue drq = null;
+    DataReceivedQueue drq = null;
 
-    // Number of DataReceivedThreads currently created.
-    private static int noThreads = 0;
+    // The threads used to deliver data to consumers of unordered channels.
+    private static JSDTThreadPool consumerPool = null;
 
 
 /**
@@ -72,9 +73,6 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
 
     public void
     initProxy(String name, SessionImpl session, Object object) {
-        int poolSize = Util.getIntProperty("maxThreadPoolSize",
-                                           maxThreadPoolSize);
-
         if (ChannelProxy_Debug) {
             debug("ChannelProxy: initProxy:" +
                   "\n    name: "    + name +
@@ -91,24 +89,31 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
         clientDataDirections = new Hashtable<>();
         clientConsumers      = new Hashtable<>();
         receiveClients       = new Hashtable<>();
+        drq                  = new DataReceivedQueue(this,
+                                                     channel.isReliable());
+    }
 
-        synchronized (this) {
-            if (drq == null) {
-                drq = new DataReceivedQueue();
-            }
 
-            if (ChannelProxy_Debug) {
-                debug("ChannelProxy: initProxy: before (noThreads++[" +
-                      (noThreads+1) +
-                       "] < poolSize[" + poolSize + "])");
-            }
+/**
+ * <A NAME="SD_GETCONSUMERPOOL"></A>
+ * <EM>getConsumerPool</EM> get the pool of threads used to deliver data to
+ * the consumers of unordered channels. Its metrics show how saturated the
+ * pool is.
+ *
+ * @return the consumer thread pool.
+ */
 
-            if ((noThreads+1) < poolSize) {
-                incrementNoThreads();
-                Util.startThread(new DataReceivedThread(drq, this),
-                                 "DataReceivedThread:" + noThreads, true);
-            }
+    public static synchronized JSDTThreadPool
+    getConsumerPool() {
+        if (consumerPool == null) {
+            int maxThreads = Util.getIntProperty("consumerThreads",
+                                                 consumerThreads);
+
+            consumerPool = new JSDTThreadPool("ConsumerMessageThread",
+                                              maxThreads);
         }
+
+        return(consumerPool);
     }
 
 
@@ -153,7 +158,7 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
         DataInputStream in;
         Message         message;
         int             retval;
-        int             id           = sp.proxyThread.getId();
+        int             id           = proxyThread.getId();
         short           sessionNo    = sp.getSessionNo();
         String          consumerName = consumer.toString();
         String          clientName   = Util.getClientName(client);
@@ -170,11 +175,11 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
         }
 
         try {
-            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+            proxyThread.writeMessageHeader(proxyThread.dataOut,
                            sessionNo, id, type, T_AddConsumer, true, true);
-            sp.proxyThread.dataOut.writeUTF(name);
-            sp.proxyThread.dataOut.writeUTF(clientName);
-            sp.proxyThread.dataOut.writeUTF(consumerName);
+            proxyThread.dataOut.writeUTF(name);
+            proxyThread.dataOut.writeUTF(clientName);
+            proxyThread.dataOut.writeUTF(consumerName);
             if (!channel.isReliable()) {
                 try {
                     UDPChannelProxyThread udpThread =
@@ -182,18 +187,18 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
                     String      localAddress = Util.getIPAddress("localhost");
                     int         localPort    = udpThread.dsock.getLocalPort();
 
-                    sp.proxyThread.dataOut.writeUTF(localAddress);
-                    sp.proxyThread.dataOut.writeInt(localPort);
+                    proxyThread.dataOut.writeUTF(localAddress);
+                    proxyThread.dataOut.writeInt(localPort);
                 } catch (InvalidURLException iue) {
                     error("ChannelProxy: addConsumer: ", iue);
                 }
             }
-            sp.proxyThread.flush();
-            message = sp.proxyThread.waitForReply();
+            proxyThread.flush();
+            message = proxyThread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
-            sp.proxyThread.finishReply();
+            proxyThread.finishReply();
 
             if (retval != 0) {
                 switch (retval) {
@@ -214,7 +219,7 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
                 }
             }
         } catch (IOException e) {
-            sp.proxyThread.finishReply();
+            proxyThread.finishReply();
             throw new ConnectionException();
         }
 
@@ -223,7 +228,7 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
             ClientImpl c;
 
             if ((c = (ClientImpl) clientConsumers.get(client)) == null) {
-                c = new ClientImpl(clientName, sp.proxyThread);
+                c = new ClientImpl(clientName, proxyThread);
                 clientConsumers.put(client, c);
             }
             consumers = c.getConsumers();
@@ -256,8 +261,8 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
         }
 
         try {
-            senderName   = in.readUTF();
-            receiverName = in.readUTF();
+            senderName   = message.thread.readName();
+            receiverName = message.thread.readName();
             priority     = in.readInt();
             length       = in.readInt();
             data         = new Data(message.thread.getData(length));
@@ -268,9 +273,7 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
         data.setPriority(priority);
         data.setSenderName(senderName);
         data.setChannel(channel);
-        if (drq != null) {
-            drq.putMessage(this, receiverName, channel.isOrdered(), data);
-        }
+        drq.putMessage(this, receiverName, channel.isOrdered(), data);
     }
 
 
@@ -305,7 +308,7 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
         DataInputStream in;
         Message         message;
         int             retval;
-        int             id           = sp.proxyThread.getId();
+        int             id           = proxyThread.getId();
         short           sessionNo    = sp.getSessionNo();
         String          consumerName = consumer.toString();
         String          clientName   = Util.getClientName(client);
@@ -322,17 +325,17 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
         }
 
         try {
-            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+            proxyThread.writeMessageHeader(proxyThread.dataOut,
                            sessionNo, id, type, T_RemoveConsumer, true, true);
-            sp.proxyThread.dataOut.writeUTF(name);
-            sp.proxyThread.dataOut.writeUTF(clientName);
-            sp.proxyThread.dataOut.writeUTF(consumerName);
-            sp.proxyThread.flush();
-            message = sp.proxyThread.waitForReply();
+            proxyThread.dataOut.writeUTF(name);
+            proxyThread.dataOut.writeUTF(clientName);
+            proxyThread.dataOut.writeUTF(consumerName);
+            proxyThread.flush();
+            message = proxyThread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
-            sp.proxyThread.finishReply();
+            proxyThread.finishReply();
 
             if (retval != 0) {
                 switch (retval) {
@@ -353,7 +356,7 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
                 }
             }
         } catch (IOException e) {
-            sp.proxyThread.finishReply();
+            proxyThread.finishReply();
             throw new ConnectionException();
         }
 
@@ -362,7 +365,7 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
             ClientImpl c;
 
             if ((c = (ClientImpl) clientConsumers.get(client)) == null) {
-                c = new ClientImpl(clientName, sp.proxyThread);
+                c = new ClientImpl(clientName, proxyThread);
                 clientConsumers.put(client, c);
             }
             consumers = c.getConsumers();
@@ -388,7 +391,7 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
     listConsumerNames()
         throws ConnectionException, NoSuchChannelException,
                NoSuchSessionException, TimedOutException {
-        SocketThread    thread      = sp.proxyThread;
+        SocketThread    thread      = proxyThread;
         DataInputStream in;
         int             id          = thread.getId();
         short           sessionNo   = sp.getSessionNo();
@@ -475,7 +478,7 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
         DataInputStream in;
         Message         message;
         int             retval;
-        int             id          = sp.proxyThread.getId();
+        int             id          = proxyThread.getId();
         short           sessionNo   = sp.getSessionNo();
         String          channelName = channel.getName();
         char            type        = ChannelImpl.M_Channel;
@@ -516,13 +519,13 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
         }
 
         try {
-            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+            proxyThread.writeMessageHeader(proxyThread.dataOut,
                                   sessionNo, id, type, T_Join, true, true);
-            sp.proxyThread.dataOut.writeUTF(channelName);
-            sp.proxyThread.dataOut.writeUTF(clientName);
-            sp.proxyThread.dataOut.writeInt(mode);
-            sp.proxyThread.flush();
-            message = sp.proxyThread.waitForReply();
+            proxyThread.dataOut.writeUTF(channelName);
+            proxyThread.dataOut.writeUTF(clientName);
+            proxyThread.dataOut.writeInt(mode);
+            proxyThread.flush();
+            message = proxyThread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -547,7 +550,7 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
                 }
             }
         } catch (IOException e) {
-            sp.proxyThread.finishReply();
+            proxyThread.finishReply();
             throw new ConnectionException();
         }
 
@@ -818,11 +821,11 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
             throw new NoSuchSessionException();
         }
 
-        if (sp.proxyThread == null) {
+        if (proxyThread == null) {
             throw new ConnectionException();
         }
 
-        id = sp.proxyThread.getId();
+        id = proxyThread.getId();
 
         synchronized (clients) {
             if (clients.get(Util.getClientName(sendingClient)) == null) {
@@ -832,13 +835,13 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
 
         try {
             thread = channelThreads[priority];
-            thread.writeMessageHeader(thread.dataOut, sessionNo, id,
-                                    type, T_Send, channel.isReliable(), true);
-            thread.dataOut.writeUTF(channel.getName());
-            thread.dataOut.writeUTF(Util.getClientName(sendingClient));
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id, type,
+                            T_Send, channel.isReliable(), true, priority);
+            thread.writeName(channel.getName());
+            thread.writeName(Util.getClientName(sendingClient));
             thread.dataOut.writeChar(recipient);
             if (recipient == ChannelImpl.D_Client) {
-                thread.dataOut.writeUTF(receivingClientName);
+                thread.writeName(receivingClientName);
             }
             thread.dataOut.writeInt(data.getPriority());
             thread.dataOut.writeBoolean(uniform);
@@ -884,14 +887,282 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
     }
 
 
+/**
+ * <A NAME="SD_SEND"></A>
+ * <EM>send</EM> is used to send a batch of data to clients joined to the
+ * specified channel. A single message containing all the data is sent to
+ * the session server, which then sends the whole batch on to each of the
+ * appropriate receiving channel listeners. The message is written at the
+ * most urgent priority of the data in the batch, and on a reliable channel
+ * there is just one reply for the whole batch.
+ *
+ * @param sendingClient the client sending the data.
+ * @param recipient who is going to receive this message. This can be all
+ * channel receipts (ChannelImpl.D_All), or all other channel recipients
+ * (ChannelImpl.D_Others) or just a single client (ChannelImpl.D_Client).
+ * @param receivingClientName the name of the client receiving the data, or
+ * null if we are sending this message to all (or all other) channel
+ * recipients.
+ * @param data the data being send over this channel.
+ * @param uniform set true if this is a uniform send.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if the channel given does not exist.
+ * @exception NoSuchClientException if the client given does not exist.
+ * @exception NoSuchConsumerException if this Client doesn't have a
+ * ChannelConsumer associated with it.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if you do not have permission for
+ * this operation.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    public void
+    send(Client sendingClient, char recipient, String receivingClientName,
+         Data[] data, boolean uniform)
+        throws ConnectionException, InvalidClientException,
+               NoSuchChannelException, NoSuchClientException,
+               NoSuchConsumerException, NoSuchSessionException,
+               PermissionDeniedException, TimedOutException {
+        int             priority    = data[0].getPriority();
+        SocketThread    thread      = null;
+        DataInputStream in;
+        short           sessionNo   = sp.getSessionNo();
+        int             id;
+        char            type        = ChannelImpl.M_Channel;
+        Message         message;
+        int             retval      = 0;
+
+        if (ChannelProxy_Debug) {
+            debug("ChannelProxy: send:" +
+                  " sending client: "   + sendingClient +
+                  " recipient: "        + recipient +
+                  " receiving client: " + receivingClientName +
+                  " data items: "       + data.length +
+                  " uniform: "          + uniform);
+        }
+
+        if (session == null) {
+            throw new NoSuchSessionException();
+        }
+
+        if (proxyThread == null) {
+            throw new ConnectionException();
+        }
+
+        id = proxyThread.getId();
+
+        synchronized (clients) {
+            if (clients.get(Util.getClientName(sendingClient)) == null) {
+                throw new NoSuchClientException();
+            }
+        }
+
+        for (int i = 1; i < data.length; i++) {
+            if (data[i].getPriority() < priority) {
+                priority = data[i].getPriority();
+            }
+        }
+
+        try {
+            thread = channelThreads[priority];
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id, type,
+                            T_SendBatch, channel.isReliable(), true, priority);
+            thread.writeName(channel.getName());
+            thread.writeName(Util.getClientName(sendingClient));
+            thread.dataOut.writeChar(recipient);
+            if (recipient == ChannelImpl.D_Client) {
+                thread.writeName(receivingClientName);
+            }
+            thread.dataOut.writeBoolean(uniform);
+            thread.dataOut.writeInt(data.length);
+            for (int i = 0; i < data.length; i++) {
+                int length = data[i].getLength();
+
+                thread.dataOut.writeInt(data[i].getPriority());
+                thread.dataOut.writeInt(length);
+                thread.dataOut.write(data[i].getDataAsBytes(), 0, length);
+            }
+            thread.flush();
+
+            if (channel.isReliable()) {
+                message = thread.waitForReply();
+                in      = message.thread.dataIn;
+                retval  = in.readInt();
+                thread.finishReply();
+            } else {
+                thread.finishMessage();
+            }
+
+            if (retval != 0) {
+                switch (retval) {
+                    case JSDTException.NO_SUCH_CHANNEL:
+                        throw new NoSuchChannelException();
+                    case JSDTException.NO_SUCH_CLIENT:
+                        throw new NoSuchClientException();
+                    case JSDTException.NO_SUCH_CONSUMER:
+                        throw new NoSuchConsumerException();
+                    case JSDTException.NO_SUCH_SESSION:
+                        session = null;
+                        throw new NoSuchSessionException();
+                    case JSDTException.PERMISSION_DENIED:
+                        throw new PermissionDeniedException();
+                    default:
+                        error("ChannelProxy: send: ",
+                              "impl.unknown.exception.type", retval);
+                }
+            }
+        } catch (IOException e) {
+            if (channel.isReliable()) {
+                thread.finishReply();
+            } else {
+                thread.finishMessage();
+            }
+            throw new ConnectionException();
+        }
+    }
+
+/**
+ * <A NAME="SD_SENDASYNC"></A>
+ * <EM>sendAsync</EM> is used to send data to clients joined to the
+ * specified channel, without waiting for the session server to handle it.
+ *
+ * On a reliable channel, a place is first reserved in the connection's send
+ * window, waiting if too many sends are already waiting to be acknowledged.
+ * The send is given the next sequence number on the connection while the
+ * message is being written, and its future is completed when the server
+ * acknowledges it. Every half window, the server is asked to acknowledge
+ * the send straight away, so the window keeps moving during a long burst.
+ *
+ * An unreliable channel has no reply anyway, so the data is just sent, and
+ * the future returned has already been completed.
+ *
+ * @param sendingClient the client sending the data.
+ * @param recipient who is going to receive this message. This can be all
+ * channel receipts (ChannelImpl.D_All), or all other channel recipients
+ * (ChannelImpl.D_Others) or just a single client (ChannelImpl.D_Client).
+ * @param receivingClientName the name of the client receiving the data, or
+ * null if we are sending this message to all (or all other) channel
+ * recipients.
+ * @param data the data being send over this channel.
+ * @param uniform set true if this is a uniform send.
+ *
+ * @return a future that is completed when the server has handled the data.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if the channel given does not exist.
+ * @exception NoSuchClientException if the client given does not exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if you do not have permission for
+ * this operation.
+ * @exception TimedOutException if there was no room for another
+ * asynchronous send in the timeout period.
+ */
+
+    public CompletableFuture<Void>
+    sendAsync(Client sendingClient, char recipient,
+              String receivingClientName, Data data, boolean uniform)
+        throws ConnectionException, InvalidClientException,
+               NoSuchChannelException, NoSuchClientException,
+               NoSuchSessionException, PermissionDeniedException,
+               TimedOutException {
+        int                     priority  = data.getPriority();
+        SocketThread            thread    = null;
+        int                     length    = data.getLength();
+        short                   sessionNo = sp.getSessionNo();
+        int                     id;
+        char                    type      = ChannelImpl.M_Channel;
+        SendWindow              window;
+        CompletableFuture<Void> future    = new CompletableFuture<>();
+        int                     sequence;
+        boolean                 added     = false;
+
+        if (ChannelProxy_Debug) {
+            debug("ChannelProxy: sendAsync:" +
+                  " sending client: "   + sendingClient +
+                  " recipient: "        + recipient +
+                  " receiving client: " + receivingClientName +
+                  " data: "             + data +
+                  " uniform: "          + uniform);
+        }
+
+        if (!channel.isReliable()) {
+            try {
+                send(sendingClient, recipient, receivingClientName,
+                     data, uniform);
+                future.complete(null);
+            } catch (NoSuchConsumerException nsce) {
+                future.completeExceptionally(nsce);
+            }
+
+            return(future);
+        }
+
+        if (session == null) {
+            throw new NoSuchSessionException();
+        }
+
+        if (proxyThread == null) {
+            throw new ConnectionException();
+        }
+
+        id = proxyThread.getId();
+
+        synchronized (clients) {
+            if (clients.get(Util.getClientName(sendingClient)) == null) {
+                throw new NoSuchClientException();
+            }
+        }
+
+        thread = channelThreads[priority];
+        window = thread.getSendWindow();
+        window.reserve();
+        try {
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id, type,
+                            T_SendAsync, false, true, priority);
+
+            sequence = window.add(future);
+            added    = true;
+            thread.writeName(channel.getName());
+            thread.dataOut.writeInt(sequence);
+            thread.dataOut.writeBoolean(window.isAcknowledgementDue(sequence));
+            thread.writeName(Util.getClientName(sendingClient));
+            thread.dataOut.writeChar(recipient);
+            if (recipient == ChannelImpl.D_Client) {
+                thread.writeName(receivingClientName);
+            }
+            thread.dataOut.writeInt(data.getPriority());
+            thread.dataOut.writeBoolean(uniform);
+            thread.dataOut.writeInt(length);
+            thread.dataOut.write(data.getDataAsBytes(), 0, length);
+            thread.flush();
+            thread.finishMessage();
+        } catch (IOException e) {
+            if (added) {
+                future.completeExceptionally(new ConnectionException());
+            } else {
+                window.cancelReservation();
+            }
+            thread.finishMessage();
+            throw new ConnectionException();
+        }
+
+        return(future);
+    }
+
 /**
  * <A NAME="SD_SETCHANNELTHREAD"></A>
  * <EM>setChannelThread</EM> creates a new thread if this is an unreliable
- * channel. If it's a reliable channel, then we set it up to use the
- * session proxy thread connection for now, but as soon as somebody sends
- * a Data message which is not at Channel.MEDIUM_PRIORITY priority, then we
- * create a separate channel proxy thread for that priority level (if one
- * doesn't already exist).
+ * channel. If it's a reliable channel, then every priority level uses the
+ * session proxy thread connection. Each Data message is written to it at its
+ * own priority, so when several threads are waiting to write, the most
+ * urgent message goes first. The channel server then delivers it through
+ * the priority lanes of each consumer's outbound queue.
  */
 
     private void
@@ -907,8 +1178,8 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
 
         if (!reliable) {
             unreliableThread = new UDPChannelProxyThread(session, channel,
-                                                sp.proxyThread.getAddress(),
-                                                sp.proxyThread.getPort());
+                                                proxyThread.getAddress(),
+                                                proxyThread.getPort());
             Util.startThread(unreliableThread,
                              "UDPChannelProxyThread:" + channel.getName(), true);
 
@@ -916,38 +1187,10 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
 
         for (int i = 0; i < Channel.MAX_PRIORITIES; i++) {
             if (reliable) {
-                channelThreads[i] = sp.proxyThread;
+                channelThreads[i] = proxyThread;
             } else {
                 channelThreads[i] = unreliableThread;
             }
         }
     }
-
-
-/**
- * <A NAME="SD_INCREMENTNOTHREADS"></A>
- * <EM>incrementNoThreads</EM> increment 'noThreads' static variable
- * in a synchronized way.
- *
- * @return int 'noThreads' value after its increment.
- */
-
-    private static synchronized int
-    incrementNoThreads() {
-        return(++noThreads);
-    }
-
-
-/**
- * <A NAME="SD_DECREMENTNOTHREADS"></A>
- * <EM>decrementNoThreads</EM> decrement 'noThreads' static variable
- * in a synchronized way.
- *
- * @return int 'noThreads' value after its decrement.
- */
-
-    static synchronized int
-    decrementNoThreads() {
-        return(--noThreads);
-    }
 }
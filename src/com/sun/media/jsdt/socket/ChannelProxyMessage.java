@@ -102,13 +102,16 @@ ChannelProxyMessage extends JSDTMessage {
         }
 
         try {
-            channelName = in.readUTF();
+            channelName = message.thread.readName();
             channel     = sp.getChannelByName(channelName);
         } catch (IOException e) {
             error("ChannelProxyMessage: parseChannelMessage: ", e);
         }
 
-        if (message.action == T_DataReceived) {          /* DATARECEIVED. */
+        if (channel == null) {
+            error("ChannelProxyMessage: parseChannelMessage: ",
+                  "impl.cannot.find", channelName);
+        } else if (message.action == T_DataReceived) {  /* DATARECEIVED. */
             ChannelProxy cp = (ChannelProxy) channel.po.getProxy();
 
             if (cp != null) {
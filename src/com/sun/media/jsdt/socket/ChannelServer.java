@@ -26,11 +26,17 @@ import com.sun.media.jsdt.impl.*;
 import com.sun.media.jsdt.event.ChannelEvent;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JSDT Channel Server-side class.
  *
- * @version     2.3 - 4th November 2017
+ * Data sent over the channel is delivered to the clients with consumers,
+ * using a copy of the list of those clients that is replaced (rather than
+ * changed) whenever a consumer is added or removed. Sends never need to
+ * lock the list, and always deliver to a consistent set of clients.
+ *
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -44,10 +50,13 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
     private ChannelImpl channel;
 
     // Clients currently joined to this channel and their data direction.
-    private Hashtable<Client, Integer> clientDataDirections = null;
+    private ConcurrentHashMap<Client, Integer> clientDataDirections = null;
 
     // The clients that have consumers and their associated channel threads.
-    private Hashtable<Client, JSDTThread> consumerThreads;
+    private ConcurrentHashMap<Client, JSDTThread> consumerThreads;
+
+    // A copy of the clients in consumerThreads, that data is delivered to.
+    private volatile Client[] consumingClients = new Client[0];
 
 
 /**
@@ -72,9 +81,9 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
         this.session    = session;
         this.channel    = (ChannelImpl) object;
 
-        clients              = new Hashtable<>();
-        clientDataDirections = new Hashtable<>();
-        consumerThreads      = new Hashtable<>();
+        clients              = new ConcurrentHashMap<>();
+        clientDataDirections = new ConcurrentHashMap<>();
+        consumerThreads      = new ConcurrentHashMap<>();
 
         super.initServer(name, session, object);
     }
@@ -153,7 +162,9 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
                                                     proxyAddress, proxyPort);
                 }
 
-                consumerThreads.put(client, replyThread);
+                if (consumerThreads.putIfAbsent(client, replyThread) == null) {
+                    updateConsumingClients();
+                }
             }
         }
 
@@ -176,12 +187,12 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
 
 /**
  * <A NAME="SD_ADDJOINEDCLIENT"></A>
- * <EM>addJoinedClient</EM> add this client to the hashtable of clients
- * currently joined to this channel. This channel is also added to the
- * vector of channels that this client is joined to for this session,
- * to make any later cleanup easier.
+ * <EM>addJoinedClient</EM> this client has just been added to the hashtable
+ * of clients currently joined to this channel. Add this channel to the
+ * vector of channels that this client is joined to for this session, to
+ * make any later cleanup easier.
  *
- * @param client the client to be added.
+ * @param client the client that was added.
  */
 
     private void
@@ -196,7 +207,6 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
                   " client: " + client);
         }
 
-        clients.put(client.getName(), client);
         clientChannels.addElement(channel);
     }
 
@@ -239,7 +249,7 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
         if (!((SessionServer) session.so).validClient(client)) {
             retval = JSDTException.NO_SUCH_CLIENT;
         } else {
-            if (clients.containsKey(clientName)) {
+            if (clients.putIfAbsent(clientName, client) != null) {
                 retval = JSDTException.NAME_IN_USE;
             } else {
                 addJoinedClient(client);
@@ -315,6 +325,7 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
             clientDataDirections.remove(client);
 
             if (consumerThreads.remove(client) != null) {
+                updateConsumingClients();
                 informListeners(session.getName(), clientName, name,
                         ChannelEvent.CONSUMER_REMOVED, ChannelImpl.M_Channel);
             }
@@ -401,8 +412,9 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
 
     protected void
     listConsumerNames(Message message) {
-        int retval = 0;
-        int size   = 0;
+        Client[] joined = clients.values().toArray(new Client[0]);
+        int      retval = 0;
+        int      size   = 0;
 
         if (ChannelServer_Debug) {
             debug("ChannelServer: listConsumerNames:" +
@@ -414,21 +426,15 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
                                    message.sessionNo, message.id,
                                    message.type, message.action, false, true);
             message.thread.dataOut.writeInt(retval);
-            for (Enumeration e = clients.elements(); e.hasMoreElements();) {
-                ClientImpl client = (ClientImpl) e.nextElement();
-
-                if (client.getConsumers().size() != 0) {
-                    size++;
+            for (int i = 0; i < joined.length; i++) {
+                if (((ClientImpl) joined[i]).getConsumers().size() != 0) {
+                    joined[size++] = joined[i];
                 }
             }
             message.thread.dataOut.writeInt(size);
 
-            for (Enumeration e = clients.elements(); e.hasMoreElements();) {
-                ClientImpl client = (ClientImpl) e.nextElement();
-
-                if (client.getConsumers().size() != 0) {
-                    message.thread.dataOut.writeUTF(client.getName());
-                }
+            for (int i = 0; i < size; i++) {
+                message.thread.dataOut.writeUTF(joined[i].getName());
             }
 
             message.thread.flush();
@@ -467,7 +473,9 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
  * <A NAME="SD_SEND"></A>
  * <EM>send</EM> is used to send a data message to the appropriate listeners
  * on the channel. This can be a single client, all clients or all other
- * clients except the sender.
+ * clients except the sender. The message is added to the outbound queue of
+ * each recipient's connection, rather than written out directly, so that
+ * one slow consumer can't hold up delivery to all the others.
  *
  * @param message
  * @param channelName
@@ -475,6 +483,83 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
 
     void
     send(Message message, String channelName) {
+        int retval;
+
+        if (ChannelServer_Debug) {
+            debug("ChannelServer: send:" +
+                  " message: "      + message +
+                  " channel name: " + channelName);
+        }
+
+        retval = receiveData(message, channelName);
+
+        if (channel.isReliable()) {
+            try {
+                message.thread.writeMessageHeader(message.thread.dataOut,
+                                message.sessionNo, message.id,
+                                message.type, message.action, false, true);
+                message.thread.dataOut.writeInt(retval);
+                message.thread.flush();
+                message.thread.finishMessage();
+            } catch (IOException e) {
+                error("ChannelServer: send: ", e);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_SENDASYNC"></A>
+ * <EM>sendAsync</EM> is used to send a data message from an asynchronous
+ * send to the appropriate listeners on the channel. This is just like
+ * <CODE>send</CODE>, except that there is no reply. Instead the connection
+ * it arrived on acknowledges it, along with all the asynchronous sends
+ * before it.
+ *
+ * @param message
+ * @param channelName
+ * @param sequence the sequence number of the send on its connection.
+ * @param now set true if the send should be acknowledged straight away.
+ */
+
+    void
+    sendAsync(Message message, String channelName, int sequence,
+              boolean now) {
+        int retval;
+
+        if (ChannelServer_Debug) {
+            debug("ChannelServer: sendAsync:" +
+                  " message: "      + message +
+                  " channel name: " + channelName +
+                  " sequence: "     + sequence +
+                  " now: "          + now);
+        }
+
+        retval = receiveData(message, channelName);
+
+        try {
+            ((SocketThread) message.thread).acknowledge(message, sequence,
+                                                        retval, now);
+        } catch (IOException e) {
+            error("ChannelServer: sendAsync: ", e);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_RECEIVEDATA"></A>
+ * <EM>receiveData</EM> read the data message being sent, and add it to the
+ * outbound queue of each recipient's connection.
+ *
+ * @param message
+ * @param channelName
+ *
+ * @return zero if the data was queued, otherwise the JSDTException type of
+ * the reason it wasn't.
+ */
+
+    private int
+    receiveData(Message message, String channelName) {
         DataInputStream  in           = message.thread.dataIn;
         String           senderName   = null;
         char             recipient    = 0;
@@ -483,29 +568,135 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
         int              length       = 0;
         byte[]           data         = null;
         int              retval       = 0;
-        Client           sender;
 
         if (ChannelServer_Debug) {
-            debug("ChannelServer: send:" +
+            debug("ChannelServer: receiveData:" +
                   " message: "      + message +
                   " channel name: " + channelName);
         }
 
         try {
-            senderName = in.readUTF();
+            senderName = message.thread.readName();
             recipient  = in.readChar();
             if (recipient == ChannelImpl.D_Client) {
-                receiverName = in.readUTF();
+                receiverName = message.thread.readName();
             }
             priority  = in.readInt();
             in.readBoolean();
             length    = in.readInt();
             data      = message.thread.getData(length);
         } catch (IOException e) {
-            error("ChannelServer: send: ", e);
+            error("ChannelServer: receiveData: ", e);
+        }
+
+        retval = checkSender(message, senderName);
+        if (retval == 0) {
+            BroadcastFrame frame = new BroadcastFrame(message.sessionNo,
+                                                      message.type,
+                                                      channelName, senderName,
+                                                      priority, data, length);
+
+            retval = deliver(new BroadcastFrame[] { frame }, recipient,
+                             senderName, receiverName);
+        }
+
+        return(retval);
+    }
+
+
+/**
+ * <A NAME="SD_SENDBATCH"></A>
+ * <EM>sendBatch</EM> is used to send a batch of data messages to the
+ * appropriate listeners on the channel. This can be a single client, all
+ * clients or all other clients except the sender. Each data message is
+ * encoded once, and the whole batch is added to the outbound queue of each
+ * recipient's connection as a single entry, so that it is written out in
+ * order. There is just one reply for the whole batch.
+ *
+ * @param message
+ * @param channelName
+ */
+
+    void
+    sendBatch(Message message, String channelName) {
+        DataInputStream  in           = message.thread.dataIn;
+        String           senderName   = null;
+        char             recipient    = 0;
+        String           receiverName = null;
+        BroadcastFrame[] frames       = null;
+        int              retval       = 0;
+
+        if (ChannelServer_Debug) {
+            debug("ChannelServer: sendBatch:" +
+                  " message: "      + message +
+                  " channel name: " + channelName);
+        }
+
+        try {
+            senderName = message.thread.readName();
+            recipient  = in.readChar();
+            if (recipient == ChannelImpl.D_Client) {
+                receiverName = message.thread.readName();
+            }
+            in.readBoolean();
+            frames = new BroadcastFrame[in.readInt()];
+            for (int i = 0; i < frames.length; i++) {
+                int    priority = in.readInt();
+                int    length   = in.readInt();
+                byte[] data     = message.thread.getData(length);
+
+                frames[i] = new BroadcastFrame(message.sessionNo,
+                                               message.type,
+                                               channelName, senderName,
+                                               priority, data, length);
+            }
+        } catch (IOException e) {
+            error("ChannelServer: sendBatch: ", e);
+        }
+
+        retval = checkSender(message, senderName);
+        if (retval == 0 && frames != null && frames.length != 0) {
+            retval = deliver(frames, recipient, senderName, receiverName);
+        }
+
+        if (channel.isReliable()) {
+            try {
+                message.thread.writeMessageHeader(message.thread.dataOut,
+                                message.sessionNo, message.id,
+                                message.type, message.action, false, true);
+                message.thread.dataOut.writeInt(retval);
+                message.thread.flush();
+                message.thread.finishMessage();
+            } catch (IOException e) {
+                error("ChannelServer: sendBatch: ", e);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_CHECKSENDER"></A>
+ * <EM>checkSender</EM> checks that the given client is allowed to send data
+ * over this channel from the connection the message arrived on.
+ *
+ * @param message the message containing the data.
+ * @param senderName the name of the client sending the data.
+ *
+ * @return zero if the client can send the data, otherwise the JSDTException
+ * type of the reason it can't.
+ */
+
+    private int
+    checkSender(Message message, String senderName) {
+        Client sender = getClientByName(senderName);
+        int    retval = 0;
+
+        if (ChannelServer_Debug) {
+            debug("ChannelServer: checkSender:" +
+                  " message: "     + message +
+                  " sender name: " + senderName);
         }
 
-        sender = getClientByName(senderName);
         if (sender == null) {
             retval = JSDTException.NO_SUCH_CLIENT;
         } else {
@@ -519,83 +710,112 @@ ChannelServer extends ManageableServer implements AbstractChannelServer {
             }
         }
 
-        if (retval == 0) {
-            if (recipient == ChannelImpl.D_All ||
-                recipient == ChannelImpl.D_Others) {
-                Enumeration e, k;
+        return(retval);
+    }
 
-                for (e = consumerThreads.elements(),
-                     k = consumerThreads.keys(); e.hasMoreElements();) {
-                    SocketThread thread = (SocketThread) e.nextElement();
-                    Client       client = (Client)       k.nextElement();
 
-                    if (recipient == ChannelImpl.D_Others) {
-                        String name = client.getName();
+/**
+ * <A NAME="SD_DELIVER"></A>
+ * <EM>deliver</EM> adds the encoded data messages to the outbound queue of
+ * each recipient's connection. All the messages go to each recipient as a
+ * single outbound queue entry.
+ *
+ * @param frames the encoded data messages.
+ * @param recipient who is going to receive the data (ChannelImpl.D_All,
+ * ChannelImpl.D_Others or ChannelImpl.D_Client).
+ * @param senderName the name of the client sending the data.
+ * @param receiverName the name of the client receiving the data, if it's
+ * being sent to a single client.
+ *
+ * @return zero if the data was queued, otherwise the JSDTException type of
+ * the reason it wasn't.
+ */
 
-                        if (name.equals(senderName)) {
-                            continue;
-                        }
-                    }
+    private int
+    deliver(BroadcastFrame[] frames, char recipient,
+            String senderName, String receiverName) {
+        int retval = 0;
 
-                    try {
-                        thread.writeMessageHeader(thread.dataOut,
-                                    message.sessionNo, 0, message.type,
-                                    T_DataReceived, false, true);
-                        thread.dataOut.writeUTF(channelName);
-                        thread.dataOut.writeUTF(senderName);
-                        thread.dataOut.writeUTF(client.getName());
-                        thread.dataOut.writeInt(priority);
-                        thread.dataOut.writeInt(length);
-                        thread.dataOut.write(data, 0, length);
-                        thread.flush();
-                        thread.finishMessage();
-                    } catch (IOException ce) {
-                        error("ChannelServer: send: ", ce);
-                    }
+        if (ChannelServer_Debug) {
+            debug("ChannelServer: deliver:" +
+                  " frames: "        + frames.length +
+                  " recipient: "     + recipient +
+                  " sender name: "   + senderName +
+                  " receiver name: " + receiverName);
+        }
+
+        for (int i = 0; i < frames.length; i++) {
+            frames[i].retain();
+        }
+
+        if (recipient == ChannelImpl.D_All ||
+            recipient == ChannelImpl.D_Others) {
+            Client[] consumers = consumingClients;
+
+            for (int i = 0; i < consumers.length; i++) {
+                Client       client = consumers[i];
+                SocketThread thread;
+
+                if ((thread = (SocketThread)
+                                consumerThreads.get(client)) == null) {
+                    continue;
                 }
-            } else {
-                SocketThread thread = getThreadForClient(receiverName);
-
-                if (thread != null) {
-                    ClientImpl client    = getClientByName(receiverName);
-                    Hashtable  consumers = client.getConsumers();
-
-                    if (consumers.size() == 0) {
-                        retval = JSDTException.NO_SUCH_CONSUMER;
-                    } else {
-                        try {
-                            thread.writeMessageHeader(thread.dataOut,
-                                message.sessionNo, 0,
-                                message.type, T_DataReceived, false, true);
-                            thread.dataOut.writeUTF(channelName);
-                            thread.dataOut.writeUTF(senderName);
-                            thread.dataOut.writeUTF(receiverName);
-                            thread.dataOut.writeInt(priority);
-                            thread.dataOut.writeInt(length);
-                            thread.dataOut.write(data, 0, length);
-                            thread.flush();
-                            thread.finishMessage();
-                        } catch (IOException e) {
-                            retval = JSDTException.NO_SUCH_CLIENT;
-                        }
+
+                if (recipient == ChannelImpl.D_Others) {
+                    String name = client.getName();
+
+                    if (name.equals(senderName)) {
+                        continue;
                     }
-                } else {
+                }
+
+                thread.getOutboundQueue().putMessage(
+                    new OutboundMessage(frames, client.getName()));
+            }
+        } else {
+            SocketThread thread = getThreadForClient(receiverName);
+
+            if (thread != null) {
+                ClientImpl client = getClientByName(receiverName);
+
+                if (client == null) {
                     retval = JSDTException.NO_SUCH_CLIENT;
+                } else if (client.getConsumers().size() == 0) {
+                    retval = JSDTException.NO_SUCH_CONSUMER;
+                } else {
+                    OutboundMessage m = new OutboundMessage(frames,
+                                                            receiverName);
+
+                    if (!thread.getOutboundQueue().putMessage(m)) {
+                        retval = JSDTException.NO_SUCH_CLIENT;
+                    }
                 }
+            } else {
+                retval = JSDTException.NO_SUCH_CLIENT;
             }
         }
 
-        if (channel.isReliable()) {
-            try {
-                message.thread.writeMessageHeader(message.thread.dataOut,
-                                message.sessionNo, message.id,
-                                message.type, message.action, false, true);
-                message.thread.dataOut.writeInt(retval);
-                message.thread.flush();
-                message.thread.finishMessage();
-            } catch (IOException e) {
-                error("ChannelServer: send: ", e);
-            }
+        for (int i = 0; i < frames.length; i++) {
+            frames[i].release();
         }
+
+        return(retval);
+    }
+
+
+/**
+ * <A NAME="SD_UPDATECONSUMINGCLIENTS"></A>
+ * <EM>updateConsumingClients</EM> a client has been added to, or removed
+ * from, the clients with consumers. Replace the copy of them that data is
+ * delivered to.
+ */
+
+    private synchronized void
+    updateConsumingClients() {
+        if (ChannelServer_Debug) {
+            debug("ChannelServer: updateConsumingClients.");
+        }
+
+        consumingClients = consumerThreads.keySet().toArray(new Client[0]);
     }
 }
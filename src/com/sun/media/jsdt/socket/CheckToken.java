@@ -21,13 +21,12 @@
 
 package com.sun.media.jsdt.socket;
 
-import com.sun.media.jsdt.Token;
 import com.sun.media.jsdt.impl.*;
 
 /**
  * JSDT Check token status class.
  *
- * @version     2.3 - 20th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -67,28 +66,20 @@ CheckToken extends JSDTObject implements Runnable, socketDebugFlags {
 
 /**
  * <A NAME="SD_RUN"></A>
- * <EM>run</EM> wait for a certain period of time. If the token's status is
- * still giving, then the client didn't accept the token, so reset the status
- * back to it's previous value.
+ * <EM>run</EM> called by the timer once the give period has passed. If the
+ * token's status is still giving, then the client didn't accept the token,
+ * so the token server resets the status back to it's previous value and
+ * works through its grab queue again.
  */
 
     public void
     run() {
-        TokenServer ts         = (TokenServer) token.so.getServer();
-        long        givePeriod = Util.getLongProperty("giveTime", giveTime);
+        TokenServer ts = (TokenServer) token.so.getServer();
 
         if (CheckToken_Debug) {
             debug("CheckToken: run.");
         }
 
-        try {
-            Thread.sleep(givePeriod);
-        } catch (Exception e) {
-            error("CheckToken: run: ", e);
-        }
-
-        if (ts.getTokenStatus() == Token.GIVING) {
-            ts.setTokenStatus(previousStatus);
-        }
+        ts.giveTimedOut(previousStatus);
     }
 }
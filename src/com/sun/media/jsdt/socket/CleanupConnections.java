@@ -25,9 +25,9 @@ import com.sun.media.jsdt.impl.*;
 import java.util.*;
 
 /**
- * JSDT cleanup connections thread class.
+ * JSDT cleanup connections class.
  *
- * @version     2.3 - 20th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  * @author      Manfred N. Riem
  */
@@ -44,15 +44,16 @@ CleanupConnections extends JSDTObject implements Runnable, socketDebugFlags {
     // The threads currently pinging, keyed by id.
     private Hashtable<Integer, JSDTThread> pingThreads = null;
 
-    // A boolean to signal if we should shutdown the thread.
-    private boolean shutdown = false;
+    // The next check on the timer (or null if the checks are stopped).
+    private JSDTTimeout check = null;
 
 /**
  * <A NAME="SD_CLEANUPCONNECTIONS"></A>
  * <EM>CleanupConnections</EM> is a constructor for the CleanupConnections
- * class. This thread will continually check to see if we haven't heard from
- * any of the ids in the given cleanup period. If we haven't, then we need
- * to cleanup all resources associated with that id.
+ * class. Once started, this will periodically check to see if we haven't
+ * heard from any of the ids in the given cleanup period. If we haven't, then
+ * we need to cleanup all resources associated with that id. The checks are
+ * scheduled on the timer, rather than run on a thread of their own.
  *
  * @param sessionServer the session server that started this ping thread.
  */
@@ -145,35 +146,63 @@ CleanupConnections extends JSDTObject implements Runnable, socketDebugFlags {
 
 /**
  * <A NAME="SD_RUN"></A>
- * <EM>run</EM>
+ * <EM>run</EM> called by the timer every keep alive period to check the
+ * connections, until the checks are stopped.
  */
 
     public void
     run() {
+        long alivePeriod = Util.getLongProperty("keepAlivePeriod",
+                                                keepAlivePeriod);
+
         if (CleanupConnections_Debug) {
             debug("CleanupConnections: run.");
         }
 
-        while (!shutdown) {
-            checkConnections();
+        checkConnections();
 
-            try {
-                Thread.sleep(keepAlivePeriod);
-            } catch (InterruptedException ie) {
+        synchronized (this) {
+            if (check != null) {
+                check = Util.getTimer().schedule(this, alivePeriod);
             }
         }
+    }
+
+
+/**
+ * <A NAME="SD_START"></A>
+ * <EM>start</EM> start checking the connections every keep alive period.
+ */
+
+    synchronized void
+    start() {
+        long alivePeriod = Util.getLongProperty("keepAlivePeriod",
+                                                keepAlivePeriod);
 
         if (CleanupConnections_Debug) {
-            debug("CleanupConnections: run exiting.");
+            debug("CleanupConnections: start.");
+        }
+
+        if (check == null) {
+            check = Util.getTimer().schedule(this, alivePeriod);
         }
     }
 
-    /**
-     * Sets if we should shutdown the run method. <p>
-     *
-     * @param shutdown <b>true</b> if we should shutdown, <b>false</b> if not.
-     */
-    void setShutdown(boolean shutdown) {
-        this.shutdown = shutdown;
+
+/**
+ * <A NAME="SD_STOP"></A>
+ * <EM>stop</EM> stop checking the connections.
+ */
+
+    synchronized void
+    stop() {
+        if (CleanupConnections_Debug) {
+            debug("CleanupConnections: stop.");
+        }
+
+        if (check != null) {
+            check.cancel();
+            check = null;
+        }
     }
 }
@@ -29,9 +29,9 @@ import java.io.*;
 import java.util.*;
 
 /**
- * JSDT Check connections thread class.
+ * JSDT Check connections class.
  *
- * @version     2.3 - 19th December 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  * @author      Manfred N. Riem
  */
@@ -46,8 +46,8 @@ ConnectionThread extends JSDTObject implements Runnable, socketDebugFlags {
     private final Hashtable<ConnectionListener, Integer>
                       listeners = new Hashtable<>();
 
-    // The thread running this ConnectionThread object.
-    private final Thread thread;
+    // The next keep alive check on the timer (or null if none is due).
+    private JSDTTimeout keepAlive = null;
 
     // The time of the last successful reply to a ping message.
     private long lastPingTime = System.currentTimeMillis();
@@ -57,8 +57,10 @@ ConnectionThread extends JSDTObject implements Runnable, socketDebugFlags {
 /**
  * <A NAME="SD_CONNECTIONTHREAD"></A>
  * <EM>ConnectionThread</EM> is a constructor for the ConnectionThread class.
- * This thread will continually check all this applications connections to
- * its server(s), and notify any listeners if there is a connection failure.
+ * While there are connection listeners, this will periodically check all
+ * this applications connections to its server(s), and notify the listeners
+ * if there is a connection failure. The checks are scheduled on the timer,
+ * rather than run on a thread of their own.
  *
  * @param sessions the sessions currently bound.
  */
@@ -71,8 +73,6 @@ ConnectionThread extends JSDTObject implements Runnable, socketDebugFlags {
         }
 
         this.sessions = sessions;
-        thread        = Util.startThread(this, "ConnectionThread", true);
-
     }
 
 
@@ -109,9 +109,7 @@ ConnectionThread extends JSDTObject implements Runnable, socketDebugFlags {
             listeners.put(listener, 0XFFFFFFFF);
         }
 
-        synchronized (this) {
-            notifyAll();
-        }
+        scheduleKeepAlive();
     }
 
 
@@ -141,10 +139,6 @@ ConnectionThread extends JSDTObject implements Runnable, socketDebugFlags {
                 throw new NoSuchListenerException();
             }
         }
-
-        synchronized (this) {
-            notifyAll();
-        }
     }
 
 
@@ -214,7 +208,7 @@ ConnectionThread extends JSDTObject implements Runnable, socketDebugFlags {
 
 /**
  * <A NAME="SD_STOP"></A>
- * <EM>stop</EM> will terminate this thread.
+ * <EM>stop</EM> will stop the keep alive checks.
  */
 
     void
@@ -223,8 +217,13 @@ ConnectionThread extends JSDTObject implements Runnable, socketDebugFlags {
             debug("ConnectionThread: stop.");
         }
 
-        setShutdown(true);
-        thread.interrupt();
+        synchronized (this) {
+            setShutdown(true);
+            if (keepAlive != null) {
+                keepAlive.cancel();
+                keepAlive = null;
+            }
+        }
     }
 
 
@@ -276,48 +275,49 @@ ConnectionThread extends JSDTObject implements Runnable, socketDebugFlags {
 
 /**
  * <A NAME="SD_RUN"></A>
- * <EM>run</EM>
+ * <EM>run</EM> called by the timer every keep alive period, to check the
+ * connections while there are still listeners.
  */
 
     public void
     run() {
-        long alivePeriod = Util.getLongProperty("keepAlivePeriod",
-                                                keepAlivePeriod);
-
         if (ConnectionThread_Debug) {
             debug("ConnectionThread: run.");
         }
 
-        while (!shutdown) {
-            synchronized (this) {
-                while (listeners.size() == 0) {
-                    try {
-                        wait();
-                    } catch (InterruptedException ie) {
-                        break;
-                    }
-                }
-            }
-
-            if (listeners.size()>0) {
-                sendMessage(T_IsAlive);
-            }
+        synchronized (this) {
+            keepAlive = null;
+        }
 
-            if (!shutdown) {
-                try {
-                    Thread.sleep(alivePeriod);
-                }
-                catch (InterruptedException ie) {}
-            }
+        if (listeners.size() > 0) {
+            sendMessage(T_IsAlive);
+            scheduleKeepAlive();
         }
+    }
+
+
+/**
+ * <A NAME="SD_SCHEDULEKEEPALIVE"></A>
+ * <EM>scheduleKeepAlive</EM> schedule the next keep alive check, unless
+ * there is already one due.
+ */
+
+    private synchronized void
+    scheduleKeepAlive() {
+        long alivePeriod = Util.getLongProperty("keepAlivePeriod",
+                                                keepAlivePeriod);
 
         if (ConnectionThread_Debug) {
-            debug("ConnectionThread: run ended.");
+            debug("ConnectionThread: scheduleKeepAlive.");
+        }
+
+        if (!shutdown && keepAlive == null) {
+            keepAlive = Util.getTimer().schedule(this, alivePeriod);
         }
     }
 
     /**
-     * Sets if we should shutdown this thread. <p>
+     * Sets if we should stop the keep alive checks. <p>
      *
      * @param shutdown <b>true</b> if we should shutdown, <b>false</b> if not.
      */
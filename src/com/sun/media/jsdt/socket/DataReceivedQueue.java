@@ -21,72 +21,153 @@
 
 package com.sun.media.jsdt.socket;
 
+import com.sun.media.jsdt.Channel;
 import com.sun.media.jsdt.Data;
+import com.sun.media.jsdt.impl.JSDTMonitor;
 import com.sun.media.jsdt.impl.JSDTObject;
 import com.sun.media.jsdt.impl.Util;
 import java.util.Vector;
 
 /**
- * The queue of client-side data received messages.
+ * The queue of client-side data received messages for a channel. Each
+ * channel proxy has its own queue (and its own data received thread, which
+ * is started when there are messages to deliver, and exits again when there
+ * haven't been any for a while), so a slow consumer on one channel doesn't
+ * hold up the delivery of data on any other channel.
  *
- * @version     2.3 - 5th November 2017
+ * Messages are delivered in priority order. Any waiting TOP_PRIORITY
+ * messages are delivered first, then any HIGH_PRIORITY messages, and so on.
+ * Messages at the same priority are delivered in the order they arrived.
+ *
+ * What happens when the queue is full depends upon the "receiveQueuePolicy"
+ * property, which can be one of:
+ *
+ * bounded    - (the default) for an unreliable channel, as dropOldest; for
+ *              a reliable channel, as block, but only once the queue holds
+ *              "maxReliableQueueSize" messages.
+ * block      - the socket reader waits until there is room in the queue.
+ * dropOldest - the oldest of the lowest priority messages is thrown away.
+ * dropNewest - the new message is thrown away.
+ * unbounded  - the queue is allowed to keep growing.
+ *
+ * Apart from "bounded" on a reliable channel, the queue is full when it
+ * holds "maxQueueSize" messages.
+ *
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
 public final class
 DataReceivedQueue extends JSDTObject implements socketDebugFlags {
 
-    // Vector of incoming data messages received from the channel server.
-    private Vector<DataReceivedMessage> messages = null;
+    // The possible queue overflow policies.
+    static final String BOUNDED     = "bounded";
+    static final String UNBOUNDED   = "unbounded";
+    static final String BLOCK       = "block";
+    static final String DROP_OLDEST = "dropOldest";
+    static final String DROP_NEWEST = "dropNewest";
+
+    // The channel proxy that this queue delivers data for.
+    private final ChannelProxy channelProxy;
+
+    // Indicates whether the channel this queue delivers data for is reliable.
+    private final boolean reliable;
+
+    // The monitor guarding the queue of incoming data messages.
+    private final JSDTMonitor monitor = new JSDTMonitor();
+
+    // Incoming data messages received from the channel server (by priority).
+    private final Vector<Vector<DataReceivedMessage>> messages;
+
+    // The total number of messages waiting to be delivered.
+    private int size = 0;
+
+    // Indicates whether there is a data received thread for this queue.
+    private boolean delivering = false;
 
     // Indicates whether we have finished with the data received queue.
     boolean finished = false;
 
+    // The largest number of messages that have been waiting at once.
+    private int highWater = 0;
+
+    // The number of messages thrown away because the queue was full.
+    private long dropped = 0;
+
 
 /**
  * <A NAME="SD_DATARECEIVEDQUEUE"></A>
  * <EM>DataReceivedQueue</EM> the constructor for the DataReceivedQueue class.
+ *
+ * @param channelProxy the channel proxy that this queue delivers data for.
+ * @param reliable whether the channel this queue delivers data for is
+ * reliable.
  */
 
-    DataReceivedQueue() {
+    DataReceivedQueue(ChannelProxy channelProxy, boolean reliable) {
         if (DataReceivedQueue_Debug) {
-            debug("DataReceivedQueue: constructor.");
+            debug("DataReceivedQueue: constructor:" +
+                  " channel proxy: " + channelProxy +
+                  " reliable? "      + reliable);
         }
 
+        this.channelProxy = channelProxy;
+        this.reliable     = reliable;
         messages = new Vector<>();
+        for (int i = 0; i < Channel.MAX_PRIORITIES; i++) {
+            messages.addElement(new Vector<>());
+        }
     }
 
 
 /**
  * <A NAME="SD_GETMESSAGE"></A>
- * <EM>getMessage</EM> gets the next message from the queue of incoming
- * messages. If the message queue is currently empty, it will wait until a
- * new message arrives.
+ * <EM>getMessage</EM> gets the highest priority message from the queue of
+ * incoming messages. If the message queue is currently empty, it will wait
+ * a short while for a new message to arrive.
  *
- * @return the next message to be processed.
+ * @return the next message to be processed, or null if the data received
+ * thread should exit.
  */
 
-    synchronized DataReceivedMessage
+    DataReceivedMessage
     getMessage() {
-        DataReceivedMessage message;
+        DataReceivedMessage message = null;
 
         if (DataReceivedQueue_Debug) {
             debug("DataReceivedQueue: getMessage.");
         }
 
-        notifyAll();
-        while (messages.size() == 0) {
-            try {
-                if (!finished) {
-                    wait();
-                } else {
-                    return(null);
+        monitor.enter();
+        try {
+            if (!finished && size == 0) {
+                try {
+                    monitor.await(Util.getLongProperty("keepAlivePeriod",
+                                                       keepAlivePeriod));
+                } catch (InterruptedException ie) {
+                }
+            }
+
+            if (finished || size == 0) {
+                delivering = false;
+                return(null);
+            }
+
+            for (int i = 0; i < messages.size(); i++) {
+                Vector<DataReceivedMessage> queue = messages.elementAt(i);
+
+                if (queue.size() != 0) {
+                    message = queue.firstElement();
+                    queue.removeElementAt(0);
+                    size--;
+                    break;
                 }
-            } catch (InterruptedException ie) {
             }
+            monitor.signalAll();
+        } finally {
+            monitor.exit();
         }
-        message = messages.firstElement();
-        messages.removeElement(message);
+
         return(message);
     }
 
@@ -104,11 +185,13 @@ DataReceivedQueue extends JSDTObject implements socketDebugFlags {
  * @param data the messages bytes (converted to a Data object).
  */
 
-    synchronized void
+    void
     putMessage(ChannelProxy channelProxy, String receiverName,
                boolean isOrdered, Data data) {
         int                 queueSize = Util.getIntProperty("maxQueueSize",
                                                             maxQueueSize);
+        String              policy    = Util.getStringProperty(
+                                  "receiveQueuePolicy", receiveQueuePolicy);
         DataReceivedMessage message   = new DataReceivedMessage();
 
         if (DataReceivedQueue_Debug) {
@@ -116,18 +199,143 @@ DataReceivedQueue extends JSDTObject implements socketDebugFlags {
                   " channel proxy: " + channelProxy +
                   " receiver name: " + receiverName +
                   " isOrdered? "     + isOrdered +
-                  " data: "          + data);
+                  " data: "          + data +
+                  " policy: "        + policy);
+        }
+
+        if (policy.equals(BOUNDED)) {
+            if (reliable) {
+                policy    = BLOCK;
+                queueSize = Util.getIntProperty("maxReliableQueueSize",
+                                                maxReliableQueueSize);
+            } else {
+                policy = DROP_OLDEST;
+            }
         }
 
         message.setMessageInfo(channelProxy, receiverName, isOrdered, data);
-        while (messages.size() == queueSize) {
-            try {
-                wait();
-            } catch (InterruptedException ie) {
+        monitor.enter();
+        try {
+            if (finished) {
+                return;
+            }
+
+            if (size >= queueSize && !policy.equals(UNBOUNDED)) {
+                if (policy.equals(DROP_OLDEST)) {
+                    removeOldest();
+                    dropped++;
+                } else if (policy.equals(DROP_NEWEST)) {
+                    dropped++;
+                    return;
+                } else {
+                    while (!finished && size >= queueSize) {
+                        try {
+                            monitor.await();
+                        } catch (InterruptedException ie) {
+                        }
+                    }
+
+                    if (finished) {
+                        return;
+                    }
+                }
+            }
+
+            messages.elementAt(data.getPriority()).addElement(message);
+            if (++size > highWater) {
+                highWater = size;
+            }
+
+            if (!delivering) {
+                delivering = true;
+                Util.startThread(new DataReceivedThread(this),
+                                 "DataReceivedThread:" +
+                                 this.channelProxy.name, true);
+            } else {
+                monitor.signalAll();
             }
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_REMOVEOLDEST"></A>
+ * <EM>removeOldest</EM> throw away the oldest of the lowest priority
+ * messages in the queue. The caller must be inside the monitor for this
+ * queue.
+ */
+
+    private void
+    removeOldest() {
+        if (DataReceivedQueue_Debug) {
+            debug("DataReceivedQueue: removeOldest.");
+        }
+
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            Vector<DataReceivedMessage> queue = messages.elementAt(i);
+
+            if (queue.size() != 0) {
+                queue.removeElementAt(0);
+                size--;
+                return;
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETSIZE"></A>
+ * <EM>getSize</EM>
+ *
+ * @return the number of messages currently waiting in this queue.
+ */
+
+    int
+    getSize() {
+        monitor.enter();
+        try {
+            return(size);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETHIGHWATER"></A>
+ * <EM>getHighWater</EM>
+ *
+ * @return the largest number of messages that have been waiting at once.
+ */
+
+    int
+    getHighWater() {
+        monitor.enter();
+        try {
+            return(highWater);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETDROPPED"></A>
+ * <EM>getDropped</EM>
+ *
+ * @return the number of messages thrown away because the queue was full.
+ */
+
+    long
+    getDropped() {
+        monitor.enter();
+        try {
+            return(dropped);
+        } finally {
+            monitor.exit();
         }
-        messages.addElement(message);
-        notifyAll();
     }
 
 
@@ -136,13 +344,34 @@ DataReceivedQueue extends JSDTObject implements socketDebugFlags {
  * <EM>terminate</EM>
  */
 
-    final synchronized void
+    final void
     terminate() {
         if (DataReceivedQueue_Debug) {
             debug("DataReceivedQueue: terminate.");
         }
 
-        finished = true;
-        notifyAll();
+        monitor.enter();
+        try {
+            finished = true;
+            monitor.signalAll();
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this DataReceivedQueue.
+ *
+ * @return a String containing a description of this DataReceivedQueue.
+ */
+
+    public String
+    toString() {
+        return("DataReceivedQueue:" +
+                " size: "       + getSize() +
+                " high water: " + getHighWater() +
+                " dropped: "    + getDropped() + "\n");
     }
 }
@@ -39,27 +39,21 @@ DataReceivedThread extends JSDTObject implements Runnable, socketDebugFlags {
     /** The queue of client-side data received messages. */
     private DataReceivedQueue queue = null;
 
-    /** The ChannelProxy which has created this DataReceivedThread */
-    private ChannelProxy channelProxy = null;
-
 
 /**
  * <A NAME="SD_DATARECEIVEDTHREAD"></A>
  * <EM>DataReceivedThread</EM> the constructor for the DataReceivedThread class.
  *
  * @param queue
- * @param channelProxy
  */
 
-    DataReceivedThread(DataReceivedQueue queue, ChannelProxy channelProxy) {
+    DataReceivedThread(DataReceivedQueue queue) {
         if (DataReceivedThread_Debug) {
             debug("DataReceivedThread: constructor:" +
-                  "\n   queue: "         + queue +
-                  "\n   channel proxy: " + channelProxy);
+                  "\n   queue: " + queue);
         }
 
         this.queue = queue;
-        this.channelProxy = channelProxy;
     }
 
 
@@ -73,10 +67,13 @@ DataReceivedThread extends JSDTObject implements Runnable, socketDebugFlags {
 
     private void
     handleMessage(DataReceivedMessage message) {
-        String       receiverName = message.getReceiverName();
-        Data         data         = message.getData();
-        ChannelProxy cp           = message.getChannelProxy();
-        Client       client       = cp.clients.get(receiverName);
+        String         receiverName = message.getReceiverName();
+        Data           data         = message.getData();
+        ChannelProxy   cp           = message.getChannelProxy();
+        Client         client       = cp.clients.get(receiverName);
+        JSDTThreadPool pool         = ChannelProxy.getConsumerPool();
+        boolean        serialize    = Util.getBooleanProperty(
+                                "serializeConsumers", serializeConsumers);
 
         if (DataReceivedThread_Debug) {
             debug("DataReceivedThread: handleMessage:" +
@@ -102,8 +99,11 @@ DataReceivedThread extends JSDTObject implements Runnable, socketDebugFlags {
                                 ConsumerMessage cm = new ConsumerMessage();
 
                                 cm.setConsumerInfo(consumer, data);
-                                Util.startThread(cm, "ConsumerMessageThread:" +
-                                                     c.getName(), true);
+                                if (serialize) {
+                                    pool.execute(consumer, cm);
+                                } else {
+                                    pool.execute(cm);
+                                }
                             }
                         } catch (Throwable th) {
                             error("DataReceivedThread: handleMessage: ",
@@ -119,8 +119,9 @@ DataReceivedThread extends JSDTObject implements Runnable, socketDebugFlags {
 /**
  * <A NAME="SD_RUN"></A>
  * <EM>run</EM> handle incoming data messages as they are received from the
- * channel server. The messages will be inserting into the messages vector
- * by the channel proxy.
+ * channel server. The messages will be inserted into the queue by the
+ * channel proxy. This thread exits when the queue has been empty for a
+ * while, and the queue starts a new one when more messages arrive.
  */
 
     public void
@@ -129,23 +130,18 @@ DataReceivedThread extends JSDTObject implements Runnable, socketDebugFlags {
             debug("DataReceivedThread: run.");
         }
 
-        try {
-            while (!queue.finished) {
-                DataReceivedMessage message;
+        DataReceivedMessage message;
 
-                if ((message = queue.getMessage()) != null) {
-                    handleMessage(message);
-                }
+        while ((message = queue.getMessage()) != null) {
+            try {
+                handleMessage(message);
+            } catch (Exception e) {
+                error("DataReceivedThread: run: ", e);
             }
-        } catch (Exception e) {
-            error("DataReceivedThread: run: ", e);
         }
 
         if (DataReceivedThread_Debug) {
             debug("DataReceivedThread: run : messages handled.");
         }
-
-        /* Decrement thread counter of creator ChannelProxy instance. */
-        this.channelProxy.decrementNoThreads();
     }
 }
@@ -177,7 +177,7 @@ JSDTMessage extends JSDTObject implements socketDebugFlags {
         }
 
         try {
-            clientName = in.readUTF();
+            clientName = message.thread.readName();
             type       = in.readInt();
         } catch (IOException e) {
             error("JSDTMessage: informListeners: ", e);
@@ -197,8 +197,7 @@ JSDTMessage extends JSDTObject implements socketDebugFlags {
                             new ListenerMessage(listener, session,
                                         resourceName, clientName, m, type);
 
-                        Util.startThread(lm, "ListenerMessageThread: " +
-                                         clientName + ":" + resourceName, true);
+                        Util.getEventDispatcher().dispatch(listener, lm);
                     }
                 }
             }
@@ -41,7 +41,7 @@ ManageableProxy extends JSDTObject
     // The name of this proxy object.
     protected String name = null;
 
-    // Proxy thread for this object.
+    // Proxy thread for the server holding this object.
     SocketThread proxyThread;
 
     // Server thread for this object (if in the same VM).
@@ -95,6 +95,9 @@ ManageableProxy extends JSDTObject
 
         if (session.po != null) {
             sp = (SessionProxy) session.po.getProxy();
+            if (sp != this) {
+                proxyThread = sp.getObjectThread(name);
+            }
         }
         sdp = this;
 
@@ -186,7 +189,7 @@ ManageableProxy extends JSDTObject
         DataInputStream in;
         Message         message;
         int             retval;
-        SocketThread    thread     = sp.proxyThread;
+        SocketThread    thread     = proxyThread;
         int             id         = thread.getId();
         short           sessionNo  = sp.getSessionNo();
 
@@ -295,7 +298,7 @@ ManageableProxy extends JSDTObject
                NoSuchByteArrayException, NoSuchClientException,
                NoSuchTokenException, PermissionDeniedException,
                TimedOutException {
-        SocketThread    thread     = sp.proxyThread;
+        SocketThread    thread     = proxyThread;
         DataInputStream in;
         Message         message;
         int             retval;
@@ -323,6 +326,15 @@ ManageableProxy extends JSDTObject
             URLString   urlString   = sp.getURL();
             NamingProxy namingProxy = ((socketSession) session).namingProxy;
 
+/* The placement map is needed to destroy the parts of the session held on
+ * its nodes, so make sure it's known while the session still exists.
+ */
+            try {
+                sp.getNodes();
+            } catch (ConnectionException | NoSuchSessionException |
+                     TimedOutException e) {
+            }
+
             try {
                 namingProxy.unbind(urlString, session, client);
             } catch (NoRegistryException | InvalidURLException |
@@ -376,6 +388,7 @@ ManageableProxy extends JSDTObject
         } else if (objectType == ChannelImpl.M_Channel) {
             sp.removeChannel(name);
         } else if (objectType == SessionImpl.M_Session) {
+            sp.destroyNodes(clientName);
             sp.removeSession(name);
         } else if (objectType == TokenImpl.M_Token) {
             sp.removeToken(name);
@@ -425,7 +438,8 @@ ManageableProxy extends JSDTObject
         DataInputStream    in;
         Message            message;
         int                retval;
-        int                id        = sp.proxyThread.getId();
+        SocketThread       thread;
+        int                id;
         short              sessionNo = sp.getSessionNo();
         boolean            isManaged = false;
 
@@ -439,12 +453,19 @@ ManageableProxy extends JSDTObject
             throw new NoSuchSessionException();
         }
 
+        if (objectType == SessionImpl.M_Session) {
+            thread = proxyThread;
+        } else {
+            thread = sp.getThread(objectName);
+        }
+        id = thread.getId();
+
         try {
-            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+            thread.writeMessageHeader(thread.dataOut,
                         sessionNo, id, objectType, T_IsManaged, true, true);
-            sp.proxyThread.dataOut.writeUTF(objectName);
-            sp.proxyThread.flush();
-            message = sp.proxyThread.waitForReply();
+            thread.dataOut.writeUTF(objectName);
+            thread.flush();
+            message = thread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -470,7 +491,7 @@ ManageableProxy extends JSDTObject
                 }
             }
         } catch (IOException e) {
-            sp.proxyThread.finishReply();
+            thread.finishReply();
             throw new ConnectionException();
         }
 
@@ -511,7 +532,7 @@ ManageableProxy extends JSDTObject
         Message            message;
         int                retval;
         AuthenticationInfo info;
-        int                id         = sp.proxyThread.getId();
+        int                id         = proxyThread.getId();
         short              sessionNo  = sp.getSessionNo();
         String             clientName = Util.getClientName(client);
 
@@ -590,12 +611,12 @@ ManageableProxy extends JSDTObject
         }
 
         try {
-            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+            proxyThread.writeMessageHeader(proxyThread.dataOut,
                               sessionNo, id, objectType, T_Join, true, true);
-            sp.proxyThread.dataOut.writeUTF(name);
-            sp.proxyThread.dataOut.writeUTF(clientName);
-            sp.proxyThread.flush();
-            message = sp.proxyThread.waitForReply();
+            proxyThread.dataOut.writeUTF(name);
+            proxyThread.dataOut.writeUTF(clientName);
+            proxyThread.flush();
+            message = proxyThread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -624,11 +645,15 @@ ManageableProxy extends JSDTObject
                 }
             }
         } catch (IOException e) {
-            sp.proxyThread.finishReply();
+            proxyThread.finishReply();
             throw new ConnectionException();
         }
 
         clients.put(clientName, client);
+
+        if (objectType == SessionImpl.M_Session) {
+            sp.joinNodes(clientName);
+        }
     }
 
 
@@ -657,7 +682,7 @@ ManageableProxy extends JSDTObject
                NoSuchByteArrayException, NoSuchChannelException,
                NoSuchClientException, NoSuchSessionException,
                NoSuchTokenException, TimedOutException {
-        SocketThread    thread     = sp.proxyThread;
+        SocketThread    thread     = proxyThread;
         DataInputStream in;
         Message         message;
         int             retval;
@@ -750,7 +775,7 @@ ManageableProxy extends JSDTObject
         Message         message;
         int             retval;
         int             n;
-        SocketThread    thread      = sp.proxyThread;
+        SocketThread    thread      = proxyThread;
         int             id          = thread.getId();
         short           sessionNo   = sp.getSessionNo();
         String[]        clientNames = null;
@@ -832,7 +857,7 @@ ManageableProxy extends JSDTObject
         DataInputStream in;
         Message         message;
         int             retval;
-        int             id           = sp.proxyThread.getId();
+        int             id           = proxyThread.getId();
         short           sessionNo    = sp.getSessionNo();
         String          listenerName = listener.toString();
 
@@ -847,12 +872,12 @@ ManageableProxy extends JSDTObject
         }
 
         try {
-            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+            proxyThread.writeMessageHeader(proxyThread.dataOut,
                        sessionNo, id, listenerType, T_AddListener, true, true);
-            sp.proxyThread.dataOut.writeUTF(name);
-            sp.proxyThread.dataOut.writeUTF(listenerName);
-            sp.proxyThread.flush();
-            message = sp.proxyThread.waitForReply();
+            proxyThread.dataOut.writeUTF(name);
+            proxyThread.dataOut.writeUTF(listenerName);
+            proxyThread.flush();
+            message = proxyThread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -875,7 +900,7 @@ ManageableProxy extends JSDTObject
                 }
             }
         } catch (IOException e) {
-            sp.proxyThread.finishReply();
+            proxyThread.finishReply();
             throw new ConnectionException();
         }
 
@@ -916,7 +941,7 @@ ManageableProxy extends JSDTObject
         Message         message;
         int             retval;
         SocketThread    managerThread = null;
-        SocketThread    thread        = sp.proxyThread;
+        SocketThread    thread        = proxyThread;
         int             id            = thread.getId();
         short           sessionNo     = sp.getSessionNo();
 
@@ -1053,13 +1078,13 @@ ManageableProxy extends JSDTObject
                     break;
             }
 
-            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+            proxyThread.writeMessageHeader(proxyThread.dataOut,
                       sessionNo, id, objectType, T_Authenticate, true, true);
-            sp.proxyThread.dataOut.writeUTF(info.getName());
-            sp.proxyThread.dataOut.writeUTF(clientName);
-            sp.proxyThread.dataOut.writeInt(info.getAction());
-            sp.proxyThread.flush();
-            message = sp.proxyThread.waitForReply();
+            proxyThread.dataOut.writeUTF(info.getName());
+            proxyThread.dataOut.writeUTF(clientName);
+            proxyThread.dataOut.writeInt(info.getAction());
+            proxyThread.flush();
+            message = proxyThread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -1079,7 +1104,7 @@ ManageableProxy extends JSDTObject
                 }
             }
         } catch (IOException e) {
-            sp.proxyThread.finishReply();
+            proxyThread.finishReply();
             throw new ConnectionException();
         }
         return(authenticated);
@@ -1096,7 +1121,7 @@ ManageableProxy extends JSDTObject
         DataInputStream in;
         Message         message;
         int             retval;
-        int             id        = sp.proxyThread.getId();
+        int             id        = proxyThread.getId();
         short           sessionNo = sp.getSessionNo();
 
         if (ManageableProxy_Debug) {
@@ -1113,17 +1138,17 @@ ManageableProxy extends JSDTObject
         }
 
         try {
-            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+            proxyThread.writeMessageHeader(proxyThread.dataOut,
                            sessionNo, id, objectType, messageType, true, true);
-            sp.proxyThread.dataOut.writeUTF(name);
-            sp.proxyThread.dataOut.writeInt(clients.length);
+            proxyThread.dataOut.writeUTF(name);
+            proxyThread.dataOut.writeInt(clients.length);
 
             for (int i = 0; i < clients.length; i++) {
-                sp.proxyThread.dataOut.writeUTF(Util.getClientName(clients[i]));
+                proxyThread.dataOut.writeUTF(Util.getClientName(clients[i]));
             }
 
-            sp.proxyThread.flush();
-            message = sp.proxyThread.waitForReply();
+            proxyThread.flush();
+            message = proxyThread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -1150,7 +1175,7 @@ ManageableProxy extends JSDTObject
                 }
             }
         } catch (IOException e) {
-            sp.proxyThread.finishReply();
+            proxyThread.finishReply();
             throw new ConnectionException();
         }
     }
@@ -1197,7 +1222,7 @@ ManageableProxy extends JSDTObject
                NoSuchSessionException, NoSuchTokenException,
                TimedOutException {
         DataInputStream in;
-        int             id        = sp.proxyThread.getId();
+        int             id        = proxyThread.getId();
         short           sessionNo = sp.getSessionNo();
         Message         message;
         int             retval;
@@ -1213,12 +1238,12 @@ ManageableProxy extends JSDTObject
         }
 
         try {
-            sp.proxyThread.writeMessageHeader(sp.proxyThread.dataOut,
+            proxyThread.writeMessageHeader(proxyThread.dataOut,
                    sessionNo, id, listenerType, T_RemoveListener, true, true);
-            sp.proxyThread.dataOut.writeUTF(name);
-            sp.proxyThread.dataOut.writeUTF(listener.toString());
-            sp.proxyThread.flush();
-            message = sp.proxyThread.waitForReply();
+            proxyThread.dataOut.writeUTF(name);
+            proxyThread.dataOut.writeUTF(listener.toString());
+            proxyThread.flush();
+            message = proxyThread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -1243,7 +1268,7 @@ ManageableProxy extends JSDTObject
                 }
             }
         } catch (IOException e) {
-            sp.proxyThread.finishReply();
+            proxyThread.finishReply();
             throw new ConnectionException();
         }
 
@@ -26,11 +26,26 @@ import com.sun.media.jsdt.impl.*;
 import com.sun.media.jsdt.event.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JSDT server-side manageable parent class.
  *
- * @version     2.3 - 16th November 2017
+ * Requests for a manageable object arrive on the reader thread of each
+ * client connection, so several of them can be working on the same object
+ * at once. The clients, listeners and connections of each object are held
+ * in concurrent hash tables, so independent objects (and unrelated entries
+ * in the same object) never wait for each other, and they can be read
+ * without locking. Anything that has to be counted and then written out,
+ * such as a list of client names, is copied first, so what is sent is
+ * consistent even if clients join or leave at the same time.
+ *
+ * Changes that involve more than one entry, or the state of the object
+ * as a whole (such as attaching a manager, or grabbing a token), are made
+ * while holding the lock on the server object. There is one lock per
+ * manageable object, so they don't hold each other up.
+ *
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -48,30 +63,31 @@ ManageableServer extends JSDTObject
     protected SessionServer ss;
 
     // The clients currently attached to this object.
-    protected Hashtable<String, Client> clients = null;
+    protected ConcurrentHashMap<String, Client> clients = null;
 
     // The listeners currently listening to this object.
-    protected Hashtable<String, JSDTListenerImpl> listeners = null;
+    protected ConcurrentHashMap<String, JSDTListenerImpl> listeners = null;
 
     // The thread/client-name pairs for clients joined to this object.
-    Hashtable<String, JSDTThread> clientConnections = null;
+    ConcurrentHashMap<String, JSDTThread> clientConnections = null;
 
     /* Thread connections back to the proxy for the clients potentially
      *  joining this object.
      */
-    Hashtable<String, Message> joiningMessages;
+    ConcurrentHashMap<String, Message> joiningMessages;
 
     // The server-side manager (if any).
-    protected JSDTManagerImpl manager = null;
+    protected volatile JSDTManagerImpl manager = null;
 
     // The event mask associated with the manager (if any).
-    private int eventMask = 0XFFFFFFFF;
+    private volatile int eventMask = 0XFFFFFFFF;
 
     // Thread connection back to the proxy running the manager.
-    private JSDTThread managerThread;
+    private volatile JSDTThread managerThread;
 
     // The listeners and their associated threads.
-    protected Hashtable<JSDTThread, ServerListenerThread> listenerThreads = null;
+    protected ConcurrentHashMap<JSDTThread, ServerListenerThread>
+                                                     listenerThreads = null;
 
 
 /**
@@ -98,10 +114,10 @@ ManageableServer extends JSDTObject
             ss = (SessionServer) session.so.getServer();
         }
 
-        clientConnections = new Hashtable<>();
-        joiningMessages   = new Hashtable<>();
-        listeners         = new Hashtable<>();
-        listenerThreads   = new Hashtable<>();
+        clientConnections = new ConcurrentHashMap<>();
+        joiningMessages   = new ConcurrentHashMap<>();
+        listeners         = new ConcurrentHashMap<>();
+        listenerThreads   = new ConcurrentHashMap<>();
     }
 
 
@@ -156,8 +172,8 @@ ManageableServer extends JSDTObject
         DataInputStream                     in = message.thread.dataIn;
         String                              listenerName = null;
         JSDTListenerImpl                    listener     = null;
-        boolean                             putBack      = false;
         ServerListenerThread                listenerThread;
+        ServerListenerThread                existing;
         Hashtable<String, JSDTListenerImpl> threadListeners;
 
         if (ManageableServer_Debug) {
@@ -175,14 +191,14 @@ ManageableServer extends JSDTObject
 
         if ((listenerThread = listenerThreads.get(message.thread)) == null) {
             listenerThread = new ServerListenerThread(name);
-            putBack = true;
+            if ((existing = listenerThreads.putIfAbsent(message.thread,
+                                                listenerThread)) != null) {
+                listenerThread = existing;
+            }
         }
 
         threadListeners = listenerThread.getListeners();
         threadListeners.put(listenerName, listener);
-        if (putBack) {
-            listenerThreads.put(message.thread, listenerThread);
-        }
 
         try {
             message.thread.writeMessageHeader(message.thread.dataOut,
@@ -221,15 +237,17 @@ ManageableServer extends JSDTObject
             error("ManageableServer: attachManager: ", e);
         }
 
-        if (getManager() != null) {
-            retval = JSDTException.MANAGER_EXISTS;
-        } else {
-            setManager(new JSDTManagerImpl(managerName));
-            if (ManageableServer_Debug) {
-                debug("ManageableServer: attachManager:" +
-                      " created manager with name: " + managerName);
+        synchronized (this) {
+            if (getManager() != null) {
+                retval = JSDTException.MANAGER_EXISTS;
+            } else {
+                setManagerThread(message.thread);
+                setManager(new JSDTManagerImpl(managerName));
+                if (ManageableServer_Debug) {
+                    debug("ManageableServer: attachManager:" +
+                          " created manager with name: " + managerName);
+                }
             }
-            setManagerThread(message.thread);
         }
 
         try {
@@ -328,10 +346,12 @@ ManageableServer extends JSDTObject
             int     eventMask = in.readInt();
             boolean disable   = in.readBoolean();
 
-            if (disable) {
-                this.eventMask &= ~eventMask;
-            } else {
-                this.eventMask |= eventMask;
+            synchronized (this) {
+                if (disable) {
+                    this.eventMask &= ~eventMask;
+                } else {
+                    this.eventMask |= eventMask;
+                }
             }
 
             message.thread.writeMessageHeader(message.thread.dataOut,
@@ -487,6 +507,8 @@ ManageableServer extends JSDTObject
     protected final void
     expelAllClients(Message message, String sessionName, char objectType,
                     ManageableServer server) {
+        String[] clientNames = clients.keySet().toArray(new String[0]);
+
         if (ManageableServer_Debug) {
             debug("ManageableServer: expelAllClients:" +
                   " message: "      + message +
@@ -495,10 +517,9 @@ ManageableServer extends JSDTObject
                   " server: "       + server);
         }
 
-        for (Enumeration e = clients.keys(); e.hasMoreElements();) {
-            String clientName = (String) e.nextElement();
-
-            expelClient(message, sessionName, clientName, objectType, server);
+        for (int i = 0; i < clientNames.length; i++) {
+            expelClient(message, sessionName, clientNames[i],
+                        objectType, server);
         }
     }
 
@@ -738,8 +759,8 @@ ManageableServer extends JSDTObject
             try {
                 thread.writeMessageHeader(thread.dataOut, ss.getSessionNo(), 0,
                                   listenerType, T_InformListener, false, true);
-                thread.dataOut.writeUTF(resourceName);
-                thread.dataOut.writeUTF(clientName);
+                thread.writeName(resourceName);
+                thread.writeName(clientName);
                 thread.dataOut.writeInt(type);
                 thread.flush();
                 thread.finishMessage();
@@ -926,8 +947,8 @@ ManageableServer extends JSDTObject
 
     protected final void
     listClientNames(Message message) {
-        int retval = 0;
-        int size   = 0;
+        int      retval = 0;
+        String[] names  = new String[0];
 
         if (ManageableServer_Debug) {
             debug("ManageableServer: listClientNames:" +
@@ -935,7 +956,7 @@ ManageableServer extends JSDTObject
         }
 
         if (clients != null) {
-            size = clients.size();
+            names = clients.keySet().toArray(names);
         }
 
         try {
@@ -943,11 +964,9 @@ ManageableServer extends JSDTObject
                                 message.sessionNo, message.id,
                                 message.type, message.action, false, true);
             message.thread.dataOut.writeInt(retval);
-            message.thread.dataOut.writeInt(size);
-            if (clients != null) {
-                for (Enumeration e = clients.keys(); e.hasMoreElements();) {
-                    message.thread.dataOut.writeUTF((String) e.nextElement());
-                }
+            message.thread.dataOut.writeInt(names.length);
+            for (int i = 0; i < names.length; i++) {
+                message.thread.dataOut.writeUTF(names[i]);
             }
             message.thread.flush();
             message.thread.finishMessage();
@@ -1002,13 +1021,16 @@ ManageableServer extends JSDTObject
         if (retval == 0) {
             ServerListenerThread listenerThread =
                                      listenerThreads.get(message.thread);
-            Hashtable threadListeners = listenerThread.getListeners();
 
-            threadListeners.remove(listenerName);
-            noListeners = threadListeners.size();
+            if (listenerThread != null) {
+                Hashtable threadListeners = listenerThread.getListeners();
 
-            if (noListeners == 0) {
-                listenerThreads.remove(message.thread);
+                threadListeners.remove(listenerName);
+                noListeners = threadListeners.size();
+
+                if (noListeners == 0) {
+                    listenerThreads.remove(message.thread, listenerThread);
+                }
             }
         }
 
@@ -35,7 +35,7 @@ import java.util.*;
  *
  * Based on the RMI Naming class.
  *
- * @version     2.3 - 19th December 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -58,21 +58,58 @@ NamingProxy extends JSDTObject
     // The clients currently bound.
     private final Hashtable<String, Client> clients = new Hashtable<>();
 
+    // The names that this proxy has bound (keyed by name). They are bound
+    // again if the proxy moves over to another Registry.
+    private final Hashtable<String, RegistryBinding> bindings =
+                                                        new Hashtable<>();
+
     // The client-side thread for contacting the registry.
     private SocketThread proxyThread = null;
 
+    // The Registries that this proxy can use (each as "host:port"). The
+    // first is the one given by the JSDT URL, and the rest are the other
+    // Registries in its replicated set (if any).
+    private String[] registries = null;
+
+    // The index of the Registry that proxyThread is connected to.
+    private int current = 0;
+
+    // The connections to the other Registries, used to spread the lookups
+    // over the replicated set (null until needed, or after a failure).
+    private NamingProxyThread[] readers = null;
+
+    // The earliest time to try to connect to each Registry again after a
+    // failure.
+    private long[] retryTimes = null;
+
+    // The index of the Registry to send the next lookup to.
+    private int nextReader = 0;
+
     // The listeners (and event masks), observing changes for the Registry.
     final Hashtable<RegistryListener, Integer> listeners = new Hashtable<>();
 
     // The client-side thread for detecting connection failure.
     ConnectionThread connectionThread = null;
 
-    // The thread running this NamingProxy object.
-    private Thread thread;
+    // The next registry keep alive check on the timer (or null if none is
+    // due).
+    private JSDTTimeout keepAlive = null;
 
     // The time of the last successful reply to a ping message.
     private long lastPingTime = System.currentTimeMillis();
 
+    // The recent successful lookups (keyed by Registry name).
+    private JSDTLookupCache lookups = null;
+
+    // Indicates if the Registry has been asked to send the bind and unbind
+    // events used to remove changed lookups (and placement maps).
+    private boolean lookupListener = false;
+
+    // The number of times a node has been bound or unbound (or events may
+    // have been missed). Session proxies fetch their placement maps again
+    // when this changes.
+    private volatile long placementChanges = 0;
+
     private boolean shutdown = false;
 
 /**
@@ -100,19 +137,372 @@ NamingProxy extends JSDTObject
         this.connections = connections;
         this.host        = host;
         this.port        = port;
+        lookups          = new JSDTLookupCache("LookupCache:" + host + ":" +
+                                port,
+                                Util.getIntProperty("lookupCacheSize",
+                                                    lookupCacheSize),
+                                Util.getLongProperty("lookupCacheTTL",
+                                                     lookupCacheTTL));
+
+        registries = getRegistries(host, port);
+        readers    = new NamingProxyThread[registries.length];
+        retryTimes = new long[registries.length];
+
+        for (int i = 0; i < registries.length && proxyThread == null; i++) {
+            try {
+                proxyThread = connectRegistry(i);
+                current     = i;
+                nextReader  = i;
+            } catch (SocketException e) {
+            } catch (UnknownHostException uhe) {
+                if (i == 0) {
+                    throw new NoSuchHostException();
+                }
+            }
+        }
 
-        try {
-            proxyThread      = new NamingProxyThread(this, host, port);
-            connectionThread = new ConnectionThread(sessions);
-        } catch (SocketException e) {
+        if (proxyThread == null) {
             throw new NoRegistryException();
-        } catch (UnknownHostException uhe) {
-            throw new NoSuchHostException();
         }
+        connectionThread = new ConnectionThread(sessions);
+    }
+
+
+/**
+ * <A NAME="SD_GETREGISTRIES"></A>
+ * <EM>getRegistries</EM> returns the Registries that this proxy can use.
+ * This is the Registry on the given host:port, followed by the other
+ * Registries in its replicated set (given by the "registryPeers" property).
+ *
+ * @param host the host the Registry is running on.
+ * @param port the port number the Registry is running on.
+ *
+ * @return an array of "host:port" strings, one for each Registry.
+ */
+
+    private String[]
+    getRegistries(String host, int port) {
+        String[]       peers = Util.getRegistryPeers();
+        Vector<String> list  = new Vector<>();
+        String         first = getRegistryAddress(host + ":" + port);
+
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: getRegistries:" +
+                  " host: " + host +
+                  " port: " + port);
+        }
+
+        list.addElement(host + ":" + port);
+        for (int i = 0; i < peers.length; i++) {
+            if (!getRegistryAddress(peers[i]).equals(first)) {
+                list.addElement(peers[i]);
+            }
+        }
+
+        return(list.toArray(new String[list.size()]));
+    }
+
+
+/**
+ * <A NAME="SD_GETREGISTRYADDRESS"></A>
+ * <EM>getRegistryAddress</EM> returns the given "host:port" with the host
+ * name replaced by its IP address, so that two ways of naming the same
+ * Registry can be compared.
+ *
+ * @param registry the Registry (as "host:port").
+ *
+ * @return the Registry as "address:port".
+ */
+
+    private String
+    getRegistryAddress(String registry) {
+        int index = registry.lastIndexOf(':');
+
+        try {
+            return(Util.getIPAddress(registry.substring(0, index)) +
+                   registry.substring(index));
+        } catch (InvalidURLException iue) {
+            return(registry);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_CONNECTREGISTRY"></A>
+ * <EM>connectRegistry</EM> make a new connection to one of the Registries
+ * that this proxy can use.
+ *
+ * @param index the index of the Registry.
+ *
+ * @exception SocketException if the Registry couldn't be reached.
+ * @exception UnknownHostException if the Registry host doesn't exist.
+ *
+ * @return the thread for the new connection.
+ */
+
+    private NamingProxyThread
+    connectRegistry(int index)
+        throws SocketException, UnknownHostException {
+        NamingProxyThread thread;
+        String            registry = registries[index];
+        int               colon    = registry.lastIndexOf(':');
+        String            rHost    = registry.substring(0, colon);
+        int               rPort    = Integer.parseInt(
+                                            registry.substring(colon + 1));
+
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: connectRegistry:" +
+                  " registry: " + registry);
+        }
+
+        thread = new NamingProxyThread(this, rHost, rPort);
+        Util.startThread(thread,
+                         "NamingProxyThread:" + rHost + ":" + rPort, true);
+
+        return(thread);
+    }
+
+
+/**
+ * <A NAME="SD_GETREADER"></A>
+ * <EM>getReader</EM> get the connection to send the next lookup on. The
+ * lookups are spread over all the Registries in the replicated set, in
+ * turn. A Registry that has recently failed is skipped until it's time to
+ * try it again.
+ *
+ * @return the connection to send the lookup on.
+ */
+
+    private synchronized SocketThread
+    getReader() {
+        long now = System.currentTimeMillis();
+
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: getReader.");
+        }
+
+        for (int i = 0; i < registries.length; i++) {
+            int index = nextReader;
+
+            nextReader = (nextReader + 1) % registries.length;
+            if (index == current) {
+                return(proxyThread);
+            }
+
+            if (readers[index] == null && now >= retryTimes[index]) {
+                try {
+                    readers[index] = connectRegistry(index);
+                } catch (Exception e) {
+                    retryTimes[index] = now + Util.getLongProperty(
+                                            "keepAlivePeriod", keepAlivePeriod);
+                }
+            }
+
+            if (readers[index] != null) {
+                return(readers[index]);
+            }
+        }
+
+        return(proxyThread);
+    }
+
+
+/**
+ * <A NAME="SD_DROPREADER"></A>
+ * <EM>dropReader</EM> stop using a lookup connection that has failed. Its
+ * Registry won't be tried again until the keep alive period has passed.
+ *
+ * @param thread the connection that has failed.
+ */
+
+    private void
+    dropReader(SocketThread thread) {
+        boolean found = false;
+
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: dropReader:" +
+                  " thread: " + thread);
+        }
+
+        synchronized (this) {
+            for (int i = 0; i < readers.length; i++) {
+                if (readers[i] == thread) {
+                    readers[i]    = null;
+                    retryTimes[i] = System.currentTimeMillis() +
+                                    Util.getLongProperty("keepAlivePeriod",
+                                                         keepAlivePeriod);
+                    found         = true;
+                }
+            }
+        }
+
+        if (found) {
+            thread.cleanupConnection();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_FAILOVER"></A>
+ * <EM>failover</EM> move this proxy over to the next Registry in the
+ * replicated set that can be reached, because the one it was using has
+ * gone away. The Registry listeners are added to the new Registry, the
+ * names this proxy has bound are bound again there (in case the old
+ * Registry went before it copied them to the rest of the set), and any
+ * remembered lookups are forgotten.
+ *
+ * @return true if the proxy is now using another Registry.
+ */
+
+    private boolean
+    failover() {
+        SocketThread old;
+        int          oldIndex;
+
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: failover.");
+        }
+
+        synchronized (this) {
+            old      = proxyThread;
+            oldIndex = current;
+            if (shutdown || registries.length < 2) {
+                return(false);
+            }
+
+            for (int i = 1; i < registries.length; i++) {
+                int index = (current + i) % registries.length;
+
+                try {
+                    if (readers[index] != null) {
+                        proxyThread    = readers[index];
+                        readers[index] = null;
+                    } else {
+                        proxyThread = connectRegistry(index);
+                    }
+                    current = index;
+                    break;
+                } catch (Exception e) {
+                    retryTimes[index] = System.currentTimeMillis() +
+                                        Util.getLongProperty("keepAlivePeriod",
+                                                             keepAlivePeriod);
+                }
+            }
+
+            if (proxyThread == old) {
+                return(false);
+            }
+            retryTimes[oldIndex] = System.currentTimeMillis() +
+                                   Util.getLongProperty("keepAlivePeriod",
+                                                        keepAlivePeriod);
+        }
+
+        old.cleanupConnection();
+        synchronized (lookups) {
+            lookups.clear();
+            lookupListener = false;
+        }
+        placementChanges++;
+
+        for (Enumeration<RegistryListener> k = listeners.keys();
+             k.hasMoreElements();) {
+            try {
+                sendListenerMessage(k.nextElement().toString(),
+                                    T_AddListener);
+            } catch (JSDTException je) {
+            }
+        }
+        rebind();
 
-        thread = Util.startThread(this, "NamingProxy", true);
-        Util.startThread(proxyThread,
-                         "NamingProxyThread:" + host + ":" + port, true);
+        return(true);
+    }
+
+
+/**
+ * <A NAME="SD_REBIND"></A>
+ * <EM>rebind</EM> bind the names that this proxy has bound again, at the
+ * Registry it has just moved over to. A name that is already bound there
+ * with the same session/client number is taken over by this connection.
+ */
+
+    private void
+    rebind() {
+        Vector<RegistryBinding> names;
+        DataInputStream         in;
+        Message                 message;
+        int                     retval;
+
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: rebind.");
+        }
+
+        synchronized (bindings) {
+            names = new Vector<>(bindings.values());
+        }
+
+        for (int i = 0; i < names.size(); i++) {
+            RegistryBinding binding = names.elementAt(i);
+
+            try {
+                proxyThread.writeMessageHeader(proxyThread.dataOut,
+                                    (short) 1, proxyThread.getId(),
+                                    T_Registry, T_Bind, true, true);
+                proxyThread.dataOut.writeShort(binding.getNo());
+                proxyThread.dataOut.writeUTF(binding.getName());
+                proxyThread.dataOut.writeUTF(binding.getAddress());
+                proxyThread.dataOut.writeUTF(binding.getClientName());
+                proxyThread.dataOut.writeInt(binding.getAuthAction());
+                proxyThread.flush();
+                message = proxyThread.waitForReply();
+
+                in     = message.thread.dataIn;
+                retval = in.readInt();
+                proxyThread.finishReply();
+
+                if (retval != 0) {
+                    bindings.remove(binding.getName());
+                    if (retval == JSDTException.ALREADY_BOUND) {
+                        error("NamingProxy: rebind: ",
+                              new AlreadyBoundException());
+                    } else {
+                        error("NamingProxy: rebind: ",
+                              "impl.unknown.exception.type", retval);
+                    }
+                }
+            } catch (IOException | TimedOutException e) {
+                proxyThread.finishReply();
+                error("NamingProxy: rebind: ", e);
+                return;
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_REGISTRYLOST"></A>
+ * <EM>registryLost</EM> called when one of this proxy's connections to a
+ * Registry has closed. If it was the main connection, then the proxy moves
+ * over to another Registry in the replicated set (if there is one).
+ *
+ * @param thread the connection that has closed.
+ */
+
+    void
+    registryLost(SocketThread thread) {
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: registryLost:" +
+                  " thread: " + thread);
+        }
+
+        if (shutdown) {
+            return;
+        }
+
+        if (thread == proxyThread) {
+            failover();
+        } else {
+            dropReader(thread);
+        }
     }
 
 
@@ -206,11 +596,6 @@ NamingProxy extends JSDTObject
             sessions.remove(name);
 
             if (sessions.size() == 0) {
-                if (ChannelProxy.drq != null) {
-                    ChannelProxy.drq.terminate();
-                    ChannelProxy.drq = null;
-                }
-
                 if (clients.size() == 0 && listeners.size() == 0) {
                     cleanupConnection();
                 }
@@ -274,12 +659,25 @@ NamingProxy extends JSDTObject
             connections.remove(host);
         }
 
+        synchronized (this) {
+            setShutdown(true);
+        }
+
         proxyThread.cleanupConnection();
+        for (int i = 0; i < readers.length; i++) {
+            if (readers[i] != null) {
+                readers[i].cleanupConnection();
+            }
+        }
         connectionThread.stop();
         informListeners(null, null, RegistryEvent.CONNECTION_FAILED);
 
-        setShutdown(true);
-        thread.interrupt();
+        synchronized (this) {
+            if (keepAlive != null) {
+                keepAlive.cancel();
+                keepAlive = null;
+            }
+        }
     }
 
 
@@ -347,6 +745,8 @@ NamingProxy extends JSDTObject
                                       urlString.getPort());
         } else if (Util.isClient(urlString)) {
             authAction = AuthenticationInfo.CREATE_CLIENT;
+        } else if (Util.isNode(urlString)) {
+            authAction = AuthenticationInfo.CREATE_SESSION;
         }
 
         if (isManaged()) {
@@ -411,6 +811,9 @@ NamingProxy extends JSDTObject
                     } else if (Util.isClient(urlString)) {
                         ((socketClient) object)._createServer(objectName,
                                                               name, port);
+                    } else if (Util.isNode(urlString)) {
+                        ((socketNode) object)._createServer(objectName,
+                                                            name, port);
                     } else {
                         throw new InvalidURLException();
                     }
@@ -441,12 +844,18 @@ NamingProxy extends JSDTObject
                                 error("NamingProxy: bind: ",
                                       "impl.unknown.exception.type", retval);
                             }
+                        } else {
+                            bindings.put(name, new RegistryBinding(no, name,
+                                            Util.getIPAddress(host),
+                                            Util.getClientName(client),
+                                            authAction));
                         }
                     } catch (IOException e) {
                         proxyThread.finishReply();
                         throw new ConnectionException();
                     }
 
+                    lookups.remove(getLookupKey(urlString));
                     return;
                 } else {
                     c = c.getSuperclass();
@@ -491,7 +900,7 @@ NamingProxy extends JSDTObject
     private boolean
     checkForServer(String address, int port)
         throws ConnectionException, NoRegistryException, TimedOutException {
-        URLString[] names = list();
+        URLString[] names = sendList(proxyThread);
         boolean     reply = false;
 
         if (NamingProxy_Debug) {
@@ -645,6 +1054,8 @@ NamingProxy extends JSDTObject
             authAction = AuthenticationInfo.DESTROY_SESSION;
         } else if (Util.isClient(urlString)) {
             authAction = AuthenticationInfo.DESTROY_CLIENT;
+        } else if (Util.isNode(urlString)) {
+            authAction = AuthenticationInfo.DESTROY_SESSION;
         }
 
         if (isManaged()) {
@@ -686,11 +1097,16 @@ NamingProxy extends JSDTObject
                 }
             }
 
+            bindings.remove(name);
+            lookups.remove(getLookupKey(urlString));
+
             if (Util.isSession(urlString)) {
                 cleanupSession(Util.adjustURLString(objectName,
                                urlString.getHostAddress()));
             } else if (Util.isClient(urlString)) {
                 cleanupClient(name, (Client) object, id);
+            } else if (Util.isNode(urlString)) {
+                socketNode._destroyServer(urlString.getPort());
             } else {
                 throw new InvalidURLException();
             }
@@ -715,6 +1131,11 @@ NamingProxy extends JSDTObject
  *
  *   Client  client  = lookup("jsdt://stard:4386/socket/Client/fredClient");
  *
+ * Successful lookups are remembered for "lookupCacheTTL" milliseconds, so
+ * that looking up the same name again doesn't need a round trip to the
+ * Registry. The Registry tells this proxy when a name is bound or unbound,
+ * and any lookup remembered for that name is then forgotten.
+ *
  * @param urlString the URLString object for the given name.
  *
  * @exception ConnectionException if a connection error occured.
@@ -732,15 +1153,13 @@ NamingProxy extends JSDTObject
         throws ConnectionException, NoRegistryException,
                InvalidURLException, NotBoundException,
                TimedOutException {
-        DataInputStream in;
-        Message         message;
-        int             retval;
+        Short           cached;
         String          name        = urlString.toString();
-        int             id          = proxyThread.getId();
         String          connectType = urlString.getConnectionType();
         String          objectName  = urlString.getObjectName();
         String          host        = urlString.getHostName();
         int             port        = urlString.getPort();
+        String          key         = getLookupKey(urlString);
         short           no          = 0;
 
         if (NamingProxy_Debug) {
@@ -754,36 +1173,10 @@ NamingProxy extends JSDTObject
         } catch (Exception e) {
         }
 
-        try {
-            proxyThread.writeMessageHeader(proxyThread.dataOut, (short) 1,
-                                         id, T_Registry, T_Lookup, true, true);
-            proxyThread.dataOut.writeUTF(name);
-            proxyThread.dataOut.writeUTF(Util.getIPAddress(host));
-            proxyThread.flush();
-            message = proxyThread.waitForReply();
-
-            in     = message.thread.dataIn;
-            retval = in.readInt();
-            if (retval == 0) {
-                no = in.readShort();
-            }
-            proxyThread.finishReply();
-
-            if (retval != 0) {
-                if (retval == JSDTException.NO_REGISTRY) {
-                    throw new NoRegistryException();
-                } else if (retval == JSDTException.INVALID_URL) {
-                    throw new InvalidURLException();
-                } else if (retval == JSDTException.NOT_BOUND) {
-                    throw new NotBoundException();
-                } else {
-                    error("NamingProxy: lookup: ",
-                          "impl.unknown.exception.type", retval);
-                }
-            }
-        } catch (IOException e) {
-            proxyThread.finishReply();
-            throw new ConnectionException();
+        if ((cached = (Short) lookups.get(key)) != null) {
+            no = cached;
+        } else {
+            no = lookupSessionNo(urlString, key);
         }
 
         try {
@@ -839,61 +1232,273 @@ NamingProxy extends JSDTObject
 
 
 /**
- * <A NAME="SD_ADDREGISTRYLISTENER"></A>
- * add the specified Registry listener to receive Registry events from the
- * Registry of the specified type running on the given host.
+ * <A NAME="SD_LOOKUPSESSIONNO"></A>
+ * <EM>lookupSessionNo</EM> asks the Registry whether the given name is
+ * bound, and if so, for its session number. A successful answer is
+ * remembered, provided that the Registry will say when the name is next
+ * bound or unbound.
  *
- * @param listener the Registry listener to add.
+ * If the Registry is one of a replicated set, then the lookups are spread
+ * over the set. A lookup that fails at one of the other Registries (which
+ * may not have caught up with a recent binding yet) is tried again at this
+ * proxy's own Registry. If that Registry has gone away, then the proxy
+ * moves over to another one and tries again there.
+ *
+ * @param urlString the URLString object for the given name.
+ * @param key the name the Registry knows this object by.
  *
  * @exception ConnectionException if a connection error occured.
- * @exception NoRegistryException if there is no Registry running of the
- * given type on the given host:port.
+ * @exception NoRegistryException if no Registry process is running.
+ * @exception InvalidURLException if the url string given is invalid.
+ * @exception NotBoundException if no object bound to this url string.
  * @exception TimedOutException if no reply was received for this operation
  * in the given timeout period.
+ *
+ * @return the session number of the bound object.
  */
 
-    public void
-    addRegistryListener(RegistryListener listener)
-        throws ConnectionException, NoRegistryException, TimedOutException {
+    private short
+    lookupSessionNo(URLString urlString, String key)
+        throws ConnectionException, NoRegistryException,
+               InvalidURLException, NotBoundException,
+               TimedOutException {
+        short        no;
+        boolean      cacheable = addLookupListener();
+        long         changes   = lookups.getChanges();
+        SocketThread thread    = getReader();
+
         if (NamingProxy_Debug) {
-            debug("NamingProxy: addRegistryListener:" +
-                  " listener: " + listener);
+            debug("NamingProxy: lookupSessionNo:" +
+                  " url string: " + urlString +
+                  " key: "        + key);
         }
 
         try {
-            sendListenerMessage(listener, T_AddListener);
-        } catch (NoSuchListenerException e) {
+            no = sendLookup(thread, urlString);
+        } catch (NotBoundException | ConnectionException |
+                 TimedOutException e) {
+            if (thread == proxyThread) {
+                if (e instanceof NotBoundException || !failover()) {
+                    throw e;
+                }
+            } else if (!(e instanceof NotBoundException)) {
+                dropReader(thread);
+            }
+            no = sendLookup(proxyThread, urlString);
         }
 
-/* By default, a listener will listen for every type of event, so set all
- * bits in the event mask. Note that there is currently no API calls to
- * adjust the mask for a Registry listener, but we might as well add in the
- * hooks now.
- */
-
-        synchronized (listeners) {
-            listeners.put(listener, 0XFFFFFFFF);
+        if (cacheable) {
+            lookups.put(key, no, changes);
         }
 
-        synchronized (this) {
-            notifyAll();
-        }
+        return(no);
     }
 
 
 /**
- * <A NAME="SD_REMOVEREGISTRYLISTENER"></A>
- * removes the specified Registry listener so that it no longer receives
- * Registry events from the Registry of the specified type running on the
- * given host.
+ * <A NAME="SD_SENDLOOKUP"></A>
+ * <EM>sendLookup</EM> asks a Registry whether the given name is bound,
+ * and if so, for its session number.
  *
- * @param listener the Registry listener to remove.
+ * @param thread the connection to the Registry to ask.
+ * @param urlString the URLString object for the given name.
  *
  * @exception ConnectionException if a connection error occured.
- * @exception NoRegistryException if there is no Registry running of the
- * given type on the given host:port.
- * @exception NoSuchListenerException if this SessionListener doesn't exist.
- * @exception TimedOutException if no reply was received for this operation
+ * @exception NoRegistryException if no Registry process is running.
+ * @exception InvalidURLException if the url string given is invalid.
+ * @exception NotBoundException if no object bound to this url string.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return the session number of the bound object.
+ */
+
+    private short
+    sendLookup(SocketThread thread, URLString urlString)
+        throws ConnectionException, NoRegistryException,
+               InvalidURLException, NotBoundException,
+               TimedOutException {
+        DataInputStream in;
+        Message         message;
+        int             retval;
+        int             id = thread.getId();
+        short           no = 0;
+
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: sendLookup:" +
+                  " thread: "     + thread +
+                  " url string: " + urlString);
+        }
+
+        try {
+            thread.writeMessageHeader(thread.dataOut, (short) 1,
+                                      id, T_Registry, T_Lookup, true, true);
+            thread.dataOut.writeUTF(urlString.toString());
+            thread.dataOut.writeUTF(Util.getIPAddress(urlString.getHostName()));
+            thread.flush();
+            message = thread.waitForReply();
+
+            in     = message.thread.dataIn;
+            retval = in.readInt();
+            if (retval == 0) {
+                no = in.readShort();
+            }
+            thread.finishReply();
+
+            if (retval != 0) {
+                if (retval == JSDTException.NO_REGISTRY) {
+                    throw new NoRegistryException();
+                } else if (retval == JSDTException.INVALID_URL) {
+                    throw new InvalidURLException();
+                } else if (retval == JSDTException.NOT_BOUND) {
+                    throw new NotBoundException();
+                } else {
+                    error("NamingProxy: sendLookup: ",
+                          "impl.unknown.exception.type", retval);
+                }
+            }
+        } catch (IOException e) {
+            thread.finishReply();
+            throw new ConnectionException();
+        }
+
+        return(no);
+    }
+
+
+/**
+ * <A NAME="SD_ADDLOOKUPLISTENER"></A>
+ * <EM>addLookupListener</EM> asks the Registry to send this proxy its bind
+ * and unbind events (if it hasn't already), so that remembered lookups can
+ * be forgotten when the names they are for change.
+ *
+ * @return true if lookups can be remembered.
+ */
+
+    private boolean
+    addLookupListener() {
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: addLookupListener.");
+        }
+
+        if (!lookups.isEnabled()) {
+            return(false);
+        }
+
+        return(addChangeListener());
+    }
+
+
+/**
+ * <A NAME="SD_ADDCHANGELISTENER"></A>
+ * <EM>addChangeListener</EM> asks the Registry to send this proxy its bind
+ * and unbind events (if it hasn't already). They are used to forget
+ * remembered lookups, and to tell session proxies when to fetch their
+ * placement maps again.
+ *
+ * @return true if the Registry is sending the events.
+ */
+
+    boolean
+    addChangeListener() {
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: addChangeListener.");
+        }
+
+        synchronized (lookups) {
+            if (lookupListener) {
+                return(true);
+            }
+        }
+
+        try {
+            sendListenerMessage(toString(), T_AddListener);
+        } catch (Exception e) {
+            return(false);
+        }
+
+        synchronized (lookups) {
+            lookupListener = true;
+        }
+
+        return(true);
+    }
+
+
+/**
+ * <A NAME="SD_GETLOOKUPKEY"></A>
+ * <EM>getLookupKey</EM> returns the name that the Registry knows the object
+ * for the given JSDT URL by. This is the name that the Registry bind and
+ * unbind events use.
+ *
+ * @param urlString the URLString object for the given name.
+ *
+ * @exception InvalidURLException if the url string given is invalid.
+ *
+ * @return the Registry name for the given JSDT URL.
+ */
+
+    private String
+    getLookupKey(URLString urlString) throws InvalidURLException {
+        return(Util.adjustURLString(urlString.toString(),
+                                Util.getIPAddress(urlString.getHostName())));
+    }
+
+
+/**
+ * <A NAME="SD_ADDREGISTRYLISTENER"></A>
+ * add the specified Registry listener to receive Registry events from the
+ * Registry of the specified type running on the given host.
+ *
+ * @param listener the Registry listener to add.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoRegistryException if there is no Registry running of the
+ * given type on the given host:port.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    public void
+    addRegistryListener(RegistryListener listener)
+        throws ConnectionException, NoRegistryException, TimedOutException {
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: addRegistryListener:" +
+                  " listener: " + listener);
+        }
+
+        try {
+            sendListenerMessage(listener.toString(), T_AddListener);
+        } catch (NoSuchListenerException e) {
+        }
+
+/* By default, a listener will listen for every type of event, so set all
+ * bits in the event mask. Note that there is currently no API calls to
+ * adjust the mask for a Registry listener, but we might as well add in the
+ * hooks now.
+ */
+
+        synchronized (listeners) {
+            listeners.put(listener, 0XFFFFFFFF);
+        }
+
+        scheduleKeepAlive();
+    }
+
+
+/**
+ * <A NAME="SD_REMOVEREGISTRYLISTENER"></A>
+ * removes the specified Registry listener so that it no longer receives
+ * Registry events from the Registry of the specified type running on the
+ * given host.
+ *
+ * @param listener the Registry listener to remove.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoRegistryException if there is no Registry running of the
+ * given type on the given host:port.
+ * @exception NoSuchListenerException if this SessionListener doesn't exist.
+ * @exception TimedOutException if no reply was received for this operation
  * in the given timeout period.
  */
 
@@ -906,7 +1511,7 @@ NamingProxy extends JSDTObject
                   " listener: " + listener);
         }
 
-        sendListenerMessage(listener, T_RemoveListener);
+        sendListenerMessage(listener.toString(), T_RemoveListener);
 
         synchronized (listeners) {
             Object reply = listeners.remove(listener);
@@ -915,10 +1520,6 @@ NamingProxy extends JSDTObject
                 throw new NoSuchListenerException();
             }
         }
-
-        synchronized (this) {
-            notifyAll();
-        }
     }
 
 
@@ -926,6 +1527,7 @@ NamingProxy extends JSDTObject
  * <A NAME="SD_SENDLISTENERMESSAGE"></A>
  * send a listener related message to the Registry.
  *
+ * @param listenerName the name the Registry knows the listener by.
  * @param action the message action.
  *
  * @exception ConnectionException if a connection error occured.
@@ -935,7 +1537,7 @@ NamingProxy extends JSDTObject
  */
 
     private void
-    sendListenerMessage(RegistryListener listener, char action)
+    sendListenerMessage(String listenerName, char action)
         throws ConnectionException, NoSuchListenerException,
                NoRegistryException {
         DataInputStream in;
@@ -947,14 +1549,14 @@ NamingProxy extends JSDTObject
 
         if (NamingProxy_Debug) {
             debug("NamingProxy: sendListenerMessage:" +
-                  " listener: " + listener +
+                  " listener: " + listenerName +
                   " action: "   + action);
         }
 
         try {
             proxyThread.writeMessageHeader(proxyThread.dataOut, (short) 1,
                                            id, T_Registry, action, true, true);
-            proxyThread.dataOut.writeUTF(listener.toString());
+            proxyThread.dataOut.writeUTF(listenerName);
             proxyThread.flush();
             message = proxyThread.waitForReply();
 
@@ -1007,6 +1609,19 @@ NamingProxy extends JSDTObject
                   " type: "          + type);
         }
 
+        if (type == RegistryEvent.CONNECTION_FAILED) {
+            synchronized (lookups) {
+                lookups.clear();
+                lookupListener = false;
+            }
+            placementChanges++;
+        } else if (resourceName != null) {
+            lookups.remove(resourceName.toString());
+            if (Util.isNode(resourceName)) {
+                placementChanges++;
+            }
+        }
+
         for (Enumeration e = listeners.elements(), k = listeners.keys();
              e.hasMoreElements();) {
             RegistryListener listener = (RegistryListener) k.nextElement();
@@ -1222,7 +1837,9 @@ NamingProxy extends JSDTObject
 
 /**
  * <A NAME="SD_LIST"></A>
- * <EM>list</EM> lists all the names of the known bound JSDT objects.
+ * <EM>list</EM> lists all the names of the known bound JSDT objects. If
+ * the Registry is one of a replicated set, then the request may be sent to
+ * any of them, so a very recent binding may not be listed yet.
  *
  * @exception ConnectionException if a connection error occured.
  * @exception NoRegistryException if no Registry process is running.
@@ -1234,23 +1851,64 @@ NamingProxy extends JSDTObject
 
     public URLString[]
     list()
+        throws ConnectionException, NoRegistryException, TimedOutException {
+        SocketThread thread = getReader();
+
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: list.");
+        }
+
+        try {
+            return(sendList(thread));
+        } catch (ConnectionException | TimedOutException e) {
+            if (thread == proxyThread) {
+                if (!failover()) {
+                    throw e;
+                }
+            } else {
+                dropReader(thread);
+            }
+        }
+
+        return(sendList(proxyThread));
+    }
+
+
+/**
+ * <A NAME="SD_SENDLIST"></A>
+ * <EM>sendList</EM> asks a Registry for the names of all the known bound
+ * JSDT objects.
+ *
+ * @param thread the connection to the Registry to ask.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoRegistryException if no Registry process is running.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return an array of URL Strings of the names of all the known bound objects.
+ */
+
+    private URLString[]
+    sendList(SocketThread thread)
         throws ConnectionException, NoRegistryException, TimedOutException {
         DataInputStream  in;
         Message          message;
         int              retval;
         int              n;
         URLString[]      names;
-        int              id = proxyThread.getId();
+        int              id = thread.getId();
 
         if (NamingProxy_Debug) {
-            debug("NamingProxy: list.");
+            debug("NamingProxy: sendList:" +
+                  " thread: " + thread);
         }
 
         try {
-            proxyThread.writeMessageHeader(proxyThread.dataOut, (short) 1,
-                                           id, T_Registry, T_List, true, true);
-            proxyThread.flush();
-            message = proxyThread.waitForReply();
+            thread.writeMessageHeader(thread.dataOut, (short) 1,
+                                      id, T_Registry, T_List, true, true);
+            thread.flush();
+            message = thread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -1262,18 +1920,18 @@ NamingProxy extends JSDTObject
                     names[i] = new URLString(in.readUTF());
                 }
             }
-            proxyThread.finishReply();
+            thread.finishReply();
 
             if (retval != 0) {
                 if (retval == JSDTException.NO_REGISTRY) {
                     throw new NoRegistryException();
                 } else {
-                    error("NamingProxy: list: ",
+                    error("NamingProxy: sendList: ",
                           "impl.unknown.exception.type", retval);
                 }
             }
         } catch (IOException e) {
-            proxyThread.finishReply();
+            thread.finishReply();
             throw new ConnectionException();
         }
 
@@ -1281,6 +1939,243 @@ NamingProxy extends JSDTObject
     }
 
 
+/**
+ * <A NAME="SD_GETPLACEMENTCHANGES"></A>
+ * <EM>getPlacementChanges</EM> get a count that changes whenever a node is
+ * bound or unbound at the Registry. A placement map fetched before the
+ * count last changed may be out of date.
+ *
+ * @return the number of placement changes seen so far.
+ */
+
+    long
+    getPlacementChanges() {
+        return(placementChanges);
+    }
+
+
+/**
+ * <A NAME="SD_GETPLACEMENT"></A>
+ * <EM>getPlacement</EM> asks the Registry for the placement map of the
+ * given session. This is the server named in the session URL, followed by
+ * the nodes that have been created for that session (in sorted order).
+ * The primary Registry is always asked, so that every proxy gets the same
+ * map.
+ *
+ * @param urlString the URLString of the session.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoRegistryException if no Registry process is running.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return the "address:port" of each server holding part of the session.
+ */
+
+    String[]
+    getPlacement(URLString urlString)
+        throws ConnectionException, NoRegistryException, TimedOutException {
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: getPlacement:" +
+                  " url string: " + urlString);
+        }
+
+        try {
+            return(sendPlacement(proxyThread, urlString));
+        } catch (ConnectionException | TimedOutException e) {
+            if (!failover()) {
+                throw e;
+            }
+        }
+
+        return(sendPlacement(proxyThread, urlString));
+    }
+
+
+/**
+ * <A NAME="SD_SENDPLACEMENT"></A>
+ * <EM>sendPlacement</EM> asks a Registry for the placement map of the
+ * given session.
+ *
+ * @param thread the connection to the Registry to ask.
+ * @param urlString the URLString of the session.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoRegistryException if no Registry process is running.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return the "address:port" of each server holding part of the session.
+ */
+
+    private String[]
+    sendPlacement(SocketThread thread, URLString urlString)
+        throws ConnectionException, NoRegistryException, TimedOutException {
+        DataInputStream in;
+        Message         message;
+        int             retval;
+        int             n;
+        String[]        nodes;
+        int             id = thread.getId();
+
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: sendPlacement:" +
+                  " thread: "     + thread +
+                  " url string: " + urlString);
+        }
+
+        try {
+            thread.writeMessageHeader(thread.dataOut, (short) 1,
+                                      id, T_Registry, T_Placement, true, true);
+            thread.dataOut.writeUTF(urlString.toString());
+            thread.dataOut.writeUTF(Util.getIPAddress(urlString.getHostName()));
+            thread.flush();
+            message = thread.waitForReply();
+
+            in     = message.thread.dataIn;
+            retval = in.readInt();
+            n      = in.readInt();
+            nodes  = new String[n];
+            for (int i = 0; i < n; i++) {
+                nodes[i] = in.readUTF();
+            }
+            thread.finishReply();
+
+            if (retval != 0) {
+                if (retval == JSDTException.NO_REGISTRY) {
+                    throw new NoRegistryException();
+                } else {
+                    error("NamingProxy: sendPlacement: ",
+                          "impl.unknown.exception.type", retval);
+                }
+            }
+        } catch (InvalidURLException iue) {
+
+/* The session URL was resolved when the session was created, so a host that
+ * can no longer be resolved is treated as a connection failure.
+ */
+
+            throw new ConnectionException();
+        } catch (IOException e) {
+            thread.finishReply();
+            throw new ConnectionException();
+        }
+
+        return(nodes);
+    }
+
+
+/**
+ * <A NAME="SD_GETOWNER"></A>
+ * <EM>getOwner</EM> asks the Registry which server holds the given object
+ * of a session. If no server holds it yet, the Registry chooses one and
+ * records it, so every proxy places the object on the same server. As with
+ * the placement map, the primary Registry is always asked.
+ *
+ * @param urlString the URLString of the session.
+ * @param objectName the name of the byte array, channel or token.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoRegistryException if no Registry process is running.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return the "address:port" of the server that holds that object.
+ */
+
+    String
+    getOwner(URLString urlString, String objectName)
+        throws ConnectionException, NoRegistryException, TimedOutException {
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: getOwner:" +
+                  " url string: "  + urlString +
+                  " object name: " + objectName);
+        }
+
+        try {
+            return(sendOwner(proxyThread, urlString, objectName));
+        } catch (ConnectionException | TimedOutException e) {
+            if (!failover()) {
+                throw e;
+            }
+        }
+
+        return(sendOwner(proxyThread, urlString, objectName));
+    }
+
+
+/**
+ * <A NAME="SD_SENDOWNER"></A>
+ * <EM>sendOwner</EM> asks a Registry which server holds the given object
+ * of a session.
+ *
+ * @param thread the connection to the Registry to ask.
+ * @param urlString the URLString of the session.
+ * @param objectName the name of the byte array, channel or token.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoRegistryException if no Registry process is running.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return the "address:port" of the server that holds that object.
+ */
+
+    private String
+    sendOwner(SocketThread thread, URLString urlString, String objectName)
+        throws ConnectionException, NoRegistryException, TimedOutException {
+        DataInputStream in;
+        Message         message;
+        int             retval;
+        String          owner;
+        int             id = thread.getId();
+
+        if (NamingProxy_Debug) {
+            debug("NamingProxy: sendOwner:" +
+                  " thread: "      + thread +
+                  " url string: "  + urlString +
+                  " object name: " + objectName);
+        }
+
+        try {
+            thread.writeMessageHeader(thread.dataOut, (short) 1,
+                                      id, T_Registry, T_Owner, true, true);
+            thread.dataOut.writeUTF(urlString.toString());
+            thread.dataOut.writeUTF(Util.getIPAddress(urlString.getHostName()));
+            thread.dataOut.writeUTF(objectName);
+            thread.flush();
+            message = thread.waitForReply();
+
+            in     = message.thread.dataIn;
+            retval = in.readInt();
+            owner  = (retval == 0) ? in.readUTF() : null;
+            thread.finishReply();
+
+            if (retval != 0) {
+                if (retval == JSDTException.NO_REGISTRY) {
+                    throw new NoRegistryException();
+                } else {
+                    error("NamingProxy: sendOwner: ",
+                          "impl.unknown.exception.type", retval);
+                    throw new ConnectionException();
+                }
+            }
+        } catch (InvalidURLException iue) {
+
+/* The session URL was resolved when the session was created, so a host that
+ * can no longer be resolved is treated as a connection failure.
+ */
+
+            throw new ConnectionException();
+        } catch (IOException e) {
+            thread.finishReply();
+            throw new ConnectionException();
+        }
+
+        return(owner);
+    }
+
+
 /**
  * <A NAME="SD_ADDCONNECTIONLISTENER"></A>
  * add the specified connection listener to provide asynchronous notification
@@ -1331,51 +2226,57 @@ NamingProxy extends JSDTObject
 
 /**
  * <A NAME="SD_RUN"></A>
- * <EM>run</EM>
+ * <EM>run</EM> called by the timer every keep alive period, to check the
+ * connection to the registry for each of the registry listeners.
  */
 
     public void
     run() {
-        long alivePeriod = Util.getLongProperty("keepAlivePeriod",
-                                                keepAlivePeriod);
-
         if (NamingProxy_Debug) {
             debug("NamingProxy: run.");
         }
 
-        while (!shutdown) {
-            synchronized (this) {
-                while (listeners.size() == 0) {
-                    try {
-                        wait();
-                    } catch (InterruptedException ie) {
-                        break;
-                    }
-                }
-            }
-
-            if (!shutdown) {
-                try {
-                    for (Enumeration k = listeners.keys(); k.hasMoreElements();) {
-                        RegistryListener listener = (RegistryListener)
-                                                        k.nextElement();
+        synchronized (this) {
+            keepAlive = null;
+        }
 
-                        sendListenerMessage(listener, T_IsAlive);
-                    }
+        if (listeners.size() > 0) {
+            try {
+                for (Enumeration k = listeners.keys(); k.hasMoreElements();) {
+                    RegistryListener listener = (RegistryListener)
+                                                    k.nextElement();
 
-                    Thread.sleep(alivePeriod);
-                } catch (Exception ie) {
+                    sendListenerMessage(listener.toString(), T_IsAlive);
                 }
+            } catch (Exception e) {
             }
+            scheduleKeepAlive();
         }
+    }
+
+
+/**
+ * <A NAME="SD_SCHEDULEKEEPALIVE"></A>
+ * <EM>scheduleKeepAlive</EM> schedule the next registry keep alive check,
+ * unless there is already one due.
+ */
+
+    private synchronized void
+    scheduleKeepAlive() {
+        long alivePeriod = Util.getLongProperty("keepAlivePeriod",
+                                                keepAlivePeriod);
 
         if (NamingProxy_Debug) {
-            debug("NamingProxy: run ended.");
+            debug("NamingProxy: scheduleKeepAlive.");
+        }
+
+        if (!shutdown && keepAlive == null) {
+            keepAlive = Util.getTimer().schedule(this, alivePeriod);
         }
     }
 
     /**
-     * Sets if the thread should shutdown. <p>
+     * Sets if the keep alive checks should stop. <p>
      *
      * @param shutdown <b>true</b> if it should shutdown, <b>false</b> if not.
      */
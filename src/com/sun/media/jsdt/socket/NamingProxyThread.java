@@ -27,7 +27,7 @@ import java.net.*;
 /**
  * JSDT Naming proxy thread class (socket implementation).
  *
- * @version     2.3 - 16th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -37,6 +37,9 @@ NamingProxyThread extends TCPSocketThread {
     /** The Naming proxy message associated with this proxy thread. */
     private NamingProxyMessage npm = null;
 
+    /** The Naming proxy that this thread is a connection for. */
+    private final NamingProxy np;
+
 
 /**
  * <A NAME="SD_NAMINGPROXYTHREAD"></A>
@@ -59,10 +62,28 @@ NamingProxyThread extends TCPSocketThread {
                   " port: "         + port);
         }
 
+        np  = namingProxy;
         npm = new NamingProxyMessage(namingProxy);
     }
 
 
+/**
+ * <A NAME="SD_CLEANUPCONNECTION"></A>
+ * <EM>cleanupConnection</EM> close the connection to the Registry, and
+ * let the naming proxy know that it has gone.
+ */
+
+    public void
+    cleanupConnection() {
+        if (NamingProxyThread_Debug) {
+            debug("NamingProxyThread: cleanupConnection.");
+        }
+
+        super.cleanupConnection();
+        np.registryLost(this);
+    }
+
+
 /**
  * <A NAME="SD_HANDLEMESSAGE"></A>
  * <EM>handleMessage</EM> process the next message.
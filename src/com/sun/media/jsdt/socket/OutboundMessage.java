@@ -0,0 +1,166 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+import java.io.*;
+
+/**
+ * JSDT outbound message class. A Data message that has been sent to a
+ * channel, waiting in an outbound queue to be written to one consumer's
+ * connection. The encoded message itself is shared with all the other
+ * recipients. A batch of Data messages sent to the channel with a single
+ * request is queued to each consumer as a single outbound message, so that
+ * they are written out together and in order.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+OutboundMessage extends JSDTObject implements socketDebugFlags {
+
+    // The encoded channel data messages.
+    private final BroadcastFrame[] frames;
+
+    // The name of the client receiving the data.
+    private final String receiverName;
+
+
+/**
+ * <A NAME="SD_OUTBOUNDMESSAGE"></A>
+ * <EM>OutboundMessage</EM> is a constructor for the OutboundMessage class.
+ *
+ * @param frame the encoded channel data message.
+ * @param receiverName the name of the client receiving the data.
+ */
+
+    OutboundMessage(BroadcastFrame frame, String receiverName) {
+        this(new BroadcastFrame[] { frame }, receiverName);
+    }
+
+
+/**
+ * <A NAME="SD_OUTBOUNDMESSAGE"></A>
+ * <EM>OutboundMessage</EM> is a constructor for the OutboundMessage class.
+ *
+ * @param frames the encoded channel data messages in this batch.
+ * @param receiverName the name of the client receiving the data.
+ */
+
+    OutboundMessage(BroadcastFrame[] frames, String receiverName) {
+        if (OutboundMessage_Debug) {
+            debug("OutboundMessage: constructor:" +
+                  " frames: "        + frames.length +
+                  " receiver name: " + receiverName);
+        }
+
+        this.frames       = frames;
+        this.receiverName = receiverName;
+        for (int i = 0; i < frames.length; i++) {
+            frames[i].retain();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETPRIORITY"></A>
+ * <EM>getPriority</EM> get the priority of this outbound message. For a
+ * batch, this is the most urgent priority of the Data messages in it.
+ *
+ * @return the priority of this outbound message.
+ */
+
+    int
+    getPriority() {
+        int priority = frames[0].getPriority();
+
+        for (int i = 1; i < frames.length; i++) {
+            if (frames[i].getPriority() < priority) {
+                priority = frames[i].getPriority();
+            }
+        }
+
+        return(priority);
+    }
+
+
+/**
+ * <A NAME="SD_GETLENGTH"></A>
+ * <EM>getLength</EM>
+ *
+ * @return the total length of the data in this message.
+ */
+
+    int
+    getLength() {
+        int length = 0;
+
+        for (int i = 0; i < frames.length; i++) {
+            length += frames[i].getLength();
+        }
+
+        return(length);
+    }
+
+
+/**
+ * <A NAME="SD_RELEASE"></A>
+ * <EM>release</EM> this message is no longer going to be written.
+ */
+
+    void
+    release() {
+        if (OutboundMessage_Debug) {
+            debug("OutboundMessage: release.");
+        }
+
+        for (int i = 0; i < frames.length; i++) {
+            frames[i].release();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_WRITE"></A>
+ * <EM>write</EM> write this message to the given connection.
+ *
+ * @param thread the connection to write this message to.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    void
+    write(SocketThread thread) throws IOException {
+        if (OutboundMessage_Debug) {
+            debug("OutboundMessage: write:" +
+                  " thread: " + thread);
+        }
+
+        try {
+            for (int i = 0; i < frames.length; i++) {
+                thread.writeBroadcast(frames[i], receiverName);
+            }
+        } finally {
+            release();
+        }
+    }
+}
@@ -0,0 +1,655 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.Channel;
+import com.sun.media.jsdt.impl.*;
+import java.io.IOException;
+import java.util.StringTokenizer;
+import java.util.Vector;
+
+/**
+ * JSDT outbound queue class. Each connection that channel data is sent to
+ * has one of these. Messages are added to a bounded queue by the thread
+ * sending them, and are written out to the connection by a separate writer
+ * thread, so a consumer that is slow to read its data can't hold up the
+ * delivery to any other consumer.
+ *
+ * What happens when the queue is full depends upon the "outboundQueuePolicy"
+ * property, which can be one of:
+ *
+ * disconnect - the connection to the slow consumer is closed (the default).
+ *              This is measured in bytes rather than messages. The queue is
+ *              full once the data waiting in it would go over
+ *              "outboundQueueBytes" bytes, however many messages that is,
+ *              so a burst of small messages from several senders doesn't
+ *              close the connection of a consumer that's only briefly slow.
+ * dropOldest - the oldest queued message is thrown away.
+ * dropNewest - the new message is thrown away.
+ * block      - the sender waits (for up to the timeout period) for room in
+ *              the queue. If there still isn't any, the connection is closed.
+ *              This holds up the delivery to every other consumer while it
+ *              waits, so it should only be asked for when a sender can
+ *              afford to be slowed down to the pace of its slowest consumer.
+ *
+ * For the other policies, the queue is full once "outboundQueueSize"
+ * messages are waiting.
+ *
+ * Messages wait in a separate lane for each data priority. The writer
+ * thread takes messages from the lanes in a weighted round robin given by
+ * the "priorityWeights" property. With the default weights of "8,4,2,1",
+ * up to eight TOP_PRIORITY messages are written for every LOW_PRIORITY
+ * message when both are waiting, so urgent data isn't stuck behind bulk
+ * data, yet bulk data is never starved.
+ *
+ * If the "coalesceWrites" property is set, then when several messages are
+ * waiting, the writer thread writes them all to the connection before
+ * flushing it, rather than flushing after each one. It flushes once the
+ * queue is empty (after waiting up to "coalesceDelay" milliseconds for
+ * more messages), or once "coalesceBytes" bytes of data have been written,
+ * so a connection that is idle still gets each message straight away.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+OutboundQueue extends JSDTObject implements Runnable, socketDebugFlags {
+
+    // The possible queue overflow policies.
+    static final String BLOCK       = "block";
+    static final String DROP_OLDEST = "dropOldest";
+    static final String DROP_NEWEST = "dropNewest";
+    static final String DISCONNECT  = "disconnect";
+
+    // The connection that messages in this queue are written to.
+    private final SocketThread thread;
+
+    // The monitor guarding the state of this queue.
+    private final JSDTMonitor monitor = new JSDTMonitor();
+
+    // The messages waiting to be written (one lane for each priority).
+    private final Vector<Vector<OutboundMessage>> lanes = new Vector<>();
+
+    // The total number of messages waiting to be written.
+    private int size = 0;
+
+    // The total length of the data in the messages waiting to be written.
+    private long bytes = 0;
+
+    // The relative number of messages to write from each lane.
+    private final int[] weights;
+
+    // The number of messages each lane can still write in this round.
+    private final int[] credits;
+
+    // Indicates whether there is a writer thread for this queue.
+    private boolean writing = false;
+
+    // Indicates whether this queue has been closed.
+    private boolean closed = false;
+
+    // The largest number of messages that have been waiting at once.
+    private int highWater = 0;
+
+    // The number of messages written to the connection.
+    private long written = 0;
+
+    // The number of messages thrown away because the queue was full.
+    private long dropped = 0;
+
+    // The number of messages written to the connection with each flush.
+    private final BatchHistogram batchSizes = new BatchHistogram();
+
+
+/**
+ * <A NAME="SD_OUTBOUNDQUEUE"></A>
+ * <EM>OutboundQueue</EM> is a constructor for the OutboundQueue class.
+ *
+ * @param thread the connection that messages in this queue are written to.
+ */
+
+    OutboundQueue(SocketThread thread) {
+        if (OutboundQueue_Debug) {
+            debug("OutboundQueue: constructor:" +
+                  " thread: " + thread);
+        }
+
+        this.thread = thread;
+        weights     = getWeights();
+        credits     = new int[weights.length];
+        for (int i = 0; i < Channel.MAX_PRIORITIES; i++) {
+            lanes.addElement(new Vector<>());
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETWEIGHTS"></A>
+ * <EM>getWeights</EM> get the relative number of messages to write from
+ * each priority lane, from the "priorityWeights" property.
+ *
+ * @return the weight for each priority lane.
+ */
+
+    private int[]
+    getWeights() {
+        String          value       = Util.getStringProperty(
+                                        "priorityWeights", priorityWeights);
+        StringTokenizer st          = new StringTokenizer(value, ",");
+        int[]           laneWeights = new int[Channel.MAX_PRIORITIES];
+
+        if (OutboundQueue_Debug) {
+            debug("OutboundQueue: getWeights:" +
+                  " weights: " + value);
+        }
+
+        for (int i = 0; i < laneWeights.length; i++) {
+            laneWeights[i] = 1;
+            if (st.hasMoreTokens()) {
+                try {
+                    laneWeights[i] = Math.max(1,
+                                     Integer.parseInt(st.nextToken().trim()));
+                } catch (NumberFormatException nfe) {
+                    error("OutboundQueue: getWeights: ", nfe);
+                }
+            }
+        }
+
+        return(laneWeights);
+    }
+
+
+/**
+ * <A NAME="SD_PUTMESSAGE"></A>
+ * <EM>putMessage</EM> add a message to this queue, applying the overflow
+ * policy if the queue is full.
+ *
+ * @param message the message to be written to this connection.
+ *
+ * @return false if the message could not be queued because the connection
+ * has been closed.
+ */
+
+    boolean
+    putMessage(OutboundMessage message) {
+        int    queueSize  = Util.getIntProperty("outboundQueueSize",
+                                                outboundQueueSize);
+        long   queueBytes = Util.getLongProperty("outboundQueueBytes",
+                                                 outboundQueueBytes);
+        String policy     = Util.getStringProperty("outboundQueuePolicy",
+                                                   outboundQueuePolicy);
+
+        if (OutboundQueue_Debug) {
+            debug("OutboundQueue: putMessage:" +
+                  " message: " + message +
+                  " policy: "  + policy);
+        }
+
+        monitor.enter();
+        try {
+            return(addMessage(message, queueSize, queueBytes, policy));
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ADDMESSAGE"></A>
+ * <EM>addMessage</EM> add a message to this queue. The caller must be inside
+ * the monitor for this queue.
+ *
+ * @param message the message to be written to this connection.
+ * @param queueSize the maximum number of messages in this queue.
+ * @param queueBytes the maximum length of the data in this queue, with the
+ * disconnect policy.
+ * @param policy the overflow policy for this queue.
+ *
+ * @return false if the message could not be queued because the connection
+ * has been closed.
+ */
+
+    private boolean
+    addMessage(OutboundMessage message, int queueSize, long queueBytes,
+               String policy) {
+        if (closed) {
+            message.release();
+            return(false);
+        }
+
+/* A message on its own is always queued, however long it is, so the limit
+ * on the data only closes the connection when the consumer is behind.
+ */
+
+        if (policy.equals(DISCONNECT)) {
+            if (size > 0 && bytes + message.getLength() > queueBytes) {
+                message.release();
+                disconnect();
+                return(false);
+            }
+        } else if (size >= queueSize) {
+            if (policy.equals(DROP_OLDEST)) {
+                removeOldest();
+                dropped++;
+            } else if (policy.equals(DROP_NEWEST)) {
+                message.release();
+                dropped++;
+                return(true);
+            } else {
+                long startTime    = System.currentTimeMillis();
+                long timeoutValue = Util.getLongProperty("timeoutPeriod",
+                                                          timeoutPeriod);
+                long period;
+
+                while (!closed && size >= queueSize) {
+                    period = timeoutValue -
+                             (System.currentTimeMillis() - startTime);
+                    if (period <= 0) {
+                        disconnect();
+                        break;
+                    }
+                    try {
+                        monitor.await(period);
+                    } catch (InterruptedException ie) {
+                    }
+                }
+
+                if (closed) {
+                    message.release();
+                    return(false);
+                }
+            }
+        }
+
+        lanes.elementAt(message.getPriority()).addElement(message);
+        bytes += message.getLength();
+        if (++size > highWater) {
+            highWater = size;
+        }
+
+        if (!writing) {
+            writing = true;
+            Util.startThread(this, "OutboundQueue:" + thread, true);
+        } else {
+            monitor.signalAll();
+        }
+
+        return(true);
+    }
+
+
+/**
+ * <A NAME="SD_GETMESSAGE"></A>
+ * <EM>getMessage</EM> get the next message to write to the connection,
+ * waiting a short while for one to arrive if the queue is empty.
+ *
+ * @return the next message, or null if the writer thread should exit.
+ */
+
+    private OutboundMessage
+    getMessage() {
+        OutboundMessage message;
+
+        if (OutboundQueue_Debug) {
+            debug("OutboundQueue: getMessage.");
+        }
+
+        monitor.enter();
+        try {
+            if (!closed && size == 0) {
+                try {
+                    monitor.await(Util.getLongProperty("keepAlivePeriod",
+                                                       keepAlivePeriod));
+                } catch (InterruptedException ie) {
+                }
+            }
+
+            if (closed || size == 0) {
+                writing = false;
+                return(null);
+            }
+
+            message = nextMessage();
+            monitor.signalAll();
+        } finally {
+            monitor.exit();
+        }
+
+        return(message);
+    }
+
+
+/**
+ * <A NAME="SD_NEXTMESSAGE"></A>
+ * <EM>nextMessage</EM> take the next message to write from the priority
+ * lanes. The most urgent lane that still has credit in this round goes
+ * first. When none of the waiting lanes has any credit left, a new round
+ * is started. The caller must be inside the monitor for this queue, and
+ * the queue must not be empty.
+ *
+ * @return the next message to write.
+ */
+
+    private OutboundMessage
+    nextMessage() {
+        OutboundMessage message;
+
+        if (OutboundQueue_Debug) {
+            debug("OutboundQueue: nextMessage.");
+        }
+
+        while (true) {
+            for (int i = 0; i < lanes.size(); i++) {
+                Vector<OutboundMessage> lane = lanes.elementAt(i);
+
+                if (lane.size() != 0 && credits[i] > 0) {
+                    credits[i]--;
+                    message = lane.firstElement();
+                    lane.removeElementAt(0);
+                    size--;
+                    bytes -= message.getLength();
+                    return(message);
+                }
+            }
+
+            System.arraycopy(weights, 0, credits, 0, weights.length);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_REMOVEOLDEST"></A>
+ * <EM>removeOldest</EM> throw away the oldest of the least urgent messages
+ * in the queue. The caller must be inside the monitor for this queue.
+ */
+
+    private void
+    removeOldest() {
+        if (OutboundQueue_Debug) {
+            debug("OutboundQueue: removeOldest.");
+        }
+
+        for (int i = lanes.size() - 1; i >= 0; i--) {
+            Vector<OutboundMessage> lane = lanes.elementAt(i);
+
+            if (lane.size() != 0) {
+                OutboundMessage message = lane.firstElement();
+
+                bytes -= message.getLength();
+                message.release();
+                lane.removeElementAt(0);
+                size--;
+                return;
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_DISCONNECT"></A>
+ * <EM>disconnect</EM> close this queue (throwing away any waiting messages)
+ * and the connection it writes to.
+ */
+
+    private void
+    disconnect() {
+        if (OutboundQueue_Debug) {
+            debug("OutboundQueue: disconnect.");
+        }
+
+        monitor.enter();
+        try {
+            dropped += size;
+            for (int i = 0; i < lanes.size(); i++) {
+                Vector<OutboundMessage> lane = lanes.elementAt(i);
+
+                for (int j = 0; j < lane.size(); j++) {
+                    lane.elementAt(j).release();
+                }
+                lane.removeAllElements();
+            }
+            size  = 0;
+            bytes = 0;
+            close();
+        } finally {
+            monitor.exit();
+        }
+
+        if (thread instanceof TCPSocketThread) {
+            ((TCPSocketThread) thread).closeSocket();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_CLOSE"></A>
+ * <EM>close</EM> close this queue. No more messages will be accepted.
+ */
+
+    void
+    close() {
+        if (OutboundQueue_Debug) {
+            debug("OutboundQueue: close.");
+        }
+
+        monitor.enter();
+        try {
+            closed = true;
+            monitor.signalAll();
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETSIZE"></A>
+ * <EM>getSize</EM>
+ *
+ * @return the number of messages currently waiting in this queue.
+ */
+
+    int
+    getSize() {
+        monitor.enter();
+        try {
+            return(size);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETHIGHWATER"></A>
+ * <EM>getHighWater</EM>
+ *
+ * @return the largest number of messages that have been waiting at once.
+ */
+
+    int
+    getHighWater() {
+        monitor.enter();
+        try {
+            return(highWater);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETWRITTEN"></A>
+ * <EM>getWritten</EM>
+ *
+ * @return the number of messages written to the connection.
+ */
+
+    long
+    getWritten() {
+        monitor.enter();
+        try {
+            return(written);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETDROPPED"></A>
+ * <EM>getDropped</EM>
+ *
+ * @return the number of messages thrown away because the queue was full
+ * or the connection was closed.
+ */
+
+    long
+    getDropped() {
+        monitor.enter();
+        try {
+            return(dropped);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETBATCHSIZES"></A>
+ * <EM>getBatchSizes</EM>
+ *
+ * @return the histogram of the number of messages written to the connection
+ * with each flush.
+ */
+
+    BatchHistogram
+    getBatchSizes() {
+        return(batchSizes);
+    }
+
+
+/**
+ * <A NAME="SD_MOREMESSAGES"></A>
+ * <EM>moreMessages</EM> check whether the messages written so far can be
+ * left unflushed, because more are waiting to be written after them. If
+ * the queue is empty, wait for up to "coalesceDelay" milliseconds for
+ * another message to arrive.
+ *
+ * @param bytes the number of bytes of data written since the last flush.
+ *
+ * @return true if the connection doesn't need to be flushed yet.
+ */
+
+    private boolean
+    moreMessages(int bytes) {
+        long delay = Util.getLongProperty("coalesceDelay", coalesceDelay);
+
+        if (OutboundQueue_Debug) {
+            debug("OutboundQueue: moreMessages:" +
+                  " bytes: " + bytes);
+        }
+
+        if (!Util.getBooleanProperty("coalesceWrites", coalesceWrites) ||
+            bytes >= Util.getIntProperty("coalesceBytes", coalesceBytes)) {
+            return(false);
+        }
+
+        monitor.enter();
+        try {
+            if (!closed && size == 0 && delay > 0) {
+                try {
+                    monitor.await(delay);
+                } catch (InterruptedException ie) {
+                }
+            }
+
+            return(!closed && size != 0);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_RUN"></A>
+ * <EM>run</EM> write out queued messages until the queue has been empty for
+ * a while (or is closed). The connection is flushed whenever there are no
+ * more messages waiting to go straight after the ones already written.
+ */
+
+    public void
+    run() {
+        OutboundMessage message;
+        int             batch = 0;
+        int             bytes = 0;
+
+        if (OutboundQueue_Debug) {
+            debug("OutboundQueue: run.");
+        }
+
+        while ((message = getMessage()) != null) {
+            try {
+                bytes += message.getLength();
+                message.write(thread);
+                monitor.enter();
+                try {
+                    written++;
+                } finally {
+                    monitor.exit();
+                }
+
+                batch++;
+                if (!moreMessages(bytes)) {
+                    thread.flushOutput();
+                    batchSizes.add(batch);
+                    batch = 0;
+                    bytes = 0;
+                }
+            } catch (IOException ioe) {
+                error("OutboundQueue: run: ", ioe);
+                disconnect();
+                batch = 0;
+                bytes = 0;
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this OutboundQueue.
+ *
+ * @return a String containing a description of this OutboundQueue.
+ */
+
+    public String
+    toString() {
+        return("OutboundQueue:" +
+                " size: "       + getSize() +
+                " high water: " + getHighWater() +
+                " written: "    + getWritten() +
+                " dropped: "    + getDropped() +
+                " batches: "    + batchSizes);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+
+/**
+ * JSDT pending grab class. One of these is created on the client-side for
+ * each Client waiting in a Token's grab queue on the server. The socket
+ * reader thread uses it to hand the result of the grab over to the thread
+ * that is waiting for the Token. If that thread gives up waiting first,
+ * the grab is abandoned, and a result that arrives after that is refused.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+PendingGrab extends JSDTObject implements socketDebugFlags {
+
+    // The name of the client waiting for the token.
+    final String clientName;
+
+    // Set when the result of the grab has arrived from the server.
+    private boolean done = false;
+
+    // Set when the waiting thread has given up before the result arrived.
+    private boolean abandoned = false;
+
+    // The result of the grab (0 if it was successful).
+    private int retval = 0;
+
+    // The status of the token when the grab finished.
+    private int status = 0;
+
+    // The monitor used to hand the result over to the waiting thread.
+    private final JSDTMonitor monitor = new JSDTMonitor();
+
+
+/**
+ * <A NAME="SD_PENDINGGRAB"></A>
+ * <EM>PendingGrab</EM> is the constructor for the PendingGrab class.
+ *
+ * @param clientName the name of the client waiting for the token.
+ */
+
+    PendingGrab(String clientName) {
+        if (PendingGrab_Debug) {
+            debug("PendingGrab: constructor:" +
+                  " client name: " + clientName);
+        }
+
+        this.clientName = clientName;
+    }
+
+
+/**
+ * <A NAME="SD_AWAITRESULT"></A>
+ * <EM>awaitResult</EM> wait until the result of the grab arrives from the
+ * server, or until the given period has passed.
+ *
+ * @param period the maximum time to wait in milliseconds.
+ *
+ * @return true if the result arrived; false if the period passed first.
+ */
+
+    boolean
+    awaitResult(long period) {
+        long endTime = System.currentTimeMillis() + period;
+        long remaining;
+
+        if (PendingGrab_Debug) {
+            debug("PendingGrab: awaitResult:" +
+                  " period: " + period);
+        }
+
+        monitor.enter();
+        try {
+            while (!done &&
+                   (remaining = endTime - System.currentTimeMillis()) > 0) {
+                try {
+                    monitor.await(remaining);
+                } catch (InterruptedException ie) {
+                }
+            }
+            return(done);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ABANDON"></A>
+ * <EM>abandon</EM> called by the waiting thread when it has given up
+ * waiting for the result of the grab. If the result arrived in the
+ * meantime, the grab isn't abandoned, and that result should be used.
+ *
+ * @return true if the grab was abandoned; false if its result arrived.
+ */
+
+    boolean
+    abandon() {
+        if (PendingGrab_Debug) {
+            debug("PendingGrab: abandon.");
+        }
+
+        monitor.enter();
+        try {
+            if (!done) {
+                abandoned = true;
+            }
+            return(abandoned);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_FINISHED"></A>
+ * <EM>finished</EM> called by the socket reader thread when the result of
+ * the grab has arrived from the server.
+ *
+ * @param retval the result of the grab (0 if it was successful).
+ * @param status the status of the token when the grab finished.
+ *
+ * @return true if the result was handed over; false if the grab had
+ * already been abandoned.
+ */
+
+    boolean
+    finished(int retval, int status) {
+        if (PendingGrab_Debug) {
+            debug("PendingGrab: finished:" +
+                  " retval: " + retval +
+                  " status: " + status);
+        }
+
+        monitor.enter();
+        try {
+            if (abandoned) {
+                return(false);
+            }
+
+            this.retval = retval;
+            this.status = status;
+            done        = true;
+            monitor.signalAll();
+            return(true);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETRETVAL"></A>
+ * <EM>getRetval</EM>
+ *
+ * @return the result of the grab (0 if it was successful).
+ */
+
+    int
+    getRetval() {
+        if (PendingGrab_Debug) {
+            debug("PendingGrab: getRetval.");
+        }
+
+        monitor.enter();
+        try {
+            return(retval);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETSTATUS"></A>
+ * <EM>getStatus</EM>
+ *
+ * @return the status of the token when the grab finished.
+ */
+
+    int
+    getStatus() {
+        if (PendingGrab_Debug) {
+            debug("PendingGrab: getStatus.");
+        }
+
+        monitor.enter();
+        try {
+            return(status);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this PendingGrab.
+ *
+ * @return a String containing a description of this PendingGrab.
+ */
+
+    public String
+    toString() {
+        return("PendingGrab:" +
+                " client name: " + clientName +
+                " done: "        + done +
+                " abandoned: "   + abandoned +
+                " retval: "      + retval +
+                " status: "      + status + "\n");
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+
+/**
+ * JSDT pending request class. One of these is created for each request
+ * that is outstanding on a multiplexed socket connection. The socket reader
+ * thread uses it to hand the reply over to the thread waiting for it.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+PendingRequest extends JSDTObject implements socketDebugFlags {
+
+    // States that this pending request can be in.
+    static final int WAITING   = 1;
+    static final int FOUND     = 2;
+    static final int FINISHED  = 3;
+    static final int CANCELLED = 4;
+
+    // The per-connection request id carried in the message header.
+    final int requestId;
+
+    // The calculated value used to match replies without a request id.
+    final long waitValue;
+
+    // The thread waiting for the reply to this request.
+    final Thread caller;
+
+    // The current state of this pending request.
+    int state = WAITING;
+
+    // The reply message (set by the socket reader thread).
+    Message reply = null;
+
+    // The monitor used to hand the reply over to the waiting thread.
+    final JSDTMonitor monitor = new JSDTMonitor();
+
+
+/**
+ * <A NAME="SD_PENDINGREQUEST"></A>
+ * <EM>PendingRequest</EM> is a constructor for the PendingRequest class.
+ *
+ * @param requestId the per-connection request id for this request.
+ * @param waitValue the calculated value for the reply being waited for.
+ * @param caller the thread waiting for the reply.
+ */
+
+    PendingRequest(int requestId, long waitValue, Thread caller) {
+        if (PendingRequest_Debug) {
+            debug("PendingRequest: constructor:" +
+                  " request id: " + requestId +
+                  " wait value: " + waitValue +
+                  " caller: "     + caller);
+        }
+
+        this.requestId = requestId;
+        this.waitValue = waitValue;
+        this.caller    = caller;
+    }
+
+
+/**
+ * <A NAME="SD_MATCHES"></A>
+ * <EM>matches</EM> checks to see if the given message is the reply to
+ * this pending request.
+ *
+ * @param message the message just read off the socket.
+ *
+ * @return true if the message is the reply to this request.
+ */
+
+    boolean
+    matches(Message message) {
+        long s = ((long) message.id << 32) + (message.sessionNo << 16) +
+                 (message.type      <<  8) + message.action;
+
+        if (PendingRequest_Debug) {
+            debug("PendingRequest: matches:" +
+                  " message: " + message);
+        }
+
+        if (message.requestId != 0) {
+            return(message.requestId == requestId);
+        }
+
+        return(waitValue == s);
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this PendingRequest.
+ *
+ * @return a String containing a description of this PendingRequest.
+ */
+
+    public String
+    toString() {
+        return("PendingRequest:" +
+                " request id: " + requestId +
+                " wait value: " + waitValue +
+                " state: "      + state + "\n");
+    }
+}
@@ -42,7 +42,7 @@ import java.util.*;
  *
  * Based on the RMI Registry class.
  *
- * @version     2.3 - 16th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -59,19 +59,47 @@ Registry extends JSDTObject
     private SocketThread proxyThread;
 
     // The server-side Registry thread.
-    private TargetableThread serverThread = null;
+    private Thread serverThread = null;
+
+    // The runnable target of the server-side Registry thread.
+    private RegistryServerThread serverTarget = null;
 
     // The unique number to use for the next Session/Client binding.
     private short currentNo = 1;
 
+    // The amount to step the next Session/Client number by. Each Registry
+    // in a replicated set hands out a different share of the numbers.
+    private short noStep = 1;
+
+    // The port number this Registry is running on (or 0 to use the
+    // "registryPort" property).
+    private int port = 0;
+
     // The server socket to await connections on.
     private ServerSocket ssock;
 
-    // The url keys for the thread values currently bound in the registry.
-    private final Hashtable<String, JSDTThread> bindings;
+    // The url keys for the entries currently bound in the registry.
+    private final Hashtable<String, RegistryEntry> bindings;
+
+    // The url keys for the entries that have been unbound. These are kept
+    // (for "registryUnboundPeriod" milliseconds) so that the unbinding can
+    // be copied to the other Registries.
+    private final Hashtable<String, RegistryEntry> unbound;
+
+    // The name that this Registry stamps its changes with.
+    private String origin = null;
+
+    // This Registry's logical clock. It's moved on for each change made
+    // here, and kept ahead of the changes copied from other Registries.
+    private long clock = 0;
 
-    // The url keys for the unique session/client number values.
-    private final Hashtable<String, Short> values;
+    // The latest clock value seen in the changes from each of the other
+    // Registries (keyed by origin).
+    private final Hashtable<String, Long> seen;
+
+    // Copies the changes made at the other Registries in the replicated
+    // set (or null if there is just this one).
+    private RegistrySync sync = null;
 
     // An instance of the socket factory for creating server sockets.
     private JSDTSocketFactory factory = null;
@@ -117,7 +145,8 @@ Registry extends JSDTObject
 
         addresses       = createAddressList();
         bindings        = new Hashtable<>();
-        values          = new Hashtable<>();
+        unbound         = new Hashtable<>();
+        seen            = new Hashtable<>();
         listeners       = new Hashtable<>();
         listenerThreads = new Hashtable<>();
         idClients       = new Hashtable<>();
@@ -210,14 +239,19 @@ Registry extends JSDTObject
 
     private void
     startServer() {
-        int port = Util.getIntProperty("registryPort", registryPort);
-
         if (Registry_Debug) {
             debug("Registry: startServer.");
         }
 
+        if (port == 0) {
+            port = Util.getIntProperty("registryPort", registryPort);
+        }
+
         try {
-            ssock = factory.createServerSocket(port);
+            ssock  = factory.createServerSocket(port);
+            origin = Util.getIPAddress("localhost") + ":" + port + ":" +
+                     System.currentTimeMillis();
+            startSync();
         } catch (Exception e) {
             PrintStream stream = getDebugStream();
 
@@ -227,6 +261,97 @@ Registry extends JSDTObject
     }
 
 
+/**
+ * <A NAME="SD_STARTSYNC"></A>
+ * <EM>startSync</EM> if this Registry is one of a replicated set (given by
+ * the "registryPeers" property), then start copying the changes made at
+ * the other Registries in the set. The Session/Client numbers are shared
+ * out between the Registries, so that each one hands out different ones.
+ *
+ * @exception InvalidURLException if a Registry host doesn't exist.
+ */
+
+    private void
+    startSync() throws InvalidURLException {
+        String[]       peers  = Util.getRegistryPeers();
+        Vector<String> others = new Vector<>();
+        Vector<String> group  = new Vector<>();
+        String         self   = Util.getIPAddress("localhost") + ":" + port;
+
+        if (Registry_Debug) {
+            debug("Registry: startSync.");
+        }
+
+        if (peers.length == 0) {
+            return;
+        }
+
+        for (int i = 0; i < peers.length; i++) {
+            int    index   = peers[i].lastIndexOf(':');
+            String address = Util.getIPAddress(peers[i].substring(0, index));
+            int    number  = Integer.parseInt(peers[i].substring(index + 1));
+
+            if (number == port && isLocalAddress(address)) {
+                continue;
+            }
+
+            group.addElement(address + ":" + number);
+            others.addElement(peers[i]);
+        }
+        group.addElement(self);
+        Collections.sort(group);
+
+        noStep    = (short) group.size();
+        currentNo = (short) (group.indexOf(self) + 1);
+
+        if (others.size() != 0) {
+            sync = new RegistrySync(this,
+                                    others.toArray(new String[others.size()]));
+            sync.start();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_STOPSYNC"></A>
+ * <EM>stopSync</EM> stop copying the changes made at the other Registries.
+ */
+
+    private void
+    stopSync() {
+        if (Registry_Debug) {
+            debug("Registry: stopSync.");
+        }
+
+        if (sync != null) {
+            sync.stop();
+            sync = null;
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ISLOCALADDRESS"></A>
+ * <EM>isLocalAddress</EM> checks whether the given IP address is one that
+ * this host is known by.
+ *
+ * @param address the IP address to check.
+ *
+ * @return true if the address is for this host.
+ */
+
+    private boolean
+    isLocalAddress(String address) {
+        for (int i = 0; i < addresses.length; i++) {
+            if (addresses[i].equals(address)) {
+                return(true);
+            }
+        }
+
+        return(false);
+    }
+
+
 /**
  * <A NAME="SD_STARTREGISTRY"></A>
  * <EM>startRegistry</EM> is a class method that will start a Registry of
@@ -253,7 +378,8 @@ Registry extends JSDTObject
                   " port number: "   + port);
         }
 
-        thread = Util.startThread(this,
+        this.port = port;
+        thread    = Util.startThread(this,
                           "RegistryThread:" + registryType + ":" + port, false);
     }
 
@@ -294,15 +420,13 @@ Registry extends JSDTObject
         try {
             if (thread != null) {
                 if (serverThread != null) {
-                    RegistryServerThread rst = (RegistryServerThread)
-                                                serverThread.getTarget();
-
-                    rst.setShutdown(true);
+                    serverTarget.setShutdown(true);
                     serverThread.interrupt();
                     serverThread = null;
                 }
 
                 setShutdown(true);
+                stopSync();
                 ssock.close();
                 ssock  = null;
                 thread = null;
@@ -660,15 +784,13 @@ Registry extends JSDTObject
 
             if (thread != null) {
                 if (serverThread != null) {
-                    RegistryServerThread rst = (RegistryServerThread)
-                                                serverThread.getTarget();
-
-                    rst.setShutdown(true);
+                    serverTarget.setShutdown(true);
                     serverThread.interrupt();
                     serverThread = null;
                 }
 
                 setShutdown(true);
+                stopSync();
                 ssock.close();
                 ssock = null;
                 thread = null;
@@ -802,6 +924,11 @@ Registry extends JSDTObject
  * <A NAME="SD_BIND"></A>
  * <EM>bind</EM> binds the name to the specified JSDT object.
  *
+ * If the name is already bound with the same session/client number, then
+ * this is the process that made the binding binding it again, because the
+ * Registry it bound it at has gone away. The binding is now owned by the
+ * new connection, so it's removed if that connection goes.
+ *
  * @param message
  */
 
@@ -810,7 +937,9 @@ Registry extends JSDTObject
         JSDTThread      t          = message.thread;
         DataInputStream in         = t.dataIn;
         int             retval     = 0;
+        boolean         rebound    = false;
         String          name;
+        String          boundName;
         String          clientName;
         int             type;
         short           no;
@@ -827,25 +956,27 @@ Registry extends JSDTObject
             type       = in.readInt();
 
             synchronized (bindings) {
-                if (nameExists(name) != null) {
-                    retval = JSDTException.ALREADY_BOUND;
+                if ((boundName = nameExists(name)) == null) {
+                    putEntry(new RegistryEntry(name, no, origin, ++clock,
+                                               true, t));
+                } else if (bindings.get(boundName).getNo() == no) {
+                    putEntry(new RegistryEntry(boundName, no, origin, ++clock,
+                                               true, t));
+                    rebound = true;
                 } else {
-                    bindings.put(name, t);
+                    retval = JSDTException.ALREADY_BOUND;
                 }
             }
 
             t.writeMessageHeader(t.dataOut, (short) 1, message.id,
                                  T_Registry, T_Bind, false, true);
             t.dataOut.writeInt(retval);
-            if (retval == 0) {
-                synchronized (values) {
-                    values.put(name, no);
-                }
-            }
             t.flush();
             t.finishMessage();
 
-            informListeners(clientName, name, type);
+            if (!rebound) {
+                informListeners(clientName, name, type);
+            }
         } catch (IOException e) {
             error("Registry: bind: ", e);
         }
@@ -879,7 +1010,7 @@ Registry extends JSDTObject
             error("Registry: getSessionNo: ", e);
         }
 
-        currentNo++;
+        currentNo += noStep;
     }
 
 
@@ -914,8 +1045,8 @@ Registry extends JSDTObject
                 if ((boundName = nameExists(name)) == null) {
                     retval = JSDTException.NOT_BOUND;
                 } else {
-                    bindings.remove(boundName);
-                    values.remove(boundName);
+                    putEntry(new RegistryEntry(boundName, (short) 0, origin,
+                                               ++clock, false, null));
                 }
             }
 
@@ -944,6 +1075,7 @@ Registry extends JSDTObject
         JSDTThread       t         = message.thread;
         DataInputStream  in        = t.dataIn;
         int              retval    = 0;
+        short            no        = 0;
         String           name;
         String           boundName;
 
@@ -958,6 +1090,8 @@ Registry extends JSDTObject
             synchronized (bindings) {
                 if ((boundName = nameExists(name)) == null) {
                     retval = JSDTException.NOT_BOUND;
+                } else {
+                    no = bindings.get(boundName).getNo();
                 }
             }
 
@@ -965,7 +1099,7 @@ Registry extends JSDTObject
                                  T_Registry, T_Lookup, false, true);
             t.dataOut.writeInt(retval);
             if (retval == 0) {
-                t.dataOut.writeShort(values.get(boundName));
+                t.dataOut.writeShort(no);
             }
             t.flush();
             t.finishMessage();
@@ -975,6 +1109,315 @@ Registry extends JSDTObject
     }
 
 
+/**
+ * <A NAME="SD_PLACEMENT"></A>
+ * <EM>placement</EM> replies with the placement map for a session. This is
+ * the "address:port" of the server named in the session URL, followed by
+ * those of all the nodes bound for that session, in sorted order. Session
+ * proxies use it to decide which server each of the session's byte arrays,
+ * channels and tokens is held on.
+ *
+ * @param message the current message being processed.
+ */
+
+    void
+    placement(Message message) {
+        JSDTThread       t      = message.thread;
+        DataInputStream  in     = t.dataIn;
+        String[]         nodes;
+        String           name;
+
+        if (Registry_Debug) {
+            debug("Registry: placement:" +
+                  " message: " + message);
+        }
+
+        try {
+            name = Util.adjustURLString(in.readUTF(), in.readUTF());
+
+            synchronized (bindings) {
+                nodes = getPlacement(name, new URLString(name));
+            }
+
+            t.writeMessageHeader(t.dataOut, (short) 1, message.id,
+                                 T_Registry, T_Placement, false, true);
+            t.dataOut.writeInt(0);
+            t.dataOut.writeInt(nodes.length);
+            for (int i = 0; i < nodes.length; i++) {
+                t.dataOut.writeUTF(nodes[i]);
+            }
+            t.flush();
+            t.finishMessage();
+        } catch (IOException e) {
+            error("Registry: placement: ", e);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETPLACEMENT"></A>
+ * <EM>getPlacement</EM> get the placement map for a session. The caller
+ * must hold the lock on the bindings.
+ *
+ * @param name the session's bound name.
+ * @param url the URLString for that name.
+ *
+ * @return the "address:port" of each server holding part of the session,
+ * with the session server first.
+ */
+
+    private String[]
+    getPlacement(String name, URLString url) {
+        Vector<String> found  = new Vector<>();
+        String         suffix = "/" + url.getConnectionType() + "/Node/" +
+                                url.getObjectName();
+        String[]       sorted;
+        String[]       nodes;
+
+        if (Registry_Debug) {
+            debug("Registry: getPlacement:" +
+                  " name: " + name);
+        }
+
+        for (Enumeration<String> k = bindings.keys(); k.hasMoreElements();) {
+            String boundName = k.nextElement();
+
+            if (boundName.endsWith(suffix)) {
+                found.addElement(getNodeAddress(boundName));
+            }
+        }
+
+        sorted = found.toArray(new String[found.size()]);
+        Util.sort(sorted);
+
+        nodes    = new String[sorted.length + 1];
+        nodes[0] = getNodeAddress(name);
+        System.arraycopy(sorted, 0, nodes, 1, sorted.length);
+
+        return(nodes);
+    }
+
+
+/**
+ * <A NAME="SD_OWNER"></A>
+ * <EM>owner</EM> replies with the server that holds a byte array, channel
+ * or token of a session. The first time an object is asked about, it's
+ * placed on the server in the session's placement map with the highest
+ * weight for its name, and that is recorded as its owner. From then on,
+ * every proxy is given that owner, even after nodes are bound that would
+ * win the object now, so each object is only ever created in one place.
+ *
+ * The owner is recorded as a binding named like the owner's Node URL (but
+ * with a type of "Owner" and the object name added), so that it's copied
+ * to the other Registries in a replicated set. It's forgotten when the
+ * owner node, or the session, is unbound.
+ *
+ * @param message the current message being processed.
+ */
+
+    void
+    owner(Message message) {
+        JSDTThread       t      = message.thread;
+        DataInputStream  in     = t.dataIn;
+        String           owner  = null;
+        String[]         nodes;
+        String           name;
+        String           objectName;
+        String           suffix;
+        URLString        url;
+
+        if (Registry_Debug) {
+            debug("Registry: owner:" +
+                  " message: " + message);
+        }
+
+        try {
+            name       = Util.adjustURLString(in.readUTF(), in.readUTF());
+            objectName = in.readUTF();
+            url        = new URLString(name);
+            suffix     = "/" + url.getConnectionType() + "/Owner/" +
+                         url.getObjectName() + "/" + objectName;
+
+            synchronized (bindings) {
+                nodes = getPlacement(name, url);
+                for (int i = 0; i < nodes.length; i++) {
+                    if (bindings.get("jsdt://" + nodes[i] + suffix) != null) {
+                        owner = nodes[i];
+                        break;
+                    }
+                }
+
+                if (owner == null) {
+                    owner = getNode(nodes, objectName);
+                    putEntry(new RegistryEntry("jsdt://" + owner + suffix,
+                                    (short) 0, origin, ++clock, true, null));
+                }
+            }
+
+            t.writeMessageHeader(t.dataOut, (short) 1, message.id,
+                                 T_Registry, T_Owner, false, true);
+            t.dataOut.writeInt(0);
+            t.dataOut.writeUTF(owner);
+            t.flush();
+            t.finishMessage();
+        } catch (IOException e) {
+            error("Registry: owner: ", e);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETNODE"></A>
+ * <EM>getNode</EM> get the server to place a new object with the given
+ * name on. Each server is given a weight for the name, and the one with
+ * the highest weight is used, so adding a node only takes the new objects
+ * it wins.
+ *
+ * @param nodes the placement map for the session.
+ * @param objectName the name of the byte array, channel or token.
+ *
+ * @return the "address:port" of the server to place that object on.
+ */
+
+    private static String
+    getNode(String[] nodes, String objectName) {
+        String node   = nodes[0];
+        int    weight = getWeight(nodes[0], objectName);
+
+        for (int i = 1; i < nodes.length; i++) {
+            int w = getWeight(nodes[i], objectName);
+
+            if (w > weight) {
+                node   = nodes[i];
+                weight = w;
+            }
+        }
+
+        return(node);
+    }
+
+
+/**
+ * <A NAME="SD_GETWEIGHT"></A>
+ * <EM>getWeight</EM> get the weight of a server for an object name. The
+ * hash code of the two is mixed, so that small differences in the names
+ * give very different weights.
+ *
+ * @param node the "address:port" of the server.
+ * @param objectName the name of the byte array, channel or token.
+ *
+ * @return the weight of that server for that object.
+ */
+
+    private static int
+    getWeight(String node, String objectName) {
+        int h = (node + "/" + objectName).hashCode();
+
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+
+        return(h);
+    }
+
+
+/**
+ * <A NAME="SD_ISOWNER"></A>
+ * <EM>isOwner</EM> check whether a bound name records the owner of an
+ * object, rather than naming a session, client or node.
+ *
+ * @param name the bound name.
+ *
+ * @return true if the name records the owner of an object.
+ */
+
+    private static boolean
+    isOwner(String name) {
+        int start = name.indexOf("//") + 2;
+        int type  = name.indexOf('/', name.indexOf('/', start) + 1);
+
+        return(type > 0 && name.startsWith("/Owner/", type));
+    }
+
+
+/**
+ * <A NAME="SD_PURGEOWNERS"></A>
+ * <EM>purgeOwners</EM> a session or node has been unbound, so forget the
+ * owners recorded for the session's objects (or, for a node, for the
+ * objects on that node). The caller must hold the lock on the bindings.
+ *
+ * @param name the name that has been unbound.
+ */
+
+    private void
+    purgeOwners(String name) {
+        Vector<String> names = new Vector<>();
+        int            start = name.indexOf("//") + 2;
+        int            conn  = name.indexOf('/', start);
+        int            type  = name.indexOf('/', conn + 1);
+        int            end   = name.indexOf('/', type + 1);
+        String         infix;
+        String         prefix;
+
+        if (Registry_Debug) {
+            debug("Registry: purgeOwners:" +
+                  " name: " + name);
+        }
+
+        if (type < 0 || end < 0) {
+            return;
+        }
+
+        infix = name.substring(conn, type) + "/Owner" +
+                name.substring(end) + "/";
+        if (name.startsWith("/Node/", type)) {
+            prefix = name.substring(0, conn) + infix;
+        } else if (name.startsWith("/Session/", type)) {
+            prefix = null;
+        } else {
+            return;
+        }
+
+        for (Enumeration<String> k = bindings.keys(); k.hasMoreElements();) {
+            String boundName = k.nextElement();
+
+            if ((prefix != null) ? boundName.startsWith(prefix) :
+                (isOwner(boundName) && boundName.contains(infix))) {
+                names.addElement(boundName);
+            }
+        }
+
+        for (int i = 0; i < names.size(); i++) {
+            putEntry(new RegistryEntry(names.elementAt(i), (short) 0,
+                                       origin, ++clock, false, null));
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETNODEADDRESS"></A>
+ * <EM>getNodeAddress</EM> get the "address:port" portion of a bound name.
+ *
+ * @param name the bound name.
+ *
+ * @return the "address:port" of the server for that name.
+ */
+
+    private String
+    getNodeAddress(String name) {
+        int start = name.indexOf("//") + 2;
+
+        if (Registry_Debug) {
+            debug("Registry: getNodeAddress:" +
+                  " name: " + name);
+        }
+
+        return(name.substring(start, name.indexOf('/', start)));
+    }
+
+
 /**
  * <A NAME="SD_LIST"></A>
  * <EM>list</EM>
@@ -993,16 +1436,24 @@ Registry extends JSDTObject
 
         try {
             synchronized (bindings) {
-                int         size  = bindings.size();
-                Enumeration elist = bindings.keys();
+                Vector<String> names = new Vector<>();
+
+                for (Enumeration<String> k = bindings.keys();
+                     k.hasMoreElements();) {
+                    String name = k.nextElement();
+
+                    if (!isOwner(name)) {
+                        names.addElement(name);
+                    }
+                }
 
                 t.writeMessageHeader(t.dataOut, (short) 1, message.id,
                                      T_Registry, T_List, false, true);
                 t.dataOut.writeInt(0);
-                t.dataOut.writeInt(size);
+                t.dataOut.writeInt(names.size());
 
-                while ((--size) >= 0) {
-                    t.dataOut.writeUTF((String) elist.nextElement());
+                for (int i = 0; i < names.size(); i++) {
+                    t.dataOut.writeUTF(names.elementAt(i));
                 }
                 t.flush();
                 t.finishMessage();
@@ -1014,19 +1465,292 @@ Registry extends JSDTObject
 
 
 /**
- * <A NAME="SD_GETBINDINGS"></A>
- * <EM>getBindings</EM> get the name bindings known to this registry.
+ * <A NAME="SD_CLEANUPCONNECTION"></A>
+ * <EM>cleanupConnection</EM> removes the bindings made over a connection
+ * that has gone away, and any listeners that were using it. The remaining
+ * listeners are told that those names are no longer bound, so that proxies
+ * that have remembered lookups for them can forget them.
  *
- * @return a hashtable containing this registry's name bindings.
+ * @param thread the server-side thread for the connection that has gone.
  */
 
-    Hashtable
-    getBindings() {
+    void
+    cleanupConnection(JSDTThread thread) {
+        Vector<String>       names = new Vector<>();
+        ServerListenerThread listenerThread;
+
         if (Registry_Debug) {
-            debug("Registry: getBindings.");
+            debug("Registry: cleanupConnection:" +
+                  " thread: " + thread);
+        }
+
+        synchronized (bindings) {
+            for (Enumeration<String> k = bindings.keys();
+                 k.hasMoreElements();) {
+                String name = k.nextElement();
+
+                if (bindings.get(name).getThread() == thread) {
+                    names.addElement(name);
+                }
+            }
+
+            for (int i = 0; i < names.size(); i++) {
+                if (Registry_Debug) {
+                    debug("Registry: cleanupConnection:" +
+                          " Removing binding for: " + names.elementAt(i));
+                }
+
+                putEntry(new RegistryEntry(names.elementAt(i), (short) 0,
+                                           origin, ++clock, false, null));
+            }
+        }
+
+        if ((listenerThread = listenerThreads.remove(thread)) != null) {
+            for (Enumeration<String> k = listenerThread.getListeners().keys();
+                 k.hasMoreElements();) {
+                listeners.remove(k.nextElement());
+            }
         }
 
-        return(bindings);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.elementAt(i);
+
+            if (Util.isSession(new URLString(name))) {
+                informListeners("", name, AuthenticationInfo.DESTROY_SESSION);
+            } else {
+                informListeners("", name, AuthenticationInfo.DESTROY_CLIENT);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_PUTENTRY"></A>
+ * <EM>putEntry</EM> record the latest change to a name. The caller must
+ * hold the lock on the bindings. An unbinding is only remembered if this
+ * Registry is one of a replicated set. Unbinding a session or node also
+ * forgets the object owners that went with it.
+ *
+ * @param entry the latest change to the name.
+ */
+
+    private void
+    putEntry(RegistryEntry entry) {
+        String name = entry.getName();
+
+        if (Registry_Debug) {
+            debug("Registry: putEntry:" +
+                  " entry: " + entry);
+        }
+
+        if (entry.isBound()) {
+            bindings.put(name, entry);
+            unbound.remove(name);
+        } else {
+            bindings.remove(name);
+            if (sync != null) {
+                unbound.put(name, entry);
+            }
+            if (!isOwner(name)) {
+                purgeOwners(name);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_PURGEUNBOUND"></A>
+ * <EM>purgeUnbound</EM> forget the names that were unbound more than
+ * "registryUnboundPeriod" milliseconds ago. By then, the unbinding will
+ * have been copied to the other Registries in the set that can be reached.
+ */
+
+    void
+    purgeUnbound() {
+        Vector<String> names  = new Vector<>();
+        long           period = Util.getLongProperty("registryUnboundPeriod",
+                                                     registryUnboundPeriod);
+        long           oldest = System.currentTimeMillis() - period;
+
+        if (Registry_Debug) {
+            debug("Registry: purgeUnbound.");
+        }
+
+        synchronized (bindings) {
+            for (Enumeration<String> k = unbound.keys(); k.hasMoreElements();) {
+                String name = k.nextElement();
+
+                if (unbound.get(name).getTime() < oldest) {
+                    names.addElement(name);
+                }
+            }
+
+            for (int i = 0; i < names.size(); i++) {
+                unbound.remove(names.elementAt(i));
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETSYNCVECTOR"></A>
+ * <EM>getSyncVector</EM> get the latest clock value this Registry has seen
+ * from each Registry in the replicated set (including itself). Another
+ * Registry only needs to send the changes that are later than these.
+ *
+ * @return a hashtable of clock values, keyed by origin.
+ */
+
+    Hashtable<String, Long>
+    getSyncVector() {
+        Hashtable<String, Long> vector;
+
+        if (Registry_Debug) {
+            debug("Registry: getSyncVector.");
+        }
+
+        synchronized (bindings) {
+            vector = new Hashtable<>(seen);
+            vector.put(origin, clock);
+        }
+
+        return(vector);
+    }
+
+
+/**
+ * <A NAME="SD_SYNC"></A>
+ * <EM>sync</EM> replies to another Registry in the replicated set with all
+ * the changes it hasn't seen yet. The request holds the latest clock value
+ * that Registry has seen from each origin.
+ *
+ * @param message the current message being processed.
+ */
+
+    void
+    sync(Message message) {
+        JSDTThread              t       = message.thread;
+        DataInputStream         in      = t.dataIn;
+        Hashtable<String, Long> vector  = new Hashtable<>();
+        Vector<RegistryEntry>   changes = new Vector<>();
+        int                     n;
+
+        if (Registry_Debug) {
+            debug("Registry: sync:" +
+                  " message: " + message);
+        }
+
+        try {
+            n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                vector.put(in.readUTF(), in.readLong());
+            }
+
+            synchronized (bindings) {
+                addChanges(bindings, vector, changes);
+                addChanges(unbound, vector, changes);
+            }
+
+            t.writeMessageHeader(t.dataOut, (short) 1, message.id,
+                                 T_Registry, T_Sync, false, true);
+            t.dataOut.writeInt(0);
+            t.dataOut.writeInt(changes.size());
+            for (int i = 0; i < changes.size(); i++) {
+                changes.elementAt(i).writeEntry(t.dataOut);
+            }
+            t.flush();
+            t.finishMessage();
+        } catch (IOException e) {
+            error("Registry: sync: ", e);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ADDCHANGES"></A>
+ * <EM>addChanges</EM> add the entries that are later than the given clock
+ * values to the list of changes to send.
+ *
+ * @param entries the entries to check.
+ * @param vector the latest clock value seen from each origin.
+ * @param changes the list of changes to add to.
+ */
+
+    private void
+    addChanges(Hashtable<String, RegistryEntry> entries,
+               Hashtable<String, Long> vector, Vector<RegistryEntry> changes) {
+        if (Registry_Debug) {
+            debug("Registry: addChanges:" +
+                  " vector: " + vector);
+        }
+
+        for (Enumeration<RegistryEntry> e = entries.elements();
+             e.hasMoreElements();) {
+            RegistryEntry entry = e.nextElement();
+            Long          last  = vector.get(entry.getOrigin());
+
+            if (last == null || entry.getClock() > last) {
+                changes.addElement(entry);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_MERGE"></A>
+ * <EM>merge</EM> apply a change copied from another Registry in the
+ * replicated set, if it's later than the change this Registry already has
+ * for that name. The listeners are told if the name has been bound or
+ * unbound as a result.
+ *
+ * @param entry the change copied from the other Registry.
+ */
+
+    void
+    merge(RegistryEntry entry) {
+        String        name       = entry.getName();
+        boolean       wasBound   = false;
+        boolean       applied    = false;
+        RegistryEntry current;
+        Long          last;
+
+        if (Registry_Debug) {
+            debug("Registry: merge:" +
+                  " entry: " + entry);
+        }
+
+        synchronized (bindings) {
+            if ((current = bindings.get(name)) == null) {
+                current = unbound.get(name);
+            }
+            if (entry.isLaterThan(current)) {
+                wasBound = (current != null && current.isBound());
+                putEntry(entry);
+                applied = true;
+            }
+
+            if (entry.getClock() > clock) {
+                clock = entry.getClock();
+            }
+            last = seen.get(entry.getOrigin());
+            if (last == null || entry.getClock() > last) {
+                seen.put(entry.getOrigin(), entry.getClock());
+            }
+        }
+
+        if (applied && (entry.isBound() || wasBound) && !isOwner(name)) {
+            boolean isSession = Util.isSession(new URLString(name));
+
+            if (entry.isBound()) {
+                informListeners("", name, isSession ?
+                                AuthenticationInfo.CREATE_SESSION :
+                                AuthenticationInfo.CREATE_CLIENT);
+            } else {
+                informListeners("", name, isSession ?
+                                AuthenticationInfo.DESTROY_SESSION :
+                                AuthenticationInfo.DESTROY_CLIENT);
+            }
+        }
     }
 
 
@@ -1057,8 +1781,8 @@ Registry extends JSDTObject
                 }
 
                 rst = new RegistryServerThread(sock, this);
-                serverThread = (TargetableThread)
-                                Util.startThread(rst,
+                serverTarget = rst;
+                serverThread = Util.startThread(rst,
                                         "RegistryServerThread:" + sock, true);
             }
         } catch (Exception e) {
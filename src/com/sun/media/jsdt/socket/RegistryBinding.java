@@ -0,0 +1,164 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+
+/**
+ * JSDT Registry binding class. A naming proxy keeps one of these for each
+ * name that it has bound, so that it can bind the name again at another
+ * Registry in the replicated set if its own Registry goes away.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+RegistryBinding extends JSDTObject implements socketDebugFlags {
+
+    // The unique session/client number bound to the name.
+    private final short no;
+
+    // The name (JSDT URL) that was bound.
+    private final String name;
+
+    // The IP address of the host in the name.
+    private final String address;
+
+    // The name of the client that bound the name.
+    private final String clientName;
+
+    // The authentication action for the binding.
+    private final int authAction;
+
+
+/**
+ * <A NAME="SD_REGISTRYBINDING"></A>
+ * <EM>RegistryBinding</EM> is the constructor for the RegistryBinding
+ * class.
+ *
+ * @param no the unique session/client number bound to the name.
+ * @param name the name (JSDT URL) that was bound.
+ * @param address the IP address of the host in the name.
+ * @param clientName the name of the client that bound the name.
+ * @param authAction the authentication action for the binding.
+ */
+
+    RegistryBinding(short no, String name, String address,
+                    String clientName, int authAction) {
+        if (RegistryBinding_Debug) {
+            debug("RegistryBinding: constructor:" +
+                  " no: "          + no +
+                  " name: "        + name +
+                  " address: "     + address +
+                  " client name: " + clientName +
+                  " auth action: " + authAction);
+        }
+
+        this.no         = no;
+        this.name       = name;
+        this.address    = address;
+        this.clientName = clientName;
+        this.authAction = authAction;
+    }
+
+
+/**
+ * <A NAME="SD_GETNO"></A>
+ * <EM>getNo</EM>
+ *
+ * @return the unique session/client number bound to the name.
+ */
+
+    short
+    getNo() {
+        return(no);
+    }
+
+
+/**
+ * <A NAME="SD_GETNAME"></A>
+ * <EM>getName</EM>
+ *
+ * @return the name (JSDT URL) that was bound.
+ */
+
+    String
+    getName() {
+        return(name);
+    }
+
+
+/**
+ * <A NAME="SD_GETADDRESS"></A>
+ * <EM>getAddress</EM>
+ *
+ * @return the IP address of the host in the name.
+ */
+
+    String
+    getAddress() {
+        return(address);
+    }
+
+
+/**
+ * <A NAME="SD_GETCLIENTNAME"></A>
+ * <EM>getClientName</EM>
+ *
+ * @return the name of the client that bound the name.
+ */
+
+    String
+    getClientName() {
+        return(clientName);
+    }
+
+
+/**
+ * <A NAME="SD_GETAUTHACTION"></A>
+ * <EM>getAuthAction</EM>
+ *
+ * @return the authentication action for the binding.
+ */
+
+    int
+    getAuthAction() {
+        return(authAction);
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this RegistryBinding.
+ *
+ * @return a String containing a description of this RegistryBinding.
+ */
+
+    public String
+    toString() {
+        return("RegistryBinding:" +
+                " no: "          + no +
+                " name: "        + name +
+                " address: "     + address +
+                " client name: " + clientName +
+                " auth action: " + authAction + "\n");
+    }
+}
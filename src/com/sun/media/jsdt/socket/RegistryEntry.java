@@ -0,0 +1,276 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+import java.io.*;
+
+/**
+ * JSDT Registry entry class. There is one of these for each name that a
+ * Registry knows about, whether it is still bound or not, so that it can
+ * be copied to the other Registries in the same replicated set.
+ *
+ * Each change to a name is stamped with the Registry it was made at and
+ * that Registry's logical clock. When two Registries have different
+ * entries for the same name, the one with the later stamp wins.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+RegistryEntry extends JSDTObject implements socketDebugFlags {
+
+    // The name (JSDT URL) that this entry is for.
+    private final String name;
+
+    // The unique session/client number bound to this name.
+    private final short no;
+
+    // The Registry that this change was made at.
+    private final String origin;
+
+    // The logical clock of that Registry when the change was made.
+    private final long clock;
+
+    // Indicates if the name is bound (false if it has been unbound).
+    private final boolean bound;
+
+    // The connection the name was bound over (null if unbound, or if the
+    // binding was copied from another Registry).
+    private final JSDTThread thread;
+
+    // The time (in milliseconds) that this Registry recorded the change.
+    private final long time;
+
+
+/**
+ * <A NAME="SD_REGISTRYENTRY"></A>
+ * <EM>RegistryEntry</EM> is the constructor for the RegistryEntry class.
+ *
+ * @param name the name (JSDT URL) that this entry is for.
+ * @param no the unique session/client number bound to this name.
+ * @param origin the Registry that this change was made at.
+ * @param clock the logical clock of that Registry when the change was made.
+ * @param bound true if the name is bound; false if it has been unbound.
+ * @param thread the connection the name was bound over, or null.
+ */
+
+    RegistryEntry(String name, short no, String origin, long clock,
+                  boolean bound, JSDTThread thread) {
+        if (RegistryEntry_Debug) {
+            debug("RegistryEntry: constructor:" +
+                  " name: "   + name +
+                  " no: "     + no +
+                  " origin: " + origin +
+                  " clock: "  + clock +
+                  " bound: "  + bound +
+                  " thread: " + thread);
+        }
+
+        this.name   = name;
+        this.no     = no;
+        this.origin = origin;
+        this.clock  = clock;
+        this.bound  = bound;
+        this.thread = thread;
+        time        = System.currentTimeMillis();
+    }
+
+
+/**
+ * <A NAME="SD_READENTRY"></A>
+ * <EM>readEntry</EM> read an entry sent by another Registry.
+ *
+ * @param in the stream to read the entry from.
+ *
+ * @exception IOException if an IO exception has occured.
+ *
+ * @return the entry that was read.
+ */
+
+    static RegistryEntry
+    readEntry(DataInputStream in) throws IOException {
+        String  name   = in.readUTF();
+        short   no     = in.readShort();
+        String  origin = in.readUTF();
+        long    clock  = in.readLong();
+        boolean bound  = in.readBoolean();
+
+        return(new RegistryEntry(name, no, origin, clock, bound, null));
+    }
+
+
+/**
+ * <A NAME="SD_WRITEENTRY"></A>
+ * <EM>writeEntry</EM> write this entry to be sent to another Registry.
+ *
+ * @param out the stream to write the entry to.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    void
+    writeEntry(DataOutputStream out) throws IOException {
+        if (RegistryEntry_Debug) {
+            debug("RegistryEntry: writeEntry:" +
+                  " entry: " + this);
+        }
+
+        out.writeUTF(name);
+        out.writeShort(no);
+        out.writeUTF(origin);
+        out.writeLong(clock);
+        out.writeBoolean(bound);
+    }
+
+
+/**
+ * <A NAME="SD_ISLATERTHAN"></A>
+ * <EM>isLaterThan</EM> checks whether this change to a name should replace
+ * the given one.
+ *
+ * @param entry the entry this Registry already has for the name (or null).
+ *
+ * @return true if this entry is the later change.
+ */
+
+    boolean
+    isLaterThan(RegistryEntry entry) {
+        if (entry == null || clock > entry.clock) {
+            return(true);
+        } else if (clock < entry.clock) {
+            return(false);
+        }
+
+        return(origin.compareTo(entry.origin) > 0);
+    }
+
+
+/**
+ * <A NAME="SD_GETNAME"></A>
+ * <EM>getName</EM>
+ *
+ * @return the name (JSDT URL) that this entry is for.
+ */
+
+    String
+    getName() {
+        return(name);
+    }
+
+
+/**
+ * <A NAME="SD_GETNO"></A>
+ * <EM>getNo</EM>
+ *
+ * @return the unique session/client number bound to this name.
+ */
+
+    short
+    getNo() {
+        return(no);
+    }
+
+
+/**
+ * <A NAME="SD_GETORIGIN"></A>
+ * <EM>getOrigin</EM>
+ *
+ * @return the Registry that this change was made at.
+ */
+
+    String
+    getOrigin() {
+        return(origin);
+    }
+
+
+/**
+ * <A NAME="SD_GETCLOCK"></A>
+ * <EM>getClock</EM>
+ *
+ * @return the logical clock of the Registry when the change was made.
+ */
+
+    long
+    getClock() {
+        return(clock);
+    }
+
+
+/**
+ * <A NAME="SD_ISBOUND"></A>
+ * <EM>isBound</EM>
+ *
+ * @return true if the name is bound; false if it has been unbound.
+ */
+
+    boolean
+    isBound() {
+        return(bound);
+    }
+
+
+/**
+ * <A NAME="SD_GETTHREAD"></A>
+ * <EM>getThread</EM>
+ *
+ * @return the connection the name was bound over, or null if it was copied
+ * from another Registry.
+ */
+
+    JSDTThread
+    getThread() {
+        return(thread);
+    }
+
+
+/**
+ * <A NAME="SD_GETTIME"></A>
+ * <EM>getTime</EM>
+ *
+ * @return the time (in milliseconds) that this Registry recorded the change.
+ */
+
+    long
+    getTime() {
+        return(time);
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this RegistryEntry.
+ *
+ * @return a String containing a description of this RegistryEntry.
+ */
+
+    public String
+    toString() {
+        return("RegistryEntry:" +
+                " name: "   + name +
+                " no: "     + no +
+                " origin: " + origin +
+                " clock: "  + clock +
+                " bound: "  + bound + "\n");
+    }
+}
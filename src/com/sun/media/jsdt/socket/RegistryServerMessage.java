@@ -111,6 +111,15 @@ RegistryServerMessage extends JSDTMessage {
             case T_Stop:
                 registry.stop(message);
                 break;
+            case T_Sync:
+                registry.sync(message);
+                break;
+            case T_Placement:
+                registry.placement(message);
+                break;
+            case T_Owner:
+                registry.owner(message);
+                break;
         }
     }
 }
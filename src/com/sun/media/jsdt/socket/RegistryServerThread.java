@@ -24,7 +24,6 @@ package com.sun.media.jsdt.socket;
 import com.sun.media.jsdt.impl.Message;
 import java.net.*;
 import java.io.IOException;
-import java.util.*;
 
 /**
  * JSDT Registry Server Thread class.
@@ -73,31 +72,12 @@ RegistryServerThread extends TCPSocketThread {
 
     public void
     cleanupConnection() {
-        Hashtable bindings = registry.getBindings();
-
         if (RegistryServerThread_Debug) {
             debug("RegistryServerThread: cleanupConnection.");
         }
 
         super.cleanupConnection();
-        synchronized (bindings) {
-            Enumeration e, k;
-
-            for (e = bindings.elements(), k = bindings.keys();
-                 e.hasMoreElements();) {
-                SocketThread thread = (SocketThread) e.nextElement();
-                String       name   = (String)       k.nextElement();
-
-                if (thread == this) {
-                    if (RegistryServerThread_Debug) {
-                        debug("RegistryServerThread: cleanupConnection:" +
-                              " Removing binding for: " + name);
-                    }
-
-                    bindings.remove(name);
-                }
-            }
-        }
+        registry.cleanupConnection(this);
     }
 
 
@@ -0,0 +1,262 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.TimedOutException;
+import com.sun.media.jsdt.impl.*;
+import java.io.*;
+import java.util.*;
+
+/**
+ * JSDT Registry sync class. This is started by the timer every
+ * "registrySyncPeriod" milliseconds, to ask each of the other Registries
+ * in a replicated set for the changes its Registry hasn't seen yet. As it
+ * waits for their replies, it's run on the timer's blocking pool rather
+ * than by the timer's own threads.
+ *
+ * A Registry that can't be reached is simply tried again next time, so
+ * a Registry that is restarted catches up with the rest of the set.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+RegistrySync extends JSDTObject implements Runnable, socketDebugFlags {
+
+    // The Registry that the changes are copied to.
+    private final Registry registry;
+
+    // The other Registries in the set (each as "host:port").
+    private final String[] peers;
+
+    // The connections to the other Registries (keyed by "host:port").
+    private final Hashtable<String, SocketThread> threads = new Hashtable<>();
+
+    // The next sync on the timer (or null if none is due).
+    private JSDTTimeout timeout = null;
+
+    // Set when the Registry has been stopped.
+    private boolean stopped = false;
+
+
+/**
+ * <A NAME="SD_REGISTRYSYNC"></A>
+ * <EM>RegistrySync</EM> is the constructor for the RegistrySync class.
+ *
+ * @param registry the Registry that the changes are copied to.
+ * @param peers the other Registries in the set (each as "host:port").
+ */
+
+    RegistrySync(Registry registry, String[] peers) {
+        if (RegistrySync_Debug) {
+            debug("RegistrySync: constructor:" +
+                  " registry: " + registry +
+                  " peers: "    + Arrays.toString(peers));
+        }
+
+        this.registry = registry;
+        this.peers    = peers;
+    }
+
+
+/**
+ * <A NAME="SD_START"></A>
+ * <EM>start</EM> schedule the first sync.
+ */
+
+    void
+    start() {
+        if (RegistrySync_Debug) {
+            debug("RegistrySync: start.");
+        }
+
+        schedule();
+    }
+
+
+/**
+ * <A NAME="SD_STOP"></A>
+ * <EM>stop</EM> cancel the next sync, and close the connections to the
+ * other Registries.
+ */
+
+    synchronized void
+    stop() {
+        if (RegistrySync_Debug) {
+            debug("RegistrySync: stop.");
+        }
+
+        stopped = true;
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+
+        for (Enumeration<SocketThread> e = threads.elements();
+             e.hasMoreElements();) {
+            e.nextElement().cleanupConnection();
+        }
+        threads.clear();
+    }
+
+
+/**
+ * <A NAME="SD_RUN"></A>
+ * <EM>run</EM> called by the timer to sync with each of the other
+ * Registries in turn.
+ */
+
+    public void
+    run() {
+        if (RegistrySync_Debug) {
+            debug("RegistrySync: run.");
+        }
+
+        synchronized (this) {
+            timeout = null;
+            if (stopped) {
+                return;
+            }
+        }
+
+        for (int i = 0; i < peers.length; i++) {
+            syncWith(peers[i]);
+        }
+        registry.purgeUnbound();
+
+        schedule();
+    }
+
+
+/**
+ * <A NAME="SD_SCHEDULE"></A>
+ * <EM>schedule</EM> schedule the next sync, unless there is already one
+ * due.
+ */
+
+    private synchronized void
+    schedule() {
+        long period = Util.getLongProperty("registrySyncPeriod",
+                                           registrySyncPeriod);
+
+        if (RegistrySync_Debug) {
+            debug("RegistrySync: schedule.");
+        }
+
+        if (!stopped && timeout == null) {
+            timeout = Util.getTimer().scheduleBlocking(this, period);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETTHREAD"></A>
+ * <EM>getThread</EM> get the connection to the given Registry, making it
+ * if there isn't one yet.
+ *
+ * @param peer the Registry (as "host:port").
+ *
+ * @exception IOException if the Registry can't be reached.
+ *
+ * @return the connection to the Registry.
+ */
+
+    private SocketThread
+    getThread(String peer) throws IOException {
+        SocketThread thread = threads.get(peer);
+        int          index  = peer.lastIndexOf(':');
+
+        if (RegistrySync_Debug) {
+            debug("RegistrySync: getThread:" +
+                  " peer: " + peer);
+        }
+
+        if (thread == null) {
+            thread = new TCPSocketThread(peer.substring(0, index),
+                            Integer.parseInt(peer.substring(index + 1)));
+            Util.startThread(thread, "RegistrySyncThread:" + peer, true);
+            threads.put(peer, thread);
+        }
+
+        return(thread);
+    }
+
+
+/**
+ * <A NAME="SD_SYNCWITH"></A>
+ * <EM>syncWith</EM> ask the given Registry for the changes that this
+ * Registry hasn't seen yet, and apply them.
+ *
+ * @param peer the Registry to ask (as "host:port").
+ */
+
+    private void
+    syncWith(String peer) {
+        Hashtable<String, Long> vector  = registry.getSyncVector();
+        Vector<RegistryEntry>   changes = new Vector<>();
+        SocketThread            thread  = null;
+        DataInputStream         in;
+        Message                 message;
+        int                     n;
+
+        if (RegistrySync_Debug) {
+            debug("RegistrySync: syncWith:" +
+                  " peer: "   + peer +
+                  " vector: " + vector);
+        }
+
+        try {
+            thread = getThread(peer);
+            thread.writeMessageHeader(thread.dataOut, (short) 1,
+                                      thread.getId(), T_Registry, T_Sync,
+                                      true, true);
+            thread.dataOut.writeInt(vector.size());
+            for (Enumeration<String> k = vector.keys(); k.hasMoreElements();) {
+                String origin = k.nextElement();
+
+                thread.dataOut.writeUTF(origin);
+                thread.dataOut.writeLong(vector.get(origin));
+            }
+            thread.flush();
+            message = thread.waitForReply();
+
+            in = message.thread.dataIn;
+            in.readInt();
+            n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                changes.addElement(RegistryEntry.readEntry(in));
+            }
+            thread.finishReply();
+        } catch (IOException | TimedOutException e) {
+            if (thread != null) {
+                thread.finishReply();
+                thread.cleanupConnection();
+                threads.remove(peer);
+            }
+            return;
+        }
+
+        for (int i = 0; i < changes.size(); i++) {
+            registry.merge(changes.elementAt(i));
+        }
+    }
+}
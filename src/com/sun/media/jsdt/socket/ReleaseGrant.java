@@ -0,0 +1,78 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+
+/**
+ * JSDT release grant class. A token was granted to a Client whose thread
+ * had already given up waiting for it. The server thinks the Client holds
+ * the token, so it's released again on a thread of its own, as the socket
+ * reader thread that received the grant can't wait for the reply.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+ReleaseGrant extends JSDTObject implements Runnable, socketDebugFlags {
+
+    // The proxy for the token that was granted.
+    private final TokenProxy proxy;
+
+    // The name of the client the token was granted to.
+    private final String clientName;
+
+
+/**
+ * <A NAME="SD_RELEASEGRANT"></A>
+ * <EM>ReleaseGrant</EM> is a constructor for the ReleaseGrant class.
+ *
+ * @param proxy the proxy for the token that was granted.
+ * @param clientName the name of the client the token was granted to.
+ */
+
+    ReleaseGrant(TokenProxy proxy, String clientName) {
+        if (ReleaseGrant_Debug) {
+            debug("ReleaseGrant: constructor:" +
+                  " proxy: "       + proxy +
+                  " client name: " + clientName);
+        }
+
+        this.proxy      = proxy;
+        this.clientName = clientName;
+    }
+
+
+/**
+ * <A NAME="SD_RUN"></A>
+ * <EM>run</EM> release the token that was granted too late.
+ */
+
+    public void
+    run() {
+        if (ReleaseGrant_Debug) {
+            debug("ReleaseGrant: run.");
+        }
+
+        proxy.releaseGrant(clientName);
+    }
+}
@@ -52,6 +52,13 @@ SameVMThread extends SocketThread {
     // Vector of incoming data messages received from the server thread.
     private Vector<byte[]> messages = null;
 
+    // Indicates whether a message from this thread is being put on the
+    // reply thread's queue. The reader of this thread doesn't read while a
+    // message is being sent, so while this is true the reply thread may go
+    // past the maximum queue size, rather than wait for room in a queue that
+    // won't be emptied until its own queue has room.
+    private volatile boolean flushing = false;
+
 
 /**
  * <A NAME="SD_SAMEVMTHREAD"></A>
@@ -102,7 +109,16 @@ SameVMThread extends SocketThread {
             error("SameVMThread: flush: ", e);
         }
 
-        replyThread.sendSameVMMessage(out.toByteArray());
+        synchronized (this) {
+            flushing = true;
+            notifyAll();
+        }
+
+        try {
+            replyThread.sendSameVMMessage(out.toByteArray());
+        } finally {
+            flushing = false;
+        }
     }
 
 
@@ -216,7 +232,7 @@ SameVMThread extends SocketThread {
             debug("SameVMThread: allowWriter.");
         }
 
-        return(messages.size() < queueSize &&
+        return((flushing || messages.size() < queueSize) &&
                activeReaders == 0 && activeWriters == 0);
     }
 
@@ -261,6 +277,16 @@ SameVMThread extends SocketThread {
     }
 
 
+    public final void
+    writeMessageHeader(DataOutputStream stream, short sessionNo,
+                       int id, char type, char action,
+                       boolean toWait, boolean sendNow, int priority)
+                throws IOException {
+        writeMessageHeader(stream, sessionNo, id, type, action,
+                           toWait, sendNow);
+    }
+
+
     public final void
     writeMessageHeader(DataOutputStream stream, short sessionNo,
                        int id, char type, char action,
@@ -339,6 +365,38 @@ SameVMThread extends SocketThread {
     }
 
 
+/**
+ * <A NAME="SD_WRITEBROADCAST"></A>
+ * <EM>writeBroadcast</EM> write a channel data message, that has already
+ * been encoded once for all its recipients, to this thread. The header is
+ * written in the usual way, so the message buffer is correctly reset.
+ *
+ * @param frame the encoded channel data message.
+ * @param receiverName the name of the client receiving the data.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    final void
+    writeBroadcast(BroadcastFrame frame, String receiverName)
+                throws IOException {
+        if (SameVMThread_Debug) {
+            debug("SameVMThread: writeBroadcast:" +
+                  " frame: "         + frame +
+                  " receiver name: " + receiverName);
+        }
+
+        try {
+            writeMessageHeader(dataOut, frame.getSessionNo(), 0,
+                               frame.getType(), T_DataReceived, false, true);
+            frame.writeTo(dataOut, receiverName, false);
+            flush();
+        } finally {
+            finishMessage();
+        }
+    }
+
+
     public final boolean
     getSocketMessage() {
         boolean retval = true;
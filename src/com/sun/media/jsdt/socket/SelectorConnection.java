@@ -0,0 +1,449 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+
+/**
+ * JSDT selector connection class. There is one of these for each connection
+ * looked after by a selector thread. When a whole message has been read
+ * off the connection, it is dispatched to a worker thread, which handles
+ * all the complete messages waiting on that connection, one at a time and
+ * in order, before giving the worker thread back. A client that sends only
+ * part of a message therefore doesn't tie up one of the shared workers.
+ *
+ * Only framed messages have a known length. Before framing is agreed, or if
+ * the client doesn't use frames, the connection is dispatched as soon as
+ * any data arrives, and a worker waits no longer than the timeout period
+ * for the rest of a message before the connection is dropped.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+SelectorConnection extends JSDTObject implements Runnable, socketDebugFlags {
+
+    // The amount of buffered data at which reading from the socket stops.
+    private static final int SUSPEND_SIZE = 262144;
+
+    // The channel for this connection.
+    final SocketChannel channel;
+
+    // The selector thread looking after this connection.
+    private final SelectorThread selectorThread;
+
+    // The key for this connection's registration with its selector.
+    SelectionKey key = null;
+
+    // The stream of data read off this connection.
+    final SelectorInputStream in;
+
+    // The stream of data to be written to this connection.
+    final SelectorOutputStream out;
+
+    // The socket thread handling the messages on this connection.
+    private SocketThread thread = null;
+
+    // Set true when a worker thread is handling this connection's messages.
+    private boolean dispatched = false;
+
+    // Set true when the selector has stopped reading from this connection.
+    private boolean readSuspended = false;
+
+    // Set true when this connection has been closed.
+    private boolean closed = false;
+
+    // Set true when the selector thread finds this connection writable.
+    private boolean writable = false;
+
+    // Monitor used with writable for synchronization purposes.
+    private final JSDTMonitor writeMonitor = new JSDTMonitor();
+
+
+/**
+ * <A NAME="SD_SELECTORCONNECTION"></A>
+ * <EM>SelectorConnection</EM> is a constructor for the SelectorConnection
+ * class.
+ *
+ * @param channel the channel for this connection.
+ * @param selectorThread the selector thread that will look after this
+ * connection.
+ *
+ * @exception IOException if the channel couldn't be made non-blocking.
+ */
+
+    SelectorConnection(SocketChannel channel, SelectorThread selectorThread)
+                throws IOException {
+        if (SelectorConnection_Debug) {
+            debug("SelectorConnection: constructor:" +
+                  " channel: "         + channel +
+                  " selector thread: " + selectorThread);
+        }
+
+        channel.configureBlocking(false);
+
+        this.channel        = channel;
+        this.selectorThread = selectorThread;
+        in                  = new SelectorInputStream(this);
+        out                 = new SelectorOutputStream(this);
+    }
+
+
+/**
+ * <A NAME="SD_START"></A>
+ * <EM>start</EM> start reading messages off this connection.
+ *
+ * @param thread the socket thread that will handle those messages.
+ */
+
+    void
+    start(SocketThread thread) {
+        if (SelectorConnection_Debug) {
+            debug("SelectorConnection: start:" +
+                  " thread: " + thread);
+        }
+
+        this.thread = thread;
+        selectorThread.register(this);
+    }
+
+
+/**
+ * <A NAME="SD_GETTHREAD"></A>
+ * <EM>getThread</EM>
+ *
+ * @return the thread running the selector looking after this connection.
+ */
+
+    Thread
+    getThread() {
+        return(selectorThread.thread);
+    }
+
+
+/**
+ * <A NAME="SD_SETINTEREST"></A>
+ * <EM>setInterest</EM> add or remove an operation from those that the
+ * selector is watching this connection for.
+ *
+ * @param op the operation.
+ * @param on true if the operation should be watched for.
+ */
+
+    private synchronized void
+    setInterest(int op, boolean on) {
+        if (SelectorConnection_Debug) {
+            debug("SelectorConnection: setInterest:" +
+                  " op: " + op +
+                  " on: " + on);
+        }
+
+        if (key == null || !key.isValid()) {
+            return;
+        }
+
+        try {
+            key.interestOps(on ? (key.interestOps() | op)
+                               : (key.interestOps() & ~op));
+        } catch (CancelledKeyException cke) {
+            return;
+        }
+
+        if (Thread.currentThread() != selectorThread.thread) {
+            selectorThread.wakeup();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_READREADY"></A>
+ * <EM>readReady</EM> called by the selector thread when there is data to be
+ * read off this connection. Reading stops once too much data is waiting,
+ * but only if a whole message is waiting, because a worker thread is only
+ * dispatched for a whole message, and is what starts reading again.
+ *
+ * @param buffer a buffer to read the data into.
+ */
+
+    void
+    readReady(ByteBuffer buffer) {
+        int n;
+
+        if (SelectorConnection_Debug) {
+            debug("SelectorConnection: readReady.");
+        }
+
+        buffer.clear();
+        try {
+            n = channel.read(buffer);
+        } catch (IOException ioe) {
+            n = -1;
+        }
+
+        if (n < 0) {
+            setInterest(SelectionKey.OP_READ, false);
+            in.setEOF();
+        } else if (n > 0) {
+            buffer.flip();
+            if (in.append(buffer) >= SUSPEND_SIZE && isMessageReady()) {
+                synchronized (this) {
+                    readSuspended = true;
+                    setInterest(SelectionKey.OP_READ, false);
+                }
+            }
+        }
+
+        dispatch();
+    }
+
+
+/**
+ * <A NAME="SD_RESUMEREADING"></A>
+ * <EM>resumeReading</EM> start reading from this connection again if the
+ * selector had stopped because too much data was waiting to be handled.
+ */
+
+    synchronized void
+    resumeReading() {
+        if (readSuspended) {
+            if (SelectorConnection_Debug) {
+                debug("SelectorConnection: resumeReading.");
+            }
+
+            readSuspended = false;
+            setInterest(SelectionKey.OP_READ, true);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_WRITEREADY"></A>
+ * <EM>writeReady</EM> called by the selector thread when this connection
+ * can be written to again.
+ */
+
+    void
+    writeReady() {
+        if (SelectorConnection_Debug) {
+            debug("SelectorConnection: writeReady.");
+        }
+
+        setInterest(SelectionKey.OP_WRITE, false);
+        writeMonitor.enter();
+        try {
+            writable = true;
+            writeMonitor.signalAll();
+        } finally {
+            writeMonitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_WAITFORWRITE"></A>
+ * <EM>waitForWrite</EM> wait for this connection to be writable again.
+ *
+ * @exception IOException if the connection is closed, or doesn't become
+ * writable within the timeout period.
+ */
+
+    void
+    waitForWrite() throws IOException {
+        long period = Util.getLongProperty("timeoutPeriod", timeoutPeriod);
+        long endTime = System.currentTimeMillis() + period;
+
+        if (SelectorConnection_Debug) {
+            debug("SelectorConnection: waitForWrite.");
+        }
+
+        writeMonitor.enter();
+        try {
+            writable = false;
+        } finally {
+            writeMonitor.exit();
+        }
+        setInterest(SelectionKey.OP_WRITE, true);
+
+        writeMonitor.enter();
+        try {
+            while (!writable && !closed) {
+                long remaining = endTime - System.currentTimeMillis();
+
+                if (remaining <= 0) {
+                    throw new IOException("SelectorConnection: waitForWrite: " +
+                                          "timed out");
+                }
+
+                try {
+                    writeMonitor.await(remaining);
+                } catch (InterruptedException ie) {
+                    throw new IOException("SelectorConnection: waitForWrite: " +
+                                          "interrupted");
+                }
+            }
+
+            if (closed) {
+                throw new ClosedChannelException();
+            }
+        } finally {
+            writeMonitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ISMESSAGEREADY"></A>
+ * <EM>isMessageReady</EM> checks whether the next message on this
+ * connection can be handled without waiting for more data, or the
+ * connection has been closed. An error reading the data counts as ready,
+ * so that a worker thread finds it.
+ *
+ * @return true if a worker thread should handle this connection.
+ */
+
+    private boolean
+    isMessageReady() {
+        if (in.atEOF()) {
+            return(true);
+        }
+
+        try {
+            return(thread != null && thread.messageReady());
+        } catch (IOException ioe) {
+            return(true);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_DISPATCH"></A>
+ * <EM>dispatch</EM> get a worker thread to handle the messages read off
+ * this connection, if a whole message is waiting, unless one is already
+ * doing so.
+ */
+
+    private void
+    dispatch() {
+        synchronized (this) {
+            if (dispatched || thread == null || !isMessageReady()) {
+                return;
+            }
+
+            dispatched = true;
+        }
+
+        if (SelectorConnection_Debug) {
+            debug("SelectorConnection: dispatch.");
+        }
+
+        SelectorThread.getWorkers().execute(this);
+    }
+
+
+/**
+ * <A NAME="SD_CLOSE"></A>
+ * <EM>close</EM> close this connection, waking up any threads waiting to
+ * read from or write to it.
+ */
+
+    void
+    close() {
+        if (SelectorConnection_Debug) {
+            debug("SelectorConnection: close.");
+        }
+
+        writeMonitor.enter();
+        try {
+            closed = true;
+            writeMonitor.signalAll();
+        } finally {
+            writeMonitor.exit();
+        }
+
+        in.setEOF();
+        try {
+            channel.close();
+        } catch (IOException ioe) {
+            error("SelectorConnection: close: ", ioe);
+        }
+
+/* The channel is only finally closed once its key has been removed from the
+ * selector, so the selector thread needs to be woken up.
+ */
+        selectorThread.wakeup();
+    }
+
+
+/**
+ * <A NAME="SD_RUN"></A>
+ * <EM>run</EM> handle all the messages waiting on this connection. This is
+ * run by a worker thread. Once the rest is only part of a message, reading
+ * off the socket is started again (if it had stopped), so that the rest of
+ * the message arrives and the connection is dispatched again.
+ */
+
+    public void
+    run() {
+        if (SelectorConnection_Debug) {
+            debug("SelectorConnection: run.");
+        }
+
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (!isMessageReady()) {
+                        dispatched = false;
+                        resumeReading();
+                        return;
+                    }
+                }
+
+                thread.handleNextMessage();
+            }
+        } catch (IOException ioe) {
+            thread.cleanupConnection();
+        } catch (Exception e) {
+            error("SelectorConnection: run: ", e);
+        }
+
+        thread.finishConnection();
+        close();
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this SelectorConnection.
+ *
+ * @return a String containing a description of this SelectorConnection.
+ */
+
+    public String
+    toString() {
+        return("SelectorConnection:" +
+                " channel: " + channel + "\n");
+    }
+}
@@ -0,0 +1,351 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * JSDT selector input stream class. The data read off a connection by its
+ * selector thread is appended to this stream, and is then read by the
+ * worker thread handling that connection's messages. A read blocks until
+ * the selector thread has appended enough data, for up to the timeout
+ * period. Once framed messages are being used, a worker thread is only
+ * given the connection when a whole frame is here, so it never waits.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+SelectorInputStream extends InputStream implements socketDebugFlags {
+
+    // The amount of buffered data at which reading from the socket resumes.
+    private static final int RESUME_SIZE = 65536;
+
+    // The connection that this stream is reading from.
+    private final SelectorConnection connection;
+
+    // The monitor guarding the buffered data.
+    private final JSDTMonitor monitor = new JSDTMonitor();
+
+    // The buffered data.
+    private byte[] buf = new byte[1024];
+
+    // The position of the next byte to read in the buffer.
+    private int pos = 0;
+
+    // The position after the last byte of valid data in the buffer.
+    private int count = 0;
+
+    // Set true when no more data will be appended to this stream.
+    private boolean eof = false;
+
+
+/**
+ * <A NAME="SD_SELECTORINPUTSTREAM"></A>
+ * <EM>SelectorInputStream</EM> is a constructor for the SelectorInputStream
+ * class.
+ *
+ * @param connection the connection that this stream is reading from.
+ */
+
+    SelectorInputStream(SelectorConnection connection) {
+        if (SelectorInputStream_Debug) {
+            JSDTObject.Debug("SelectorInputStream: constructor:" +
+                             " connection: " + connection);
+        }
+
+        this.connection = connection;
+    }
+
+
+/**
+ * <A NAME="SD_APPEND"></A>
+ * <EM>append</EM> add the data just read off the socket to this stream.
+ *
+ * @param buffer the buffer containing the data just read.
+ *
+ * @return the amount of data now buffered by this stream.
+ */
+
+    int
+    append(ByteBuffer buffer) {
+        int len = buffer.remaining();
+
+        if (SelectorInputStream_Debug) {
+            JSDTObject.Debug("SelectorInputStream: append:" +
+                             " length: " + len);
+        }
+
+        monitor.enter();
+        try {
+            if (count + len > buf.length) {
+                byte[] newBuf = buf;
+
+                if (count - pos + len > buf.length) {
+                    newBuf = new byte[Math.max(buf.length * 2,
+                                               count - pos + len)];
+                }
+                System.arraycopy(buf, pos, newBuf, 0, count - pos);
+                buf   = newBuf;
+                count = count - pos;
+                pos   = 0;
+            }
+
+            buffer.get(buf, count, len);
+            count += len;
+            monitor.signalAll();
+
+            return(count - pos);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_SETEOF"></A>
+ * <EM>setEOF</EM> indicate that no more data will be appended to this
+ * stream.
+ */
+
+    void
+    setEOF() {
+        if (SelectorInputStream_Debug) {
+            JSDTObject.Debug("SelectorInputStream: setEOF.");
+        }
+
+        monitor.enter();
+        try {
+            eof = true;
+            monitor.signalAll();
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ATEOF"></A>
+ * <EM>atEOF</EM>
+ *
+ * @return true if no more data will be appended to this stream.
+ */
+
+    boolean
+    atEOF() {
+        monitor.enter();
+        try {
+            return(eof);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_AVAILABLE"></A>
+ * <EM>available</EM>
+ *
+ * @return the number of bytes that can be read without blocking.
+ */
+
+    public int
+    available() {
+        monitor.enter();
+        try {
+            return(count - pos);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_FRAMEREADY"></A>
+ * <EM>frameReady</EM> checks whether the whole of the next message frame
+ * is buffered. A frame is a marker byte, then its length as a variable
+ * length integer, then that many bytes. Any bytes before the marker are
+ * skipped by the reader, so they are skipped here too. A length that the
+ * reader will reject counts as ready, so that the reader finds the error
+ * straight away.
+ *
+ * @param marker the byte that starts each frame.
+ * @param maxFrameSize the largest frame that will be read.
+ *
+ * @return true if the next frame can be read without blocking.
+ */
+
+    boolean
+    frameReady(int marker, int maxFrameSize) {
+        if (SelectorInputStream_Debug) {
+            JSDTObject.Debug("SelectorInputStream: frameReady.");
+        }
+
+        monitor.enter();
+        try {
+            int i      = pos;
+            int length = 0;
+
+            while (i < count && (buf[i] & 0xff) != marker) {
+                i++;
+            }
+            if (i++ == count) {
+                return(false);
+            }
+
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b;
+
+                if (i == count) {
+                    return(false);
+                }
+                b = buf[i++] & 0xff;
+                length |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return(length < 0 || length > maxFrameSize ||
+                           count - i >= length);
+                }
+            }
+
+            return(true);
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_READ"></A>
+ * <EM>read</EM> read the next byte of data from this stream, waiting for
+ * it to be read off the socket if needed.
+ *
+ * @exception IOException if the connection has been closed.
+ *
+ * @return the next byte of data, or -1 if the end of the stream is reached.
+ */
+
+    public int
+    read() throws IOException {
+        byte[] b = new byte[1];
+
+        return((read(b, 0, 1) == -1) ? -1 : (b[0] & 0xff));
+    }
+
+
+/**
+ * <A NAME="SD_READ"></A>
+ * <EM>read</EM> read up to len bytes of data from this stream, waiting for
+ * at least one byte to be read off the socket if needed. A client that
+ * stops part way through a message would otherwise hold on to a shared
+ * worker thread for good, so the wait is limited to the timeout period.
+ *
+ * @param b the buffer into which the data is read.
+ * @param off the start offset in the buffer.
+ * @param len the maximum number of bytes to read.
+ *
+ * @exception IOException if the connection has been closed, or no data
+ * arrived within the timeout period.
+ *
+ * @return the number of bytes read, or -1 if the end of the stream is
+ * reached.
+ */
+
+    public int
+    read(byte[] b, int off, int len) throws IOException {
+        long    endTime = System.currentTimeMillis() +
+                          Util.getLongProperty("timeoutPeriod",
+                                               JSDTObject.timeoutPeriod);
+        boolean resume;
+        int     n;
+
+        if (SelectorInputStream_Debug) {
+            JSDTObject.Debug("SelectorInputStream: read:" +
+                             " length: " + len);
+        }
+
+        if (len == 0) {
+            return(0);
+        }
+
+        monitor.enter();
+        try {
+            while (pos == count && !eof) {
+                long remaining = endTime - System.currentTimeMillis();
+
+                if (remaining <= 0) {
+                    throw new InterruptedIOException(
+                                "SelectorInputStream: read: timed out");
+                }
+
+                try {
+                    monitor.await(remaining);
+                } catch (InterruptedException ie) {
+                    throw new InterruptedIOException();
+                }
+            }
+
+            if (pos == count) {
+                return(-1);
+            }
+
+            n = Math.min(len, count - pos);
+            System.arraycopy(buf, pos, b, off, n);
+            pos += n;
+            if (pos == count) {
+                pos   = 0;
+                count = 0;
+            }
+            resume = (count - pos < RESUME_SIZE);
+        } finally {
+            monitor.exit();
+        }
+
+/* The selector thread stops reading from a connection if its worker thread
+ * falls too far behind. Once enough has been read, it can start again.
+ * This is done without holding the lock on this stream.
+ */
+        if (resume) {
+            connection.resumeReading();
+        }
+
+        return(n);
+    }
+
+
+/**
+ * <A NAME="SD_CLOSE"></A>
+ * <EM>close</EM> close this stream, waking up any thread waiting to read
+ * from it.
+ */
+
+    public void
+    close() {
+        if (SelectorInputStream_Debug) {
+            JSDTObject.Debug("SelectorInputStream: close.");
+        }
+
+        setEOF();
+    }
+}
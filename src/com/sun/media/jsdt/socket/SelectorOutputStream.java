@@ -0,0 +1,120 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * JSDT selector output stream class. Data written to this stream is written
+ * straight to its non-blocking connection. If the socket can't take any more
+ * data, the writing thread waits for the selector thread to indicate that
+ * the connection is writable again.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+SelectorOutputStream extends OutputStream implements socketDebugFlags {
+
+    // The connection that this stream is writing to.
+    private final SelectorConnection connection;
+
+
+/**
+ * <A NAME="SD_SELECTOROUTPUTSTREAM"></A>
+ * <EM>SelectorOutputStream</EM> is a constructor for the
+ * SelectorOutputStream class.
+ *
+ * @param connection the connection that this stream is writing to.
+ */
+
+    SelectorOutputStream(SelectorConnection connection) {
+        if (SelectorOutputStream_Debug) {
+            JSDTObject.Debug("SelectorOutputStream: constructor:" +
+                             " connection: " + connection);
+        }
+
+        this.connection = connection;
+    }
+
+
+/**
+ * <A NAME="SD_WRITE"></A>
+ * <EM>write</EM> write a byte to the connection.
+ *
+ * @param b the byte to write.
+ *
+ * @exception IOException if the byte couldn't be written.
+ */
+
+    public void
+    write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+
+/**
+ * <A NAME="SD_WRITE"></A>
+ * <EM>write</EM> write len bytes to the connection, waiting for it to be
+ * writable if needed.
+ *
+ * @param b the data.
+ * @param off the start offset in the data.
+ * @param len the number of bytes to write.
+ *
+ * @exception IOException if the data couldn't be written.
+ */
+
+    public void
+    write(byte[] b, int off, int len) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+
+        if (SelectorOutputStream_Debug) {
+            JSDTObject.Debug("SelectorOutputStream: write:" +
+                             " length: " + len);
+        }
+
+        while (buffer.hasRemaining()) {
+            if (connection.channel.write(buffer) == 0) {
+                connection.waitForWrite();
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_CLOSE"></A>
+ * <EM>close</EM> close the connection.
+ */
+
+    public void
+    close() {
+        if (SelectorOutputStream_Debug) {
+            JSDTObject.Debug("SelectorOutputStream: close.");
+        }
+
+        connection.close();
+    }
+}
@@ -0,0 +1,89 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import java.net.*;
+import java.nio.channels.ServerSocketChannel;
+import java.io.IOException;
+
+/**
+ * This class creates TCP and UDP sockets in the same way as the
+ * TCPSocketFactory, except that its server sockets have an associated
+ * channel. The connections accepted on them are not each given their own
+ * thread by the TCP socket server. Instead they are multiplexed over a small
+ * number of selector threads, with the incoming messages being handled by a
+ * pool of worker threads.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+class
+SelectorSocketFactory extends TCPSocketFactory {
+
+/**
+ * <A NAME="SD_SELECTORSOCKETFACTORY"></A>
+ * <EM>SelectorSocketFactory</EM> instantiates an instance of this class.
+ */
+
+    public
+    SelectorSocketFactory() {
+        if (SelectorSocketFactory_Debug) {
+            debug("SelectorSocketFactory: constructor.");
+        }
+    }
+
+
+/**
+ * <A NAME="SD_CREATESERVERSOCKET"></A>
+ * <EM>createServerSocket</EM> returns a server socket, with an associated
+ * channel, which uses all network interfaces on the host, and is bound to
+ * the specified port.
+ *
+ * @param port the port to listen to
+ *
+ * @exception IOException for networking errors
+ *
+ * @see java.nio.channels.ServerSocketChannel
+ *
+ * @return a ServerSocket on the given port.
+ */
+
+    public ServerSocket
+    createServerSocket(int port) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+
+        if (SelectorSocketFactory_Debug) {
+            debug("SelectorSocketFactory: createServerSocket:" +
+                  " port: " + port);
+        }
+
+        try {
+            channel.socket().bind(new InetSocketAddress(port));
+        } catch (IOException ioe) {
+            channel.close();
+            throw ioe;
+        }
+
+        return(channel.socket());
+    }
+}
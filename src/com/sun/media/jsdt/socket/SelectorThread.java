@@ -0,0 +1,246 @@
+
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+
+/**
+ * JSDT selector thread class. Each selector thread looks after the reading
+ * and writing for many socket connections. The connections accepted by a
+ * TCP socket server that uses the SelectorSocketFactory are shared out
+ * between a small number of these threads, and the messages read from them
+ * are handled by a shared pool of worker threads.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+SelectorThread extends JSDTObject implements Runnable, socketDebugFlags {
+
+    // The selector threads that connections are shared out between.
+    private static Vector<SelectorThread> selectors = null;
+
+    // The index of the selector thread for the next new connection.
+    private static int nextSelector = 0;
+
+    // The worker threads that handle the messages read by selector threads.
+    private static JSDTThreadPool workers = null;
+
+    // The selector for the connections looked after by this thread.
+    private final Selector selector;
+
+    // The buffer used to read data off this selector's connections.
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(8192);
+
+    // New connections waiting to be registered with the selector.
+    private final Vector<SelectorConnection> registrations = new Vector<>();
+
+    // The thread running this selector.
+    Thread thread = null;
+
+
+/**
+ * <A NAME="SD_SELECTORTHREAD"></A>
+ * <EM>SelectorThread</EM> is a constructor for the SelectorThread class.
+ *
+ * @exception IOException if the selector couldn't be opened.
+ */
+
+    private
+    SelectorThread() throws IOException {
+        if (SelectorThread_Debug) {
+            debug("SelectorThread: constructor.");
+        }
+
+        selector = Selector.open();
+    }
+
+
+/**
+ * <A NAME="SD_GETSELECTORTHREAD"></A>
+ * <EM>getSelectorThread</EM> get the selector thread that should look after
+ * the next new connection. The selector threads are started as they are
+ * first needed.
+ *
+ * @exception IOException if a new selector couldn't be opened.
+ *
+ * @return the selector thread for the next new connection.
+ */
+
+    static synchronized SelectorThread
+    getSelectorThread() throws IOException {
+        int maxSelectors = Util.getIntProperty("selectorThreads",
+                                               selectorThreads);
+        SelectorThread selectorThread;
+
+        if (selectors == null) {
+            selectors = new Vector<>();
+        }
+
+        if (selectors.size() < maxSelectors) {
+            int n = selectors.size() + 1;
+
+            selectorThread = new SelectorThread();
+            selectorThread.thread = Util.startThread(selectorThread,
+                                                 "SelectorThread:" + n, true);
+            selectors.addElement(selectorThread);
+        } else {
+            nextSelector %= selectors.size();
+            selectorThread = selectors.elementAt(nextSelector);
+            nextSelector++;
+        }
+
+        return(selectorThread);
+    }
+
+
+/**
+ * <A NAME="SD_GETWORKERS"></A>
+ * <EM>getWorkers</EM> get the pool of worker threads used to handle the
+ * messages read by the selector threads.
+ *
+ * @return the pool of worker threads.
+ */
+
+    static synchronized JSDTThreadPool
+    getWorkers() {
+        if (workers == null) {
+            int maxThreads = Util.getIntProperty("maxWorkerThreads",
+                                                 maxWorkerThreads);
+
+            workers = new JSDTThreadPool("SelectorWorker", maxThreads);
+        }
+
+        return(workers);
+    }
+
+
+/**
+ * <A NAME="SD_REGISTER"></A>
+ * <EM>register</EM> add a new connection to those looked after by this
+ * selector thread.
+ *
+ * @param connection the new connection.
+ */
+
+    void
+    register(SelectorConnection connection) {
+        if (SelectorThread_Debug) {
+            debug("SelectorThread: register:" +
+                  " connection: " + connection);
+        }
+
+        registrations.addElement(connection);
+        selector.wakeup();
+    }
+
+
+/**
+ * <A NAME="SD_WAKEUP"></A>
+ * <EM>wakeup</EM> wake up this selector thread, so that any changes to the
+ * operations its connections are interested in take effect.
+ */
+
+    void
+    wakeup() {
+        if (SelectorThread_Debug) {
+            debug("SelectorThread: wakeup.");
+        }
+
+        selector.wakeup();
+    }
+
+
+/**
+ * <A NAME="SD_REGISTERCONNECTIONS"></A>
+ * <EM>registerConnections</EM> register any new connections with the
+ * selector.
+ */
+
+    private void
+    registerConnections() {
+        if (SelectorThread_Debug) {
+            debug("SelectorThread: registerConnections.");
+        }
+
+        while (registrations.size() != 0) {
+            SelectorConnection connection = registrations.firstElement();
+
+            registrations.removeElementAt(0);
+            try {
+                connection.key = connection.channel.register(selector,
+                                           SelectionKey.OP_READ, connection);
+            } catch (ClosedChannelException cce) {
+                connection.close();
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_RUN"></A>
+ * <EM>run</EM> wait for the connections looked after by this thread to be
+ * ready to read or write, and service them.
+ */
+
+    public void
+    run() {
+        if (SelectorThread_Debug) {
+            debug("SelectorThread: run.");
+        }
+
+        while (true) {
+            try {
+                selector.select();
+
+/* Closing a connection may interrupt this thread to wake it up. That's all
+ * it needs to do, so the interrupt is quietly cleared.
+ */
+                Thread.interrupted();
+                registerConnections();
+
+                for (Iterator<SelectionKey> i =
+                        selector.selectedKeys().iterator(); i.hasNext();) {
+                    SelectionKey       key        = i.next();
+                    SelectorConnection connection =
+                                       (SelectorConnection) key.attachment();
+
+                    i.remove();
+                    if (key.isValid() && key.isWritable()) {
+                        connection.writeReady();
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        connection.readReady(readBuffer);
+                    }
+                }
+            } catch (CancelledKeyException cke) {
+            } catch (Exception e) {
+                error("SelectorThread: run: ", e);
+            }
+        }
+    }
+}
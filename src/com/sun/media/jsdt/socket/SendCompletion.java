@@ -0,0 +1,129 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * JSDT send completion class. This holds the futures for a run of
+ * asynchronous sends that a send window has taken out of the window, and
+ * completes them when it is run by the event dispatcher. That way the
+ * actions chained to the futures never run on the thread reading from the
+ * connection, or while the send window is locked.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+SendCompletion extends JSDTObject implements Runnable, socketDebugFlags {
+
+    // The futures to complete, in the order the sends were made.
+    private final Vector<CompletableFuture<Void>> futures = new Vector<>();
+
+    // The exception to complete each future with (or null if it succeeded).
+    private final Vector<Throwable> failures = new Vector<>();
+
+
+/**
+ * <A NAME="SD_SENDCOMPLETION"></A>
+ * <EM>SendCompletion</EM> is the constructor for the SendCompletion class.
+ */
+
+    SendCompletion() {
+        if (SendCompletion_Debug) {
+            debug("SendCompletion: constructor.");
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ADD"></A>
+ * <EM>add</EM> add a send to be completed.
+ *
+ * @param future the future for the send.
+ * @param failure the exception the send failed with, or null if it
+ * succeeded.
+ */
+
+    void
+    add(CompletableFuture<Void> future, Throwable failure) {
+        if (SendCompletion_Debug) {
+            debug("SendCompletion: add:" +
+                  " future: "  + future +
+                  " failure: " + failure);
+        }
+
+        futures.addElement(future);
+        failures.addElement(failure);
+    }
+
+
+/**
+ * <A NAME="SD_ISEMPTY"></A>
+ * <EM>isEmpty</EM>
+ *
+ * @return true if there are no sends to be completed.
+ */
+
+    boolean
+    isEmpty() {
+        return(futures.size() == 0);
+    }
+
+
+/**
+ * <A NAME="SD_RUN"></A>
+ * <EM>run</EM> complete each of the sends.
+ */
+
+    public void
+    run() {
+        if (SendCompletion_Debug) {
+            debug("SendCompletion: run.");
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            Throwable failure = failures.elementAt(i);
+
+            if (failure == null) {
+                futures.elementAt(i).complete(null);
+            } else {
+                futures.elementAt(i).completeExceptionally(failure);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this SendCompletion.
+ *
+ * @return a String containing a description of this SendCompletion.
+ */
+
+    public String
+    toString() {
+        return("SendCompletion:" +
+                " sends: " + futures.size() + "\n");
+    }
+}
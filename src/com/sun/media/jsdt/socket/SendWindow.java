@@ -0,0 +1,364 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.*;
+import com.sun.media.jsdt.impl.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * JSDT send window class. This keeps track of the asynchronous sends on
+ * reliable channels that have been written to a socket connection, but not
+ * yet acknowledged by the server. Each one is given the next sequence number
+ * on the connection when it is written, so the sequence numbers are in the
+ * same order as the messages on the wire.
+ *
+ * The server acknowledges the last send it has handled, which implicitly
+ * acknowledges all the sends before it. A send that fails on the server is
+ * acknowledged on its own, with the reason it failed.
+ *
+ * The futures for the acknowledged sends are completed by the event
+ * dispatcher, after the window has been unlocked, so that any actions
+ * chained to them don't hold up the thread reading from the connection.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+SendWindow extends JSDTObject implements socketDebugFlags {
+
+    // The futures for the sends waiting to be acknowledged, oldest first.
+    private final Vector<CompletableFuture<Void>> futures = new Vector<>();
+
+    // The sequence number of the oldest send waiting to be acknowledged.
+    private int firstSequence = 1;
+
+    // The number of senders that have reserved a place in the window, but
+    // haven't written their message yet.
+    private int reserved = 0;
+
+    // The maximum number of sends waiting to be acknowledged.
+    private final int size;
+
+    // Set true when the connection has gone and no more sends are possible.
+    private boolean closed = false;
+
+    // Monitor used with the window for synchronization purposes.
+    private final JSDTMonitor monitor = new JSDTMonitor();
+
+
+/**
+ * <A NAME="SD_SENDWINDOW"></A>
+ * <EM>SendWindow</EM> is the constructor for the SendWindow class.
+ */
+
+    SendWindow() {
+        if (SendWindow_Debug) {
+            debug("SendWindow: constructor.");
+        }
+
+        size = Math.max(1, Util.getIntProperty("sendWindowSize",
+                                               sendWindowSize));
+    }
+
+
+/**
+ * <A NAME="SD_RESERVE"></A>
+ * <EM>reserve</EM> wait until there is room in the window for another send,
+ * and reserve it. This is done before the message is written, so a sender
+ * never waits for the window while it is writing to the connection.
+ *
+ * @exception ConnectionException if the connection has gone.
+ * @exception TimedOutException if no room became available in the window in
+ * the timeout period.
+ */
+
+    void
+    reserve() throws ConnectionException, TimedOutException {
+        long startTime    = System.currentTimeMillis();
+        long timeoutValue = Util.getLongProperty("timeoutPeriod",
+                                                 timeoutPeriod);
+        long period;
+
+        if (SendWindow_Debug) {
+            debug("SendWindow: reserve.");
+        }
+
+        monitor.enter();
+        try {
+            while (!closed && futures.size() + reserved >= size) {
+                period = timeoutValue -
+                         (System.currentTimeMillis() - startTime);
+                if (period <= 0) {
+                    throw new TimedOutException();
+                }
+                try {
+                    monitor.await(period);
+                } catch (InterruptedException ie) {
+                }
+            }
+
+            if (closed) {
+                throw new ConnectionException();
+            }
+            reserved++;
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_CANCELRESERVATION"></A>
+ * <EM>cancelReservation</EM> give up a place in the window that was reserved,
+ * because the message couldn't be written.
+ */
+
+    void
+    cancelReservation() {
+        if (SendWindow_Debug) {
+            debug("SendWindow: cancelReservation.");
+        }
+
+        monitor.enter();
+        try {
+            reserved--;
+            monitor.signalAll();
+        } finally {
+            monitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ADD"></A>
+ * <EM>add</EM> add a send to the window, using up the place that was
+ * reserved for it. This must be called while the sender owns the connection
+ * writer, so that sequence numbers are given out in the order the messages
+ * are written.
+ *
+ * @param future the future to complete when the send is acknowledged.
+ *
+ * @return the sequence number for this send.
+ */
+
+    int
+    add(CompletableFuture<Void> future) {
+        SendCompletion completion = new SendCompletion();
+        int            sequence;
+
+        if (SendWindow_Debug) {
+            debug("SendWindow: add:" +
+                  " future: " + future);
+        }
+
+        monitor.enter();
+        try {
+            reserved--;
+            futures.addElement(future);
+            sequence = firstSequence + futures.size() - 1;
+            if (closed) {
+                completion.add(future, new ConnectionException());
+            }
+        } finally {
+            monitor.exit();
+        }
+
+        complete(completion);
+        return(sequence);
+    }
+
+
+/**
+ * <A NAME="SD_ISACKNOWLEDGEMENTDUE"></A>
+ * <EM>isAcknowledgementDue</EM> checks to see whether the server should be
+ * asked to acknowledge the given send straight away. This is done every half
+ * window, so that senders keep going while the acknowledgement is on its
+ * way back.
+ *
+ * @param sequence the sequence number of the send.
+ *
+ * @return true if the server should acknowledge this send straight away.
+ */
+
+    boolean
+    isAcknowledgementDue(int sequence) {
+        if (SendWindow_Debug) {
+            debug("SendWindow: isAcknowledgementDue:" +
+                  " sequence: " + sequence);
+        }
+
+        return(sequence % Math.max(1, size / 2) == 0);
+    }
+
+
+/**
+ * <A NAME="SD_ACKNOWLEDGE"></A>
+ * <EM>acknowledge</EM> the server has handled all the sends up to and
+ * including the given one. The sends before it succeeded (any that failed
+ * were acknowledged on their own), and the given send has the given result.
+ *
+ * @param sequence the sequence number of the last send handled.
+ * @param retval the result of that send (or 0 if it succeeded).
+ */
+
+    void
+    acknowledge(int sequence, int retval) {
+        SendCompletion completion = new SendCompletion();
+
+        if (SendWindow_Debug) {
+            debug("SendWindow: acknowledge:" +
+                  " sequence: " + sequence +
+                  " retval: "   + retval);
+        }
+
+        monitor.enter();
+        try {
+            while (futures.size() != 0 && firstSequence - sequence <= 0) {
+                CompletableFuture<Void> future = futures.firstElement();
+
+                if (firstSequence == sequence && retval != 0) {
+                    completion.add(future, getException(retval));
+                } else {
+                    completion.add(future, null);
+                }
+                futures.removeElementAt(0);
+                firstSequence++;
+            }
+            monitor.signalAll();
+        } finally {
+            monitor.exit();
+        }
+
+        complete(completion);
+    }
+
+
+/**
+ * <A NAME="SD_CLOSE"></A>
+ * <EM>close</EM> the connection has gone, so none of the sends waiting in
+ * the window will be acknowledged. They all fail, as do any later attempts
+ * to send.
+ */
+
+    void
+    close() {
+        SendCompletion completion = new SendCompletion();
+
+        if (SendWindow_Debug) {
+            debug("SendWindow: close.");
+        }
+
+        monitor.enter();
+        try {
+            closed = true;
+            for (int i = 0; i < futures.size(); i++) {
+                completion.add(futures.elementAt(i),
+                               new ConnectionException());
+            }
+            firstSequence += futures.size();
+            futures.removeAllElements();
+            monitor.signalAll();
+        } finally {
+            monitor.exit();
+        }
+
+        complete(completion);
+    }
+
+
+/**
+ * <A NAME="SD_COMPLETE"></A>
+ * <EM>complete</EM> hand the given sends to the event dispatcher to be
+ * completed. They are queued against this window, so they are completed
+ * in the order the sends were made. This must be called without the
+ * window locked.
+ *
+ * @param completion the sends to complete.
+ */
+
+    private void
+    complete(SendCompletion completion) {
+        if (SendWindow_Debug) {
+            debug("SendWindow: complete:" +
+                  " completion: " + completion);
+        }
+
+        if (!completion.isEmpty()) {
+            Util.getEventDispatcher().dispatch(this, completion);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETEXCEPTION"></A>
+ * <EM>getException</EM> get the exception for the reason a send failed on
+ * the server.
+ *
+ * @param retval the JSDTException type returned by the server.
+ *
+ * @return the exception to complete the send's future with.
+ */
+
+    private JSDTException
+    getException(int retval) {
+        if (SendWindow_Debug) {
+            debug("SendWindow: getException:" +
+                  " retval: " + retval);
+        }
+
+        switch (retval) {
+            case JSDTException.NO_SUCH_CHANNEL:
+                return(new NoSuchChannelException());
+            case JSDTException.NO_SUCH_CLIENT:
+                return(new NoSuchClientException());
+            case JSDTException.NO_SUCH_CONSUMER:
+                return(new NoSuchConsumerException());
+            case JSDTException.NO_SUCH_SESSION:
+                return(new NoSuchSessionException());
+            case JSDTException.PERMISSION_DENIED:
+                return(new PermissionDeniedException());
+            default:
+                error("SendWindow: getException: ",
+                      "impl.unknown.exception.type", retval);
+                return(new UnknownException());
+        }
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this SendWindow.
+ *
+ * @return a String containing a description of this SendWindow.
+ */
+
+    public String
+    toString() {
+        return("SendWindow:" +
+                " first sequence: " + firstSequence +
+                " outstanding: "    + futures.size() +
+                " reserved: "       + reserved +
+                " size: "           + size + "\n");
+    }
+}
@@ -52,6 +52,27 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
     // The tokens currently in use by the clients in this session.
     private Hashtable<String, Token> tokens = null;
 
+    // The "address:port" of each server holding part of this session (the
+    // session server first, then its nodes), or null until it's needed.
+    private String[] nodes = null;
+
+    // The Registry's count of placement changes when the nodes were fetched.
+    private long nodesChanges = 0;
+
+    // The time to ask the Registry for the nodes again, if it couldn't be
+    // reached last time (or 0).
+    private long nodesRetryTime = 0;
+
+    // The connections to the nodes of this session, keyed by "address:port".
+    private Hashtable<String, SocketThread> nodeThreads = null;
+
+    // The "address:port" of the server holding each object of this session
+    // that the Registry has been asked about, keyed by object name.
+    private Hashtable<String, String> owners = null;
+
+    // Set if this is a managed session, which is never spread over nodes.
+    private boolean managed = false;
+
 
 /**
  * <A NAME="SD_SESSIONPROXY"></A>
@@ -87,6 +108,8 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
         byteArrays         = new Hashtable<>();
         channels           = new Hashtable<>();
         tokens             = new Hashtable<>();
+        nodeThreads        = new Hashtable<>();
+        owners             = new Hashtable<>();
 
         try {
             Integer         portNo = port;
@@ -187,6 +210,512 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
     }
 
 
+/**
+ * <A NAME="SD_GETNODES"></A>
+ * <EM>getNodes</EM> get the placement map for this session. This is asked
+ * for from the Registry the first time it's needed, and kept until the
+ * Registry says that a node has been bound or unbound.
+ *
+ * If the Registry can't be reached, the map that was last fetched is used,
+ * and the Registry is asked again after "keepAlivePeriod" milliseconds. If
+ * no map has been fetched yet, there's no way to tell which servers hold
+ * this session's objects, so a ConnectionException is thrown rather than
+ * guessing. Owners that aren't in a newly fetched map are forgotten.
+ *
+ * A node's part of a session has no session manager, so a managed session
+ * is never spread over its nodes. Its map is just the session server.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoSuchSessionException if this session doesn't exist.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return the "address:port" of each server holding part of this session,
+ * with the session server first.
+ */
+
+    String[]
+    getNodes()
+        throws ConnectionException, NoSuchSessionException, TimedOutException {
+        NamingProxy namingProxy;
+        URLString   urlString;
+        long        changes;
+
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: getNodes.");
+        }
+
+        if (session == null) {
+            throw new NoSuchSessionException();
+        }
+
+        namingProxy = ((socketSession) session).namingProxy;
+        synchronized (nodeThreads) {
+            changes = namingProxy.getPlacementChanges();
+            if (nodes != null && changes == nodesChanges &&
+                (nodesRetryTime == 0 ||
+                 System.currentTimeMillis() < nodesRetryTime)) {
+                return(nodes);
+            }
+
+            urlString = new URLString(url);
+            try {
+                if (isManaged(SessionImpl.M_Session, name)) {
+                    nodes   = new String[] { getHome(urlString) };
+                    managed = true;
+                } else {
+                    namingProxy.addChangeListener();
+                    nodes = namingProxy.getPlacement(urlString);
+                    pruneOwners(nodes);
+                }
+                nodesRetryTime = 0;
+            } catch (NoRegistryException | ConnectionException |
+                     TimedOutException e) {
+                nodesRetryTime = System.currentTimeMillis() +
+                                 Util.getLongProperty("keepAlivePeriod",
+                                                      keepAlivePeriod);
+                if (nodes == null) {
+                    throw new ConnectionException();
+                }
+            } catch (NoSuchByteArrayException | NoSuchChannelException |
+                     NoSuchTokenException e) {
+                error("SessionProxy: getNodes: ", e);
+                throw new NoSuchSessionException();
+            }
+            nodesChanges = changes;
+
+            return(nodes);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETHOME"></A>
+ * <EM>getHome</EM> get the "address:port" of the session server, as it
+ * appears at the start of the placement map.
+ *
+ * @param urlString the URLString of this session.
+ *
+ * @return the "address:port" of the session server.
+ */
+
+    private static String
+    getHome(URLString urlString) {
+        return(urlString.getHostAddress() + ":" + urlString.getPort());
+    }
+
+
+/**
+ * <A NAME="SD_PRUNEOWNERS"></A>
+ * <EM>pruneOwners</EM> forget the owners of objects that are on servers no
+ * longer in the placement map. The Registry forgets them too when a node
+ * is unbound, so they'll be placed afresh the next time they're used.
+ *
+ * @param nodes the new placement map for this session.
+ */
+
+    private void
+    pruneOwners(String[] nodes) {
+        Vector<String> gone = new Vector<>();
+
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: pruneOwners.");
+        }
+
+        for (Enumeration<String> k = owners.keys(); k.hasMoreElements();) {
+            String objectName = k.nextElement();
+            String owner      = owners.get(objectName);
+            int    i          = 0;
+
+            while (i < nodes.length && !nodes[i].equals(owner)) {
+                i++;
+            }
+            if (i == nodes.length) {
+                gone.addElement(objectName);
+            }
+        }
+
+        for (int i = 0; i < gone.size(); i++) {
+            owners.remove(gone.elementAt(i));
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETTHREAD"></A>
+ * <EM>getThread</EM> get the connection to the server that holds the
+ * object with the given name, connecting to it if this is the first object
+ * on that node. The Registry is asked which server that is, the first time
+ * the object is used, and it records its choice so that every proxy uses
+ * the same server for the object, even after more nodes are added.
+ *
+ * @param objectName the name of the byte array, channel or token.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoSuchSessionException if this session doesn't exist.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return the connection to send messages for that object on.
+ */
+
+    SocketThread
+    getThread(String objectName)
+        throws ConnectionException, NoSuchSessionException, TimedOutException {
+        String[] nodes = getNodes();
+        String   owner;
+
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: getThread:" +
+                  " object name: " + objectName);
+        }
+
+        if (managed) {
+            return(proxyThread);
+        }
+
+        if ((owner = owners.get(objectName)) == null) {
+            try {
+                owner = ((socketSession) session).namingProxy.getOwner(
+                                        new URLString(url), objectName);
+            } catch (NoRegistryException e) {
+                throw new ConnectionException();
+            }
+            owners.put(objectName, owner);
+        }
+
+        return(getNodeThread(nodes, owner));
+    }
+
+
+/**
+ * <A NAME="SD_GETOBJECTTHREAD"></A>
+ * <EM>getObjectThread</EM> get the connection to the server that holds the
+ * object with the given name. If its owner isn't already known, the
+ * Registry is asked. If that fails, the session server's connection is
+ * used, so requests for an object held by a node fail there rather than
+ * being sent to a server that might create another copy of it.
+ *
+ * @param objectName the name of the byte array, channel or token.
+ *
+ * @return the connection to send messages for that object on.
+ */
+
+    SocketThread
+    getObjectThread(String objectName) {
+        SocketThread thread;
+        String       owner;
+
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: getObjectThread:" +
+                  " object name: " + objectName);
+        }
+
+        if ((owner = owners.get(objectName)) != null &&
+            (thread = nodeThreads.get(owner)) != null) {
+            return(thread);
+        }
+
+        try {
+            thread = getThread(objectName);
+        } catch (ConnectionException | NoSuchSessionException |
+                 TimedOutException e) {
+            error("SessionProxy: getObjectThread: ", e);
+            thread = proxyThread;
+        }
+
+        return(thread);
+    }
+
+
+/**
+ * <A NAME="SD_GETNODETHREAD"></A>
+ * <EM>getNodeThread</EM> get the connection to the given server holding
+ * part of this session. If it's a node that hasn't been used yet, a
+ * connection is made to it, the node is asked to create its part of the
+ * session, and the clients that have joined the session through this proxy
+ * are joined to it there too.
+ *
+ * @param nodes the placement map for this session.
+ * @param node the "address:port" of the server.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoSuchSessionException if this session doesn't exist.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return the connection to that server.
+ */
+
+    private SocketThread
+    getNodeThread(String[] nodes, String node)
+        throws ConnectionException, NoSuchSessionException, TimedOutException {
+        SocketThread thread;
+        int          colon = node.lastIndexOf(':');
+
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: getNodeThread:" +
+                  " node: " + node);
+        }
+
+        if (node.equals(nodes[0])) {
+            return(proxyThread);
+        }
+
+        synchronized (nodeThreads) {
+            if ((thread = nodeThreads.get(node)) == null) {
+                try {
+                    thread = new SessionProxyThread(session, this,
+                                node.substring(0, colon),
+                                Integer.parseInt(node.substring(colon + 1)));
+                } catch (SocketException | UnknownHostException e) {
+                    throw new ConnectionException();
+                }
+
+                Util.startThread(thread,
+                        "SessionProxyThread:" + name + ":" + node, true);
+
+                try {
+                    createNodeSession(thread);
+                    for (Enumeration<String> k = clients.keys();
+                         k.hasMoreElements();) {
+                        sendNodeMessage(thread, T_Join, k.nextElement());
+                    }
+                } catch (ConnectionException | NoSuchSessionException |
+                         TimedOutException e) {
+                    thread.cleanupConnection();
+                    throw e;
+                }
+
+                nodeThreads.put(node, thread);
+            }
+        }
+
+        return(thread);
+    }
+
+
+/**
+ * <A NAME="SD_CREATENODESESSION"></A>
+ * <EM>createNodeSession</EM> ask a node to create its part of this
+ * session, if it hasn't already.
+ *
+ * @param thread the connection to the node.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoSuchSessionException if the node couldn't create the session.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    private void
+    createNodeSession(SocketThread thread)
+        throws ConnectionException, NoSuchSessionException, TimedOutException {
+        Message message;
+        int     retval;
+        int     id      = thread.getId();
+
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: createNodeSession:" +
+                  " thread: " + thread);
+        }
+
+        try {
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id,
+                           SessionImpl.M_Session, T_CreateSession, true, true);
+            thread.dataOut.writeUTF(url);
+            thread.flush();
+            message = thread.waitForReply();
+
+            retval = message.thread.dataIn.readInt();
+            message.thread.finishReply();
+        } catch (IOException e) {
+            thread.finishReply();
+            throw new ConnectionException();
+        }
+
+        if (retval != 0) {
+            throw new NoSuchSessionException();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_SENDNODEMESSAGE"></A>
+ * <EM>sendNodeMessage</EM> send a session join, leave or destroy message
+ * for the given client to a node of this session.
+ *
+ * @param thread the connection to the node.
+ * @param action the session action to perform.
+ * @param clientName the name of the client.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return the value returned by the node (0 if successful).
+ */
+
+    private int
+    sendNodeMessage(SocketThread thread, char action, String clientName)
+        throws ConnectionException, TimedOutException {
+        Message message;
+        int     retval;
+        int     id      = thread.getId();
+
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: sendNodeMessage:" +
+                  " thread: "      + thread +
+                  " action: "      + action +
+                  " client name: " + clientName);
+        }
+
+        try {
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id,
+                                  SessionImpl.M_Session, action, true, true);
+            thread.dataOut.writeUTF(name);
+            thread.dataOut.writeUTF(clientName);
+            thread.flush();
+            message = thread.waitForReply();
+
+            retval = message.thread.dataIn.readInt();
+            message.thread.finishReply();
+        } catch (IOException e) {
+            thread.finishReply();
+            throw new ConnectionException();
+        }
+
+        return(retval);
+    }
+
+
+/**
+ * <A NAME="SD_JOINNODES"></A>
+ * <EM>joinNodes</EM> join a client that has just joined this session to
+ * the nodes this proxy is using, so that it can join the objects on them.
+ * Nodes connected to later have the client joined when they're connected.
+ *
+ * @param clientName the name of the client.
+ */
+
+    void
+    joinNodes(String clientName) {
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: joinNodes:" +
+                  " client name: " + clientName);
+        }
+
+        sendNodeMessages(T_Join, clientName);
+    }
+
+
+/**
+ * <A NAME="SD_SENDNODEMESSAGES"></A>
+ * <EM>sendNodeMessages</EM> send a session message for the given client to
+ * each node this proxy is using. A node that can't be reached will have
+ * cleaned up after this proxy's connection anyway, so failures are ignored.
+ *
+ * @param action the session action to perform.
+ * @param clientName the name of the client.
+ */
+
+    private void
+    sendNodeMessages(char action, String clientName) {
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: sendNodeMessages:" +
+                  " action: "      + action +
+                  " client name: " + clientName);
+        }
+
+        synchronized (nodeThreads) {
+            for (Enumeration<SocketThread> e = nodeThreads.elements();
+                 e.hasMoreElements();) {
+                try {
+                    sendNodeMessage(e.nextElement(), action, clientName);
+                } catch (ConnectionException | TimedOutException ex) {
+                    if (SessionProxy_Debug) {
+                        debug("SessionProxy: sendNodeMessages: " + ex);
+                    }
+                }
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_DESTROYNODES"></A>
+ * <EM>destroyNodes</EM> destroy the parts of this session held on each of
+ * its nodes, connecting to any that this proxy hasn't used yet.
+ *
+ * @param clientName the name of the client destroying the session.
+ */
+
+    void
+    destroyNodes(String clientName) {
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: destroyNodes:" +
+                  " client name: " + clientName);
+        }
+
+        try {
+            String[] nodes = getNodes();
+
+            for (int i = 1; i < nodes.length; i++) {
+                try {
+                    getNodeThread(nodes, nodes[i]);
+                } catch (ConnectionException | TimedOutException e) {
+                    if (SessionProxy_Debug) {
+                        debug("SessionProxy: destroyNodes: " + e);
+                    }
+                }
+            }
+        } catch (ConnectionException | NoSuchSessionException |
+                 TimedOutException e) {
+            return;
+        }
+
+        sendNodeMessages(T_DestroySession, clientName);
+    }
+
+
+/**
+ * <A NAME="SD_CLOSENODES"></A>
+ * <EM>closeNodes</EM> close the connections to the nodes of this session.
+ *
+ * @param close if true, tell each node that this proxy is going away first.
+ */
+
+    private void
+    closeNodes(boolean close) {
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: closeNodes:" +
+                  " close: " + close);
+        }
+
+        synchronized (nodeThreads) {
+            SocketThread[] threads = new SocketThread[nodeThreads.size()];
+
+            nodeThreads.values().toArray(threads);
+            nodeThreads.clear();
+            for (SocketThread thread : threads) {
+                thread.terminate();
+                if (close) {
+                    try {
+                        thread.writeMessageHeader(thread.dataOut, sessionNo,
+                                            thread.getId(),
+                                            SessionImpl.M_Session,
+                                            T_Close, false, true);
+                        thread.flush();
+                    } catch (IOException ioe) {
+                    }
+                    thread.finishReply();
+                }
+                thread.cleanupConnection();
+            }
+        }
+    }
+
+
 /**
  * <A NAME="SD_ATTACHSESSIONMANAGER"></A>
  * <EM>attachSessionManager</EM>
@@ -232,7 +761,9 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
         int                retval;
         int                newLength;
         byte[]             newValue  = null;
+        long               newVersion = 0;
         AuthenticationInfo info;
+        SocketThread       thread;
 
         if (SessionProxy_Debug) {
             debug("SessionProxy: createByteArray:" +
@@ -267,21 +798,25 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
             throw new PermissionDeniedException();
         }
 
+        thread = getThread(byteArrayName);
+        id     = thread.getId();
+
         try {
-            proxyThread.writeMessageHeader(proxyThread.dataOut,
+            thread.writeMessageHeader(thread.dataOut,
                            sessionNo, id, type, T_CreateByteArray, true, true);
-            proxyThread.dataOut.writeUTF(byteArrayName);
-            proxyThread.dataOut.writeUTF(Util.getClientName(client));
-            proxyThread.dataOut.writeInt(length);
-            proxyThread.dataOut.write(value, offset, length);
-            proxyThread.flush();
-            message = proxyThread.waitForReply();
+            thread.dataOut.writeUTF(byteArrayName);
+            thread.dataOut.writeUTF(Util.getClientName(client));
+            thread.dataOut.writeInt(length);
+            thread.dataOut.write(value, offset, length);
+            thread.flush();
+            message = thread.waitForReply();
 
             in        = message.thread.dataIn;
             retval    = in.readInt();
             if (retval == 0) {
                 newLength = in.readInt();
                 newValue  = message.thread.getData(newLength);
+                newVersion = in.readLong();
             }
             message.thread.finishReply();
 
@@ -300,13 +835,14 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
                 }
             }
         } catch (IOException e) {
-            proxyThread.finishReply();
+            thread.finishReply();
             throw new ConnectionException();
         }
 
         if ((byteArray = getByteArrayByName(byteArrayName)) == null) {
             byteArray = new ByteArrayImpl(false, byteArrayName, session,
                                           newValue);
+            byteArray.setLocalValue(newValue, newVersion);
             addByteArray(byteArray);
             try {
                 byteArray.addByteArrayListener(byteArray);
@@ -379,6 +915,7 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
         Message            message;
         int                retval;
         AuthenticationInfo info;
+        SocketThread       thread;
         ChannelImpl        channel;
         int                id   = proxyThread.getId();
         char               type = SessionImpl.M_Session;
@@ -415,16 +952,19 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
             throw new PermissionDeniedException();
         }
 
+        thread = getThread(channelName);
+        id     = thread.getId();
+
         try {
-            proxyThread.writeMessageHeader(proxyThread.dataOut, sessionNo, id,
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id,
                                            type, T_CreateChannel, true, true);
-            proxyThread.dataOut.writeUTF(channelName);
-            proxyThread.dataOut.writeUTF(Util.getClientName(client));
-            proxyThread.dataOut.writeBoolean(reliable);
-            proxyThread.dataOut.writeBoolean(ordered);
+            thread.dataOut.writeUTF(channelName);
+            thread.dataOut.writeUTF(Util.getClientName(client));
+            thread.dataOut.writeBoolean(reliable);
+            thread.dataOut.writeBoolean(ordered);
 
-            proxyThread.flush();
-            message = proxyThread.waitForReply();
+            thread.flush();
+            message = thread.waitForReply();
 
             in       = message.thread.dataIn;
             retval   = in.readInt();
@@ -448,7 +988,7 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
                 }
             }
         } catch (IOException e) {
-            proxyThread.finishReply();
+            thread.finishReply();
             throw new ConnectionException();
         }
 
@@ -480,6 +1020,7 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
         Message            message;
         int                retval;
         AuthenticationInfo info;
+        SocketThread       thread;
         Token              token;
         int                id   = proxyThread.getId();
         char               type = SessionImpl.M_Session;
@@ -515,13 +1056,16 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
             throw new PermissionDeniedException();
         }
 
+        thread = getThread(tokenName);
+        id     = thread.getId();
+
         try {
-            proxyThread.writeMessageHeader(proxyThread.dataOut, sessionNo, id,
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id,
                                            type, T_CreateToken, true, true);
-            proxyThread.dataOut.writeUTF(tokenName);
-            proxyThread.dataOut.writeUTF(Util.getClientName(client));
-            proxyThread.flush();
-            message = proxyThread.waitForReply();
+            thread.dataOut.writeUTF(tokenName);
+            thread.dataOut.writeUTF(Util.getClientName(client));
+            thread.flush();
+            message = thread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -540,7 +1084,7 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
                 }
             }
         } catch (IOException e) {
-            proxyThread.finishReply();
+            thread.finishReply();
             throw new ConnectionException();
         }
 
@@ -605,7 +1149,8 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
         DataInputStream in;
         Message         message;
         int             retval;
-        int             id      = proxyThread.getId();
+        SocketThread    thread;
+        int             id;
         char            type    = SessionImpl.M_Session;
         boolean         exists  = false;
 
@@ -619,12 +1164,15 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
             throw new NoSuchSessionException();
         }
 
+        thread = getThread(objectName);
+        id     = thread.getId();
+
         try {
-            proxyThread.writeMessageHeader(proxyThread.dataOut, sessionNo, id,
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id,
                                            type, objectType, true, true);
-            proxyThread.dataOut.writeUTF(objectName);
-            proxyThread.flush();
-            message = proxyThread.waitForReply();
+            thread.dataOut.writeUTF(objectName);
+            thread.flush();
+            message = thread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -645,7 +1193,7 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
                 }
             }
         } catch (IOException e) {
-            proxyThread.finishReply();
+            thread.finishReply();
             throw new ConnectionException();
         }
         return(exists);
@@ -777,18 +1325,52 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
 
     private String[]
     objectsJoined(char objectType, Client client)
+        throws ConnectionException, InvalidClientException,
+               NoSuchSessionException, TimedOutException {
+        String[]       nodes = getNodes();
+        Vector<String> all   = new Vector<>();
+        String[]       names;
+
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: objectsJoined:" +
+                  " type: "   + objectType +
+                  " client: " + client);
+        }
+
+        if (nodes.length == 1) {
+            return(objectsJoined(proxyThread, objectType, client));
+        }
+
+        for (int i = 0; i < nodes.length; i++) {
+            names = objectsJoined(getNodeThread(nodes, nodes[i]),
+                                  objectType, client);
+            for (int j = 0; j < names.length; j++) {
+                all.addElement(names[j]);
+            }
+        }
+
+        names = all.toArray(new String[all.size()]);
+        Util.sort(names);
+
+        return(names);
+    }
+
+
+    private String[]
+    objectsJoined(SocketThread thread, char objectType, Client client)
         throws ConnectionException, InvalidClientException,
                NoSuchSessionException, TimedOutException {
         DataInputStream in;
         Message         message;
         int             retval;
         int             n;
-        int             id    = proxyThread.getId();
+        int             id    = thread.getId();
         char            type  = SessionImpl.M_Session;
         String[]        names = null;
 
         if (SessionProxy_Debug) {
             debug("SessionProxy: objectsJoined:" +
+                  " thread: " + thread +
                   " type: "   + objectType +
                   " client: " + client);
         }
@@ -798,11 +1380,11 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
         }
 
         try {
-            proxyThread.writeMessageHeader(proxyThread.dataOut, sessionNo, id,
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id,
                                            type, objectType, true, true);
-            proxyThread.dataOut.writeUTF(Util.getClientName(client));
-            proxyThread.flush();
-            message = proxyThread.waitForReply();
+            thread.dataOut.writeUTF(Util.getClientName(client));
+            thread.flush();
+            message = thread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -828,7 +1410,7 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
                 }
             }
         } catch (IOException e) {
-            proxyThread.finishReply();
+            thread.finishReply();
             throw new ConnectionException();
         }
         return(names);
@@ -880,6 +1462,8 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
                     tp.clients.remove(clientName);
                 }
             }
+
+            sendNodeMessages(T_Leave, clientName);
         }
     }
 
@@ -920,7 +1504,8 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
 /**
  * <A NAME="SD_LISTNAMES"></A>
  * <EM>listNames</EM> lists the names of all the objects of the given type
- * known to this session.
+ * known to this session. If the session has nodes, the names known to each
+ * of them are included.
  *
  * @param nameType the type of names to list (Channel, Token or ByteArray).
  *
@@ -934,9 +1519,55 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
 
     private String[]
     listNames(char nameType)
+        throws ConnectionException, NoSuchSessionException, TimedOutException {
+        String[]       nodes = getNodes();
+        Vector<String> all   = new Vector<>();
+        String[]       names;
+
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: listNames:" +
+                  " type: " + nameType);
+        }
+
+        if (nodes.length == 1) {
+            return(listNames(proxyThread, nameType));
+        }
+
+        for (int i = 0; i < nodes.length; i++) {
+            names = listNames(getNodeThread(nodes, nodes[i]), nameType);
+            for (int j = 0; j < names.length; j++) {
+                all.addElement(names[j]);
+            }
+        }
+
+        names = all.toArray(new String[all.size()]);
+        Util.sort(names);
+
+        return(names);
+    }
+
+
+/**
+ * <A NAME="SD_LISTNAMES"></A>
+ * <EM>listNames</EM> lists the names of all the objects of the given type
+ * known to the server on the given connection.
+ *
+ * @param thread the connection to the server to ask.
+ * @param nameType the type of names to list (Channel, Token or ByteArray).
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception NoSuchSessionException if the given session no longer exists.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return an array of names for this type of session object.
+ */
+
+    private String[]
+    listNames(SocketThread thread, char nameType)
         throws ConnectionException, NoSuchSessionException, TimedOutException {
         DataInputStream in;
-        int             id      = proxyThread.getId();
+        int             id      = thread.getId();
         char            type    = SessionImpl.M_Session;
         Message         message;
         String[]        names   = null;
@@ -945,7 +1576,8 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
 
         if (SessionProxy_Debug) {
             debug("SessionProxy: listNames:" +
-                  " type: " + nameType);
+                  " thread: " + thread +
+                  " type: "   + nameType);
         }
 
         if (session == null) {
@@ -953,11 +1585,11 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
         }
 
         try {
-            proxyThread.writeMessageHeader(proxyThread.dataOut, sessionNo, id,
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id,
                                            type, nameType, true, true);
-            proxyThread.dataOut.writeUTF(name);
-            proxyThread.flush();
-            message = proxyThread.waitForReply();
+            thread.dataOut.writeUTF(name);
+            thread.flush();
+            message = thread.waitForReply();
 
             in     = message.thread.dataIn;
             retval = in.readInt();
@@ -983,7 +1615,7 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
                 }
             }
         } catch (IOException e) {
-            proxyThread.finishReply();
+            thread.finishReply();
             throw new ConnectionException();
         }
         return(names);
@@ -1299,7 +1931,39 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
         }
 
         synchronized (channels) {
-            channels.remove(channelName);
+            ChannelImpl channel = (ChannelImpl) channels.remove(channelName);
+
+            if (channel != null) {
+                ((ChannelProxy) channel.po.getProxy()).drq.terminate();
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_REMOVETHREAD"></A>
+ * <EM>removeThread</EM> a connection used by this proxy has gone away. If
+ * it's the connection to the session server, the session is removed. If it's
+ * the connection to a node, just that connection is forgotten, so that the
+ * objects on the other servers can still be used.
+ *
+ * @param thread the connection that has gone away.
+ */
+
+    void
+    removeThread(SocketThread thread) {
+        if (SessionProxy_Debug) {
+            debug("SessionProxy: removeThread:" +
+                  " thread: " + thread);
+        }
+
+        if (thread == proxyThread) {
+            removeSession(name);
+            return;
+        }
+
+        synchronized (nodeThreads) {
+            nodeThreads.values().remove(thread);
         }
     }
 
@@ -1325,6 +1989,7 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
                         Util.adjustURLString(url, urlString.getHostAddress()));
 
             session = null;
+            closeNodes(false);
 
             if (managerThread != null) {
                 managerThread.terminate();
@@ -1420,6 +2085,7 @@ SessionProxy extends ManageableProxy implements AbstractSessionProxy {
         }
 
         proxyThread.finishReply();
+        closeNodes(true);
         namingProxy.cleanupSession(url);
         if (closeConnection ||
             !namingProxy.hasSessions(proxyThread.getAddress(),
@@ -129,7 +129,7 @@ SessionProxyMessage extends JSDTMessage {
         }
 
         try {
-            byteArrayName = in.readUTF();
+            byteArrayName = message.thread.readName();
             byteArray     = sp.getByteArrayByName(byteArrayName);
         } catch (IOException e) {
             error("SessionProxyMessage: parseServerByteArrayMessage: ", e);
@@ -149,6 +149,10 @@ SessionProxyMessage extends JSDTMessage {
 
                     bp.valueChanged(message);
                     break;
+                case T_ValueUpdated:                     /* VALUEUPDATED. */
+                    ((ByteArrayProxy) byteArray.po.getProxy()).valueUpdated(
+                                                                    message);
+                    break;
                 default:
                     waited("SessionProxyMessage: parseServerByteArrayMessage: ",
                            message.action);
@@ -191,8 +195,7 @@ SessionProxyMessage extends JSDTMessage {
                 ClientMessage cm = new ClientMessage(session, message, client,
                                                 TokenImpl.M_Token, tokenName);
 
-                Util.startThread(cm, "ClientMessageThread:" + client.getName() +
-                                     ":" + tokenName, true);
+                Util.getEventDispatcher().dispatch(client, cm);
             }
         } else {                                       /* INVITE and EXPEL. */
             DataInputStream in         = message.thread.dataIn;
@@ -214,8 +217,7 @@ SessionProxyMessage extends JSDTMessage {
                 ClientMessage cm = new ClientMessage(session, message,
                                             client, objectType, objectName);
 
-                Util.startThread(cm, "ClientMessageThread:" + client.getName() +
-                                     ":" + objectName, true);
+                Util.getEventDispatcher().dispatch(client, cm);
             }
         }
     }
@@ -240,7 +242,7 @@ SessionProxyMessage extends JSDTMessage {
         }
 
         try {
-            channelName = in.readUTF();
+            channelName = message.thread.readName();
             channel     = sp.getChannelByName(channelName);
         } catch (IOException e) {
             error("SessionProxyMessage: parseServerChannelMessage: ", e);
@@ -287,7 +289,7 @@ SessionProxyMessage extends JSDTMessage {
         switch (message.action) {
             case T_InformListener:          /* INFORMLISTENER. */
                 try {
-                    resourceName = in.readUTF();
+                    resourceName = message.thread.readName();
                 } catch (IOException e) {
                     error("SessionProxyMessage:" +
                           " parseServerSessionMessage: ", e);
@@ -335,7 +337,7 @@ SessionProxyMessage extends JSDTMessage {
         }
 
         try {
-            tokenName = in.readUTF();
+            tokenName = message.thread.readName();
             token     = sp.getTokenByName(tokenName);
         } catch (IOException e) {
             error("SessionProxyMessage: parseServerTokenMessage: ", e);
@@ -349,6 +351,9 @@ SessionProxyMessage extends JSDTMessage {
                 case T_InformListener:               /* INFORMLISTENER. */
                     informListeners(message, token, tokenName);
                     break;
+                case T_TokenGranted:                 /* TOKENGRANTED. */
+                    ((TokenProxy) token.po.getProxy()).granted(message);
+                    break;
                 default:
                     waited("SessionProxyMessage: parseServerTokenMessage: ",
                            message.action);
@@ -95,7 +95,7 @@ SessionProxyThread extends TCPSocketThread {
         namingProxy.connectionThread.informListeners(getAddress(), getPort(),
                                        ConnectionEvent.CONNECTION_FAILED);
 
-        sessionProxy.removeSession(session.getName());
+        sessionProxy.removeThread(this);
     }
 
 
@@ -26,11 +26,17 @@ import com.sun.media.jsdt.impl.*;
 import com.sun.media.jsdt.event.SessionEvent;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JSDT Session Server-side class.
  *
- * @version     2.3 - 20th November 2017
+ * The byte arrays, channels and tokens in the session are held in
+ * concurrent hash tables, so looking one up (which every request for it
+ * does) never waits, and creating or destroying one only holds up requests
+ * that hash to the same part of the table.
+ *
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -53,20 +59,17 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
     private UDPChannelServerThread cst = null;
 
     // The shared bytes arrays currently in use in this session.
-    private Hashtable<String, ByteArray> byteArrays = null;
+    private ConcurrentHashMap<String, ByteArray> byteArrays = null;
 
     // The channels currently in use by the clients in this session.
-    private Hashtable<String, Channel> channels = null;
+    private ConcurrentHashMap<String, Channel> channels = null;
 
     // The tokens currently in use by the clients in this session.
-    private Hashtable<String, Token> tokens = null;
+    private ConcurrentHashMap<String, Token> tokens = null;
 
     // Object that is cleanup up connections that are no longer pinging.
     private final CleanupConnections cc;
 
-    // The thread cleaning up connections that are no longer pinging.
-    private Thread cleanupThread = null;
-
 
 /**
  * <A NAME="SD_SESSIONSERVER"></A>
@@ -96,10 +99,10 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
         this.name        = name;
         this.sessionNo   = sessionNo;
 
-        byteArrays       = new Hashtable<>();
-        channels         = new Hashtable<>();
-        clients          = new Hashtable<>();
-        tokens           = new Hashtable<>();
+        byteArrays       = new ConcurrentHashMap<>();
+        channels         = new ConcurrentHashMap<>();
+        clients          = new ConcurrentHashMap<>();
+        tokens           = new ConcurrentHashMap<>();
 
         cc = new CleanupConnections(this);
 
@@ -218,9 +221,9 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
     private void
     cleanupListeners(JSDTThread thread, String clientName) {
         ClientImpl client     = getClientByName(clientName);
-        Vector     byteArrays = client.getByteArrays();
-        Vector     channels   = client.getChannels();
-        Vector     tokens     = client.getTokens();
+        Object[]   byteArrays = client.getByteArrays().toArray();
+        Object[]   channels   = client.getChannels().toArray();
+        Object[]   tokens     = client.getTokens().toArray();
 
         if (SessionServer_Debug) {
             debug("SessionServer: cleanupListeners:" +
@@ -228,23 +231,23 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
                   " client name: " + clientName);
         }
 
-        for (Enumeration e = byteArrays.elements(); e.hasMoreElements();) {
-            ByteArrayImpl   byteArray = (ByteArrayImpl) e.nextElement();
+        for (int i = 0; i < byteArrays.length; i++) {
+            ByteArrayImpl   byteArray = (ByteArrayImpl) byteArrays[i];
             ByteArrayServer bs = (ByteArrayServer) byteArray.so.getServer();
 
             bs.removeListenerThread(thread);
         }
 
 
-        for (Enumeration e = channels.elements(); e.hasMoreElements();) {
-            ChannelImpl   channel = (ChannelImpl) e.nextElement();
+        for (int i = 0; i < channels.length; i++) {
+            ChannelImpl   channel = (ChannelImpl) channels[i];
             ChannelServer cs      = (ChannelServer) channel.so.getServer();
 
             cs.removeListenerThread(thread);
         }
 
-        for (Enumeration e = tokens.elements(); e.hasMoreElements();) {
-            TokenImpl   token = (TokenImpl) e.nextElement();
+        for (int i = 0; i < tokens.length; i++) {
+            TokenImpl   token = (TokenImpl) tokens[i];
             TokenServer ts    = (TokenServer) token.so.getServer();
 
             ts.removeListenerThread(thread);
@@ -396,6 +399,7 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
         String          clientName    = null;
         int             valueLength   = 0;
         byte[]          value         = null;
+        long            version       = 0;
         ByteArrayImpl   byteArray;
         boolean         created       = false;
 
@@ -414,13 +418,21 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
         }
 
         if ((byteArray = getByteArrayByName(byteArrayName)) == null) {
-            byteArray = new ByteArrayImpl(true, byteArrayName, session, value);
-            byteArrays.put(byteArrayName, byteArray);
-            created = true;
+            ByteArrayImpl newByteArray = new ByteArrayImpl(true, byteArrayName,
+                                                           session, value);
+
+            if ((byteArray = (ByteArrayImpl) byteArrays.putIfAbsent(
+                                byteArrayName, newByteArray)) == null) {
+                byteArray = newByteArray;
+                created   = true;
+            }
         }
 
         try {
-            value       = byteArray.getValueAsBytes();
+            synchronized (byteArray) {
+                value   = byteArray.getValueAsBytes();
+                version = byteArray.getVersion();
+            }
             valueLength = value.length;
         } catch (NoSuchByteArrayException nsbe) {
             error("SessionServer: createByteArray: ", nsbe);
@@ -433,6 +445,7 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
             message.thread.dataOut.writeInt(0);
             message.thread.dataOut.writeInt(valueLength);
             message.thread.dataOut.write(value, 0, valueLength);
+            message.thread.dataOut.writeLong(version);
             message.thread.flush();
             message.thread.finishMessage();
         } catch (IOException e) {
@@ -481,21 +494,18 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
         }
 
         if ((channel = getChannelByName(channelName)) == null) {
-            channel = new ChannelImpl(true, channelName, session,
-                                      reliable, ordered);
-            channels.put(channelName, channel);
-
-            if (cst == null && !reliable) {
-                URLString urlString = new URLString(url);
-
-                cst = new UDPChannelServerThread(session, channel,
-                                                 urlString.getPort());
-                Util.startThread(cst,
-                        "UDPChannelServerThread:" + session.getName() +
-                        ":" + channel.getName(), false);
+            ChannelImpl newChannel = new ChannelImpl(true, channelName,
+                                                     session, reliable,
+                                                     ordered);
+
+            if ((channel = (ChannelImpl) channels.putIfAbsent(
+                                channelName, newChannel)) == null) {
+                channel = newChannel;
+                if (!reliable) {
+                    startChannelServerThread(channel);
+                }
+                created = true;
             }
-
-            created = true;
         }
 
         try {
@@ -518,6 +528,34 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
     }
 
 
+/**
+ * <A NAME="SD_STARTCHANNELSERVERTHREAD"></A>
+ * <EM>startChannelServerThread</EM> an unreliable channel has just been
+ * created. If there isn't a UDP channel server thread for this session yet,
+ * start one.
+ *
+ * @param channel the unreliable channel.
+ */
+
+    private synchronized void
+    startChannelServerThread(ChannelImpl channel) {
+        if (SessionServer_Debug) {
+            debug("SessionServer: startChannelServerThread:" +
+                  " channel: " + channel);
+        }
+
+        if (cst == null) {
+            URLString urlString = new URLString(url);
+
+            cst = new UDPChannelServerThread(session, channel,
+                                             urlString.getPort());
+            Util.startThread(cst,
+                    "UDPChannelServerThread:" + session.getName() +
+                    ":" + channel.getName(), false);
+        }
+    }
+
+
 /**
  * <A NAME="SD_CREATETOKEN"></A>
  * <EM>createToken</EM>
@@ -546,9 +584,8 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
         }
 
         if (getTokenByName(tokenName) == null) {
-            token = new TokenImpl(true, tokenName, session);
-            tokens.put(tokenName, token);
-            created = true;
+            token   = new TokenImpl(true, tokenName, session);
+            created = (tokens.putIfAbsent(tokenName, token) == null);
         }
 
         try {
@@ -947,15 +984,9 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
         }
 
         if (cleanupPings) {
-            if (cleanupThread == null) {
-                cleanupThread = Util.startThread(cc, "CleanupThread", true);
-            }
+            cc.start();
         } else {
-            if (cleanupThread != null) {
-                cc.setShutdown(true);
-                cleanupThread.interrupt();
-                cleanupThread = null;
-            }
+            cc.stop();
         }
     }
 
@@ -1018,10 +1049,8 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
             error("SessionServer: join: ", e);
         }
 
-        if (clients.containsKey(clientName)) {
+        if (clients.putIfAbsent(clientName, client) != null) {
             retval = JSDTException.NAME_IN_USE;
-        } else {
-            clients.put(clientName, client);
         }
 
         try {
@@ -1132,10 +1161,10 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
 
     void
     listNames(Message message) {
-        DataInputStream in     = message.thread.dataIn;
-        Hashtable       table  = null;
-        int             retval = 0;
-        int             size;
+        DataInputStream              in     = message.thread.dataIn;
+        ConcurrentHashMap<String, ?> table  = null;
+        String[]                     names;
+        int                          retval = 0;
 
         if (SessionServer_Debug) {
             debug("SessionServer: listNames:" +
@@ -1158,11 +1187,11 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
                 case T_ListTokenNames     : table = tokens;
             }
 
-            size = table.size();
+            names = table.keySet().toArray(new String[0]);
 
-            message.thread.dataOut.writeInt(size);
-            for (Enumeration e = table.keys(); e.hasMoreElements();) {
-                message.thread.dataOut.writeUTF((String) e.nextElement());
+            message.thread.dataOut.writeInt(names.length);
+            for (int i = 0; i < names.length; i++) {
+                message.thread.dataOut.writeUTF(names[i]);
             }
             message.thread.flush();
             message.thread.finishMessage();
@@ -1217,6 +1246,7 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
         DataInputStream  in     = message.thread.dataIn;
         int              retval = 0;
         int              size   = 0;
+        Object[]         objects;
         String[]         names  = null;
 
         if (SessionServer_Debug) {
@@ -1233,10 +1263,10 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
 
             switch (message.action) {
                 case T_ByteArraysJoined:
-                    names = new String[byteArrays.size()];
-                    for (Enumeration e = byteArrays.elements();
-                                     e.hasMoreElements();) {
-                        ByteArrayImpl b = (ByteArrayImpl) e.nextElement();
+                    objects = byteArrays.values().toArray();
+                    names   = new String[objects.length];
+                    for (int i = 0; i < objects.length; i++) {
+                        ByteArrayImpl b = (ByteArrayImpl) objects[i];
                         ByteArrayServer bs = (ByteArrayServer) b.so.getServer();
 
                         if (bs.getClientByName(clientName) != null) {
@@ -1245,10 +1275,10 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
                     }
                     break;
                 case T_ChannelsJoined:
-                    names = new String[channels.size()];
-                    for (Enumeration e = channels.elements();
-                                     e.hasMoreElements();) {
-                        ChannelImpl   c  = (ChannelImpl) e.nextElement();
+                    objects = channels.values().toArray();
+                    names   = new String[objects.length];
+                    for (int i = 0; i < objects.length; i++) {
+                        ChannelImpl   c  = (ChannelImpl) objects[i];
                         ChannelServer cs = (ChannelServer) c.so.getServer();
 
                         if (cs.getClientByName(clientName) != null) {
@@ -1257,10 +1287,10 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
                     }
                     break;
                 case T_TokensJoined:
-                    names = new String[byteArrays.size()];
-                    for (Enumeration e = tokens.elements();
-                                     e.hasMoreElements();) {
-                        TokenImpl   t  = (TokenImpl) e.nextElement();
+                    objects = tokens.values().toArray();
+                    names   = new String[objects.length];
+                    for (int i = 0; i < objects.length; i++) {
+                        TokenImpl   t  = (TokenImpl) objects[i];
                         TokenServer ts = (TokenServer) t.so.getServer();
 
                         if (ts.getClientByName(clientName) != null) {
@@ -1295,7 +1325,6 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
 
     void
     removeThread(JSDTThread thread) {
-        Enumeration e, k;
         boolean found = false;
         Thread  t;
 
@@ -1304,12 +1333,11 @@ SessionServer extends ManageableServer implements AbstractSessionServer {
                   " thread: " + thread);
         }
 
-        for (e = clientConnections.elements(), k = clientConnections.keys();
-             e.hasMoreElements();) {
-            SocketThread currentThread = (SocketThread) e.nextElement();
-            String       clientName    = (String) k.nextElement();
+        for (Map.Entry<String, JSDTThread> entry :
+                                    clientConnections.entrySet()) {
+            String clientName = entry.getKey();
 
-            if (thread == currentThread) {
+            if (thread == entry.getValue()) {
                 found = true;
 
                 if (SessionServer_Debug) {
@@ -189,6 +189,15 @@ SessionServerMessage extends JSDTMessage {
                     case T_SetValue:                      // SETVALUE.
                         bas.setValue(message);
                         break;
+                    case T_UpdateValue:                   // UPDATEVALUE.
+                        bas.updateValue(message);
+                        break;
+                    case T_GetValue:                      // GETVALUE.
+                        bas.getValue(message);
+                        break;
+                    case T_CompareAndSet:                 // COMPAREANDSET.
+                        bas.compareAndSet(message);
+                        break;
                     case T__Manager:                      // _MANAGER.
                         bas.attachManager(message);
                         break;
@@ -321,6 +330,7 @@ SessionServerMessage extends JSDTMessage {
                         ss.isAlive(message);
                         break;
                     case T_IsManaged:              // ISMANAGED.
+                        in.readUTF();
                         ss.isManaged(message);
                         break;
                     case T_Join:                   // JOIN.
@@ -384,7 +394,9 @@ SessionServerMessage extends JSDTMessage {
     parseProxyChannelMessage(Message message) {
         String           channelName;
         ChannelImpl      channel;
-        DataInputStream  in = message.thread.dataIn;
+        DataInputStream  in       = message.thread.dataIn;
+        int              sequence = 0;
+        boolean          now      = false;
 
         if (SessionServerMessage_Debug) {
             debug("SessionServerMessage: parseProxyChannelMessage:" +
@@ -392,10 +404,22 @@ SessionServerMessage extends JSDTMessage {
         }
 
         try {
-            channelName = in.readUTF();
+            if (message.action == T_Send || message.action == T_SendBatch ||
+                message.action == T_SendAsync) {
+                channelName = message.thread.readName();
+            } else {
+                channelName = in.readUTF();
+            }
+            if (message.action == T_SendAsync) {
+                sequence = in.readInt();
+                now      = in.readBoolean();
+            }
             channel     = ss.getChannelByName(channelName);
 
-            if (channel == null) {
+            if (channel == null && message.action == T_SendAsync) {
+                ((SocketThread) message.thread).acknowledge(message, sequence,
+                                        JSDTException.NO_SUCH_CHANNEL, true);
+            } else if (channel == null) {
                 message.thread.writeMessageHeader(message.thread.dataOut,
                                 message.sessionNo, message.id,
                                 message.type, message.action, false, true);
@@ -448,6 +472,12 @@ SessionServerMessage extends JSDTMessage {
                     case T_Send:                          // SEND.
                         cs.send(message, channelName);
                         break;
+                    case T_SendAsync:                     // SENDASYNC.
+                        cs.sendAsync(message, channelName, sequence, now);
+                        break;
+                    case T_SendBatch:                     // SENDBATCH.
+                        cs.sendBatch(message, channelName);
+                        break;
                     case T__Manager:                      // _MANAGER.
                         cs.attachManager(message);
                         break;
@@ -514,6 +544,9 @@ SessionServerMessage extends JSDTMessage {
                     case T_Grab:                        // GRAB.
                         ts.grab(message);
                         break;
+                    case T_GrabWait:                    // GRABWAIT.
+                        ts.grabWait(message);
+                        break;
                     case T_Invite:                      // INVITE.
                         ts.invite(message, TokenImpl.M_Token);
                         break;
@@ -45,6 +45,9 @@ SessionServerThread extends TCPSocketThread {
     // The Session server message associated with this server thread.
     private SessionServerMessage ssm = null;
 
+    // The port number of the socket server that accepted this connection.
+    private final int serverPort;
+
 
 /**
  * <A NAME="SD_SESSIONSERVERTHREAD"></A>
@@ -67,6 +70,7 @@ SessionServerThread extends TCPSocketThread {
 
         this.sessions = sessions;
         ssm = new SessionServerMessage();
+        serverPort = socket.getLocalPort();
     }
 
 
@@ -117,15 +121,24 @@ SessionServerThread extends TCPSocketThread {
         }
 
         try {
-            session = (socketSession)
-                                Util.getClassForName(className).newInstance();
-
             urlString = in.readUTF();
-            url = new URLString(urlString);
-            session._createServer(url.getObjectName(), message.sessionNo,
-                                  url.getConnectionType(), urlString,
-                                  url.getPort());
-            sessions.put(message.sessionNo, session);
+
+/* A session node is asked to create its part of a session by each proxy
+ * that places an object on it, so the session may already be here.
+ */
+            synchronized (sessions) {
+                if (sessions.get(message.sessionNo) == null) {
+                    session = (socketSession)
+                            Util.getClassForName(className).newInstance();
+
+                    url = new URLString(urlString);
+                    session._createServer(url.getObjectName(),
+                                          message.sessionNo,
+                                          url.getConnectionType(),
+                                          urlString, serverPort);
+                    sessions.put(message.sessionNo, session);
+                }
+            }
         } catch (Exception e) {
             retval = JSDTException.NO_SUCH_SESSION;
         }
@@ -150,8 +163,9 @@ SessionServerThread extends TCPSocketThread {
                   " message: " + message);
         }
 
-        if (session == null) {
-            int retval;
+        if (session == null || (message.type == SessionImpl.M_Session &&
+                                message.action == T_CreateSession)) {
+            int retval = 0;
 
             if (message.type == SessionImpl.M_Session &&
                 message.action == T_CreateSession) {
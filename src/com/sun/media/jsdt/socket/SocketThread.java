@@ -21,8 +21,11 @@
 
 package com.sun.media.jsdt.socket;
 
+import com.sun.media.jsdt.Channel;
+import com.sun.media.jsdt.TimedOutException;
 import com.sun.media.jsdt.impl.*;
 import java.io.*;
+import java.util.*;
 
 /**
  * JSDT Socket thread class.
@@ -34,6 +37,501 @@ import java.io.*;
 class
 SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
 
+    // The priority that messages other than channel data are written at.
+    static final int CONTROL_PRIORITY = Channel.HIGH_PRIORITY;
+
+    // Requests currently outstanding on this connection (multiplexed mode).
+    private final Vector<PendingRequest> pendingRequests = new Vector<>();
+
+    // The pending request that each calling thread is waiting on.
+    private final Hashtable<Thread, PendingRequest> callers =
+                                                        new Hashtable<>();
+
+    // The last request id allocated on this connection.
+    private int lastRequestId = 0;
+
+    // The thread currently writing a message to this connection (if any).
+    private Thread writer = null;
+
+    // Monitor used with writer for synchronization purposes.
+    private final JSDTMonitor writerMonitor = new JSDTMonitor();
+
+    // The number of threads waiting to write at each priority.
+    private final int[] waitingWriters = new int[Channel.MAX_PRIORITIES];
+
+    // The thread reading messages off this connection.
+    private Thread readerThread = null;
+
+    // The queue of channel data waiting to be written to this connection.
+    private OutboundQueue outboundQueue = null;
+
+    // The asynchronous channel sends waiting to be acknowledged (client).
+    private SendWindow sendWindow = null;
+
+    // Set if an asynchronous channel send hasn't been acknowledged (server).
+    private boolean acknowledgementPending = false;
+
+    // The session number, id and sequence number of that send.
+    private short acknowledgementSessionNo;
+    private int   acknowledgementId;
+    private int   acknowledgementSequence;
+
+
+/**
+ * <A NAME="SD_GETOUTBOUNDQUEUE"></A>
+ * <EM>getOutboundQueue</EM> get the queue of channel data waiting to be
+ * written to this connection, creating it if needed.
+ *
+ * @return the outbound queue for this connection.
+ */
+
+    final synchronized OutboundQueue
+    getOutboundQueue() {
+        if (SocketThread_Debug) {
+            debug("SocketThread: getOutboundQueue.");
+        }
+
+        if (outboundQueue == null) {
+            outboundQueue = new OutboundQueue(this);
+        }
+
+        return(outboundQueue);
+    }
+
+
+/**
+ * <A NAME="SD_GETSENDWINDOW"></A>
+ * <EM>getSendWindow</EM> get the window of asynchronous channel sends on
+ * this connection that are waiting to be acknowledged, creating it if
+ * needed.
+ *
+ * @return the send window for this connection.
+ */
+
+    final synchronized SendWindow
+    getSendWindow() {
+        if (SocketThread_Debug) {
+            debug("SocketThread: getSendWindow.");
+        }
+
+        if (sendWindow == null) {
+            sendWindow = new SendWindow();
+        }
+
+        return(sendWindow);
+    }
+
+
+/**
+ * <A NAME="SD_ACKNOWLEDGE"></A>
+ * <EM>acknowledge</EM> an asynchronous channel send read off this connection
+ * has been handled. Acknowledgements are cumulative, so unless the send
+ * failed, or the sender asked for it to be acknowledged straight away, this
+ * is put off until there are no more messages waiting to be read. This must
+ * only be called by the thread reading messages off this connection.
+ *
+ * @param message the message containing the send.
+ * @param sequence the sequence number of the send.
+ * @param retval the result of the send (or 0 if it succeeded).
+ * @param now set true if the send should be acknowledged straight away.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    final void
+    acknowledge(Message message, int sequence, int retval, boolean now)
+                throws IOException {
+        if (SocketThread_Debug) {
+            debug("SocketThread: acknowledge:" +
+                  " message: "  + message +
+                  " sequence: " + sequence +
+                  " retval: "   + retval +
+                  " now: "      + now);
+        }
+
+        acknowledgementPending   = true;
+        acknowledgementSessionNo = message.sessionNo;
+        acknowledgementId        = message.id;
+        acknowledgementSequence  = sequence;
+
+        if (retval != 0 || now) {
+            writeAcknowledgement(retval);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ACKNOWLEDGEIFIDLE"></A>
+ * <EM>acknowledgeIfIdle</EM> if there is an asynchronous channel send that
+ * hasn't been acknowledged yet, and there are no more messages waiting to be
+ * read off this connection, then acknowledge it (and all the sends before
+ * it) now.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    private void
+    acknowledgeIfIdle() throws IOException {
+        if (SocketThread_Debug) {
+            debug("SocketThread: acknowledgeIfIdle.");
+        }
+
+        if (acknowledgementPending && available() == 0) {
+            writeAcknowledgement(0);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_WRITEACKNOWLEDGEMENT"></A>
+ * <EM>writeAcknowledgement</EM> write an acknowledgement for the last
+ * asynchronous channel send handled on this connection.
+ *
+ * @param retval the result of that send (or 0 if it succeeded).
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    private void
+    writeAcknowledgement(int retval) throws IOException {
+        if (SocketThread_Debug) {
+            debug("SocketThread: writeAcknowledgement:" +
+                  " sequence: " + acknowledgementSequence +
+                  " retval: "   + retval);
+        }
+
+        acknowledgementPending = false;
+        try {
+            writeMessageHeader(dataOut, acknowledgementSessionNo,
+                               acknowledgementId, ChannelImpl.M_Channel,
+                               T_Acknowledge, false, true);
+            dataOut.writeInt(acknowledgementSequence);
+            dataOut.writeInt(retval);
+            flush();
+        } finally {
+            finishMessage();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_RECEIVEACKNOWLEDGEMENT"></A>
+ * <EM>receiveAcknowledgement</EM> read an acknowledgement for asynchronous
+ * channel sends off this connection, and pass it on to the send window.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    private void
+    receiveAcknowledgement() throws IOException {
+        int sequence = dataIn.readInt();
+        int retval   = dataIn.readInt();
+
+        if (SocketThread_Debug) {
+            debug("SocketThread: receiveAcknowledgement:" +
+                  " sequence: " + sequence +
+                  " retval: "   + retval);
+        }
+
+        getSendWindow().acknowledge(sequence, retval);
+    }
+
+
+/**
+ * <A NAME="SD_ACQUIREWRITER"></A>
+ * <EM>acquireWriter</EM> wait until the calling thread is the only thread
+ * writing a message to this connection. This ownership is given up again
+ * when the message is flushed, so that the header and body of each message
+ * are always written out together.
+ *
+ * When the connection is free, it goes to a waiting thread with the most
+ * urgent priority, so a TOP_PRIORITY message is written before any
+ * LOW_PRIORITY messages that were already waiting.
+ *
+ * @param priority the priority of the message to be written.
+ *
+ * @exception IOException if the connection could not be written to in the
+ * timeout period.
+ */
+
+    final void
+    acquireWriter(int priority) throws IOException {
+        Thread current      = Thread.currentThread();
+        long   startTime    = System.currentTimeMillis();
+        long   timeoutValue = Util.getLongProperty("timeoutPeriod",
+                                                    timeoutPeriod);
+        long   period;
+
+        if (SocketThread_Debug) {
+            debug("SocketThread: acquireWriter.");
+        }
+
+        writerMonitor.enter();
+        try {
+            if (writer == current) {
+                return;
+            }
+
+            waitingWriters[priority]++;
+            try {
+                while (writer != null || moreUrgentWriters(priority)) {
+                    period = timeoutValue -
+                             (System.currentTimeMillis() - startTime);
+                    if (period <= 0) {
+                        throw new IOException("timed out waiting for writer");
+                    }
+                    try {
+                        writerMonitor.await(period);
+                    } catch (InterruptedException ie) {
+                    }
+                }
+            } finally {
+                waitingWriters[priority]--;
+            }
+            writer = current;
+        } finally {
+            writerMonitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_MOREURGENTWRITERS"></A>
+ * <EM>moreUrgentWriters</EM> check whether any threads are waiting to write
+ * messages that are more urgent than the given priority. The caller must be
+ * inside the writer monitor.
+ *
+ * @param priority the priority of the message to be written.
+ *
+ * @return true if there are more urgent messages waiting to be written.
+ */
+
+    private boolean
+    moreUrgentWriters(int priority) {
+        for (int i = Channel.TOP_PRIORITY; i < priority; i++) {
+            if (waitingWriters[i] != 0) {
+                return(true);
+            }
+        }
+
+        return(false);
+    }
+
+
+/**
+ * <A NAME="SD_RELEASEWRITER"></A>
+ * <EM>releaseWriter</EM> give up write ownership of this connection, if the
+ * calling thread currently has it. Anything the thread wrote that hasn't
+ * been sent is thrown away (see <CODE>discardOutput</CODE>).
+ */
+
+    final void
+    releaseWriter() {
+        if (SocketThread_Debug) {
+            debug("SocketThread: releaseWriter.");
+        }
+
+        writerMonitor.enter();
+        try {
+            if (writer == Thread.currentThread()) {
+                discardOutput();
+                writer = null;
+                writerMonitor.signalAll();
+            }
+        } finally {
+            writerMonitor.exit();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_DISCARDOUTPUT"></A>
+ * <EM>discardOutput</EM> the thread that owns this connection for writing
+ * is giving it up. Connections that hold on to a message until it is
+ * complete throw away any part of one that was abandoned, so that it isn't
+ * sent in front of the next message. Other connections have nothing to do.
+ */
+
+    void
+    discardOutput() {
+    }
+
+
+/**
+ * <A NAME="SD_ADDPENDINGREQUEST"></A>
+ * <EM>addPendingRequest</EM> allocate a new request id on this connection
+ * and remember that the calling thread is waiting for the reply to it.
+ *
+ * @param sessionNo the unique session number for this message.
+ * @param id the unique identifier for this sending thread.
+ * @param type the message type.
+ * @param action the message action.
+ *
+ * @return the new request id.
+ */
+
+    private synchronized int
+    addPendingRequest(short sessionNo, int id, char type, char action) {
+        long           value = ((long) id << 32) + (sessionNo << 16) +
+                               (type <<  8) + action;
+        PendingRequest pending;
+
+        if (SocketThread_Debug) {
+            debug("SocketThread: addPendingRequest:" +
+                  " session #: " + sessionNo +
+                  " id: "        + id +
+                  " type: "      + typeToString(type) +
+                  " action: "    + actionToString(action));
+        }
+
+        if (++lastRequestId == 0) {
+            lastRequestId = 1;
+        }
+
+        pending = new PendingRequest(lastRequestId, value,
+                                     Thread.currentThread());
+        pendingRequests.addElement(pending);
+        callers.put(pending.caller, pending);
+
+        return(pending.requestId);
+    }
+
+
+/**
+ * <A NAME="SD_CLAIMPENDINGREQUEST"></A>
+ * <EM>claimPendingRequest</EM> find (and remove) the outstanding request
+ * that the given message is the reply to.
+ *
+ * @param message the message just read off the socket.
+ *
+ * @return the matching pending request, or null if there isn't one.
+ */
+
+    private PendingRequest
+    claimPendingRequest(Message message) {
+        if (SocketThread_Debug) {
+            debug("SocketThread: claimPendingRequest:" +
+                  " message: " + message);
+        }
+
+        synchronized (pendingRequests) {
+            for (int i = 0; i < pendingRequests.size(); i++) {
+                PendingRequest pending = pendingRequests.elementAt(i);
+
+                if (pending.matches(message)) {
+                    pendingRequests.removeElementAt(i);
+                    return(pending);
+                }
+            }
+        }
+
+        return(null);
+    }
+
+
+/**
+ * <A NAME="SD_DELIVERREPLY"></A>
+ * <EM>deliverReply</EM> hand the reply that has just been read off the
+ * socket over to the thread waiting for it, and wait until that thread has
+ * finished reading the rest of the reply.
+ *
+ * @param pending the pending request that this is the reply to.
+ *
+ * @return false if the waiting thread had already given up on this request.
+ */
+
+    private boolean
+    deliverReply(PendingRequest pending) {
+        if (SocketThread_Debug) {
+            debug("SocketThread: deliverReply:" +
+                  " pending: " + pending);
+        }
+
+        pending.monitor.enter();
+        try {
+            if (pending.state != PendingRequest.WAITING) {
+                return(false);
+            }
+
+            pending.reply = new Message();
+            pending.reply.setMessageHeader(message);
+            pending.state = PendingRequest.FOUND;
+            pending.monitor.signalAll();
+
+            while (running && pending.state == PendingRequest.FOUND) {
+                try {
+                    pending.monitor.await();
+                } catch (InterruptedException ie) {
+                }
+            }
+        } finally {
+            pending.monitor.exit();
+        }
+
+        return(true);
+    }
+
+
+/**
+ * <A NAME="SD_CANCELPENDINGREQUESTS"></A>
+ * <EM>cancelPendingRequests</EM> wake up all the threads still waiting for
+ * replies on this connection, because no more replies will be read.
+ */
+
+    private void
+    cancelPendingRequests() {
+        if (SocketThread_Debug) {
+            debug("SocketThread: cancelPendingRequests.");
+        }
+
+        synchronized (pendingRequests) {
+            for (int i = 0; i < pendingRequests.size(); i++) {
+                PendingRequest pending = pendingRequests.elementAt(i);
+
+                pending.monitor.enter();
+                try {
+                    pending.state = PendingRequest.CANCELLED;
+                    pending.monitor.signalAll();
+                } finally {
+                    pending.monitor.exit();
+                }
+            }
+            pendingRequests.removeAllElements();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETREPLYREQUESTID"></A>
+ * <EM>getReplyRequestId</EM> if the message being written is the reply to
+ * the message currently being handled by this thread, then it needs to carry
+ * the same request id.
+ *
+ * @param sessionNo the unique session number for this message.
+ * @param id the unique identifier for this sending thread.
+ * @param type the message type.
+ * @param action the message action.
+ *
+ * @return the request id to echo back, or 0 if there isn't one.
+ */
+
+    private int
+    getReplyRequestId(short sessionNo, int id, char type, char action) {
+        if (SocketThread_Debug) {
+            debug("SocketThread: getReplyRequestId.");
+        }
+
+        if (Thread.currentThread() == readerThread &&
+            message.requestId != 0 && message.sessionNo == sessionNo &&
+            message.id == id && message.type == type &&
+            message.action == action) {
+            return(message.requestId);
+        }
+
+        return(0);
+    }
+
+
 /**
  * <A NAME="SD_CLEANUPCONNECTION"></A>
  * <EM>cleanupConnection</EM>
@@ -60,7 +558,133 @@ SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
             debug("SocketThread: flush.");
         }
 
-        dataOut.flush();
+        try {
+            dataOut.flush();
+        } finally {
+            releaseWriter();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ENDMESSAGE"></A>
+ * <EM>endMessage</EM> the message written to this socket is complete, but
+ * there are more to come straight after it, so it doesn't need to be sent
+ * yet. Connections that can't hold on to finished messages just flush
+ * each one.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    void
+    endMessage() throws IOException {
+        if (SocketThread_Debug) {
+            debug("SocketThread: endMessage.");
+        }
+
+        flush();
+    }
+
+
+/**
+ * <A NAME="SD_FLUSHOUTPUT"></A>
+ * <EM>flushOutput</EM> send any finished messages that are being held on to
+ * by this connection.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    void
+    flushOutput() throws IOException {
+        if (SocketThread_Debug) {
+            debug("SocketThread: flushOutput.");
+        }
+    }
+
+
+/**
+ * <A NAME="SD_FLUSHIFIDLE"></A>
+ * <EM>flushIfIdle</EM> called by the thread reading messages off this
+ * connection after it has handled each one. Connections that hold on to
+ * replies while more requests are waiting to be read send them here, once
+ * there aren't any.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    void
+    flushIfIdle() throws IOException {
+        if (SocketThread_Debug) {
+            debug("SocketThread: flushIfIdle.");
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ISREADERTHREAD"></A>
+ * <EM>isReaderThread</EM> checks to see if the calling thread is the one
+ * reading messages off this connection.
+ *
+ * @return true if the calling thread is the one reading messages off this
+ * connection.
+ */
+
+    final boolean
+    isReaderThread() {
+        return(Thread.currentThread() == readerThread);
+    }
+
+
+/**
+ * <A NAME="SD_FINISHMESSAGE"></A>
+ * <EM>finishMessage</EM>
+ */
+
+    public void
+    finishMessage() {
+        if (SocketThread_Debug) {
+            debug("SocketThread: finishMessage.");
+        }
+
+        releaseWriter();
+        super.finishMessage();
+    }
+
+
+/**
+ * <A NAME="SD_FINISHREPLY"></A>
+ * <EM>finishReply</EM> the calling thread has finished reading its reply
+ * (or has given up on it). If the request was multiplexed, then the socket
+ * reader thread is told it can carry on reading the next message.
+ */
+
+    public void
+    finishReply() {
+        PendingRequest pending = callers.remove(Thread.currentThread());
+
+        if (SocketThread_Debug) {
+            debug("SocketThread: finishReply:" +
+                  " pending: " + pending);
+        }
+
+        releaseWriter();
+        if (pending == null) {
+            super.finishReply();
+            return;
+        }
+
+        pendingRequests.removeElement(pending);
+        pending.monitor.enter();
+        try {
+            if (pending.state == PendingRequest.WAITING) {
+                pending.state = PendingRequest.CANCELLED;
+            } else {
+                pending.state = PendingRequest.FINISHED;
+            }
+            pending.monitor.signalAll();
+        } finally {
+            pending.monitor.exit();
+        }
     }
 
 
@@ -83,6 +707,66 @@ SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
     }
 
 
+/**
+ * <A NAME="SD_ISFRAMED"></A>
+ * <EM>isFramed</EM> checks whether messages on this connection are sent in
+ * length-prefixed frames.
+ *
+ * @return true if this connection uses message frames.
+ */
+
+    boolean
+    isFramed() {
+        if (SocketThread_Debug) {
+            debug("SocketThread: isFramed.");
+        }
+
+        return(false);
+    }
+
+
+/**
+ * <A NAME="SD_AVAILABLE"></A>
+ * <EM>available</EM> gets the number of bytes that can be read off this
+ * connection without blocking.
+ *
+ * @return the number of bytes available.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    int
+    available() throws IOException {
+        if (SocketThread_Debug) {
+            debug("SocketThread: available.");
+        }
+
+        return(dataIn.available());
+    }
+
+
+/**
+ * <A NAME="SD_MESSAGEREADY"></A>
+ * <EM>messageReady</EM> checks whether the next message can be read off
+ * this connection without waiting for more data to arrive. Without message
+ * frames, there's no way to tell where a message ends, so this is true as
+ * soon as any of it has arrived.
+ *
+ * @return true if the next message can be read without blocking.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    boolean
+    messageReady() throws IOException {
+        if (SocketThread_Debug) {
+            debug("SocketThread: messageReady.");
+        }
+
+        return(available() > 0);
+    }
+
+
 /**
  * <A NAME="SD_SYNCINPUT"></A>
  * <EM>syncInput</EM> there has been an error on some kind while trying to
@@ -90,7 +774,7 @@ SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
  * message.
  */
 
-    private void
+    void
     syncInput() {
         int toRead, value;
 
@@ -107,7 +791,7 @@ SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
                 if (value == T_Version) {
                     value = dataIn.read();
                     toRead--;
-                    if (value == version) {
+                    if (value == version || value == correlatedVersion) {
                         value = dataIn.read();
                         toRead--;
                         if (value == T_Session_No) {
@@ -135,9 +819,17 @@ SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
  * id               - integer  (unique for each sending thread).
  * type             - char     (message type).
  * action           - char     (message action).
+ * requestId        - integer  (only if version is correlatedVersion).
  *
  * Each of these fields are sent over a socket via a DataOutputStream.
  *
+ * If requests are being multiplexed, a request that waits for a reply is
+ * given a new per-connection request id, and doesn't have to wait for any
+ * other outstanding requests on this connection to complete. A reply to a
+ * request that carried a request id echoes it back.
+ *
+ * Messages written this way are written at CONTROL_PRIORITY.
+ *
  * @param stream the DataOutputStream to write the fields to.
  * @param sessionNo the unique session number for this message.
  * @param id the unique identifier for this sending thread.
@@ -154,6 +846,34 @@ SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
                        int id, char type, char action,
                        boolean toWait, boolean sendNow)
         throws IOException {
+        writeMessageHeader(stream, sessionNo, id, type, action,
+                           toWait, sendNow, CONTROL_PRIORITY);
+    }
+
+
+/**
+ * <A NAME="SD_WRITEMESSAGEHEADER"></A>
+ * <EM>writeMessageHeader</EM> write the "standard" header portion of a
+ * message at the given priority. If other threads are waiting to write to
+ * this connection, those with more urgent messages go first.
+ *
+ * @param stream the DataOutputStream to write the fields to.
+ * @param sessionNo the unique session number for this message.
+ * @param id the unique identifier for this sending thread.
+ * @param type the message type.
+ * @param action the message action.
+ * @param toWait do we wait for a reply to this message?
+ * @param sendNow aleways true for the "socket" implementation.
+ * @param priority the priority of this message.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    public void
+    writeMessageHeader(DataOutputStream stream, short sessionNo,
+                       int id, char type, char action,
+                       boolean toWait, boolean sendNow, int priority)
+        throws IOException {
         if (SocketThread_Debug) {
             debug("SocketThread: writeMessageHeader:" +
                   " stream: "    + stream +
@@ -162,11 +882,18 @@ SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
                   " type: "      + typeToString(type) +
                   " action: "    + actionToString(action) +
                   " wait?: "     + toWait +
-                  " send now?: " + sendNow);
+                  " send now?: " + sendNow +
+                  " priority: "  + priority);
         }
 
+        int     requestId   = 0;
+        boolean multiplexed = Util.getBooleanProperty("multiplexRequests",
+                                                      multiplexRequests);
+
         synchronized (this) {
-            if (toWait) {
+            if (toWait && multiplexed) {
+                requestId = addPendingRequest(sessionNo, id, type, action);
+            } else if (toWait) {
                 try {
                     while (true) {
                         synchronized (waitValueLock) {
@@ -210,20 +937,182 @@ SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
                 }
                 state = WAITING_FOR_REPLY;
             } else {
+                requestId = getReplyRequestId(sessionNo, id, type, action);
                 state = SENDING_MESSAGE;
             }
+        }
+
+        acquireWriter(priority);
+        if (isFramed()) {
+            writeFramedHeaderFields(stream, sessionNo, id, type, action,
+                                    requestId);
+        } else {
+            writeHeaderFields(stream, sessionNo, id, type, action, requestId);
+        }
+    }
+
 
-            stream.writeChar(T_Version);
-            stream.writeChar(version);
-            stream.writeChar(T_Session_No);
-            stream.writeShort(sessionNo);
-            stream.writeInt(id);
-            stream.writeChar(type);
-            stream.writeChar(action);
+/**
+ * <A NAME="SD_WRITEHEADERFIELDS"></A>
+ * <EM>writeHeaderFields</EM> write the fields of the "standard" message
+ * header to the given stream.
+ *
+ * @param stream the DataOutputStream to write the fields to.
+ * @param sessionNo the unique session number for this message.
+ * @param id the unique identifier for this sending thread.
+ * @param type the message type.
+ * @param action the message action.
+ * @param requestId the request id for this message, or 0 if none.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    static void
+    writeHeaderFields(DataOutputStream stream, short sessionNo,
+                      int id, char type, char action, int requestId)
+                throws IOException {
+        stream.writeChar(T_Version);
+        stream.writeChar((requestId != 0) ? correlatedVersion : version);
+        stream.writeChar(T_Session_No);
+        stream.writeShort(sessionNo);
+        stream.writeInt(id);
+        stream.writeChar(type);
+        stream.writeChar(action);
+        if (requestId != 0) {
+            stream.writeInt(requestId);
         }
     }
 
 
+/**
+ * <A NAME="SD_WRITEFRAMEDHEADERFIELDS"></A>
+ * <EM>writeFramedHeaderFields</EM> write the fields of the compact message
+ * header used at the start of each message frame:
+ *
+ * sessionNo        - variable length integer.
+ * id               - variable length integer.
+ * type             - byte.
+ * action           - byte.
+ * requestId        - variable length integer (0 if none).
+ *
+ * @param stream the DataOutputStream to write the fields to.
+ * @param sessionNo the unique session number for this message.
+ * @param id the unique identifier for this sending thread.
+ * @param type the message type.
+ * @param action the message action.
+ * @param requestId the request id for this message, or 0 if none.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    static void
+    writeFramedHeaderFields(DataOutputStream stream, short sessionNo,
+                            int id, char type, char action, int requestId)
+                throws IOException {
+        Util.writeVarInt(stream, sessionNo & 0xFFFF);
+        Util.writeVarInt(stream, id);
+        stream.writeByte(type);
+        stream.writeByte(action);
+        Util.writeVarInt(stream, requestId);
+    }
+
+
+/**
+ * <A NAME="SD_WRITEBROADCAST"></A>
+ * <EM>writeBroadcast</EM> write a channel data message, that has already
+ * been encoded once for all its recipients, to this connection. The
+ * outbound queue calls <CODE>flushOutput</CODE> once it has written all the
+ * messages it is going to write together.
+ *
+ * @param frame the encoded channel data message.
+ * @param receiverName the name of the client receiving the data.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    void
+    writeBroadcast(BroadcastFrame frame, String receiverName)
+                throws IOException {
+        if (SocketThread_Debug) {
+            debug("SocketThread: writeBroadcast:" +
+                  " frame: "         + frame +
+                  " receiver name: " + receiverName);
+        }
+
+        synchronized (this) {
+            state = SENDING_MESSAGE;
+        }
+
+        try {
+            acquireWriter(frame.getPriority());
+            if (isFramed()) {
+                writeFramedHeaderFields(dataOut, frame.getSessionNo(), 0,
+                                        frame.getType(), T_DataReceived, 0);
+                frame.writeNamedTo(this, receiverName);
+            } else {
+                frame.writeTo(dataOut, receiverName, true);
+            }
+            endMessage();
+        } finally {
+            finishMessage();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_WAITFORREPLY"></A>
+ * <EM>waitForReply</EM> if the calling thread sent a multiplexed request,
+ * wait for the reply with its request id, otherwise wait in the usual way.
+ *
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ *
+ * @return the current message that was being waited for.
+ */
+
+    public Message
+    waitForReply() throws TimedOutException {
+        PendingRequest pending      = callers.get(Thread.currentThread());
+        long           startTime    = System.currentTimeMillis();
+        long           timeoutValue = Util.getLongProperty("timeoutPeriod",
+                                                            timeoutPeriod);
+        long           period;
+
+        if (SocketThread_Debug) {
+            debug("SocketThread: waitForReply:" +
+                  " pending: " + pending);
+        }
+
+        if (pending == null) {
+            return(super.waitForReply());
+        }
+
+        pending.monitor.enter();
+        try {
+            while (pending.state == PendingRequest.WAITING) {
+                period = timeoutValue -
+                         (System.currentTimeMillis() - startTime);
+                if (period <= 0) {
+                    break;
+                }
+                try {
+                    pending.monitor.await(period);
+                } catch (InterruptedException ie) {
+                }
+            }
+
+            if (pending.state == PendingRequest.FOUND) {
+                return(pending.reply);
+            }
+        } finally {
+            pending.monitor.exit();
+        }
+
+        finishReply();
+        throw new TimedOutException();
+    }
+
+
 /**
  * <A NAME="SD_HANDLEMESSAGE"></A>
  * <EM>handleMessage</EM>
@@ -254,10 +1143,12 @@ SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
             debug("SocketThread: run.");
         }
 
+        readerThread = Thread.currentThread();
         try {
             message = new Message();
             while (running) {
-                boolean found;
+                PendingRequest pending = null;
+                boolean        found;
 
                 synchronized (this) {
                     while (running &&
@@ -286,8 +1177,12 @@ SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
                 }
 
                 found = false;
+                if (pendingRequests.size() != 0) {
+                    pending = claimPendingRequest(message);
+                }
+
                 synchronized (waitValueLock) {
-                    if (waitValue != 0) {
+                    if (pending == null && waitValue != 0) {
                         long s = ((long) message.id << 32) +
                                  (message.sessionNo << 16) +
                                  (message.type      <<  8) + message.action;
@@ -313,7 +1208,11 @@ SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
                     continue;
                 }
 
-                if (found) {
+                if (pending != null) {
+                    if (!deliverReply(pending)) {
+                        handleMessage(message);
+                    }
+                } else if (found) {
                     synchronized (this) {
                         state = FOUND_REPLY;
                         notifyAll();
@@ -326,14 +1225,80 @@ SocketThread extends JSDTThread implements Runnable, socketDebugFlags {
                             notifyAll();
                         }
                     }
+                } else if (message.action == T_Acknowledge) {
+                    receiveAcknowledgement();
                 } else {
                     handleMessage(message);
                 }
+
+                acknowledgeIfIdle();
+                flushIfIdle();
             }
         } catch (IOException ioe) {
             cleanupConnection();
         } catch (Exception e) {
             error("SocketThread: run: ", e);
         }
+
+        finishConnection();
+    }
+
+
+/**
+ * <A NAME="SD_HANDLENEXTMESSAGE"></A>
+ * <EM>handleNextMessage</EM> read the next message off this connection and
+ * handle it. This is used instead of <CODE>run</CODE> for a server-side
+ * connection that is looked after by a selector thread. The messages on such
+ * a connection are all requests, so there are no replies to hand over.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    final void
+    handleNextMessage() throws IOException {
+        if (SocketThread_Debug) {
+            debug("SocketThread: handleNextMessage.");
+        }
+
+        readerThread = Thread.currentThread();
+        if (!getSocketMessage()) {
+            syncInput();
+            return;
+        }
+
+        if (SocketThread_Debug) {
+            debug("SocketThread: handleNextMessage:" +
+                  " got a message: " + message);
+        }
+
+        handleMessage(message);
+        acknowledgeIfIdle();
+        flushIfIdle();
+    }
+
+
+/**
+ * <A NAME="SD_FINISHCONNECTION"></A>
+ * <EM>finishConnection</EM> no more messages will be read off this
+ * connection. Wake up any threads still waiting for replies, fail any
+ * asynchronous channel sends still waiting to be acknowledged, and stop
+ * writing channel data to it.
+ */
+
+    final void
+    finishConnection() {
+        if (SocketThread_Debug) {
+            debug("SocketThread: finishConnection.");
+        }
+
+        cancelPendingRequests();
+        synchronized (this) {
+            if (outboundQueue != null) {
+                outboundQueue.close();
+            }
+            if (sendWindow != null) {
+                sendWindow.close();
+            }
+        }
     }
 }
@@ -61,6 +61,10 @@ TCPSocketServer extends JSDTObject implements Runnable, socketDebugFlags {
     // A boolean to signal if we should shutdown the thread.
     private boolean shutdown = false;
 
+    // Indicates if this is a session node, which keeps running when it
+    // holds no sessions.
+    private boolean node = false;
+
 
 /**
  * <A NAME="SD_TCPSOCKETSERVER"></A>
@@ -200,29 +204,69 @@ TCPSocketServer extends JSDTObject implements Runnable, socketDebugFlags {
 
         sessions.remove(sessionNo);
 
-        if (sessions.size() == 0) {
-            Enumeration e, k;
+        if (sessions.size() == 0 && !node) {
+            removeServer();
+        }
+    }
 
-            for (e = serverThreads.elements(), k = serverThreads.keys();
-                                               e.hasMoreElements();) {
-                SocketThread socketThread = (SocketThread) k.nextElement();
-                Thread       nextThread   = (Thread) e.nextElement();
 
-                if (nextThread != null) {
-                    socketThread.terminate();
-                    nextThread.interrupt();
-                    ((TCPSocketThread) socketThread).closeSocket();
-                }
-            }
+/**
+ * <A NAME="SD_REMOVESERVER"></A>
+ * <EM>removeServer</EM> terminate all the server threads for this port and
+ * close the server socket.
+ */
+
+    private void
+    removeServer() {
+        Enumeration e, k;
+
+        if (TCPSocketServer_Debug) {
+            debug("TCPSocketServer: removeServer.");
+        }
 
-            serverThreads.clear();
-            socketServers.remove(port);
 
-            if (thread != null) {
-                setShutdown(true);
+        for (e = serverThreads.elements(), k = serverThreads.keys();
+                                           e.hasMoreElements();) {
+            SocketThread socketThread = (SocketThread) k.nextElement();
+            Thread       nextThread   = (Thread) e.nextElement();
+
+            if (nextThread != null) {
+                socketThread.terminate();
+                nextThread.interrupt();
+                ((TCPSocketThread) socketThread).closeSocket();
             }
+        }
+
+        serverThreads.clear();
+        socketServers.remove(port);
+
+        if (thread != null) {
+            setShutdown(true);
+        }
+
+        close();
+    }
+
+
+/**
+ * <A NAME="SD_SETNODE"></A>
+ * <EM>setNode</EM> set whether this is a session node. A node keeps
+ * running when it holds no sessions. When it stops being one, it is closed
+ * if it holds no sessions.
+ *
+ * @param node true if this is a session node.
+ */
+
+    void
+    setNode(boolean node) {
+        if (TCPSocketServer_Debug) {
+            debug("TCPSocketServer: setNode:" +
+                  " node: " + node);
+        }
 
-            close();
+        this.node = node;
+        if (!node && sessions.size() == 0) {
+            removeServer();
         }
     }
 
@@ -269,7 +313,13 @@ TCPSocketServer extends JSDTObject implements Runnable, socketDebugFlags {
                     threadName = "ClientServerThread:" + client.getName();
                 }
 
-                thread = Util.startThread(socketThread, threadName, false);
+                if (sock.getChannel() != null) {
+                    thread = startConnection(sock,
+                                             (TCPSocketThread) socketThread);
+                } else {
+                    thread = Util.startThread(socketThread, threadName, false);
+                }
+
                 if (client == null) {
                     serverThreads.put(socketThread, thread);
                 }
@@ -285,6 +335,39 @@ TCPSocketServer extends JSDTObject implements Runnable, socketDebugFlags {
         }
     }
 
+/**
+ * <A NAME="SD_STARTCONNECTION"></A>
+ * <EM>startConnection</EM> hand a newly accepted connection over to a
+ * selector thread, rather than starting a new thread to read from it. This
+ * is done for server sockets created by the SelectorSocketFactory.
+ *
+ * @param sock the newly accepted socket.
+ * @param socketThread the socket thread that will handle its messages.
+ *
+ * @exception IOException if the socket couldn't be made non-blocking.
+ *
+ * @return the selector thread looking after this connection.
+ */
+
+    private Thread
+    startConnection(Socket sock, TCPSocketThread socketThread)
+                throws IOException {
+        SelectorThread     selectorThread = SelectorThread.getSelectorThread();
+        SelectorConnection connection;
+
+        if (TCPSocketServer_Debug) {
+            debug("TCPSocketServer: startConnection:" +
+                  " socket: " + sock);
+        }
+
+        connection = new SelectorConnection(sock.getChannel(), selectorThread);
+        socketThread.attachConnection(connection);
+        connection.start(socketThread);
+
+        return(connection.getThread());
+    }
+
+
     /**
      * Sets if we should shutdown the thread. <p>
      */
@@ -24,11 +24,13 @@ package com.sun.media.jsdt.socket;
 import com.sun.media.jsdt.impl.*;
 import java.net.*;
 import java.io.*;
+import java.util.Hashtable;
+import java.util.Vector;
 
 /**
  * JSDT TCP socket thread class.
  *
- * @version     2.3 - 6th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -44,6 +46,56 @@ TCPSocketThread extends SocketThread {
     // The output stream associated with this socket.
     protected OutputStream out;
 
+    // The selector connection for this socket (if it has one).
+    private SelectorConnection connection = null;
+
+    // The byte that starts every message frame.
+    private static final int FRAME_MARKER = T_Version & 0xFF;
+
+    // Set true once messages on this socket are sent in length-prefixed
+    // frames. Both ends switch after the framing handshake.
+    private boolean framed = false;
+
+    // The streams that read and write the socket itself. Once messages are
+    // framed, dataIn and dataOut read and write the current frame instead.
+    private DataInputStream  socketIn  = null;
+    private DataOutputStream socketOut = null;
+
+    // The buffer holding the message frame currently being read.
+    private byte[] frameBuffer = null;
+
+    // The streams used to read and write the current message frame.
+    private JSDTByteArrayInputStream  frameIn  = null;
+    private JSDTByteArrayOutputStream frameOut = null;
+
+    // The largest name handle that will be accepted from the other end.
+    private static final int MAX_HANDLE = 65535;
+
+    // The names sent on this socket, and the handles they were given.
+    private Hashtable<String, Integer> sentNames = null;
+
+    // The names given handles in the frame currently being written. They
+    // are defined at the front of that frame.
+    private Vector<String> newNames = null;
+
+    // The streams used to write the name definitions of the current frame.
+    private JSDTByteArrayOutputStream namesOut  = null;
+    private DataOutputStream          namesData = null;
+
+    // The names received on this socket, indexed by handle.
+    private String[] receivedNames = null;
+
+    // The number of replies written by the reader thread that haven't been
+    // sent yet, because more requests were waiting to be read.
+    private int heldReplies = 0;
+
+    // The number of bytes that had been written to the socket when it was
+    // last flushed.
+    private int flushedBytes = 0;
+
+    // The number of replies sent with each flush by the reader thread.
+    private final BatchHistogram replyBatches = new BatchHistogram();
+
 
 /**
  * <A NAME="SD_TCPSOCKETTHREAD"></A>
@@ -107,6 +159,10 @@ TCPSocketThread extends SocketThread {
             out     = socket.getOutputStream();
             dataIn  = new DataInputStream(new BufferedInputStream(in));
             dataOut = new DataOutputStream(new BufferedOutputStream(out));
+
+            if (Util.getBooleanProperty("framedMessages", framedMessages)) {
+                negotiateFraming();
+            }
         } catch (SocketException | UnknownHostException se) {
             throw se;
         } catch (Exception e) {
@@ -115,6 +171,658 @@ TCPSocketThread extends SocketThread {
     }
 
 
+/**
+ * <A NAME="SD_ATTACHCONNECTION"></A>
+ * <EM>attachConnection</EM> read and write this socket through the given
+ * selector connection, rather than through its own blocking streams. The
+ * selector input stream already buffers the data read off the socket, and
+ * isn't wrapped in another buffer, so that it holds everything still to be
+ * read, and can tell when a whole frame has arrived.
+ *
+ * @param connection the selector connection for this socket.
+ */
+
+    void
+    attachConnection(SelectorConnection connection) {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: attachConnection:" +
+                  " connection: " + connection);
+        }
+
+        this.connection = connection;
+        in      = connection.in;
+        out     = connection.out;
+        dataIn  = new DataInputStream(in);
+        dataOut = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+
+/**
+ * <A NAME="SD_NEGOTIATEFRAMING"></A>
+ * <EM>negotiateFraming</EM> ask the other end of this newly connected
+ * socket to switch to length-prefixed message frames. This is done before
+ * any other message is sent, so both ends switch at a known point in the
+ * byte stream, and anything in between (such as a TCP load balancer) just
+ * sees the bytes go by. If there is no agreement within the negotiation
+ * timeout, the connection carries on unframed.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    private void
+    negotiateFraming() throws IOException {
+        Message reply   = new Message();
+        int     timeout = socket.getSoTimeout();
+
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: negotiateFraming.");
+        }
+
+        writeFramingHeader();
+        dataOut.flush();
+
+        socket.setSoTimeout((int) Util.getLongProperty("negotiationTimeout",
+                                                       negotiationTimeout));
+        try {
+            reply.getMessageHeader(this);
+            if (reply.isFramingRequest()) {
+                startFraming();
+            }
+        } catch (SocketTimeoutException ste) {
+            if (TCPSocketThread_Debug) {
+                debug("TCPSocketThread: negotiateFraming:" +
+                      " no reply from: " + address + ":" + port);
+            }
+        } finally {
+            socket.setSoTimeout(timeout);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ACCEPTFRAMING"></A>
+ * <EM>acceptFraming</EM> the other end of this socket has asked to switch
+ * to length-prefixed message frames. Agree, and switch.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    private void
+    acceptFraming() throws IOException {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: acceptFraming.");
+        }
+
+        acquireWriter(CONTROL_PRIORITY);
+        try {
+            writeFramingHeader();
+            dataOut.flush();
+            startFraming();
+        } finally {
+            releaseWriter();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_WRITEFRAMINGHEADER"></A>
+ * <EM>writeFramingHeader</EM> write the (unframed) message header used to
+ * ask for, and agree to, length-prefixed message frames.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    private void
+    writeFramingHeader() throws IOException {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: writeFramingHeader.");
+        }
+
+        dataOut.writeChar(T_Version);
+        dataOut.writeChar(framedVersion);
+        dataOut.writeChar(T_Session_No);
+        dataOut.writeShort(0);
+        dataOut.writeInt(0);
+        dataOut.writeChar(T_Framed);
+        dataOut.writeChar(T_Framed);
+    }
+
+
+/**
+ * <A NAME="SD_STARTFRAMING"></A>
+ * <EM>startFraming</EM> switch this socket over to length-prefixed message
+ * frames. From now on, dataIn reads the current frame and dataOut writes
+ * the next one.
+ */
+
+    private void
+    startFraming() {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: startFraming.");
+        }
+
+        socketIn    = dataIn;
+        socketOut   = dataOut;
+        frameBuffer = new byte[UDP_BUF_SIZE];
+        frameIn     = new JSDTByteArrayInputStream();
+        frameOut    = new JSDTByteArrayOutputStream(UDP_BUF_SIZE);
+        dataIn      = new DataInputStream(frameIn);
+        dataOut     = new DataOutputStream(frameOut);
+
+        sentNames     = new Hashtable<>();
+        newNames      = new Vector<>();
+        namesOut      = new JSDTByteArrayOutputStream(256);
+        namesData     = new DataOutputStream(namesOut);
+        receivedNames = new String[64];
+        framed        = true;
+    }
+
+
+/**
+ * <A NAME="SD_READNAME"></A>
+ * <EM>readName</EM> reads the name of a client or shared object. If
+ * messages are framed, the name is read as a variable length integer
+ * code, which is either 0, and the name follows in full, or the handle the
+ * name was given by the definitions at the front of this frame or an
+ * earlier one.
+ *
+ * @return the name.
+ *
+ * @exception IOException if an IO exception has occured, or the handle
+ * is unknown.
+ */
+
+    public String
+    readName() throws IOException {
+        int    code, handle;
+        String name;
+
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: readName.");
+        }
+
+        if (!framed) {
+            return(super.readName());
+        }
+
+        handle = Util.readVarInt(dataIn);
+        if (handle == 0) {
+            return(dataIn.readUTF());
+        } else if (handle < 0 || handle >= receivedNames.length ||
+                   (name = receivedNames[handle]) == null) {
+            throw new IOException("unknown name handle: " + handle);
+        }
+
+        return(name);
+    }
+
+
+/**
+ * <A NAME="SD_READNAMEDEFINITIONS"></A>
+ * <EM>readNameDefinitions</EM> reads the name handles defined at the front
+ * of the frame just read. This is done before the message in the frame is
+ * looked at, so every handle is known, even if the rest of the frame is
+ * never read. The definitions are the number of them as a variable length
+ * integer, then each handle as a variable length integer, followed by its
+ * name in full.
+ *
+ * @exception IOException if an IO exception has occured, or a handle is
+ * invalid.
+ */
+
+    private void
+    readNameDefinitions() throws IOException {
+        int    count, handle;
+        String name;
+
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: readNameDefinitions.");
+        }
+
+        count = Util.readVarInt(dataIn);
+        for (int i = 0; i < count; i++) {
+            handle = Util.readVarInt(dataIn);
+            if (handle <= 0 || handle > MAX_HANDLE) {
+                throw new IOException("invalid name handle: " + handle);
+            }
+
+            name = dataIn.readUTF();
+            if (handle >= receivedNames.length) {
+                String[] names = new String[Math.max(handle + 1,
+                                                receivedNames.length * 2)];
+
+                System.arraycopy(receivedNames, 0, names, 0,
+                                 receivedNames.length);
+                receivedNames = names;
+            }
+            receivedNames[handle] = name;
+        }
+    }
+
+
+/**
+ * <A NAME="SD_WRITENAME"></A>
+ * <EM>writeName</EM> writes the name of a client or shared object. If
+ * messages are framed, only the name's handle is written. The first time
+ * a name is used, it's given a new handle, which is defined at the front
+ * of the frame when it's written. Once there are maxNameHandles handles,
+ * new names are always sent in full.
+ *
+ * @param name the name to write.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    public void
+    writeName(String name) throws IOException {
+        Integer handle;
+
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: writeName:" +
+                  " name: " + name);
+        }
+
+        if (!framed) {
+            super.writeName(name);
+            return;
+        }
+
+        if ((handle = sentNames.get(name)) == null &&
+            sentNames.size() < Math.min(MAX_HANDLE,
+                   Util.getIntProperty("maxNameHandles", maxNameHandles))) {
+            handle = sentNames.size() + 1;
+            sentNames.put(name, handle);
+            newNames.addElement(name);
+        }
+
+        if (handle != null) {
+            Util.writeVarInt(dataOut, handle);
+        } else {
+            Util.writeVarInt(dataOut, 0);
+            dataOut.writeUTF(name);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_READFRAME"></A>
+ * <EM>readFrame</EM> read the next whole message frame off the socket.
+ * Each frame is a FRAME_MARKER byte, the length of the frame as a variable
+ * length integer, the name handles it defines, then the message itself.
+ * Any bytes before the next marker (left by a frame that was corrupted) are
+ * skipped.
+ *
+ * @exception IOException if an IO exception has occured, or the frame is
+ * larger than maxFrameSize.
+ */
+
+    private void
+    readFrame() throws IOException {
+        int skipped = 0;
+        int length;
+
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: readFrame.");
+        }
+
+        while (socketIn.readUnsignedByte() != FRAME_MARKER) {
+            skipped++;
+        }
+
+        if (skipped != 0 && TCPSocketThread_Debug) {
+            debug("TCPSocketThread: readFrame:" +
+                  " skipped: " + skipped);
+        }
+
+        length = Util.readVarInt(socketIn);
+        if (length < 0 ||
+            length > Util.getIntProperty("maxFrameSize", maxFrameSize)) {
+            throw new IOException("frame too large: " + length);
+        }
+
+        if (length > frameBuffer.length) {
+            frameBuffer = new byte[Math.max(length, frameBuffer.length * 2)];
+        }
+        socketIn.readFully(frameBuffer, 0, length);
+        frameIn.setByteArray(frameBuffer, 0, length);
+        readNameDefinitions();
+    }
+
+
+/**
+ * <A NAME="SD_ISFRAMED"></A>
+ * <EM>isFramed</EM> checks whether messages on this connection are sent in
+ * length-prefixed frames.
+ *
+ * @return true if this connection uses message frames.
+ */
+
+    boolean
+    isFramed() {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: isFramed.");
+        }
+
+        return(framed);
+    }
+
+
+/**
+ * <A NAME="SD_AVAILABLE"></A>
+ * <EM>available</EM> gets the number of bytes that can be read off this
+ * socket without blocking.
+ *
+ * @return the number of bytes available.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    int
+    available() throws IOException {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: available.");
+        }
+
+        return((framed) ? socketIn.available() : dataIn.available());
+    }
+
+
+/**
+ * <A NAME="SD_MESSAGEREADY"></A>
+ * <EM>messageReady</EM> checks whether the next message can be read off
+ * this socket without waiting for more data to arrive. If messages are
+ * framed and read through a selector connection, that is once the whole of
+ * the next frame has been read off the socket.
+ *
+ * @return true if the next message can be read without blocking.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    boolean
+    messageReady() throws IOException {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: messageReady.");
+        }
+
+        if (framed && connection != null) {
+            return(connection.in.frameReady(FRAME_MARKER,
+                        Util.getIntProperty("maxFrameSize", maxFrameSize)));
+        }
+
+        return(super.messageReady());
+    }
+
+
+/**
+ * <A NAME="SD_SYNCINPUT"></A>
+ * <EM>syncInput</EM> the last message read couldn't be handled. If the
+ * messages are framed, there is nothing to do: whatever is left of its
+ * frame is dropped when the next frame is read.
+ */
+
+    void
+    syncInput() {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: syncInput.");
+        }
+
+        if (!framed) {
+            super.syncInput();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_FLUSH"></A>
+ * <EM>flush</EM> flush the message written to this socket. If messages are
+ * framed, the whole message is written out as one frame.
+ *
+ * If this is a reply written by the thread reading requests off this
+ * socket, and more requests are already waiting to be read, then the reply
+ * is held on to, so that it can be sent together with the replies to those
+ * requests. See <CODE>holdReply</CODE>.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    public void
+    flush() throws IOException {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: flush.");
+        }
+
+        if (isReaderThread()) {
+            if (holdReply()) {
+                return;
+            }
+            heldReplies++;
+        }
+
+        if (!framed) {
+            super.flush();
+        } else {
+            try {
+                writeFrame();
+                socketOut.flush();
+            } finally {
+                frameOut.reset();
+                releaseWriter();
+            }
+        }
+
+        sentOutput();
+    }
+
+
+/**
+ * <A NAME="SD_HOLDREPLY"></A>
+ * <EM>holdReply</EM> decide whether the reply just written by the thread
+ * reading requests off this socket can be held on to rather than flushed.
+ * It can if the "coalesceWrites" property is set, there is another request
+ * waiting to be read, and the replies already being held on to haven't
+ * reached the "coalesceBytes" limit. The held replies are sent by
+ * <CODE>flushIfIdle</CODE> once there are no more requests waiting.
+ *
+ * @return true if the reply is being held on to.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    private boolean
+    holdReply() throws IOException {
+        DataOutputStream stream = (framed) ? socketOut : dataOut;
+        int              limit  = Util.getIntProperty("coalesceBytes",
+                                                      coalesceBytes);
+
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: holdReply.");
+        }
+
+        try {
+            if (!Util.getBooleanProperty("coalesceWrites", coalesceWrites) ||
+                stream.size() - flushedBytes >= limit || available() == 0) {
+                return(false);
+            }
+        } catch (IOException ioe) {
+            releaseWriter();
+            throw ioe;
+        }
+
+        endMessage();
+        heldReplies++;
+        return(true);
+    }
+
+
+/**
+ * <A NAME="SD_ENDMESSAGE"></A>
+ * <EM>endMessage</EM> the message written to this socket is complete, but
+ * there are more to come straight after it. It is left in the socket's
+ * output buffer (as a frame, if messages are framed) until the next
+ * <CODE>flush</CODE> or <CODE>flushOutput</CODE>.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    void
+    endMessage() throws IOException {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: endMessage.");
+        }
+
+        if (!framed) {
+            releaseWriter();
+            return;
+        }
+
+        try {
+            writeFrame();
+        } finally {
+            frameOut.reset();
+            releaseWriter();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_FLUSHOUTPUT"></A>
+ * <EM>flushOutput</EM> send any finished messages that are still in the
+ * socket's output buffer.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    void
+    flushOutput() throws IOException {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: flushOutput.");
+        }
+
+        acquireWriter(CONTROL_PRIORITY);
+        try {
+            ((framed) ? socketOut : dataOut).flush();
+        } finally {
+            releaseWriter();
+        }
+
+        sentOutput();
+    }
+
+
+/**
+ * <A NAME="SD_FLUSHIFIDLE"></A>
+ * <EM>flushIfIdle</EM> if replies are being held on to, and there are no
+ * more requests waiting to be read, send them.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    void
+    flushIfIdle() throws IOException {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: flushIfIdle.");
+        }
+
+        if (heldReplies != 0 && available() == 0) {
+            flushOutput();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_SENTOUTPUT"></A>
+ * <EM>sentOutput</EM> the socket's output buffer has just been flushed. If
+ * this was done by the thread reading requests off this socket, then count
+ * the replies that were sent with it.
+ */
+
+    private void
+    sentOutput() {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: sentOutput.");
+        }
+
+        flushedBytes = ((framed) ? socketOut : dataOut).size();
+        if (isReaderThread() && heldReplies != 0) {
+            replyBatches.add(heldReplies);
+            heldReplies = 0;
+        }
+    }
+
+
+/**
+ * <A NAME="SD_WRITEFRAME"></A>
+ * <EM>writeFrame</EM> write the message in the frame buffer to the socket's
+ * output buffer, as one length-prefixed frame, with the name handles it
+ * gave out defined at the front.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    private void
+    writeFrame() throws IOException {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: writeFrame.");
+        }
+
+        namesOut.reset();
+        Util.writeVarInt(namesData, newNames.size());
+        for (int i = 0; i < newNames.size(); i++) {
+            String name = newNames.elementAt(i);
+
+            Util.writeVarInt(namesData, sentNames.get(name));
+            namesData.writeUTF(name);
+        }
+        newNames.removeAllElements();
+
+        socketOut.writeByte(FRAME_MARKER);
+        Util.writeVarInt(socketOut, namesOut.size() + frameOut.size());
+        socketOut.write(namesOut.getByteArray(), 0, namesOut.size());
+        socketOut.write(frameOut.getByteArray(), 0, frameOut.size());
+    }
+
+
+/**
+ * <A NAME="SD_DISCARDOUTPUT"></A>
+ * <EM>discardOutput</EM> the thread that owns this socket for writing is
+ * giving it up. If messages are framed, whatever is left in the frame
+ * buffer was abandoned before it was written out as a frame, so it's
+ * thrown away, along with the name handles it gave out.
+ */
+
+    void
+    discardOutput() {
+        if (TCPSocketThread_Debug) {
+            debug("TCPSocketThread: discardOutput.");
+        }
+
+        if (!framed) {
+            return;
+        }
+
+        for (int i = 0; i < newNames.size(); i++) {
+            sentNames.remove(newNames.elementAt(i));
+        }
+        newNames.removeAllElements();
+        frameOut.reset();
+    }
+
+
+/**
+ * <A NAME="SD_GETREPLYBATCHES"></A>
+ * <EM>getReplyBatches</EM>
+ *
+ * @return the histogram of the number of replies sent with each flush by
+ * the thread reading requests off this socket.
+ */
+
+    BatchHistogram
+    getReplyBatches() {
+        return(replyBatches);
+    }
+
+
 /**
  * <A NAME="SD_CLEANUPCONNECTION"></A>
  * <EM>cleanupConnection</EM>
@@ -141,6 +849,11 @@ TCPSocketThread extends SocketThread {
             debug("TCPSocketThread: closeSocket.");
         }
 
+        if (connection != null) {
+            connection.close();
+            return;
+        }
+
         try {
             socket.close();
         } catch (IOException e) {
@@ -162,7 +875,27 @@ TCPSocketThread extends SocketThread {
             debug("TCPSocketThread: getSocketMessage.");
         }
 
+        if (framed) {
+            readFrame();
+            message.getFramedMessageHeader(this);
+            return(message.validMessageHeader());
+        }
+
         message.getMessageHeader(this);
+        if (message.isFramingRequest()) {
+            acceptFraming();
+
+/* A selector worker mustn't block waiting for the first frame, so it goes
+ * back to the selector. A blocking reader just carries on reading.
+ */
+
+            if (connection != null) {
+                return(false);
+            }
+
+            return(getSocketMessage());
+        }
+
         return(message.validMessageHeader());
     }
 
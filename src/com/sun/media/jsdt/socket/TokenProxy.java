@@ -24,17 +24,23 @@ package com.sun.media.jsdt.socket;
 import com.sun.media.jsdt.*;
 import com.sun.media.jsdt.impl.*;
 import java.io.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JSDT Token client-side proxy class.
  *
- * @version     2.3 - 16th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
 public final class
 TokenProxy extends ManageableProxy implements AbstractTokenProxy {
 
+    // The clients of this proxy waiting in the token's grab queue.
+    private final ConcurrentHashMap<String, PendingGrab> pendingGrabs =
+                                                new ConcurrentHashMap<>();
+
+
 /**
  * <A NAME="SD_GETPROXY"></A>
  * <EM>getProxy</EM>
@@ -85,7 +91,7 @@ TokenProxy extends ManageableProxy implements AbstractTokenProxy {
         Message         message;
         int             retval;
         int             status;
-        SocketThread    thread    = sp.proxyThread;
+        SocketThread    thread    = proxyThread;
         int             id        = thread.getId();
         short           sessionNo = sp.getSessionNo();
         char            type      = TokenImpl.M_Token;
@@ -149,7 +155,7 @@ TokenProxy extends ManageableProxy implements AbstractTokenProxy {
         Message         message;
         int             retval;
         int             status;
-        SocketThread    thread    = sp.proxyThread;
+        SocketThread    thread    = proxyThread;
         int             id        = thread.getId();
         short           sessionNo = sp.getSessionNo();
         char            type      = TokenImpl.M_Token;
@@ -203,6 +209,232 @@ TokenProxy extends ManageableProxy implements AbstractTokenProxy {
     }
 
 
+/**
+ * <A NAME="SD_GRAB"></A>
+ * <EM>grab</EM> used by a Client to grab or inhibit this Token, waiting
+ * for it if it can't be had straight away. The server replies at once,
+ * saying whether the grab succeeded, failed or has been queued. If it was
+ * queued, the result of the grab arrives later in a T_TokenGranted
+ * message, which the socket reader thread hands over through a
+ * PendingGrab. The reply doesn't hold up other requests on this
+ * connection while the Client is waiting.
+ *
+ * @param client the Client grabbing/inhibiting this Token.
+ * @param exclusive indicates whether the grab should be exclusive.
+ * @param timeout the maximum time to wait for the Token, in milliseconds.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchTokenException if this Token doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have
+ * permission to perform this operation, or is already waiting for this
+ * Token.
+ * @exception TimedOutException if the grab didn't succeed in the given
+ * timeout period.
+ *
+ * @return the status of the token.
+ */
+
+    public int
+    grab(Client client, boolean exclusive, long timeout)
+        throws ConnectionException, InvalidClientException,
+               NoSuchTokenException, NoSuchClientException,
+               NoSuchSessionException, PermissionDeniedException,
+               TimedOutException {
+        DataInputStream in;
+        Message         message;
+        PendingGrab     grab;
+        String          clientName;
+        int             retval;
+        int             status;
+        boolean         queued;
+        SocketThread    thread    = proxyThread;
+        int             id        = thread.getId();
+        short           sessionNo = sp.getSessionNo();
+        char            type      = TokenImpl.M_Token;
+        long            slack     = Util.getLongProperty("timeoutPeriod",
+                                                         timeoutPeriod);
+
+        if (TokenProxy_Debug) {
+            debug("TokenProxy: grab:" +
+                  " client: "    + client  +
+                  " exclusive: " + exclusive +
+                  " timeout: "   + timeout);
+        }
+
+        if (timeout <= 0) {
+            return(grab(client, exclusive));
+        }
+
+        if (session == null) {
+            throw new NoSuchSessionException();
+        }
+
+        clientName = Util.getClientName(client);
+        grab       = new PendingGrab(clientName);
+        if (pendingGrabs.putIfAbsent(clientName, grab) != null) {
+            throw new PermissionDeniedException();
+        }
+
+        try {
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id,
+                                      type, T_GrabWait, true, true);
+            thread.dataOut.writeUTF(name);
+            thread.dataOut.writeUTF(clientName);
+            thread.dataOut.writeBoolean(exclusive);
+            thread.dataOut.writeLong(timeout);
+            thread.flush();
+            message = thread.waitForReply();
+
+            in     = message.thread.dataIn;
+            retval = in.readInt();
+            status = in.readInt();
+            queued = in.readBoolean();
+            message.thread.finishReply();
+
+/* The server times the grab out itself, so only give up here if its
+ * answer hasn't arrived well after that.
+ */
+
+            if (retval == 0 && queued) {
+                if (!grab.awaitResult(timeout + slack) && grab.abandon()) {
+                    throw new TimedOutException();
+                }
+                retval = grab.getRetval();
+                status = grab.getStatus();
+            }
+
+            if (retval != 0) {
+                switch (retval) {
+                    case JSDTException.NO_SUCH_TOKEN:
+                        throw new NoSuchTokenException();
+                    case JSDTException.NO_SUCH_CLIENT:
+                        throw new NoSuchClientException();
+                    case JSDTException.NO_SUCH_SESSION:
+                        session = null;
+                        throw new NoSuchSessionException();
+                    case JSDTException.PERMISSION_DENIED:
+                        throw new PermissionDeniedException();
+                    case JSDTException.TIMED_OUT:
+                        throw new TimedOutException();
+                    default:
+                        error("TokenProxy: grab: ",
+                              "impl.unknown.exception.type", retval);
+                }
+            }
+        } catch (IOException e) {
+            thread.finishReply();
+            throw new ConnectionException();
+        } finally {
+            pendingGrabs.remove(clientName, grab);
+        }
+
+        return(status);
+    }
+
+
+/**
+ * <A NAME="SD_GRANTED"></A>
+ * <EM>granted</EM> the server has finished a grab that was waiting in this
+ * token's grab queue. Hand the result over to the Client's thread waiting
+ * for it. If that thread has already given up, then a token that was
+ * granted is released again, otherwise the server would go on thinking the
+ * Client holds it.
+ *
+ * @param message the T_TokenGranted message from the server.
+ */
+
+    void
+    granted(Message message) {
+        DataInputStream in          = message.thread.dataIn;
+        String          clientName;
+        PendingGrab     grab;
+        int             retval;
+        int             status;
+
+        if (TokenProxy_Debug) {
+            debug("TokenProxy: granted:" +
+                  " message: " + message);
+        }
+
+        try {
+            clientName = message.thread.readName();
+            retval     = in.readInt();
+            status     = in.readInt();
+        } catch (IOException e) {
+            error("TokenProxy: granted: ", e);
+            return;
+        }
+
+        if ((grab = pendingGrabs.get(clientName)) != null &&
+            grab.finished(retval, status)) {
+            return;
+        }
+
+        if (TokenProxy_Debug) {
+            debug("TokenProxy: granted:" +
+                  " no grab waiting for: " + clientName);
+        }
+
+        if (retval == 0) {
+            Util.startThread(new ReleaseGrant(this, clientName),
+                             "ReleaseGrantThread:" + name, true);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_RELEASEGRANT"></A>
+ * <EM>releaseGrant</EM> release this token for a Client it was granted to
+ * after the Client's thread had given up waiting for it.
+ *
+ * @param clientName the name of the Client the token was granted to.
+ */
+
+    void
+    releaseGrant(String clientName) {
+        DataInputStream in;
+        Message         message;
+        int             retval;
+        SocketThread    thread    = proxyThread;
+        int             id        = thread.getId();
+        short           sessionNo = sp.getSessionNo();
+        char            type      = TokenImpl.M_Token;
+
+        if (TokenProxy_Debug) {
+            debug("TokenProxy: releaseGrant:" +
+                  " client name: " + clientName);
+        }
+
+        try {
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id,
+                                      type, T_Release, true, true);
+            thread.dataOut.writeUTF(name);
+            thread.dataOut.writeUTF(clientName);
+            thread.flush();
+            message = thread.waitForReply();
+
+            in     = message.thread.dataIn;
+            retval = in.readInt();
+            in.readInt();
+            message.thread.finishReply();
+
+            if (retval != 0 && TokenProxy_Debug) {
+                debug("TokenProxy: releaseGrant:" +
+                      " retval: " + retval);
+            }
+        } catch (IOException e) {
+            thread.finishReply();
+            error("TokenProxy: releaseGrant: ", e);
+        } catch (TimedOutException toe) {
+            error("TokenProxy: releaseGrant: ", toe);
+        }
+    }
+
+
 /**
  * <A NAME="SD_LISTHOLDERNAMES"></A>
  * list the names of the Clients who are currently holding (grabbing or
@@ -227,7 +459,7 @@ TokenProxy extends ManageableProxy implements AbstractTokenProxy {
         Message         message;
         int             retval;
         int             n;
-        SocketThread    thread      = sp.proxyThread;
+        SocketThread    thread      = proxyThread;
         int             id          = thread.getId();
         short           sessionNo   = sp.getSessionNo();
         char            type        = TokenImpl.M_Token;
@@ -291,7 +523,7 @@ TokenProxy extends ManageableProxy implements AbstractTokenProxy {
         Message         message;
         int             retval;
         int             status;
-        SocketThread    thread    = sp.proxyThread;
+        SocketThread    thread    = proxyThread;
         int             id        = thread.getId();
         short           sessionNo = sp.getSessionNo();
         char            type      = TokenImpl.M_Token;
@@ -353,7 +585,7 @@ TokenProxy extends ManageableProxy implements AbstractTokenProxy {
         Message         message;
         int             retval;
         int             status;
-        SocketThread    thread    = sp.proxyThread;
+        SocketThread    thread    = proxyThread;
         int             id        = thread.getId();
         short           sessionNo = sp.getSessionNo();
         char            type      = TokenImpl.M_Token;
@@ -416,7 +648,7 @@ TokenProxy extends ManageableProxy implements AbstractTokenProxy {
         Message         message;
         int             retval;
         int             status;
-        SocketThread    thread    = sp.proxyThread;
+        SocketThread    thread    = proxyThread;
         int             id        = thread.getId();
         short           sessionNo = sp.getSessionNo();
         char            type      = TokenImpl.M_Token;
@@ -26,11 +26,24 @@ import com.sun.media.jsdt.impl.*;
 import com.sun.media.jsdt.event.TokenEvent;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JSDT Token Server-side class.
  *
- * @version     2.3 - 16th November 2017
+ * The status of the token, and the clients grabbing or inhibiting it, are
+ * only changed while holding the lock on this token server, so that each
+ * grab, give and release sees (and leaves) the token in a consistent state.
+ * Tokens don't share a lock, so work on one never holds up another.
+ *
+ * Clients that are prepared to wait for the token are kept on a grab queue,
+ * in the order they asked. Whenever the token is released, given up or
+ * left, the queue is worked through (under the same lock) and each waiter
+ * that can now have the token is granted it. If tokens are grabbed fairly,
+ * a waiter that can't have the token holds up the ones behind it, and
+ * nobody else can grab the token ahead of the queue.
+ *
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -44,7 +57,7 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
     private TokenImpl token;
 
     // The clients who have currently grabbed/inhibited this token.
-    private Hashtable<String, Client> grabbedClients = null;
+    private ConcurrentHashMap<String, Client> grabbedClients = null;
 
     // The client potentially giving this token (if any).
     private Client givingClient = null;
@@ -52,6 +65,9 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
     // The client potentially being given this token (if any).
     private Client receivingClient = null;
 
+    // The clients waiting to grab this token, in the order they asked.
+    private final LinkedList<TokenWaiter> waiters = new LinkedList<>();
+
 
 /**
  * <A NAME="SD_INITSERVER"></A>
@@ -74,8 +90,8 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
         this.session   = session;
         this.token     = (TokenImpl) object;
 
-        clients        = new Hashtable<>();
-        grabbedClients = new Hashtable<>();
+        clients        = new ConcurrentHashMap<>();
+        grabbedClients = new ConcurrentHashMap<>();
         super.initServer(name, session, object);
     }
 
@@ -97,6 +113,77 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
     }
 
 
+/**
+ * <A NAME="SD_ACQUIRE"></A>
+ * <EM>acquire</EM> try to grab or inhibit this token for the client of the
+ * given waiter. If the grab succeeded, the waiter is updated with the type
+ * of token event to deliver, and the client the token was given up by (if
+ * any). The status of the token is always saved in the waiter. The caller
+ * must hold the lock on this token server.
+ *
+ * @param waiter the waiter for the client grabbing the token.
+ *
+ * @return 0 if the grab succeeded; PERMISSION_DENIED otherwise.
+ */
+
+    private int
+    acquire(TokenWaiter waiter) {
+        Client  client    = waiter.client;
+        boolean exclusive = waiter.exclusive;
+        int     retval    = 0;
+
+        if (TokenServer_Debug) {
+            debug("TokenServer: acquire:" +
+                  " waiter: " + waiter);
+        }
+
+        if (getTokenStatus() == Token.NOT_IN_USE) {
+            if (exclusive) {
+                setTokenExclusive(true);
+                setTokenStatus(Token.GRABBED);
+                waiter.eventType = TokenEvent.GRABBED;
+            } else {
+                setTokenStatus(Token.INHIBITED);
+                waiter.eventType = TokenEvent.INHIBITED;
+            }
+            addGrabbedClient(client);
+            waiter.status = getTokenStatus();
+        } else if (getTokenStatus() == Token.INHIBITED) {
+            if (!exclusive) {
+                if (!grabbedClientsContains(client)) {
+                    addGrabbedClient(client);
+                    waiter.eventType = TokenEvent.INHIBITED;
+                    waiter.status = Token.INHIBITED;
+                }
+            } else {
+                retval = JSDTException.PERMISSION_DENIED;
+                waiter.status = Token.ALREADY_INHIBITED;
+            }
+        } else if (getTokenStatus() == Token.GRABBED) {
+            retval = JSDTException.PERMISSION_DENIED;
+            waiter.status = Token.ALREADY_GRABBED;
+        } else if (getTokenStatus() == Token.GIVING) {
+            if (client.equals(getReceivingClient())) {
+                waiter.givingClient = getGivingClient();
+                removeGrabbedClient(waiter.givingClient);
+
+                if (exclusive) {
+                    setTokenExclusive(true);
+                    setTokenStatus(Token.GRABBED);
+                    waiter.eventType = TokenEvent.GRABBED;
+                } else {
+                    setTokenStatus(Token.INHIBITED);
+                    waiter.eventType = TokenEvent.INHIBITED;
+                }
+                addGrabbedClient(client);
+            }
+            waiter.status = getTokenStatus();
+        }
+
+        return(retval);
+    }
+
+
 /**
  * <A NAME="SD_ADDGRABBEDCLIENT"></A>
  * <EM>addGrabbedClient</EM> add this client to the hashtable of clients
@@ -112,18 +199,18 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
                   " client: " + client);
         }
 
-         grabbedClients.put(client.getName(), client);
+        grabbedClients.put(client.getName(), client);
     }
 
 
 /**
  * <A NAME="SD_ADDJOINEDCLIENT"></A>
- * <EM>addJoinedClient</EM> add this client to the hashtable of clients
- * currently joined to this token. This token is also added to the vector
+ * <EM>addJoinedClient</EM> this client has just been added to the hashtable
+ * of clients currently joined to this token. Add this token to the vector
  * of tokens that this client is joined to for this session, to make any
  * later cleanup easier.
  *
- * @param client the client to be added.
+ * @param client the client that was added.
  */
 
     private void
@@ -138,7 +225,6 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
                   " client: " + client);
         }
 
-        clients.put(client.getName(), client);
         clientTokens.addElement(token);
     }
 
@@ -180,6 +266,32 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
     }
 
 
+/**
+ * <A NAME="SD_GETHELDSTATUS"></A>
+ * <EM>getHeldStatus</EM> get the status to return to a client who can't
+ * grab this token because it's held by someone else.
+ *
+ * @return ALREADY_GRABBED or ALREADY_INHIBITED if the token is held;
+ * otherwise the current status of the token.
+ */
+
+    private int
+    getHeldStatus() {
+        if (TokenServer_Debug) {
+            debug("TokenServer: getHeldStatus.");
+        }
+
+        switch (getTokenStatus()) {
+            case Token.GRABBED:
+                return(Token.ALREADY_GRABBED);
+            case Token.INHIBITED:
+                return(Token.ALREADY_INHIBITED);
+            default:
+                return(getTokenStatus());
+        }
+    }
+
+
 /**
  * <A NAME="SD_GETRECEIVINGCLIENT"></A>
  * <EM>getReceivingClient</EM>
@@ -222,7 +334,7 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
  * @return
  */
 
-    int
+    synchronized int
     getTokenStatus() {
         if (TokenServer_Debug) {
             debug("TokenServer: getTokenStatus:" +
@@ -249,6 +361,8 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
         Client           receivingClient     = null;
         Client           givingClient        = null;
         int              retval              = 0;
+        int              previousStatus      = 0;
+        int              status;
 
         if (TokenServer_Debug) {
             debug("TokenServer: give:" +
@@ -269,17 +383,29 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
             retval = JSDTException.NO_SUCH_CLIENT;
         } else if (((ClientImpl) givingClient).getCheck() != message.thread) {
             retval = JSDTException.PERMISSION_DENIED;
-        } else if (grabbedClients.size() != 1 ||
-                   getGrabbedClientByName(givingClientName) == null) {
-            retval = JSDTException.PERMISSION_DENIED;
+        }
+
+        synchronized (this) {
+            if (retval == 0) {
+                if (grabbedClients.size() != 1 ||
+                    getGrabbedClientByName(givingClientName) == null) {
+                    retval = JSDTException.PERMISSION_DENIED;
+                } else {
+                    previousStatus = getTokenStatus();
+                    setTokenStatus(Token.GIVING);
+                    setGivingClient(givingClient);
+                    setReceivingClient(receivingClient);
+                }
+            }
+            status = getTokenStatus();
         }
 
         try {
             if (retval == 0) {
-                CheckToken ct = new CheckToken(token, getTokenStatus());
+                CheckToken ct = new CheckToken(token, previousStatus);
 
-                Util.startThread(ct,
-                                 "CheckTokenThread:" + token.getName(), false);
+                Util.getTimer().schedule(ct,
+                            Util.getLongProperty("giveTime", giveTime));
 
                 thread.writeMessageHeader(thread.dataOut,
                               message.sessionNo, message.id,
@@ -288,17 +414,13 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
                 thread.dataOut.writeUTF(receivingClientName);
                 thread.flush();
                 thread.finishMessage();
-
-                setTokenStatus(Token.GIVING);
-                setGivingClient(givingClient);
-                setReceivingClient(receivingClient);
             }
 
             message.thread.writeMessageHeader(message.thread.dataOut,
                                 message.sessionNo, message.id,
                                 message.type, message.action, false, true);
             message.thread.dataOut.writeInt(retval);
-            message.thread.dataOut.writeInt(getTokenStatus());
+            message.thread.dataOut.writeInt(status);
             message.thread.flush();
             message.thread.finishMessage();
         } catch (IOException e) {
@@ -312,16 +434,48 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
     }
 
 
+/**
+ * <A NAME="SD_GIVETIMEDOUT"></A>
+ * <EM>giveTimedOut</EM> the give period for this token has passed. If it's
+ * still being given, the receiving client didn't accept it, so set its
+ * status back to what it was before the give. Waiters that couldn't be
+ * granted the token while it was being given may be granted it now.
+ *
+ * @param previousStatus the status of this token before it was given.
+ */
+
+    void
+    giveTimedOut(int previousStatus) {
+        Vector<TokenWaiter> granted;
+
+        if (TokenServer_Debug) {
+            debug("TokenServer: giveTimedOut:" +
+                  " previous status: " + previousStatus);
+        }
+
+        synchronized (this) {
+            if (getTokenStatus() != Token.GIVING) {
+                return;
+            }
+            setTokenStatus(previousStatus);
+            setGivingClient(null);
+            setReceivingClient(null);
+            granted = grantWaiters();
+        }
+
+        finishGrants(granted);
+    }
+
+
     void
     grab(Message message) {
-        DataInputStream  in               = message.thread.dataIn;
-        Client           client           = null;
-        Client           givingClient     = null;
-        boolean          sendReleaseEvent = false;
-        boolean          exclusive        = false;
-        int              eventType        = 0;
-        int              retval           = 0;
-        int              status           = 0;
+        DataInputStream     in        = message.thread.dataIn;
+        Client              client    = null;
+        TokenWaiter         waiter    = null;
+        Vector<TokenWaiter> granted   = null;
+        boolean             exclusive = false;
+        int                 retval    = 0;
+        int                 status    = 0;
 
         if (TokenServer_Debug) {
             debug("TokenServer: grab:" +
@@ -344,49 +498,19 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
             retval = JSDTException.PERMISSION_DENIED;
         }
 
-        if (retval == 0) {
-            if (getTokenStatus() == Token.NOT_IN_USE) {
-                if (exclusive) {
-                    setTokenExclusive(true);
-                    setTokenStatus(Token.GRABBED);
-                    eventType = TokenEvent.GRABBED;
-                } else {
-                    setTokenStatus(Token.INHIBITED);
-                    eventType = TokenEvent.INHIBITED;
-                }
-                addGrabbedClient(client);
-                status = getTokenStatus();
-            } else if (getTokenStatus() == Token.INHIBITED) {
-                if (!exclusive) {
-                    if (!grabbedClientsContains(client)) {
-                        addGrabbedClient(client);
-                        eventType = TokenEvent.INHIBITED;
-                        status = Token.INHIBITED;
-                    }
-                } else {
+        synchronized (this) {
+            if (retval == 0) {
+                waiter = new TokenWaiter(this, client, exclusive, message, 0);
+                if (overtakes(waiter)) {
                     retval = JSDTException.PERMISSION_DENIED;
-                    status = Token.ALREADY_INHIBITED;
-                }
-            } else if (getTokenStatus() == Token.GRABBED) {
-                retval = JSDTException.PERMISSION_DENIED;
-                status = Token.ALREADY_GRABBED;
-            } else if (getTokenStatus() == Token.GIVING) {
-                if (client.equals(getReceivingClient())) {
-                    givingClient = getGivingClient();
-                    removeGrabbedClient(givingClient);
-                    sendReleaseEvent = true;
-
-                    if (exclusive) {
-                        setTokenExclusive(true);
-                        setTokenStatus(Token.GRABBED);
-                        eventType = TokenEvent.GRABBED;
-                    } else {
-                        setTokenStatus(Token.INHIBITED);
-                        eventType = TokenEvent.INHIBITED;
+                    status = getHeldStatus();
+                } else {
+                    retval = acquire(waiter);
+                    status = waiter.status;
+                    if (retval == 0 && waiter.givingClient != null) {
+                        granted = grantWaiters();
                     }
-                    addGrabbedClient(client);
                 }
-                status = getTokenStatus();
             }
         }
 
@@ -403,13 +527,173 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
         }
 
         if (retval == 0) {
-            if (sendReleaseEvent) {
-                informListeners(session.getName(), givingClient.getName(),
+            if (waiter.givingClient != null) {
+                informListeners(session.getName(),
+                                waiter.givingClient.getName(),
                                 name, TokenEvent.RELEASED, message.type);
             }
             informListeners(session.getName(), client.getName(),
-                            name, eventType, message.type);
+                            name, waiter.eventType, message.type);
+            if (granted != null) {
+                finishGrants(granted);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GRABWAIT"></A>
+ * <EM>grabWait</EM> a client wants to grab or inhibit this token, and is
+ * prepared to wait for it. If the grab can't succeed straight away, the
+ * client is put on the end of the grab queue. The reply says whether the
+ * grab succeeded, failed or was queued. A queued client is sent the result
+ * of its grab later on, when it's granted the token or its timeout period
+ * passes.
+ *
+ * @param message the current message being processed.
+ */
+
+    void
+    grabWait(Message message) {
+        DataInputStream     in        = message.thread.dataIn;
+        Client              client    = null;
+        TokenWaiter         waiter    = null;
+        Vector<TokenWaiter> granted   = null;
+        boolean             exclusive = false;
+        boolean             queued    = false;
+        long                timeout   = 0;
+        int                 retval    = 0;
+        int                 status    = 0;
+
+        if (TokenServer_Debug) {
+            debug("TokenServer: grabWait:" +
+                  " message: " + message);
+        }
+
+        try {
+            client    = getClientByName(in.readUTF());
+            exclusive = in.readBoolean();
+            timeout   = in.readLong();
+        } catch (IOException e) {
+            error("TokenServer: grabWait: ", e);
+        }
+
+        if (client == null ||
+            !((SessionServer) session.so).validClient(client)) {
+            retval = JSDTException.NO_SUCH_CLIENT;
+        } else if (((ClientImpl) client).getCheck() != message.thread) {
+            retval = JSDTException.PERMISSION_DENIED;
+        }
+
+        synchronized (this) {
+            if (retval == 0) {
+                waiter = new TokenWaiter(this, client, exclusive,
+                                         message, timeout);
+                if (isWaiting(client.getName())) {
+                    retval = JSDTException.PERMISSION_DENIED;
+                } else if (!overtakes(waiter) && grantable(waiter) &&
+                           acquire(waiter) == 0) {
+                    if (waiter.givingClient != null) {
+                        granted = grantWaiters();
+                    }
+                } else if (timeout > 0) {
+                    waiters.addLast(waiter);
+                    waiter.start();
+                    queued = true;
+                } else {
+                    retval = JSDTException.PERMISSION_DENIED;
+                }
+            }
+            status = getTokenStatus();
+        }
+
+        try {
+            message.thread.writeMessageHeader(message.thread.dataOut,
+                                message.sessionNo, message.id,
+                                message.type, message.action, false, true);
+            message.thread.dataOut.writeInt(retval);
+            message.thread.dataOut.writeInt(status);
+            message.thread.dataOut.writeBoolean(queued);
+            message.thread.flush();
+            message.thread.finishMessage();
+        } catch (IOException e) {
+            error("TokenServer: grabWait: ", e);
+        }
+
+        if (retval == 0 && !queued) {
+            if (waiter.givingClient != null) {
+                informListeners(session.getName(),
+                                waiter.givingClient.getName(),
+                                name, TokenEvent.RELEASED, message.type);
+            }
+            if (waiter.eventType != 0) {
+                informListeners(session.getName(), client.getName(),
+                                name, waiter.eventType, message.type);
+            }
+            if (granted != null) {
+                finishGrants(granted);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GRANTABLE"></A>
+ * <EM>grantable</EM> checks to see if the token could be granted to the
+ * given waiter. While the token is being given, only the client it's being
+ * given to can have it. The caller must hold the lock on this token server.
+ *
+ * @param waiter the waiter for the client grabbing the token.
+ *
+ * @return true if the token could be granted to this waiter.
+ */
+
+    private boolean
+    grantable(TokenWaiter waiter) {
+        if (TokenServer_Debug) {
+            debug("TokenServer: grantable:" +
+                  " waiter: " + waiter);
         }
+
+        return(getTokenStatus() != Token.GIVING ||
+               waiter.client.equals(getReceivingClient()));
+    }
+
+
+/**
+ * <A NAME="SD_GRANTWAITERS"></A>
+ * <EM>grantWaiters</EM> work through the grab queue, granting the token to
+ * each waiter that can now have it. If tokens are grabbed fairly, stop at
+ * the first waiter that can't. The caller must hold the lock on this token
+ * server, and should call <CODE>finishGrants</CODE> with the result once
+ * it has released it.
+ *
+ * @return the waiters that have been granted the token.
+ */
+
+    private Vector<TokenWaiter>
+    grantWaiters() {
+        Vector<TokenWaiter> granted = new Vector<>();
+        boolean             fair    = Util.getBooleanProperty(
+                                            "fairTokenGrabs", fairTokenGrabs);
+
+        if (TokenServer_Debug) {
+            debug("TokenServer: grantWaiters.");
+        }
+
+        for (Iterator<TokenWaiter> i = waiters.iterator(); i.hasNext();) {
+            TokenWaiter waiter = i.next();
+
+            if (grantable(waiter) && acquire(waiter) == 0) {
+                i.remove();
+                waiter.cancel();
+                granted.addElement(waiter);
+            } else if (fair) {
+                break;
+            }
+        }
+
+        return(granted);
     }
 
 
@@ -450,6 +734,33 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
     }
 
 
+/**
+ * <A NAME="SD_ISWAITING"></A>
+ * <EM>isWaiting</EM> checks to see if the given client is on the grab
+ * queue. The caller must hold the lock on this token server.
+ *
+ * @param clientName the name of the client.
+ *
+ * @return true if the client is waiting to grab this token.
+ */
+
+    private boolean
+    isWaiting(String clientName) {
+        if (TokenServer_Debug) {
+            debug("TokenServer: isWaiting:" +
+                  " client name: " + clientName);
+        }
+
+        for (int i = 0; i < waiters.size(); i++) {
+            if (waiters.get(i).isFor(clientName)) {
+                return(true);
+            }
+        }
+
+        return(false);
+    }
+
+
 /**
  * <A NAME="SD_JOIN"></A>
  * <EM>join</EM>
@@ -479,7 +790,7 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
         if (!((SessionServer) session.so).validClient(client)) {
             retval = JSDTException.NO_SUCH_CLIENT;
         } else {
-            if (clients.containsKey(clientName)) {
+            if (clients.putIfAbsent(clientName, client) != null) {
                 retval = JSDTException.NAME_IN_USE;
             } else {
                 addJoinedClient(client);
@@ -525,10 +836,76 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
     }
 
 
+/**
+ * <A NAME="SD_EXPIRE"></A>
+ * <EM>expire</EM> the timeout period for the given waiter has passed. If
+ * it's still on the grab queue, take it off and tell its client that the
+ * grab timed out. This may let the waiters behind it have the token.
+ *
+ * @param waiter the waiter whose timeout period has passed.
+ */
+
+    void
+    expire(TokenWaiter waiter) {
+        Vector<TokenWaiter> granted;
+        int                 status;
+
+        if (TokenServer_Debug) {
+            debug("TokenServer: expire:" +
+                  " waiter: " + waiter);
+        }
+
+        synchronized (this) {
+            if (!waiters.remove(waiter)) {
+                return;
+            }
+            status  = getTokenStatus();
+            granted = grantWaiters();
+        }
+
+        waiter.finished(name, JSDTException.TIMED_OUT, status);
+        finishGrants(granted);
+    }
+
+
+/**
+ * <A NAME="SD_FINISHGRANTS"></A>
+ * <EM>finishGrants</EM> tell each of the given waiters that it has been
+ * granted the token, and inform the token listeners.
+ *
+ * @param granted the waiters that have been granted the token.
+ */
+
+    private void
+    finishGrants(Vector<TokenWaiter> granted) {
+        if (TokenServer_Debug) {
+            debug("TokenServer: finishGrants:" +
+                  " granted: " + granted);
+        }
+
+        for (int i = 0; i < granted.size(); i++) {
+            TokenWaiter waiter     = granted.elementAt(i);
+            String      clientName = waiter.client.getName();
+
+            waiter.finished(name, 0, waiter.status);
+            if (waiter.givingClient != null) {
+                informListeners(session.getName(),
+                                waiter.givingClient.getName(),
+                                name, TokenEvent.RELEASED, TokenImpl.M_Token);
+            }
+            if (waiter.eventType != 0) {
+                informListeners(session.getName(), clientName,
+                                name, waiter.eventType, TokenImpl.M_Token);
+            }
+        }
+    }
+
+
 /**
  * <A NAME="SD_LEAVE"></A>
  * <EM>leave</EM> the given client is leaving this token. If the token had
- * been previous grabbed or inhibited, make sure it is released.
+ * been previous grabbed or inhibited, make sure it is released. If the
+ * client was waiting to grab it, take it off the grab queue.
  *
  * @param message the current message being processed.
  * @param clientName the name of the client leaving this token.
@@ -536,7 +913,10 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
 
     protected void
     leave(Message message, String clientName) {
-        ClientImpl client;
+        ClientImpl          client;
+        Vector<TokenWaiter> removed;
+        Vector<TokenWaiter> granted;
+        int                 status;
 
         if (TokenServer_Debug) {
             debug("TokenServer: leave:" +
@@ -544,11 +924,25 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
                   " client name: " + clientName);
         }
 
-        if ((client = getClientByName(clientName)) != null) {
-            removeGrabbedClient(client);
+        synchronized (this) {
+            removed = removeWaiters(clientName);
+            if ((client = getClientByName(clientName)) != null) {
+                removeGrabbedClient(client);
+            }
+            status  = getTokenStatus();
+            granted = grantWaiters();
+        }
+
+        if (client != null) {
             removeJoinedClient(client);
         }
         super.leave(message, session.getName(), TokenImpl.M_Token, clientName);
+
+        for (int i = 0; i < removed.size(); i++) {
+            removed.elementAt(i).finished(name,
+                                          JSDTException.NO_SUCH_CLIENT, status);
+        }
+        finishGrants(granted);
     }
 
 
@@ -562,7 +956,8 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
 
     protected void
     listHolderNames(Message message) {
-        int retval = 0;
+        String[] names  = grabbedClients.keySet().toArray(new String[0]);
+        int      retval = 0;
 
         if (TokenServer_Debug) {
             debug("TokenServer: listHolderNames:" +
@@ -574,10 +969,10 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
                                   message.sessionNo, message.id,
                                   message.type, message.action, false, true);
             message.thread.dataOut.writeInt(retval);
-            message.thread.dataOut.writeInt(grabbedClients.size());
+            message.thread.dataOut.writeInt(names.length);
 
-            for (Enumeration k = grabbedClients.keys(); k.hasMoreElements();) {
-                message.thread.dataOut.writeUTF((String) k.nextElement());
+            for (int i = 0; i < names.length; i++) {
+                message.thread.dataOut.writeUTF(names[i]);
             }
 
             message.thread.flush();
@@ -588,6 +983,34 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
     }
 
 
+/**
+ * <A NAME="SD_OVERTAKES"></A>
+ * <EM>overtakes</EM> checks to see if granting the token to the given
+ * waiter now would let it jump the grab queue. It never does if tokens
+ * aren't grabbed fairly, and the client a token is being given to is
+ * always allowed to take it. The caller must hold the lock on this token
+ * server.
+ *
+ * @param waiter the waiter for the client grabbing the token.
+ *
+ * @return true if granting the token to this waiter would be unfair.
+ */
+
+    private boolean
+    overtakes(TokenWaiter waiter) {
+        boolean fair = Util.getBooleanProperty("fairTokenGrabs",
+                                               fairTokenGrabs);
+
+        if (TokenServer_Debug) {
+            debug("TokenServer: overtakes:" +
+                  " waiter: " + waiter);
+        }
+
+        return(fair && waiters.size() != 0 &&
+               !waiter.client.equals(getReceivingClient()));
+    }
+
+
 /**
  * <A NAME="SD_RELEASE"></A>
  * <EM>release</EM>
@@ -597,10 +1020,12 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
 
     void
     release(Message message) {
-        DataInputStream  in         = message.thread.dataIn;
-        String           clientName = null;
-        int              retval     = 0;
-        Client           client;
+        DataInputStream     in         = message.thread.dataIn;
+        String              clientName = null;
+        Vector<TokenWaiter> granted    = null;
+        int                 retval     = 0;
+        int                 status;
+        Client              client;
 
         if (TokenServer_Debug) {
             debug("TokenServer: release:" +
@@ -613,40 +1038,47 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
             error("TokenServer: release: ", e);
         }
 
-        if ((client = getGrabbedClientByName(clientName)) == null) {
-            retval = JSDTException.CLIENT_NOT_GRABBING;
-        }
-
-        if (retval == 0) {
-            if (((ClientImpl) client).getCheck() != message.thread) {
-                retval = JSDTException.PERMISSION_DENIED;
+        synchronized (this) {
+            if ((client = getGrabbedClientByName(clientName)) == null) {
+                retval = JSDTException.CLIENT_NOT_GRABBING;
             }
-        }
 
-        if (retval == 0) {
-            if (!((SessionServer) session.so).validClient(client)) {
-                retval = JSDTException.NO_SUCH_CLIENT;
+            if (retval == 0) {
+                if (((ClientImpl) client).getCheck() != message.thread) {
+                    retval = JSDTException.PERMISSION_DENIED;
+                }
             }
-        }
 
-        if (retval == 0) {
-            if (getTokenExclusive()) {
-                if (removeGrabbedClient(client)) {
-                    setTokenStatus(Token.NOT_IN_USE);
-                } else {
-                    retval = JSDTException.CLIENT_NOT_RELEASED;
+            if (retval == 0) {
+                if (!((SessionServer) session.so).validClient(client)) {
+                    retval = JSDTException.NO_SUCH_CLIENT;
                 }
-            } else {
-                if (removeGrabbedClient(client)) {
-                    if (grabbedClientsSize() == 0) {
+            }
+
+            if (retval == 0) {
+                if (getTokenExclusive()) {
+                    if (removeGrabbedClient(client)) {
                         setTokenStatus(Token.NOT_IN_USE);
                     } else {
-                        setTokenStatus(Token.INHIBITED);
+                        retval = JSDTException.CLIENT_NOT_RELEASED;
                     }
                 } else {
-                    retval = JSDTException.CLIENT_NOT_RELEASED;
+                    if (removeGrabbedClient(client)) {
+                        if (grabbedClientsSize() == 0) {
+                            setTokenStatus(Token.NOT_IN_USE);
+                        } else {
+                            setTokenStatus(Token.INHIBITED);
+                        }
+                    } else {
+                        retval = JSDTException.CLIENT_NOT_RELEASED;
+                    }
                 }
             }
+            status = getTokenStatus();
+
+            if (retval == 0) {
+                granted = grantWaiters();
+            }
         }
 
         try {
@@ -654,7 +1086,7 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
                                 message.sessionNo, message.id,
                                 message.type, message.action, false, true);
             message.thread.dataOut.writeInt(retval);
-            message.thread.dataOut.writeInt(getTokenStatus());
+            message.thread.dataOut.writeInt(status);
             message.thread.flush();
             message.thread.finishMessage();
         } catch (IOException e) {
@@ -664,6 +1096,7 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
         if (retval == 0) {
             informListeners(session.getName(), clientName,
                             name, TokenEvent.RELEASED, message.type);
+            finishGrants(granted);
         }
     }
 
@@ -678,7 +1111,7 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
  * @return true if the client successfully removed; false otherwise.
  */
 
-    private boolean
+    private synchronized boolean
     removeGrabbedClient(Client client) {
         Object reply;
 
@@ -699,6 +1132,39 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
     }
 
 
+/**
+ * <A NAME="SD_REMOVEWAITERS"></A>
+ * <EM>removeWaiters</EM> take the given client off the grab queue. The
+ * caller must hold the lock on this token server.
+ *
+ * @param clientName the name of the client to be removed.
+ *
+ * @return the waiters that were removed.
+ */
+
+    private Vector<TokenWaiter>
+    removeWaiters(String clientName) {
+        Vector<TokenWaiter> removed = new Vector<>();
+
+        if (TokenServer_Debug) {
+            debug("TokenServer: removeWaiters:" +
+                  " client name: " + clientName);
+        }
+
+        for (Iterator<TokenWaiter> i = waiters.iterator(); i.hasNext();) {
+            TokenWaiter waiter = i.next();
+
+            if (waiter.isFor(clientName)) {
+                i.remove();
+                waiter.cancel();
+                removed.addElement(waiter);
+            }
+        }
+
+        return(removed);
+    }
+
+
 /**
  * <A NAME="SD_REMOVEJOINEDCLIENT"></A>
  * <EM>removeJoinedClient</EM> remove this token from the vector of token
@@ -838,7 +1304,7 @@ TokenServer extends ManageableServer implements AbstractTokenServer {
  * @param value
  */
 
-    void
+    synchronized void
     setTokenStatus(int value) {
         if (TokenServer_Debug) {
             debug("TokenServer: setTokenStatus:" +
@@ -0,0 +1,231 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.*;
+import com.sun.media.jsdt.impl.*;
+import java.io.IOException;
+
+/**
+ * JSDT token waiter class. One of these is created on the server-side for
+ * each Client asking to grab a Token. If the grab can't succeed straight
+ * away, the waiter is put on the token server's grab queue, and scheduled
+ * on the timer to take it off the queue again if the Client's timeout
+ * period passes before the token can be granted.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+TokenWaiter extends JSDTObject implements Runnable, socketDebugFlags {
+
+    // The token server whose grab queue this waiter is on.
+    private final TokenServer ts;
+
+    // The client waiting to grab the token.
+    final Client client;
+
+    // Indicates whether the client wants an exclusive grab.
+    final boolean exclusive;
+
+    // The connection to the client waiting to grab the token.
+    private final SocketThread thread;
+
+    // The session number of the client's grab request.
+    private final short sessionNo;
+
+    // The id of the client's grab request.
+    private final int id;
+
+    // The maximum time (in milliseconds) the client will wait.
+    private final long timeout;
+
+    // The timeout on the timer for this waiter (if it has been started).
+    private JSDTTimeout expiry = null;
+
+    // The status of the token after an attempt to grab it.
+    int status = 0;
+
+    // The type of token event to deliver if the grab succeeded.
+    int eventType = 0;
+
+    // The client who gave the token up to this one (if any).
+    Client givingClient = null;
+
+
+/**
+ * <A NAME="SD_TOKENWAITER"></A>
+ * <EM>TokenWaiter</EM> is the constructor for the TokenWaiter class.
+ *
+ * @param ts the token server the client is grabbing the token from.
+ * @param client the client grabbing the token.
+ * @param exclusive indicates whether the grab should be exclusive.
+ * @param message the client's grab request.
+ * @param timeout the maximum time the client will wait for the token, in
+ * milliseconds.
+ */
+
+    TokenWaiter(TokenServer ts, Client client, boolean exclusive,
+                Message message, long timeout) {
+        if (TokenWaiter_Debug) {
+            debug("TokenWaiter: constructor:" +
+                  " token server: " + ts +
+                  " client: "       + client +
+                  " exclusive: "    + exclusive +
+                  " message: "      + message +
+                  " timeout: "      + timeout);
+        }
+
+        this.ts        = ts;
+        this.client    = client;
+        this.exclusive = exclusive;
+        this.thread    = (SocketThread) message.thread;
+        this.sessionNo = message.sessionNo;
+        this.id        = message.id;
+        this.timeout   = timeout;
+    }
+
+
+/**
+ * <A NAME="SD_CANCEL"></A>
+ * <EM>cancel</EM> this waiter has been taken off the grab queue, so it no
+ * longer needs to be timed out.
+ */
+
+    void
+    cancel() {
+        if (TokenWaiter_Debug) {
+            debug("TokenWaiter: cancel.");
+        }
+
+        if (expiry != null) {
+            expiry.cancel();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_FINISHED"></A>
+ * <EM>finished</EM> send the result of the grab to the waiting client.
+ * This is sent as a message of its own, because the reply to the client's
+ * grab request went back when the client was put on the grab queue. If the
+ * client has gone away in the meantime, there is no-one left to tell.
+ *
+ * @param tokenName the name of the token being grabbed.
+ * @param retval the result of the grab (0 if it was successful).
+ * @param status the status of the token.
+ */
+
+    void
+    finished(String tokenName, int retval, int status) {
+        if (TokenWaiter_Debug) {
+            debug("TokenWaiter: finished:" +
+                  " token name: " + tokenName +
+                  " retval: "     + retval +
+                  " status: "     + status);
+        }
+
+        try {
+            thread.writeMessageHeader(thread.dataOut, sessionNo, id,
+                              TokenImpl.M_Token, T_TokenGranted, false, true);
+            thread.writeName(tokenName);
+            thread.writeName(client.getName());
+            thread.dataOut.writeInt(retval);
+            thread.dataOut.writeInt(status);
+            thread.flush();
+            thread.finishMessage();
+        } catch (IOException e) {
+            if (TokenWaiter_Debug) {
+                debug("TokenWaiter: finished: " + e);
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_ISFOR"></A>
+ * <EM>isFor</EM> checks to see if this waiter is for the given client.
+ *
+ * @param clientName the name of the client.
+ *
+ * @return true if this waiter is for the given client.
+ */
+
+    boolean
+    isFor(String clientName) {
+        if (TokenWaiter_Debug) {
+            debug("TokenWaiter: isFor:" +
+                  " client name: " + clientName);
+        }
+
+        return(client.getName().equals(clientName));
+    }
+
+
+/**
+ * <A NAME="SD_RUN"></A>
+ * <EM>run</EM> called by the timer once this waiter's timeout period has
+ * passed. If it is still on the grab queue, then take it off, and tell the
+ * client.
+ */
+
+    public void
+    run() {
+        if (TokenWaiter_Debug) {
+            debug("TokenWaiter: run.");
+        }
+
+        ts.expire(this);
+    }
+
+
+/**
+ * <A NAME="SD_START"></A>
+ * <EM>start</EM> this waiter has been put on the grab queue, so schedule
+ * it to be timed out. The caller must hold the lock on the token server.
+ */
+
+    void
+    start() {
+        if (TokenWaiter_Debug) {
+            debug("TokenWaiter: start.");
+        }
+
+        expiry = Util.getTimer().schedule(this, timeout);
+    }
+
+
+/**
+ * <A NAME="SD_TOSTRING"></A>
+ * <EM>toString</EM> print a short description of this TokenWaiter.
+ *
+ * @return a String containing a description of this TokenWaiter.
+ */
+
+    public String
+    toString() {
+        return("TokenWaiter:" +
+                " client: "    + client.getName() +
+                " exclusive: " + exclusive +
+                " timeout: "   + timeout + "\n");
+    }
+}
@@ -140,6 +140,9 @@ UDPChannelServerMessage extends JSDTMessage {
                     case T_Send:                           /* SEND. */
                         cs.send(message, channelName);
                         break;
+                    case T_SendBatch:                      /* SENDBATCH. */
+                        cs.sendBatch(message, channelName);
+                        break;
                     default:
                         error("UDPChannelServerMessage:" +
                               " parseProxyChannelMessage: ",
@@ -0,0 +1,151 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.impl.*;
+import java.util.Vector;
+
+/**
+ * JSDT UDP reassembly buffer class. One of these is created for each
+ * fragmented message that is being received on an unreliable channel. It
+ * holds the fragments received so far until the message is complete.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+final class
+UDPReassemblyBuffer extends JSDTObject implements socketDebugFlags {
+
+    // The total size (in bytes) of the message being reassembled.
+    final int totalSize;
+
+    // The time (in milliseconds) the first fragment was received.
+    final long startTime;
+
+    // The fragments received so far (indexed by fragment number).
+    private final byte[][] fragments;
+
+    // The number of fragments received so far.
+    private int received = 0;
+
+
+/**
+ * <A NAME="SD_UDPREASSEMBLYBUFFER"></A>
+ * <EM>UDPReassemblyBuffer</EM> is a constructor for the UDPReassemblyBuffer
+ * class.
+ *
+ * @param count the number of fragments the message was split into.
+ * @param totalSize the total size (in bytes) of the message.
+ */
+
+    UDPReassemblyBuffer(int count, int totalSize) {
+        if (UDPReassemblyBuffer_Debug) {
+            debug("UDPReassemblyBuffer: constructor:" +
+                  " count: "      + count +
+                  " total size: " + totalSize);
+        }
+
+        this.totalSize = totalSize;
+        fragments      = new byte[count][];
+        startTime      = System.currentTimeMillis();
+    }
+
+
+/**
+ * <A NAME="SD_ADDFRAGMENT"></A>
+ * <EM>addFragment</EM> adds the next fragment of this message. Duplicate
+ * fragments are ignored.
+ *
+ * @param index the fragment number.
+ * @param count the number of fragments the message was split into.
+ * @param data the fragment data.
+ *
+ * @return true if the fragment was valid for this message.
+ */
+
+    boolean
+    addFragment(int index, int count, byte[] data) {
+        if (UDPReassemblyBuffer_Debug) {
+            debug("UDPReassemblyBuffer: addFragment:" +
+                  " index: " + index +
+                  " count: " + count +
+                  " size: "  + data.length);
+        }
+
+        if (count != fragments.length || index >= count) {
+            return(false);
+        }
+
+        if (fragments[index] == null) {
+            fragments[index] = data;
+            received++;
+        }
+
+        return(true);
+    }
+
+
+/**
+ * <A NAME="SD_ISCOMPLETE"></A>
+ * <EM>isComplete</EM> checks whether all the fragments of this message
+ * have been received.
+ *
+ * @return true if the message is complete.
+ */
+
+    boolean
+    isComplete() {
+        if (UDPReassemblyBuffer_Debug) {
+            debug("UDPReassemblyBuffer: isComplete.");
+        }
+
+        return(received == fragments.length);
+    }
+
+
+/**
+ * <A NAME="SD_GETMESSAGE"></A>
+ * <EM>getMessage</EM> concatenates the fragments of this (complete)
+ * message.
+ *
+ * @return the reassembled message, or null if the fragments didn't add up
+ * to the expected size.
+ */
+
+    byte[]
+    getMessage() {
+        Vector<byte[]> v = new Vector<>(fragments.length);
+        byte[]         buf;
+
+        if (UDPReassemblyBuffer_Debug) {
+            debug("UDPReassemblyBuffer: getMessage.");
+        }
+
+        for (int i = 0; i < fragments.length; i++) {
+            v.addElement(fragments[i]);
+        }
+
+        buf = Util.DefragmentBuffer(v);
+
+        return((buf.length == totalSize) ? buf : null);
+    }
+}
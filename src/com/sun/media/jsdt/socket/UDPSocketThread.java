@@ -24,11 +24,12 @@ package com.sun.media.jsdt.socket;
 import com.sun.media.jsdt.impl.*;
 import java.net.*;
 import java.io.*;
+import java.util.*;
 
 /**
  * JSDT UDP socket thread class.
  *
- * @version     2.3 - 6th November 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -41,14 +42,45 @@ UDPSocketThread extends SocketThread {
     // The Internet address of the server.
     private InetAddress inetAddress = null;
 
-    // The datagram packet being processed.
+    // The datagram packet being processed (reused for every receive).
     protected DatagramPacket packet = null;
 
+    // The buffer that datagram packets are received into.
+    private byte[] receiveBuffer = null;
+
+    // The datagram packet used to send messages (reused for every send).
+    private DatagramPacket sendPacket = null;
+
+    // The maximum size (in bytes) of a datagram sent by this thread.
+    private int fragmentSize;
+
     // The byte array input stream associated with this thread.
     JSDTByteArrayInputStream in = null;
 
     // The byte array output stream associated with this thread.
-    private ByteArrayOutputStream out = null;
+    private JSDTByteArrayOutputStream out = null;
+
+    // The streams used to write the header of each fragment sent.
+    private JSDTByteArrayOutputStream fragmentOut = null;
+    private DataOutputStream          fragmentDataOut = null;
+
+    // The streams used to read the header of each fragment received.
+    private JSDTByteArrayInputStream  fragmentIn = null;
+    private DataInputStream           fragmentDataIn = null;
+
+    // The number of the last fragmented message sent by this thread.
+    private int messageNo = 0;
+
+    // The partially received fragmented messages, keyed by sender and
+    // message number.
+    private final Hashtable<String, UDPReassemblyBuffer> reassemblyBuffers =
+                                                        new Hashtable<>();
+
+    // The number of fragmented messages that have been reassembled.
+    private int reassembled = 0;
+
+    // The number of fragmented messages that were discarded incomplete.
+    private int incomplete = 0;
 
 
 /**
@@ -84,10 +116,7 @@ UDPSocketThread extends SocketThread {
         this.address = address;
         this.port    = port;
 
-        in      = new JSDTByteArrayInputStream();
-        dataIn  = new DataInputStream(in);
-        out     = new ByteArrayOutputStream();
-        dataOut = new DataOutputStream(new BufferedOutputStream(out));
+        initBuffers();
     }
 
 
@@ -122,10 +151,42 @@ UDPSocketThread extends SocketThread {
         this.address = inetAddress.getHostName();
         this.port    = port;
 
-        in      = new JSDTByteArrayInputStream();
-        dataIn  = new DataInputStream(in);
-        out     = new ByteArrayOutputStream();
-        dataOut = new DataOutputStream(new BufferedOutputStream(out));
+        initBuffers();
+    }
+
+
+/**
+ * <A NAME="SD_INITBUFFERS"></A>
+ * <EM>initBuffers</EM> creates the streams, buffers and datagram packets
+ * used by this thread. These are reused for every message sent and
+ * received, so that sending and receiving do not allocate once the
+ * buffers have grown to the size of the largest message.
+ */
+
+    private void
+    initBuffers() {
+        int size = Util.getIntProperty("udpFragmentSize", udpFragmentSize);
+
+        if (UDPSocketThread_Debug) {
+            debug("UDPSocketThread: initBuffers.");
+        }
+
+        fragmentSize    = (size > FRAGMENT_HDRSIZE) ? size : udpFragmentSize;
+        receiveBuffer   = new byte[Math.max(UDP_BUF_SIZE, fragmentSize)];
+        packet          = new DatagramPacket(receiveBuffer,
+                                             receiveBuffer.length);
+        sendPacket      = new DatagramPacket(new byte[0], 0,
+                                             inetAddress, port);
+
+        in              = new JSDTByteArrayInputStream();
+        dataIn          = new DataInputStream(in);
+        out             = new JSDTByteArrayOutputStream(UDP_BUF_SIZE);
+        dataOut         = new DataOutputStream(out);
+
+        fragmentOut     = new JSDTByteArrayOutputStream(fragmentSize);
+        fragmentDataOut = new DataOutputStream(fragmentOut);
+        fragmentIn      = new JSDTByteArrayInputStream();
+        fragmentDataIn  = new DataInputStream(fragmentIn);
     }
 
 
@@ -157,17 +218,237 @@ UDPSocketThread extends SocketThread {
         }
 
         try {
-            DatagramPacket dp;
-
             dataOut.flush();
-            dp = new DatagramPacket(out.toByteArray(), out.size(),
-                                    inetAddress, port);
-            dsock.send(dp);
-
-            out.reset();
+            if (out.size() > fragmentSize) {
+                sendFragments(out.getByteArray(), out.size());
+            } else {
+                sendPacket.setData(out.getByteArray(), 0, out.size());
+                dsock.send(sendPacket);
+            }
         } catch (IOException e) {
             error("UDPSocketThread: flush: ", e);
+        } finally {
+            out.reset();
+            releaseWriter();
+        }
+    }
+
+
+/**
+ * <A NAME="SD_SENDFRAGMENTS"></A>
+ * <EM>sendFragments</EM> sends a message that is too large for a single
+ * datagram as a series of fragments. Each fragment starts with a
+ * FRAGMENT_HDRSIZE byte header containing the T_Fragmented indicator, the
+ * message number, the total message size, the fragment number and the
+ * number of fragments.
+ *
+ * @param buf the buffer containing the message to send.
+ * @param length the length (in bytes) of the message.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    private void
+    sendFragments(byte[] buf, int length) throws IOException {
+        int maxData = fragmentSize - FRAGMENT_HDRSIZE;
+        int count   = (length + maxData - 1) / maxData;
+
+        if (UDPSocketThread_Debug) {
+            debug("UDPSocketThread: sendFragments:" +
+                  " length: " + length +
+                  " count: "  + count);
+        }
+
+        if (count > Character.MAX_VALUE) {
+            throw new IOException("message too large: " + length);
+        }
+
+        messageNo++;
+        for (int i = 0; i < count; i++) {
+            int off = i * maxData;
+
+            fragmentOut.reset();
+            fragmentDataOut.writeChar(T_Fragmented);
+            fragmentDataOut.writeInt(messageNo);
+            fragmentDataOut.writeInt(length);
+            fragmentDataOut.writeChar(i);
+            fragmentDataOut.writeChar(count);
+            fragmentDataOut.write(buf, off, Math.min(maxData, length - off));
+            sendPacket.setData(fragmentOut.getByteArray(), 0,
+                               fragmentOut.size());
+            dsock.send(sendPacket);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_REASSEMBLE"></A>
+ * <EM>reassemble</EM> adds a fragment to the reassembly buffer for its
+ * message. Buffers that have waited longer than the reassembly timeout
+ * are discarded, and if there are already the maximum number of buffers,
+ * the oldest one is discarded to make room for a new message.
+ *
+ * @param p the datagram packet containing the fragment.
+ *
+ * @return the reassembled message if this fragment completed it, otherwise
+ * null.
+ *
+ * @exception IOException if an IO exception has occured.
+ */
+
+    private byte[]
+    reassemble(DatagramPacket p) throws IOException {
+        UDPReassemblyBuffer rb;
+        String              key;
+        byte[]              data, buf;
+        int                 no, total, index, count;
+
+        if (UDPSocketThread_Debug) {
+            debug("UDPSocketThread: reassemble:" +
+                  " packet: " + p);
+        }
+
+        fragmentIn.setByteArray(p.getData(), p.getOffset(), p.getLength());
+        fragmentDataIn.readChar();
+        no    = fragmentDataIn.readInt();
+        total = fragmentDataIn.readInt();
+        index = fragmentDataIn.readChar();
+        count = fragmentDataIn.readChar();
+        data  = new byte[p.getLength() - FRAGMENT_HDRSIZE];
+        fragmentDataIn.readFully(data);
+
+        key = p.getAddress().getHostAddress() + ":" + p.getPort() + "/" + no;
+        expireReassemblyBuffers();
+        if ((rb = reassemblyBuffers.get(key)) == null) {
+            if (count == 0 || total < 0 ||
+                total > Util.getIntProperty("maxReassemblySize",
+                                            maxReassemblySize)) {
+                incomplete++;
+                return(null);
+            }
+
+            if (reassemblyBuffers.size() >=
+                Util.getIntProperty("maxReassemblyBuffers",
+                                    maxReassemblyBuffers)) {
+                removeOldestReassemblyBuffer();
+            }
+
+            rb = new UDPReassemblyBuffer(count, total);
+            reassemblyBuffers.put(key, rb);
+        }
+
+        if (!rb.addFragment(index, count, data)) {
+            reassemblyBuffers.remove(key);
+            incomplete++;
+            return(null);
+        }
+
+        if (!rb.isComplete()) {
+            return(null);
+        }
+
+        reassemblyBuffers.remove(key);
+        if ((buf = rb.getMessage()) == null) {
+            incomplete++;
+        } else {
+            reassembled++;
         }
+
+        return(buf);
+    }
+
+
+/**
+ * <A NAME="SD_EXPIREREASSEMBLYBUFFERS"></A>
+ * <EM>expireReassemblyBuffers</EM> discards the reassembly buffers that
+ * have waited longer than the reassembly timeout for their remaining
+ * fragments.
+ */
+
+    private void
+    expireReassemblyBuffers() {
+        long timeout = Util.getLongProperty("reassemblyTimeout",
+                                            reassemblyTimeout);
+        long now     = System.currentTimeMillis();
+
+        if (UDPSocketThread_Debug) {
+            debug("UDPSocketThread: expireReassemblyBuffers.");
+        }
+
+        for (Iterator<UDPReassemblyBuffer> i =
+                  reassemblyBuffers.values().iterator(); i.hasNext();) {
+            if (now - i.next().startTime > timeout) {
+                i.remove();
+                incomplete++;
+            }
+        }
+    }
+
+
+/**
+ * <A NAME="SD_REMOVEOLDESTREASSEMBLYBUFFER"></A>
+ * <EM>removeOldestReassemblyBuffer</EM> discards the reassembly buffer
+ * that has been waiting the longest for its remaining fragments.
+ */
+
+    private void
+    removeOldestReassemblyBuffer() {
+        String oldest     = null;
+        long   oldestTime = Long.MAX_VALUE;
+
+        if (UDPSocketThread_Debug) {
+            debug("UDPSocketThread: removeOldestReassemblyBuffer.");
+        }
+
+        for (Map.Entry<String, UDPReassemblyBuffer> e :
+                                            reassemblyBuffers.entrySet()) {
+            if (e.getValue().startTime < oldestTime) {
+                oldest     = e.getKey();
+                oldestTime = e.getValue().startTime;
+            }
+        }
+
+        if (oldest != null) {
+            reassemblyBuffers.remove(oldest);
+            incomplete++;
+        }
+    }
+
+
+/**
+ * <A NAME="SD_GETREASSEMBLED"></A>
+ * <EM>getReassembled</EM> gets the number of fragmented messages that have
+ * been reassembled by this thread.
+ *
+ * @return the number of reassembled messages.
+ */
+
+    final int
+    getReassembled() {
+        if (UDPSocketThread_Debug) {
+            debug("UDPSocketThread: getReassembled.");
+        }
+
+        return(reassembled);
+    }
+
+
+/**
+ * <A NAME="SD_GETINCOMPLETE"></A>
+ * <EM>getIncomplete</EM> gets the number of fragmented messages that were
+ * discarded by this thread before all their fragments arrived (because
+ * they timed out, had to make room for newer messages, or were invalid).
+ *
+ * @return the number of incomplete messages.
+ */
+
+    final int
+    getIncomplete() {
+        if (UDPSocketThread_Debug) {
+            debug("UDPSocketThread: getIncomplete.");
+        }
+
+        return(incomplete);
     }
 
 
@@ -180,20 +461,29 @@ UDPSocketThread extends SocketThread {
 
     public boolean
     getSocketMessage() throws IOException {
-        int size = UDP_BUF_SIZE;
 
         if (UDPSocketThread_Debug) {
             debug("UDPSocketThread: getSocketMessage.");
         }
 
         try {
-            packet = new DatagramPacket(new byte[size], size);
+            byte[] buf = null;
+            int    length = 0;
 
-            dsock.receive(packet);
+            while (buf == null) {
+                packet.setData(receiveBuffer, 0, receiveBuffer.length);
 
-            in.setByteArray(packet.getData(), 0, packet.getLength());
+                dsock.receive(packet);
 
-/* XXX: need to be able to handle data packets > UDP_BUF_SIZE. */
+                if (!isFragment(packet)) {
+                    buf    = packet.getData();
+                    length = packet.getLength();
+                } else if ((buf = reassemble(packet)) != null) {
+                    length = buf.length;
+                }
+            }
+
+            in.setByteArray(buf, 0, length);
 
             message.getMessageHeader(this);
         } catch (IOException ioe) {
@@ -206,6 +496,32 @@ UDPSocketThread extends SocketThread {
     }
 
 
+/**
+ * <A NAME="SD_ISFRAGMENT"></A>
+ * <EM>isFragment</EM> checks whether a datagram packet contains a fragment
+ * of a larger message.
+ *
+ * @param p the datagram packet to check.
+ *
+ * @return true if the packet starts with a fragment header.
+ */
+
+    private boolean
+    isFragment(DatagramPacket p) {
+        byte[] data   = p.getData();
+        int    offset = p.getOffset();
+
+        if (UDPSocketThread_Debug) {
+            debug("UDPSocketThread: isFragment:" +
+                  " packet: " + p);
+        }
+
+        return(p.getLength() > FRAGMENT_HDRSIZE &&
+               (char) (((data[offset] & 0xFF) << 8) +
+                        (data[offset + 1] & 0xFF)) == T_Fragmented);
+    }
+
+
 /**
  * <A NAME="SD_RUN"></A>
  * <EM>run</EM>
@@ -218,10 +534,6 @@ UDPSocketThread extends SocketThread {
         }
 
         while (true) {
-            int size = UDP_BUF_SIZE;
-
-            packet = new DatagramPacket(new byte[size], size);
-
             try {
                 if (!getSocketMessage()) {
                     break;
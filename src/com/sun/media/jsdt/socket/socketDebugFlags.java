@@ -32,6 +32,9 @@ interface socketDebugFlags {
 
     boolean AuthenticateClient_Debug        = false;
 
+    boolean BatchHistogram_Debug            = false;
+    boolean BroadcastFrame_Debug            = false;
+
     boolean ByteArrayProxy_Debug            = false;
     boolean ByteArrayServer_Debug           = false;
 
@@ -72,19 +75,39 @@ interface socketDebugFlags {
     boolean NamingProxyMessage_Debug        = false;
     boolean NamingProxyThread_Debug         = false;
 
+    boolean OutboundMessage_Debug           = false;
+    boolean OutboundQueue_Debug             = false;
+
+    boolean PendingGrab_Debug               = false;
+    boolean PendingRequest_Debug            = false;
+
     boolean ReceiveClient_Debug             = false;
 
+    boolean ReleaseGrant_Debug              = false;
+
     boolean Registry_Debug                  = false;
+    boolean RegistryBinding_Debug           = false;
     boolean RegistryClient_Debug            = false;
+    boolean RegistryEntry_Debug             = false;
     boolean RegistryMessage_Debug           = false;
     boolean RegistryServerMessage_Debug     = false;
     boolean RegistryServerThread_Debug      = false;
+    boolean RegistrySync_Debug              = false;
 
     boolean SameVMManagerProxyThread_Debug  = false;
     boolean SameVMSessionProxyThread_Debug  = false;
     boolean SameVMSessionServerThread_Debug = false;
     boolean SameVMThread_Debug              = false;
 
+    boolean SelectorConnection_Debug        = false;
+    boolean SelectorInputStream_Debug       = false;
+    boolean SelectorOutputStream_Debug      = false;
+    boolean SelectorSocketFactory_Debug     = false;
+    boolean SelectorThread_Debug            = false;
+
+    boolean SendCompletion_Debug            = false;
+    boolean SendWindow_Debug                = false;
+
     boolean ServerListenerThread_Debug      = false;
 
     boolean SessionProxy_Debug              = false;
@@ -101,12 +124,15 @@ interface socketDebugFlags {
     boolean TCPSocketThread_Debug           = false;
     boolean TokenProxy_Debug                = false;
     boolean TokenServer_Debug               = false;
+    boolean TokenWaiter_Debug               = false;
 
     boolean UDPChannelProxyThread_Debug     = false;
     boolean UDPChannelServerMessage_Debug   = false;
     boolean UDPChannelServerThread_Debug    = false;
+    boolean UDPReassemblyBuffer_Debug       = false;
     boolean UDPSocketThread_Debug           = false;
 
     boolean socketClient_Debug              = false;
+    boolean socketNode_Debug                = false;
     boolean socketSession_Debug             = false;
 }
@@ -0,0 +1,139 @@
+/*
+ *  Copyright (c) 1996-2005 Sun Microsystems, Inc.
+ *  All Rights Reserved.
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU Library General Public License as
+ *  published by the Free Software Foundation; either version 2, or (at
+ *  your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Library General Public
+ *  License along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ *  02111-1307, USA.
+ */
+
+package com.sun.media.jsdt.socket;
+
+import com.sun.media.jsdt.PortInUseException;
+import com.sun.media.jsdt.impl.*;
+import java.util.Hashtable;
+
+/**
+ * JSDT Socket Node class.
+ *
+ * A node is a socket server that holds some of the byte arrays, channels
+ * and tokens of a session whose server is elsewhere. It starts with no
+ * sessions; the session proxies that place objects on it ask it to create
+ * its part of their session when they first connect.
+ *
+ * @version     2.3 - 17th October 2026
+ * @author      Rich Burridge
+ */
+
+public class
+socketNode extends JSDTObject implements socketDebugFlags {
+
+    // The name of the session this node is part of.
+    String name;
+
+    // The url associated with this node.
+    String url;
+
+    // The port number this node is accepting connections on.
+    int port;
+
+
+/**
+ * <A NAME="SD_SOCKETNODE"></A>
+ * <EM>socketNode</EM> the constructor for the socketNode class.
+ * Note that the session name is supplied by _createServer.
+ */
+
+    public
+    socketNode() {
+        if (socketNode_Debug) {
+            debug("socketNode: constructor.");
+        }
+    }
+
+
+/**
+ * <A NAME="SD__CREATESERVER"></A>
+ * <EM>_createServer</EM> start the socket server for this node, if there
+ * isn't already one on this port, and keep it running even when it holds
+ * no sessions.
+ *
+ * @param name the name of the session this node is part of.
+ * @param url the url associated with this node.
+ * @param port the port number to accept connections on.
+ *
+ * @exception PortInUseException if this port is being used by another
+ * application.
+ */
+
+    final synchronized void
+    _createServer(String name, String url, int port)
+                throws PortInUseException {
+        if (socketNode_Debug) {
+            debug("socketNode: _createServer:" +
+                  " object name: " + name +
+                  " url: "         + url +
+                  " port: "        + port);
+        }
+
+        this.name = name;
+        this.url  = url;
+        this.port = port;
+
+        if (TCPSocketServer.socketServers == null) {
+            TCPSocketServer.socketServers = new Hashtable<>();
+        }
+
+        synchronized (TCPSocketServer.socketServers) {
+            Integer         portNo = port;
+            TCPSocketServer socketServer;
+
+            if ((socketServer =
+                TCPSocketServer.socketServers.get(portNo)) == null) {
+                socketServer = new TCPSocketServer(port);
+                TCPSocketServer.socketServers.put(portNo, socketServer);
+
+                socketServer.setThread(Util.startThread(socketServer,
+                                "TCPSocketServerThread:" + port, false));
+            }
+
+            socketServer.setNode(true);
+        }
+    }
+
+
+/**
+ * <A NAME="SD__DESTROYSERVER"></A>
+ * <EM>_destroyServer</EM> stop the node socket server on this port. It
+ * closes straight away if it holds no sessions, otherwise when the last
+ * of them is destroyed.
+ *
+ * @param port the port number of the node.
+ */
+
+    static void
+    _destroyServer(int port) {
+        TCPSocketServer socketServer;
+
+        if (socketNode_Debug) {
+            Debug("socketNode: _destroyServer:" +
+                  " port: " + port);
+        }
+
+        if (TCPSocketServer.socketServers != null &&
+            (socketServer = TCPSocketServer.socketServers.get(port)) != null) {
+            socketServer.setNode(false);
+        }
+    }
+}
@@ -23,11 +23,12 @@ package com.sun.media.jsdt.template;
 
 import com.sun.media.jsdt.*;
 import com.sun.media.jsdt.impl.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * JSDT Session proxy class.
  *
- * @version     2.3 - 30th September 2017
+ * @version     2.3 - 17th October 2026
  * @author      Rich Burridge
  */
 
@@ -375,4 +376,102 @@ ChannelProxy extends ManageableProxy implements AbstractChannelProxy {
                   " uniform: "          + uniform);
         }
     }
+
+
+/**
+ * <A NAME="SD_SEND"></A>
+ * <EM>send</EM> is used to send a batch of data to clients joined to the
+ * specified channel. A single message containing all the data is sent to
+ * the session server, which then sends the whole batch on to each of the
+ * appropriate receiving channel listeners.
+ *
+ * @param sendingClient the client sending the data.
+ * @param recipient who is going to receive this message. This can be all
+ * channel receipts (ChannelImpl.D_All), or all other channel recipients
+ * (ChannelImpl.D_Others) or just a single client (ChannelImpl.D_Client).
+ * @param receivingClientName the name of the client receiving the data, or
+ * null if we are sending this message to all (or all other) channel
+ * recipients.
+ * @param data the data being send over this channel.
+ * @param uniform set true if this is a uniform send.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if the channel given does not exist.
+ * @exception NoSuchClientException if the client given does not exist.
+ * @exception NoSuchConsumerException if this Client doesn't have a
+ * ChannelConsumer associated with it.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if you do not have permission for
+ * this operation.
+ * @exception TimedOutException if no reply was received for this operation
+ * in the given timeout period.
+ */
+
+    public void
+    send(Client sendingClient, char recipient, String receivingClientName,
+         Data[] data, boolean uniform)
+        throws ConnectionException, InvalidClientException,
+               NoSuchChannelException, NoSuchClientException,
+               NoSuchConsumerException, NoSuchSessionException,
+               PermissionDeniedException, TimedOutException {
+        if (ChannelProxy_Debug) {
+            debug("ChannelProxy: send:" +
+                  " sending client: "   + sendingClient +
+                  " recipient: "        + recipient +
+                  " receiving client: " + receivingClientName +
+                  " data items: "       + data.length +
+                  " uniform: "          + uniform);
+        }
+    }
+
+
+/**
+ * <A NAME="SD_SENDASYNC"></A>
+ * <EM>sendAsync</EM> is used to send data to clients joined to the
+ * specified channel, without waiting for the session server to handle it.
+ *
+ * @param sendingClient the client sending the data.
+ * @param recipient who is going to receive this message. This can be all
+ * channel receipts (ChannelImpl.D_All), or all other channel recipients
+ * (ChannelImpl.D_Others) or just a single client (ChannelImpl.D_Client).
+ * @param receivingClientName the name of the client receiving the data, or
+ * null if we are sending this message to all (or all other) channel
+ * recipients.
+ * @param data the data being send over this channel.
+ * @param uniform set true if this is a uniform send.
+ *
+ * @return a future that is completed when the server has handled the data.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchChannelException if the channel given does not exist.
+ * @exception NoSuchClientException if the client given does not exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if you do not have permission for
+ * this operation.
+ * @exception TimedOutException if there was no room for another
+ * asynchronous send in the timeout period.
+ */
+
+    public CompletableFuture<Void>
+    sendAsync(Client sendingClient, char recipient,
+              String receivingClientName, Data data, boolean uniform)
+        throws ConnectionException, InvalidClientException,
+               NoSuchChannelException, NoSuchClientException,
+               NoSuchSessionException, PermissionDeniedException,
+               TimedOutException {
+        if (ChannelProxy_Debug) {
+            debug("ChannelProxy: sendAsync:" +
+                  " sending client: "   + sendingClient +
+                  " recipient: "        + recipient +
+                  " receiving client: " + receivingClientName +
+                  " data: "             + data +
+                  " uniform: "          + uniform);
+        }
+
+        return(CompletableFuture.completedFuture(null));
+    }
 }
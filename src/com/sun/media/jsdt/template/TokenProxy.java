@@ -176,6 +176,50 @@ TokenProxy extends ManageableProxy implements AbstractTokenProxy {
     }
 
 
+/**
+ * <A NAME="SD_GRAB"></A>
+ * used by a Client to take exclusive (grab) or non-exclusive (inhibit)
+ * control of a specific Token, waiting for it if it can't be had straight
+ * away.
+ *
+ * @param client the Client grabbing/inhibiting this Token.
+ * @param exclusive indicates whether the grab should be exclusive.
+ * @param timeout the maximum time to wait for the Token, in milliseconds.
+ *
+ * @exception ConnectionException if a connection error occured.
+ * @exception InvalidClientException if the Client is invalid is some way (ie.
+ * its getName() method returns null).
+ * @exception NoSuchTokenException if this Token doesn't exist.
+ * @exception NoSuchClientException if this Client doesn't exist.
+ * @exception NoSuchSessionException if this Session doesn't exist.
+ * @exception PermissionDeniedException if this Client does not have
+ * permission to perform this operation, or is already waiting for this
+ * Token.
+ * @exception TimedOutException if the grab didn't succeed in the given
+ * timeout period.
+ *
+ * @return the status of the token.
+ */
+
+    public int
+    grab(Client client, boolean exclusive, long timeout)
+        throws ConnectionException, InvalidClientException,
+               NoSuchTokenException, NoSuchClientException,
+               NoSuchSessionException, PermissionDeniedException,
+               TimedOutException {
+        int status = 0;
+
+        if (TokenProxy_Debug) {
+            debug("TokenProxy: grab:" +
+                  " client: "    + client  +
+                  " exclusive: " + exclusive +
+                  " timeout: "   + timeout);
+        }
+
+        return(status);
+    }
+
+
 /**
  * <A NAME="SD_LISTHOLDERNAMES"></A>
  * list the names of the Clients who are currently holding (grabbing or